@@ -1,6 +1,10 @@
 package de.falkzilm;
 
+import de.falkzilm.cmds.BundleCmd;
+import de.falkzilm.cmds.CacheCmd;
 import de.falkzilm.cmds.CreateCmd;
+import de.falkzilm.cmds.StoreCmd;
+import de.falkzilm.cmds.WarmCmd;
 import de.falkzilm.gen.EngineFactory;
 import de.falkzilm.helper.ConsoleFormatter;
 import io.quarkus.picocli.runtime.annotations.TopCommand;
@@ -10,7 +14,7 @@ import picocli.CommandLine;
 @TopCommand
 @CommandLine.Command(
     name = "qboot", 
-    subcommands = {CreateCmd.class}, 
+    subcommands = {CreateCmd.class, WarmCmd.class, BundleCmd.class, StoreCmd.class, CacheCmd.class}, 
     description = "Bootstrap projects from templates - A CLI tool for rapid project creation",
     mixinStandardHelpOptions = true,
     version = "qBoot ${quarkus.application.version:dev}"
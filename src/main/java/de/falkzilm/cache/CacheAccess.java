@@ -0,0 +1,201 @@
+package de.falkzilm.cache;
+
+import de.falkzilm.helper.OsUtils;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Access to cache entries shared by concurrent qBoot processes, e.g. parallel CI agents on one host.
+ * <p>
+ * Entries are locked with a {@link FileChannel} lock on a hidden {@code .<name>.lock} file next to
+ * them; threads of this process queue up on a matching in-process lock first, because file locks
+ * are held per process. Whoever builds a missing entry does so under its lock and checks for the
+ * entry again once it holds the lock, so only one process builds it while the others wait and
+ * then reuse it. {@link #writeAtomically} replaces files by renaming a complete temporary file
+ * into place, so readers never see a torn write.
+ * <p>
+ * Lock files of removed entries are deleted by the holder of the lock ({@link Lock#discard}).
+ * Whoever waited on the deleted file notices that its lock no longer guards the path and locks the
+ * file that is there now instead.
+ */
+public final class CacheAccess {
+
+    private static final Map<Path, ReentrantLock> LOCAL_LOCKS = new ConcurrentHashMap<>();
+    private static final SecureRandom RANDOM = new SecureRandom();
+    private static final String LOCK_SUFFIX = ".lock";
+
+    private CacheAccess() {
+    }
+
+    @FunctionalInterface
+    public interface IOCallable<T> {
+        T call() throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface WriterAction {
+        void write(Writer writer) throws IOException;
+    }
+
+    /** Exclusive lock on an entry, held by one thread of one process; reentrant within the thread. */
+    public static final class Lock implements AutoCloseable {
+        private final ReentrantLock local;
+        private final Path lockFile;
+        private final FileChannel channel;
+        private final FileLock fileLock;
+        private boolean discard;
+
+        private Lock(ReentrantLock local, Path lockFile, FileChannel channel, FileLock fileLock) {
+            this.local = local;
+            this.lockFile = lockFile;
+            this.channel = channel;
+            this.fileLock = fileLock;
+        }
+
+        /** Deletes the lock file on release, once the entry it guards was removed. */
+        public void discard() {
+            discard = true;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                if (fileLock != null) {
+                    if (discard && !OsUtils.isWindows()) {
+                        // Windows cannot delete a file that is open, and does not need to
+                        Files.deleteIfExists(lockFile);
+                    }
+                    fileLock.release();
+                    channel.close();
+                }
+            } finally {
+                local.unlock();
+            }
+        }
+    }
+
+    /** Blocks until the entry {@code name} in {@code dir} is locked for this thread. */
+    public static Lock lock(Path dir, String name) throws IOException {
+        Path lockFile = lockFileFor(dir, name);
+        ReentrantLock local = LOCAL_LOCKS.computeIfAbsent(lockFile, ignored -> new ReentrantLock());
+        try {
+            local.lockInterruptibly();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for " + lockFile);
+        }
+        return acquire(local, lockFile, true).orElseThrow();
+    }
+
+    /** Locks the entry if no other thread or process holds it. */
+    public static Optional<Lock> tryLock(Path dir, String name) throws IOException {
+        Path lockFile = lockFileFor(dir, name);
+        ReentrantLock local = LOCAL_LOCKS.computeIfAbsent(lockFile, ignored -> new ReentrantLock());
+        if (!local.tryLock()) {
+            return Optional.empty();
+        }
+        return acquire(local, lockFile, false);
+    }
+
+    public static <T> T locked(Path dir, String name, IOCallable<T> action) throws IOException {
+        try (Lock ignored = lock(dir, name)) {
+            return action.call();
+        }
+    }
+
+    /** Writes {@code target} through a temporary sibling that is renamed into place. */
+    public static void writeAtomically(Path target, WriterAction action) throws IOException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path staging = Files.createTempFile(dir, "." + target.getFileName(), ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(staging)) {
+                action.write(writer);
+            }
+            Files.move(staging, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(staging);
+        }
+    }
+
+    static Path lockFileFor(Path dir, String name) {
+        return dir.resolve("." + name + LOCK_SUFFIX).toAbsolutePath().normalize();
+    }
+
+    /** The entry name {@code fileName} is the lock file of, if it is one. */
+    static Optional<String> lockedName(String fileName) {
+        if (fileName.length() <= LOCK_SUFFIX.length() + 1 || !fileName.startsWith(".") || !fileName.endsWith(LOCK_SUFFIX)) {
+            return Optional.empty();
+        }
+        return Optional.of(fileName.substring(1, fileName.length() - LOCK_SUFFIX.length()));
+    }
+
+    private static Optional<Lock> acquire(ReentrantLock local, Path lockFile, boolean wait) throws IOException {
+        if (local.getHoldCount() > 1) {
+            // this thread holds the file lock already
+            return Optional.of(new Lock(local, lockFile, null, null));
+        }
+        FileChannel channel = null;
+        try {
+            while (true) {
+                Files.createDirectories(lockFile.getParent());
+                channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                FileLock fileLock = wait ? channel.lock() : channel.tryLock();
+                if (fileLock == null) {
+                    channel.close();
+                    local.unlock();
+                    return Optional.empty();
+                }
+                if (guards(channel, lockFile)) {
+                    return Optional.of(new Lock(local, lockFile, channel, fileLock));
+                }
+                // the file was discarded while this thread waited for it, lock the current one
+                fileLock.release();
+                channel.close();
+                channel = null;
+            }
+        } catch (IOException | RuntimeException e) {
+            if (channel != null) {
+                channel.close();
+            }
+            local.unlock();
+            throw e;
+        }
+    }
+
+    /**
+     * Whether the locked {@code channel} is still the file at {@code lockFile}: a fresh token
+     * written through the channel must be what the path reads.
+     */
+    private static boolean guards(FileChannel channel, Path lockFile) throws IOException {
+        if (OsUtils.isWindows()) {
+            // open files cannot be deleted, and locked regions cannot be read from another handle
+            return true;
+        }
+        byte[] token = new byte[16];
+        RANDOM.nextBytes(token);
+        channel.truncate(0);
+        channel.write(ByteBuffer.wrap(token), 0);
+        try {
+            return Arrays.equals(token, Files.readAllBytes(lockFile));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package de.falkzilm.cache;
+
+import de.falkzilm.template.TemplateCache;
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the on-disk caches of qBoot within their byte budgets.
+ * <p>
+ * Every cache {@link Area} is a directory below the cache root whose children are the entries;
+ * a {@code .meta} file belongs to the entry of the same name without the suffix. The caches report
+ * hits, misses and stores here; access times and hit counts are kept in {@code cache-index.properties}
+ * and decide which entries {@link #prune()} evicts first once an area or the whole cache is over
+ * budget. Budgets are configured with {@code qboot.cache.<area>.max-bytes} and
+ * {@code qboot.cache.max-bytes}, the policy with {@code qboot.cache.eviction} ({@code lru} or
+ * {@code lfu}).
+ * <p>
+ * Below the local cache there can be a read-only shared layer with the same layout
+ * ({@code qboot.cache.shared-dir}), e.g. on NFS or baked into a CI image. Entries missing locally
+ * are {@link #promote promoted} from it before they are fetched or generated. The shared layer is
+ * never pruned.
+ */
+public class CacheManager {
+
+    public static final String INDEX_FILE = "cache-index.properties";
+
+    private static final long MB = 1024L * 1024L;
+    private static final String META_SUFFIX = ".meta";
+    /** Partial download of an entry, see {@code DownloadManager}; it belongs to the entry and shares its lock. */
+    private static final String PART_SUFFIX = ".part";
+    private static final String RUN = "run.";
+    private static final String TOTAL = "total.";
+
+    private static volatile CacheManager shared;
+
+    public enum Area {
+        TEMPLATES(64 * MB),
+        BUNDLES(512 * MB),
+        ARCHIVES(512 * MB),
+        STEPS(512 * MB),
+        SNAPSHOTS(4096 * MB);
+
+        private final long defaultBudget;
+
+        Area(long defaultBudget) {
+            this.defaultBudget = defaultBudget;
+        }
+
+        public String dirName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    public enum Eviction { LRU, LFU }
+
+    /** Where {@link #promote} found an entry. */
+    public enum Lookup { LOCAL, PROMOTED, MISSING }
+
+    public record Entry(Area area, String name, long bytes, long lastAccess, long hits) {
+    }
+
+    public record Counters(long hits, long misses, long evictions) {
+
+        Counters plus(Counters other) {
+            return new Counters(hits + other.hits, misses + other.misses, evictions + other.evictions);
+        }
+
+        static Counters parse(String value) {
+            if (value == null) {
+                return new Counters(0, 0, 0);
+            }
+            String[] parts = value.split(",");
+            return new Counters(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+        }
+
+        String format() {
+            return hits + "," + misses + "," + evictions;
+        }
+    }
+
+    public record AreaStats(Area area, int entries, long bytes, long budget, Counters run, Counters total) {
+    }
+
+    public record PruneResult(int evicted, long reclaimedBytes) {
+    }
+
+    private final Path root;
+    private final Path sharedRoot;
+    private final Map<Area, Long> budgets;
+    private final long globalBudget;
+    private final Eviction eviction;
+    private final Map<String, long[]> accesses = new LinkedHashMap<>();
+    private final Set<String> evictedKeys = new HashSet<>();
+    private final Map<Area, long[]> counters = new EnumMap<>(Area.class);
+    private final Map<Area, Counters> saved = new EnumMap<>(Area.class);
+
+    public CacheManager(Path root, Map<Area, Long> budgets, long globalBudget, Eviction eviction) {
+        this(root, null, budgets, globalBudget, eviction);
+    }
+
+    public CacheManager(Path root, Path sharedRoot, Map<Area, Long> budgets, long globalBudget, Eviction eviction) {
+        this.root = root;
+        this.sharedRoot = sharedRoot;
+        this.budgets = budgets;
+        this.globalBudget = globalBudget;
+        this.eviction = eviction;
+        for (Area area : Area.values()) {
+            counters.put(area, new long[3]);
+            saved.put(area, new Counters(0, 0, 0));
+        }
+    }
+
+    /** The manager of the default cache directory, configured from the application config. */
+    public static CacheManager shared() {
+        if (shared == null) {
+            synchronized (CacheManager.class) {
+                if (shared == null) {
+                    shared = configured(TemplateCache.systemDefault().getCacheDir());
+                }
+            }
+        }
+        return shared;
+    }
+
+    static CacheManager configured(Path root) {
+        Map<Area, Long> budgets = new EnumMap<>(Area.class);
+        for (Area area : Area.values()) {
+            budgets.put(area, setting("qboot.cache." + area.dirName() + ".max-bytes", Long.class).orElse(area.defaultBudget));
+        }
+        long global = setting("qboot.cache.max-bytes", Long.class).orElse(5120 * MB);
+        Eviction eviction = setting("qboot.cache.eviction", String.class)
+                .map(value -> Eviction.valueOf(value.toUpperCase(Locale.ROOT)))
+                .orElse(Eviction.LRU);
+        Path sharedRoot = setting("qboot.cache.shared-dir", String.class).map(Path::of).orElse(null);
+        return new CacheManager(root, sharedRoot, budgets, global, eviction);
+    }
+
+    private static <T> Optional<T> setting(String key, Class<T> type) {
+        try {
+            return ConfigProvider.getConfig().getOptionalValue(key, type);
+        } catch (RuntimeException ignored) {
+            // no config available (plain unit tests), defaults apply
+            return Optional.empty();
+        }
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public Path dir(Area area) {
+        return root.resolve(area.dirName());
+    }
+
+    /** The read-only shared layer, if one is configured with {@code qboot.cache.shared-dir}. */
+    public Optional<Path> getSharedRoot() {
+        return Optional.ofNullable(sharedRoot);
+    }
+
+    /**
+     * Makes sure {@code entry} is in {@code localDir}, the local directory of {@code area}: if it
+     * is missing there but present in the shared layer, it is promoted into the local cache with
+     * reflinks or hardlinks where the file systems allow, or copied otherwise.
+     */
+    public Lookup promote(Area area, Path localDir, String entry) throws IOException {
+        Path local = localDir.resolve(entry);
+        if (Files.exists(local)) {
+            return Lookup.LOCAL;
+        }
+        if (sharedRoot == null) {
+            return Lookup.MISSING;
+        }
+        Path shared = sharedRoot.resolve(area.dirName()).resolve(entry);
+        if (!Files.exists(shared)) {
+            return Lookup.MISSING;
+        }
+        return CacheAccess.locked(localDir, entry, () -> {
+            if (Files.exists(local)) {
+                return Lookup.LOCAL;
+            }
+            TreeCopier copier = TreeCopier.immutableTrees();
+            Path staging = localDir.resolve(".promote-" + entry);
+            try {
+                delete(staging);
+                copier.copy(shared, staging);
+                Files.move(staging, local, StandardCopyOption.ATOMIC_MOVE);
+                Path sharedMeta = shared.resolveSibling(entry + META_SUFFIX);
+                if (Files.isRegularFile(sharedMeta)) {
+                    copier.copy(sharedMeta, staging);
+                    Files.move(staging, localDir.resolve(entry + META_SUFFIX), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                }
+            } finally {
+                delete(staging);
+            }
+            stored(area, entry);
+            return Lookup.PROMOTED;
+        });
+    }
+
+    public synchronized void hit(Area area, String entry) {
+        counters.get(area)[0]++;
+        touch(area, entry, true);
+    }
+
+    public synchronized void miss(Area area) {
+        counters.get(area)[1]++;
+    }
+
+    public synchronized void stored(Area area, String entry) {
+        touch(area, entry, false);
+    }
+
+    /** Hits, misses and evictions of this run. */
+    public synchronized Counters runCounters(Area area) {
+        long[] values = counters.get(area);
+        return new Counters(values[0], values[1], values[2]);
+    }
+
+    public List<Entry> entries() throws IOException {
+        Properties index = load();
+        List<Entry> entries = new ArrayList<>();
+        for (Area area : Area.values()) {
+            Path dir = dir(area);
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            // name -> bytes, last modified
+            Map<String, long[]> found = new LinkedHashMap<>();
+            try (Stream<Path> children = Files.list(dir)) {
+                for (Path child : children.toList()) {
+                    String fileName = child.getFileName().toString();
+                    if (fileName.startsWith(".")) {
+                        // staging area of an entry that is being stored
+                        continue;
+                    }
+                    long[] entry = found.computeIfAbsent(entryName(fileName), ignored -> new long[2]);
+                    entry[0] += size(child);
+                    entry[1] = Math.max(entry[1], Files.getLastModifiedTime(child).toMillis());
+                }
+            }
+            for (Map.Entry<String, long[]> entry : found.entrySet()) {
+                long[] access = access(index, area, entry.getKey());
+                long lastAccess = access[0] != 0 ? access[0] : entry.getValue()[1];
+                entries.add(new Entry(area, entry.getKey(), entry.getValue()[0], lastAccess, access[1]));
+            }
+        }
+        return entries;
+    }
+
+    public List<AreaStats> stats() throws IOException {
+        Properties index = load();
+        List<Entry> entries = entries();
+        List<AreaStats> stats = new ArrayList<>();
+        for (Area area : Area.values()) {
+            List<Entry> inArea = entries.stream().filter(entry -> entry.area() == area).toList();
+            stats.add(new AreaStats(area, inArea.size(), inArea.stream().mapToLong(Entry::bytes).sum(), budgets.get(area),
+                    Counters.parse(index.getProperty(RUN + area.dirName())),
+                    Counters.parse(index.getProperty(TOTAL + area.dirName()))));
+        }
+        return stats;
+    }
+
+    public long globalBudget() {
+        return globalBudget;
+    }
+
+    /** Evicts entries until every area and the whole cache are within their budgets. */
+    public PruneResult prune() throws IOException {
+        Comparator<Entry> order = eviction == Eviction.LFU
+                ? Comparator.comparingLong(Entry::hits).thenComparingLong(Entry::lastAccess)
+                : Comparator.comparingLong(Entry::lastAccess);
+        List<Entry> candidates = new ArrayList<>(entries());
+        candidates.sort(order);
+
+        Map<Area, Long> used = new EnumMap<>(Area.class);
+        long total = 0;
+        for (Entry entry : candidates) {
+            used.merge(entry.area(), entry.bytes(), Long::sum);
+            total += entry.bytes();
+        }
+        int evicted = 0;
+        long reclaimed = 0;
+        for (Entry entry : candidates) {
+            boolean areaOver = used.getOrDefault(entry.area(), 0L) > budgets.get(entry.area());
+            if (!areaOver && total <= globalBudget) {
+                continue;
+            }
+            if (!evict(entry)) {
+                continue;
+            }
+            used.merge(entry.area(), -entry.bytes(), Long::sum);
+            total -= entry.bytes();
+            evicted++;
+            reclaimed += entry.bytes();
+        }
+        discardStaleLocks();
+        return new PruneResult(evicted, reclaimed);
+    }
+
+    /** Removes all entries of all areas. */
+    public PruneResult clear() throws IOException {
+        int evicted = 0;
+        long reclaimed = 0;
+        for (Entry entry : entries()) {
+            if (evict(entry)) {
+                evicted++;
+                reclaimed += entry.bytes();
+            }
+        }
+        discardStaleLocks();
+        return new PruneResult(evicted, reclaimed);
+    }
+
+    /** Writes access times and the counters of this run to the index. */
+    public synchronized void save() throws IOException {
+        CacheAccess.locked(root, "cache-index", () -> {
+            Properties index = load();
+            evictedKeys.forEach(index::remove);
+            accesses.forEach((key, access) -> {
+                long[] previous = parseAccess(index.getProperty(key));
+                index.setProperty(key, access[0] + "," + (previous[1] + access[1]));
+            });
+            // maintenance commands neither hit nor miss and keep the counters of the last generation run
+            boolean generationRun = counters.values().stream().anyMatch(values -> values[0] + values[1] > 0);
+            for (Area area : Area.values()) {
+                Counters run = runCounters(area);
+                if (generationRun) {
+                    index.setProperty(RUN + area.dirName(), run.format());
+                }
+                Counters unsaved = new Counters(run.hits() - saved.get(area).hits(), run.misses() - saved.get(area).misses(),
+                        run.evictions() - saved.get(area).evictions());
+                index.setProperty(TOTAL + area.dirName(), Counters.parse(index.getProperty(TOTAL + area.dirName())).plus(unsaved).format());
+                saved.put(area, run);
+            }
+            CacheAccess.writeAtomically(root.resolve(INDEX_FILE),
+                    writer -> index.store(writer, "qBoot cache index: last access millis, hits"));
+            return null;
+        });
+        accesses.clear();
+        evictedKeys.clear();
+    }
+
+    private void touch(Area area, String entry, boolean hit) {
+        long[] access = accesses.computeIfAbsent(key(area, entry), ignored -> new long[2]);
+        access[0] = System.currentTimeMillis();
+        if (hit) {
+            access[1]++;
+        }
+    }
+
+    /** Deletes the lock files of entries that no longer exist, unless a run holds them to build the entry. */
+    private void discardStaleLocks() throws IOException {
+        for (Area area : Area.values()) {
+            Path dir = dir(area);
+            if (!Files.isDirectory(dir)) {
+                continue;
+            }
+            List<String> locked;
+            try (Stream<Path> children = Files.list(dir)) {
+                locked = children.map(child -> CacheAccess.lockedName(child.getFileName().toString()))
+                        .flatMap(Optional::stream)
+                        .toList();
+            }
+            for (String name : locked) {
+                if (exists(dir, name)) {
+                    continue;
+                }
+                Optional<CacheAccess.Lock> lock = CacheAccess.tryLock(dir, name);
+                if (lock.isPresent()) {
+                    try (CacheAccess.Lock held = lock.get()) {
+                        if (!exists(dir, name)) {
+                            held.discard();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean exists(Path dir, String name) {
+        return Files.exists(dir.resolve(name)) || Files.exists(dir.resolve(name + META_SUFFIX))
+                || Files.exists(dir.resolve(name + PART_SUFFIX));
+    }
+
+    /** Removes the entry unless a run holds it right now, e.g. to restore from it. */
+    private synchronized boolean evict(Entry entry) throws IOException {
+        Path dir = dir(entry.area());
+        Optional<CacheAccess.Lock> lock = CacheAccess.tryLock(dir, entry.name());
+        if (lock.isEmpty()) {
+            return false;
+        }
+        try (CacheAccess.Lock held = lock.get()) {
+            delete(dir.resolve(entry.name()));
+            delete(dir.resolve(entry.name() + META_SUFFIX));
+            delete(dir.resolve(entry.name() + PART_SUFFIX));
+            delete(dir.resolve(entry.name() + PART_SUFFIX + META_SUFFIX));
+            held.discard();
+        }
+        accesses.remove(key(entry.area(), entry.name()));
+        evictedKeys.add(key(entry.area(), entry.name()));
+        counters.get(entry.area())[2]++;
+        return true;
+    }
+
+    private long[] access(Properties index, Area area, String entry) {
+        long[] stored = parseAccess(index.getProperty(key(area, entry)));
+        long[] pending;
+        synchronized (this) {
+            pending = accesses.get(key(area, entry));
+        }
+        if (pending != null) {
+            stored = new long[]{pending[0], stored[1] + pending[1]};
+        }
+        return stored;
+    }
+
+    private static long[] parseAccess(String value) {
+        if (value == null) {
+            return new long[2];
+        }
+        String[] parts = value.split(",");
+        return new long[]{Long.parseLong(parts[0]), parts.length > 1 ? Long.parseLong(parts[1]) : 0};
+    }
+
+    private static String key(Area area, String entry) {
+        return area.dirName() + "/" + entry;
+    }
+
+    /** The entry a file belongs to: itself, or the entry its meta or partial download file is for. */
+    static String entryName(String fileName) {
+        String name = strip(fileName, META_SUFFIX);
+        return strip(name, PART_SUFFIX);
+    }
+
+    private static String strip(String name, String suffix) {
+        return name.endsWith(suffix) ? name.substring(0, name.length() - suffix.length()) : name;
+    }
+
+    private Properties load() throws IOException {
+        Properties index = new Properties();
+        Path file = root.resolve(INDEX_FILE);
+        if (Files.isRegularFile(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                index.load(reader);
+            }
+        }
+        return index;
+    }
+
+    private static long size(Path path) throws IOException {
+        if (!Files.isDirectory(path)) {
+            return Files.size(path);
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            long size = 0;
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                size += Files.size(file);
+            }
+            return size;
+        }
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package de.falkzilm.cache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Content-addressed store for files of generated projects.
+ * <p>
+ * A file put into the store is kept once as a blob named after its SHA-256 (and executable bit)
+ * and replaced in the project by a reflink to the blob. Without reflink support only immutable
+ * files (wrappers, binary assets) are shared, as read-only hardlinks, since editing a hardlink in
+ * place would change every project sharing it. Every materialised path is recorded next to its
+ * blob, so {@link #gc()} can remove blobs no project file refers to any more.
+ * <p>
+ * All changes to the store happen under an exclusive {@link CacheAccess} lock, which also keeps
+ * concurrent qBoot processes apart.
+ */
+public class ContentStore {
+
+    private static final String BLOBS = "blobs";
+    private static final String REFS = "refs";
+    private static final String EXECUTABLE_SUFFIX = "-x";
+    private static final Set<String> WRAPPERS = Set.of("mvnw", "mvnw.cmd", "gradlew", "gradlew.bat");
+    private static final Set<String> BINARY_EXTENSIONS = Set.of(
+            "jar", "png", "jpg", "jpeg", "gif", "ico", "webp", "woff", "woff2", "ttf", "eot", "otf", "pdf");
+
+    private final Path root;
+
+    public record GcResult(int blobs, int removed, long reclaimedBytes) {
+    }
+
+    public record Deduplicated(int files, int shared) {
+    }
+
+    public ContentStore(Path root) {
+        this.root = root;
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Puts every file below {@code dir} into the store, except for dependency directories such as
+     * {@code node_modules} and {@code .git}.
+     */
+    public Deduplicated putTree(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return new Deduplicated(0, 0);
+        }
+        List<Path> files;
+        try (Stream<Path> walk = Files.walk(dir)) {
+            files = walk.filter(file -> Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS))
+                    .filter(file -> !excluded(dir.relativize(file)))
+                    .toList();
+        }
+        int shared = 0;
+        for (Path file : files) {
+            if (put(file, immutable(dir.relativize(file))) != TreeCopier.Method.COPY) {
+                shared++;
+            }
+        }
+        return new Deduplicated(files.size(), shared);
+    }
+
+    /**
+     * Moves the content of {@code file} into the store and links {@code file} to it. Files that
+     * are not {@code immutable} are only shared through reflinks. Returns how the file is shared
+     * now; {@link TreeCopier.Method#COPY} means it stays a separate copy.
+     */
+    public TreeCopier.Method put(Path file, boolean immutable) throws IOException {
+        if (!Files.isRegularFile(file, LinkOption.NOFOLLOW_LINKS)) {
+            return TreeCopier.Method.COPY;
+        }
+        Files.createDirectories(root);
+        if (!immutable && !TreeCopier.reflinkSupported(root)) {
+            return TreeCopier.Method.COPY;
+        }
+        Path absolute = file.toAbsolutePath().normalize();
+        String name = hash(absolute) + (Files.isExecutable(absolute) ? EXECUTABLE_SUFFIX : "");
+        return CacheAccess.locked(root, "store", () -> {
+            Path blob = blobFor(name);
+            if (!Files.exists(blob)) {
+                Files.createDirectories(blob.getParent());
+                Path staging = Files.createTempFile(blob.getParent(), ".blob-", "");
+                Files.copy(absolute, staging, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                Files.move(staging, blob, StandardCopyOption.ATOMIC_MOVE);
+            }
+            if (Files.isSameFile(blob, absolute)) {
+                return TreeCopier.Method.HARDLINK;
+            }
+            TreeCopier.Method method = link(blob, absolute, immutable);
+            if (method != TreeCopier.Method.COPY) {
+                Path refs = refsFor(name);
+                Files.createDirectories(refs.getParent());
+                Files.writeString(refs, absolute + System.lineSeparator(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            return method;
+        });
+    }
+
+    /** Removes blobs that no recorded project file shares any more. */
+    public GcResult gc() throws IOException {
+        return CacheAccess.locked(root, "store", () -> {
+            Path blobs = root.resolve(BLOBS);
+            if (!Files.isDirectory(blobs)) {
+                return new GcResult(0, 0, 0);
+            }
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(blobs)) {
+                files = walk.filter(Files::isRegularFile).toList();
+            }
+            int removed = 0;
+            long reclaimed = 0;
+            for (Path blob : files) {
+                String name = blob.getFileName().toString();
+                if (name.startsWith(".blob-")) {
+                    // staging file of an interrupted put
+                    reclaimed += Files.size(blob);
+                    Files.deleteIfExists(blob);
+                    continue;
+                }
+                Path refs = refsFor(name);
+                Set<String> live = new LinkedHashSet<>();
+                if (Files.isRegularFile(refs)) {
+                    for (String line : Files.readAllLines(refs)) {
+                        if (!line.isBlank() && shares(blob, name, Path.of(line))) {
+                            live.add(line);
+                        }
+                    }
+                }
+                if (live.isEmpty()) {
+                    reclaimed += Files.size(blob);
+                    blob.toFile().setWritable(true);
+                    Files.deleteIfExists(blob);
+                    Files.deleteIfExists(refs);
+                    removed++;
+                } else {
+                    Files.write(refs, live);
+                }
+            }
+            return new GcResult(files.size(), removed, reclaimed);
+        });
+    }
+
+    private TreeCopier.Method link(Path blob, Path file, boolean immutable) throws IOException {
+        Path replacement = file.resolveSibling(".qboot-link-" + file.getFileName());
+        try {
+            TreeCopier.Method method;
+            if (TreeCopier.cloneFile(blob, replacement)) {
+                method = TreeCopier.Method.REFLINK;
+            } else if (immutable) {
+                try {
+                    Files.deleteIfExists(replacement);
+                    Files.createLink(replacement, blob);
+                    blob.toFile().setWritable(false, false);
+                    method = TreeCopier.Method.HARDLINK;
+                } catch (IOException | UnsupportedOperationException e) {
+                    // store on another file system, the file keeps its own copy
+                    return TreeCopier.Method.COPY;
+                }
+            } else {
+                return TreeCopier.Method.COPY;
+            }
+            Files.move(replacement, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return method;
+        } finally {
+            Files.deleteIfExists(replacement);
+        }
+    }
+
+    /** Files that tools and editors do not change in generated projects. */
+    public static boolean immutable(Path relative) {
+        String name = relative.getFileName().toString();
+        String path = relative.toString().replace('\\', '/');
+        int dot = name.lastIndexOf('.');
+        return WRAPPERS.contains(name)
+                || path.contains(".mvn/wrapper/")
+                || path.contains("gradle/wrapper/")
+                || (dot > 0 && BINARY_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT)));
+    }
+
+    private static boolean excluded(Path relative) {
+        for (Path segment : relative) {
+            if (TreeCopier.IMMUTABLE_DIRS.contains(segment.toString()) || ".git".equals(segment.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean shares(Path blob, String name, Path file) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        if (Files.isSameFile(blob, file)) {
+            return true;
+        }
+        // reflinks are separate files, still sharing the blob while the content is unchanged
+        return Files.size(blob) == Files.size(file) && name.startsWith(hash(file));
+    }
+
+    private Path blobFor(String name) {
+        return root.resolve(BLOBS).resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    private Path refsFor(String name) {
+        return root.resolve(REFS).resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    static String hash(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            for (int read; (read = in.read(buffer)) > 0; ) {
+                digest.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package de.falkzilm.cache;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.MalformedInputException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Golden snapshots of generated workspaces after their post dependencies were installed.
+ * <p>
+ * A snapshot is keyed by everything that shapes the tree except project name and package (framework,
+ * version, CLI arguments, dependencies, tool versions). Files that mention the identifiers of the
+ * project (name, package and whatever the engine derives from them, such as a main class) as whole
+ * tokens are listed in the snapshot's manifest; restoring for a different identity re-renders just
+ * those tokens in those files and paths, while the rest of the tree is cloned by the
+ * {@link TreeCopier}. Identities that cannot be rendered into each other are not restored.
+ * <p>
+ * Snapshots are always stored as real copies or reflinks, so later changes to the project do not
+ * leak into the cache; only a restore may hardlink immutable files.
+ */
+public class SnapshotCache {
+
+    private static final String TREE = "tree";
+    private static final String MANIFEST = "snapshot.properties";
+    private static final long MAX_RENDERED_SIZE = 1024 * 1024;
+    /** Shorter names are too likely to appear by accident to be replaced safely. */
+    private static final int MIN_RENDERABLE_LENGTH = 3;
+    /** Characters that continue an identifier, so a token must not be next to one. */
+    private static final String IDENTIFIER_CHAR = "[\\p{Alnum}_$]";
+    private static final TreeCopier STORE_COPIER = TreeCopier.independentCopies();
+
+    private final Path cacheDir;
+    private final TreeCopier copier;
+
+    /**
+     * Project name and package, plus the identifiers an engine derives from them, in an order that
+     * is the same for every project of the engine.
+     */
+    public record Identity(String name, String packageName, List<String> derived) {
+
+        public Identity {
+            name = name == null ? "" : name;
+            packageName = packageName == null ? "" : packageName;
+            derived = derived == null ? List.of() : List.copyOf(derived);
+        }
+
+        public Identity(String name, String packageName) {
+            this(name, packageName, List.of());
+        }
+
+        String packagePath() {
+            return packageName.replace('.', '/');
+        }
+
+        List<String> identifiers() {
+            List<String> identifiers = new ArrayList<>(List.of(packageName, packagePath(), name));
+            identifiers.addAll(derived);
+            return identifiers;
+        }
+    }
+
+    public record Restored(TreeCopier.Method method, int rendered) {
+    }
+
+    public SnapshotCache(Path cacheDir, TreeCopier copier) {
+        this.cacheDir = cacheDir;
+        this.copier = copier;
+    }
+
+    /**
+     * Restores the snapshot for {@code key} into {@code projectDir}, re-rendered for {@code identity}.
+     * Empty if there is no usable snapshot or the project directory already has content.
+     */
+    public Optional<Restored> restore(String key, Path projectDir, Identity identity) throws IOException {
+        Path entry = cacheDir.resolve(key);
+        Path tree = entry.resolve(TREE);
+        if (!Files.isDirectory(tree) || hasContent(projectDir)) {
+            return Optional.empty();
+        }
+        Properties manifest = load(entry.resolve(MANIFEST));
+        Identity original = new Identity(manifest.getProperty("name"), manifest.getProperty("package"),
+                split(manifest.getProperty("derived", "")).toList());
+        if (original.equals(identity)) {
+            return Optional.of(new Restored(copier.copy(tree, projectDir), 0));
+        }
+        Optional<Map<String, String>> renames = renames(original, identity);
+        if (renames.isEmpty()) {
+            return Optional.empty();
+        }
+        UnaryOperator<String> render = renderer(renames.get());
+
+        Set<Path> rendered = split(manifest.getProperty("rendered", ""))
+                .map(Path::of)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        UnaryOperator<Path> map = relative -> underImmutableDir(relative)
+                ? relative
+                : Path.of(render.apply(relative.toString().replace('\\', '/')));
+        TreeCopier.Method method = copier.copy(tree, projectDir, map, rendered);
+        for (Path relative : rendered) {
+            Path target = projectDir.resolve(map.apply(relative).toString());
+            Files.createDirectories(target.getParent());
+            Files.writeString(target, render.apply(Files.readString(tree.resolve(relative.toString()))));
+        }
+        return Optional.of(new Restored(method, rendered.size()));
+    }
+
+    /** Stores {@code projectDir} as the snapshot for {@code key}, unless one exists already. */
+    public void store(String key, Path projectDir, Identity identity) throws IOException {
+        Path entry = cacheDir.resolve(key);
+        if (Files.isDirectory(entry) || !hasContent(projectDir)) {
+            return;
+        }
+        Files.createDirectories(cacheDir);
+        Path staging = Files.createTempDirectory(cacheDir, ".staging-");
+        try {
+            STORE_COPIER.copy(projectDir, staging.resolve(TREE));
+
+            Properties manifest = new Properties();
+            manifest.setProperty("name", identity.name());
+            manifest.setProperty("package", identity.packageName());
+            manifest.setProperty("derived", String.join(",", identity.derived()));
+            manifest.setProperty("rendered", renderedFiles(staging.resolve(TREE), identity).stream()
+                    .map(Path::toString)
+                    .collect(Collectors.joining(",")));
+            try (Writer writer = Files.newBufferedWriter(staging.resolve(MANIFEST))) {
+                manifest.store(writer, "qBoot workspace snapshot");
+            }
+            Files.move(staging, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            // stored concurrently by another run with the same key
+        } finally {
+            delete(staging);
+        }
+    }
+
+    /** Text files outside immutable directories whose path or content mentions an identifier of the project. */
+    static Set<Path> renderedFiles(Path tree, Identity identity) throws IOException {
+        Set<Path> rendered = new LinkedHashSet<>();
+        List<String> identifiers = identity.identifiers().stream().filter(SnapshotCache::present).toList();
+        if (identifiers.isEmpty()) {
+            return rendered;
+        }
+        Pattern mentions = tokens(identifiers);
+        try (Stream<Path> walk = Files.walk(tree)) {
+            for (Path file : walk.filter(Files::isRegularFile).toList()) {
+                Path relative = tree.relativize(file);
+                if (underImmutableDir(relative) || Files.size(file) > MAX_RENDERED_SIZE) {
+                    continue;
+                }
+                if (mentions.matcher(relative.toString().replace('\\', '/')).find()) {
+                    rendered.add(relative);
+                    continue;
+                }
+                try {
+                    if (mentions.matcher(Files.readString(file, StandardCharsets.UTF_8)).find()) {
+                        rendered.add(relative);
+                    }
+                } catch (MalformedInputException e) {
+                    // binary file, copied as is
+                }
+            }
+        }
+        return rendered;
+    }
+
+    /**
+     * The identifiers of {@code from} that change, mapped to those of {@code to}. Empty if the two
+     * cannot be rendered into each other: a different set of derived identifiers, an identifier
+     * too short to replace safely, or one that would have to become two different ones.
+     */
+    static Optional<Map<String, String>> renames(Identity from, Identity to) {
+        List<String> original = from.identifiers();
+        List<String> wanted = to.identifiers();
+        if (original.size() != wanted.size()) {
+            return Optional.empty();
+        }
+        Map<String, String> renames = new HashMap<>();
+        for (int i = 0; i < original.size(); i++) {
+            String identifier = original.get(i);
+            String replacement = wanted.get(i);
+            if (!renderable(identifier, replacement)) {
+                return Optional.empty();
+            }
+            if (present(identifier) && !replacement.equals(renames.getOrDefault(identifier, replacement))) {
+                return Optional.empty();
+            }
+            if (present(identifier)) {
+                renames.put(identifier, replacement);
+            }
+        }
+        renames.entrySet().removeIf(rename -> rename.getKey().equals(rename.getValue()));
+        return Optional.of(renames);
+    }
+
+    /** Replaces every whole-token occurrence of a key of {@code renames} with its value, in one pass. */
+    static UnaryOperator<String> renderer(Map<String, String> renames) {
+        if (renames.isEmpty()) {
+            return UnaryOperator.identity();
+        }
+        Pattern tokens = tokens(renames.keySet());
+        return text -> tokens.matcher(text).replaceAll(match -> Matcher.quoteReplacement(renames.get(match.group())));
+    }
+
+    /** Matches any of {@code identifiers} not preceded or followed by another identifier character, longest first. */
+    private static Pattern tokens(Collection<String> identifiers) {
+        String alternatives = identifiers.stream()
+                .distinct()
+                .sorted(Comparator.comparingInt(String::length).reversed())
+                .map(Pattern::quote)
+                .collect(Collectors.joining("|"));
+        return Pattern.compile("(?<!" + IDENTIFIER_CHAR + ")(?:" + alternatives + ")(?!" + IDENTIFIER_CHAR + ")");
+    }
+
+    private static boolean renderable(String original, String wanted) {
+        if (original.equals(wanted)) {
+            return true;
+        }
+        return present(original) && present(wanted) && original.length() >= MIN_RENDERABLE_LENGTH;
+    }
+
+    private static Stream<String> split(String list) {
+        return Arrays.stream(list.split(",")).filter(item -> !item.isBlank());
+    }
+
+    private static boolean present(String value) {
+        return !value.isEmpty();
+    }
+
+    private static boolean underImmutableDir(Path relative) {
+        for (Path segment : relative) {
+            if (TreeCopier.IMMUTABLE_DIRS.contains(segment.toString()) || ".git".equals(segment.toString())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasContent(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return false;
+        }
+        try (Stream<Path> children = Files.list(dir)) {
+            return children.findAny().isPresent();
+        }
+    }
+
+    private static Properties load(Path file) throws IOException {
+        Properties properties = new Properties();
+        if (Files.isRegularFile(file)) {
+            try (Reader reader = Files.newBufferedReader(file)) {
+                properties.load(reader);
+            }
+        }
+        return properties;
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
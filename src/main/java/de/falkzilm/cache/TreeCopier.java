@@ -0,0 +1,234 @@
+package de.falkzilm.cache;
+
+import de.falkzilm.exec.ResourceClass;
+import de.falkzilm.exec.RunWrapper;
+import de.falkzilm.helper.OsUtils;
+import org.apache.commons.exec.CommandLine;
+
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Copies directory trees as cheaply as the file system allows.
+ * <p>
+ * On Linux and macOS a whole tree is cloned with {@code cp} and copy-on-write reflinks (FICLONE,
+ * clonefile) when the file system supports them. Otherwise files below immutable directories such
+ * as {@code node_modules} are hardlinked, and everything else is copied in parallel. Hardlinked files
+ * share their content with the source, so they must not be edited in place.
+ */
+public class TreeCopier {
+
+    public enum Method { REFLINK, HARDLINK, COPY }
+
+    public static final Set<String> IMMUTABLE_DIRS = Set.of("node_modules");
+
+    private static final int PARALLEL_COPIES = 8;
+    private static final Map<FileStore, Boolean> REFLINK_SUPPORT = new ConcurrentHashMap<>();
+
+    private final Predicate<Path> immutable;
+
+    public TreeCopier() {
+        this(IMMUTABLE_DIRS);
+    }
+
+    public TreeCopier(Set<String> immutableDirs) {
+        this(relative -> {
+            for (Path segment : relative) {
+                if (immutableDirs.contains(segment.toString())) {
+                    return true;
+                }
+            }
+            return false;
+        });
+    }
+
+    private TreeCopier(Predicate<Path> immutable) {
+        this.immutable = immutable;
+    }
+
+    /** A copier that never hardlinks, for copies whose source may still be changed in place. */
+    public static TreeCopier independentCopies() {
+        return new TreeCopier(relative -> false);
+    }
+
+    /** A copier for trees that are never changed in place, such as cache entries: all files may be hardlinked. */
+    public static TreeCopier immutableTrees() {
+        return new TreeCopier(relative -> true);
+    }
+
+    /**
+     * Copies {@code source}, a directory or a single file, to {@code target} unchanged and returns
+     * the cheapest method used.
+     */
+    public Method copy(Path source, Path target) throws IOException {
+        if (reflinkSupported(source.toAbsolutePath().getParent())) {
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            boolean cloned = Files.isDirectory(source) ? cloneTree(source, target) : reflink(source, target);
+            if (cloned) {
+                return Method.REFLINK;
+            }
+        }
+        return copy(source, target, UnaryOperator.identity(), Set.of());
+    }
+
+    /**
+     * Copies {@code source} to {@code target}, placing every file at {@code map(relative path)} and
+     * leaving out {@code skip}ped relative paths, which the caller writes itself.
+     */
+    public Method copy(Path source, Path target, UnaryOperator<Path> map, Set<Path> skip) throws IOException {
+        if (!Files.isDirectory(source)) {
+            return transfer(source, target, immutable.test(source.getFileName())) ? Method.HARDLINK : Method.COPY;
+        }
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> walk = Files.walk(source)) {
+            for (Path file : walk.toList()) {
+                Path relative = source.relativize(file);
+                if (skip.contains(relative)) {
+                    continue;
+                }
+                // symbolic links, also to directories, are copied as links
+                if (Files.isDirectory(file, LinkOption.NOFOLLOW_LINKS)) {
+                    Files.createDirectories(target.resolve(map.apply(relative).toString()));
+                } else {
+                    files.add(relative);
+                }
+            }
+        }
+
+        boolean linked = false;
+        Semaphore permits = new Semaphore(PARALLEL_COPIES);
+        List<Future<Boolean>> copies = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Path relative : files) {
+                Path from = source.resolve(relative);
+                Path to = target.resolve(map.apply(relative).toString());
+                copies.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return transfer(from, to, immutable.test(relative));
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<Boolean> copy : copies) {
+                linked |= copy.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Copy of " + source + " interrupted", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+        }
+        return linked ? Method.HARDLINK : Method.COPY;
+    }
+
+    /** Hardlinks immutable files where possible; returns whether a link was created. */
+    private static boolean transfer(Path from, Path to, boolean immutable) throws IOException {
+        Files.createDirectories(to.getParent());
+        if (immutable && !Files.isSymbolicLink(from)) {
+            try {
+                Files.deleteIfExists(to);
+                Files.createLink(to, from);
+                return true;
+            } catch (IOException | UnsupportedOperationException e) {
+                // other file system or no link support, copy instead
+            }
+        }
+        Files.copy(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES, LinkOption.NOFOLLOW_LINKS);
+        return false;
+    }
+
+    private static boolean cloneTree(Path source, Path target) throws IOException {
+        Files.createDirectories(target);
+        List<String> command = OsUtils.isMac()
+                ? List.of("cp", "-c", "-R", source + "/", target.toString())
+                : List.of("cp", "-a", "--reflink=always", source + "/.", target.toString());
+        return run(command);
+    }
+
+    /** Tries one reflink per file system of {@code dir}; the answer is remembered. */
+    static boolean reflinkSupported(Path dir) {
+        if (OsUtils.isWindows()) {
+            return false;
+        }
+        try {
+            FileStore store = Files.getFileStore(dir);
+            return REFLINK_SUPPORT.computeIfAbsent(store, ignored -> probeReflink(dir));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean probeReflink(Path dir) {
+        Path probe = null;
+        Path clone = dir.resolve(".reflink-probe-" + ProcessHandle.current().pid());
+        try {
+            probe = Files.createTempFile(dir, ".reflink-probe", "");
+            Files.writeString(probe, "qboot");
+            return reflink(probe, clone);
+        } catch (IOException e) {
+            return false;
+        } finally {
+            try {
+                if (probe != null) {
+                    Files.deleteIfExists(probe);
+                }
+                Files.deleteIfExists(clone);
+            } catch (IOException ignored) {
+                // leftovers of the probe are harmless
+            }
+        }
+    }
+
+    /**
+     * Clones a single file in process, without starting a {@code cp}: on a file system with reflink
+     * support {@link Files#copy} clones the file (FICLONE on Linux, clonefile on macOS) instead of
+     * copying its data. False, without copying, if the target's file system cannot clone or is not
+     * the one of the source. The clone gets the permissions of the source, made writable.
+     */
+    static boolean cloneFile(Path source, Path target) throws IOException {
+        Path targetDir = target.toAbsolutePath().getParent();
+        if (!reflinkSupported(targetDir) || !Files.getFileStore(source).equals(Files.getFileStore(targetDir))) {
+            return false;
+        }
+        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        target.toFile().setWritable(true);
+        return true;
+    }
+
+    /** Clones a single file with copy-on-write; false if the file system cannot. */
+    static boolean reflink(Path source, Path target) {
+        return OsUtils.isMac()
+                ? run(List.of("cp", "-c", source.toString(), target.toString()))
+                : run(List.of("cp", "--reflink=always", source.toString(), target.toString()));
+    }
+
+    private static boolean run(List<String> command) {
+        CommandLine cmd = new CommandLine(command.get(0));
+        command.subList(1, command.size()).forEach(argument -> cmd.addArgument(argument, false));
+        return RunWrapper.builder()
+                .cmd(cmd)
+                .resource(ResourceClass.DISK)
+                .step("clone tree")
+                .build()
+                .run(Path.of("."), false) == 0;
+    }
+}
@@ -0,0 +1,70 @@
+package de.falkzilm.cmds;
+
+import de.falkzilm.helper.ConsoleFormatter;
+import de.falkzilm.template.TemplateBundle;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+@CommandLine.Command(name = "bundle", description = "Pack a template directory into a distributable .qboot bundle")
+public class BundleCmd implements Runnable {
+
+    @CommandLine.Option(
+        names = {"-s", "--source"},
+        description = "Template directory containing the descriptor and its asset files",
+        required = true
+    )
+    private String sourceDir;
+
+    @CommandLine.Option(
+        names = {"-t", "--template"},
+        description = "Template descriptor, relative to the source directory",
+        defaultValue = TemplateBundle.DESCRIPTOR_ENTRY
+    )
+    private String descriptor;
+
+    @CommandLine.Option(names = {"-o", "--output"}, description = "Bundle file to write (default: <source>.qboot)")
+    private String output;
+
+    @CommandLine.Option(names= {"-h", "--help"}, usageHelp = true, description="Print help usage")
+    boolean help;
+
+    @Override
+    public void run() {
+        long startTime = System.nanoTime();
+        Path source = Path.of(sourceDir);
+        Path descriptorPath = source.resolve(descriptor);
+        Path target = output != null
+                ? Path.of(output)
+                : source.toAbsolutePath().normalize().resolveSibling(source.toAbsolutePath().normalize().getFileName() + TemplateBundle.EXTENSION);
+
+        try {
+            if (!Files.isDirectory(source)) {
+                throw new IOException("Template directory not found: " + sourceDir);
+            }
+            if (!Files.isRegularFile(descriptorPath)) {
+                throw new IOException("Template descriptor not found: " + descriptorPath);
+            }
+
+            ConsoleFormatter.section("Bundling template");
+            ConsoleFormatter.bullet("Descriptor: " + descriptorPath);
+            int assets = TemplateBundle.write(source, descriptorPath, target);
+            ConsoleFormatter.bullet("Assets    : " + assets);
+            ConsoleFormatter.bullet("Size      : " + Files.size(target) + " bytes");
+            ConsoleFormatter.bullet("Took      : " + ConsoleFormatter.humanTime(Duration.ofNanos(System.nanoTime() - startTime)));
+            System.out.println();
+            ConsoleFormatter.success("Bundle written to " + target);
+        } catch (IOException exc) {
+            ConsoleFormatter.error(
+                "Bundle Error",
+                "Could not write bundle: " + exc.getMessage(),
+                exc,
+                "Check that the template directory and descriptor exist",
+                "Make sure the output path is writeable"
+            );
+        }
+    }
+}
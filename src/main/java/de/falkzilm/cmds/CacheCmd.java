@@ -0,0 +1,76 @@
+package de.falkzilm.cmds;
+
+import de.falkzilm.cache.CacheManager;
+import de.falkzilm.helper.ConsoleFormatter;
+import picocli.CommandLine;
+
+import java.io.IOException;
+
+@CommandLine.Command(name = "cache", description = "Show and trim the caches of templates, bundles, archives, generation steps and snapshots")
+public class CacheCmd implements Runnable {
+
+    @CommandLine.Option(names= {"-h", "--help"}, usageHelp = true, description="Print help usage")
+    boolean help;
+
+    @Override
+    public void run() {
+        CommandLine.usage(this, System.out);
+    }
+
+    @CommandLine.Command(name = "stats", description = "Show size, budget and hit rates per cache")
+    void stats() {
+        CacheManager caches = CacheManager.shared();
+        try {
+            ConsoleFormatter.section("Caches in " + caches.getRoot());
+            long total = 0;
+            for (CacheManager.AreaStats area : caches.stats()) {
+                total += area.bytes();
+                ConsoleFormatter.bullet(area.area().dirName() + ": " + area.entries() + " entries, "
+                        + ConsoleFormatter.humanBytes(area.bytes()) + " of " + ConsoleFormatter.humanBytes(area.budget()));
+                ConsoleFormatter.subbullet("Last run: " + counters(area.run()));
+                ConsoleFormatter.subbullet("Total   : " + counters(area.total()));
+            }
+            ConsoleFormatter.bullet("Total: " + ConsoleFormatter.humanBytes(total) + " of " + ConsoleFormatter.humanBytes(caches.globalBudget()));
+        } catch (IOException exc) {
+            fail("read", exc);
+        }
+    }
+
+    @CommandLine.Command(name = "prune", description = "Evict least recently used entries until all caches are within budget")
+    void prune() {
+        try {
+            report("pruned", CacheManager.shared().prune());
+        } catch (IOException exc) {
+            fail("prune", exc);
+        }
+    }
+
+    @CommandLine.Command(name = "clear", description = "Remove all cache entries")
+    void clear() {
+        try {
+            report("cleared", CacheManager.shared().clear());
+        } catch (IOException exc) {
+            fail("clear", exc);
+        }
+    }
+
+    private static void report(String action, CacheManager.PruneResult result) throws IOException {
+        CacheManager.shared().save();
+        ConsoleFormatter.success("Caches " + action + ": " + result.evicted() + " entries, "
+                + ConsoleFormatter.humanBytes(result.reclaimedBytes()) + " reclaimed");
+    }
+
+    private static String counters(CacheManager.Counters counters) {
+        return counters.hits() + " hits, " + counters.misses() + " misses, " + counters.evictions() + " evictions";
+    }
+
+    private static void fail(String action, IOException exc) {
+        ConsoleFormatter.error(
+            "Cache Error",
+            "Could not " + action + " caches: " + exc.getMessage(),
+            exc,
+            "Make sure the cache directory is writeable",
+            "Check that no other qboot process is removing the same entries"
+        );
+    }
+}
@@ -1,30 +1,77 @@
 package de.falkzilm.cmds;
 
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import de.falkzilm.cache.CacheAccess;
+import de.falkzilm.cache.CacheManager;
+import de.falkzilm.cache.ContentStore;
+import de.falkzilm.cache.SnapshotCache;
+import de.falkzilm.cache.TreeCopier;
+import de.falkzilm.exec.MavenDaemon;
+import de.falkzilm.exec.ResourceClass;
+import de.falkzilm.exec.StepHistory;
+import de.falkzilm.exec.StepScheduler;
+import de.falkzilm.exec.TaskScope;
+import de.falkzilm.exec.ToolProbe;
 import de.falkzilm.gen.ChangesetHandler;
 import de.falkzilm.gen.EngineFactory;
 import de.falkzilm.gen.GenParameters;
+import de.falkzilm.gen.GenerationJournal;
+import de.falkzilm.gen.GenerationEngine;
+import de.falkzilm.gen.PrerequisiteException;
+import de.falkzilm.gen.StepRunner;
+import de.falkzilm.gen.node.PackageManager;
 import de.falkzilm.helper.ConsoleFormatter;
+import de.falkzilm.helper.GroupedConsole;
+import de.falkzilm.helper.OsUtils;
+import de.falkzilm.net.HttpService;
+import de.falkzilm.net.OfflineException;
+import de.falkzilm.template.Dependency;
+import de.falkzilm.template.General;
 import de.falkzilm.template.QTemplate;
+import de.falkzilm.template.TemplateBundle;
+import de.falkzilm.template.TemplateCache;
 import de.falkzilm.template.TemplateService;
 import de.falkzilm.template.Workspace;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import picocli.CommandLine;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.LongSupplier;
 
 @CommandLine.Command(name = "create", description = "Bootstrap a new project")
-public class CreateCmd implements Runnable {
+public class CreateCmd implements Callable<Integer> {
+
+    static final int EXIT_OK = 0;
+    static final int EXIT_GENERATION = 1;
+    static final int EXIT_PREREQUISITE = 3;
+    static final int EXIT_TEMPLATE = 4;
+    static final int EXIT_OFFLINE = 5;
 
     @CommandLine.Option(
         names = {"-t", "--template"}, 
-        description = "Template to use for project generation. Can be a local file path or HTTP/HTTPS URL", 
+        description = "Template to use for project generation. Can be a local file path or HTTP/HTTPS URL, pointing to an XML template or a .qboot bundle", 
         required = true
     )
     private String template;
 
+    @CommandLine.Option(
+        names = {"-m", "--mirror"},
+        description = "Alternative URL serving the same template; repeatable. The fastest mirror is used and slow answers are hedged"
+    )
+    private List<String> mirrors = new ArrayList<>();
+
     @CommandLine.Option(names = {"-p", "--package"}, description = "Package name for the generated project")
     private String packageName;
 
@@ -37,6 +84,18 @@ public class CreateCmd implements Runnable {
     @CommandLine.Option(names = {"-o", "--output"}, description = "Target directory to create bootstrap in", defaultValue = ".")
     private String destinationDir;
 
+    @CommandLine.Option(
+        names = {"--resume"},
+        description = "Skip phases an earlier run into the same output directory completed with unchanged inputs (see " + GenerationJournal.FILE_NAME + ")"
+    )
+    private boolean resume;
+
+    @CommandLine.Option(
+        names = {"--offline"},
+        description = "Work from the local caches only (see qboot warm) and fail fast if something is not cached"
+    )
+    private boolean offline;
+
     @CommandLine.Option(names = {"-d", "--debug"}, description = "Verbose/debug output")
     private boolean debug;
 
@@ -49,12 +108,57 @@ public class CreateCmd implements Runnable {
     @Inject
     EngineFactory factory;
 
+    @Inject
+    HttpService http;
+
+    @Inject
+    XmlMapper xmlMapper;
+
+    @ConfigProperty(name = "qboot.step-cache.enabled", defaultValue = "true")
+    boolean stepCacheEnabled;
+
+    @ConfigProperty(name = "qboot.snapshot-cache.enabled", defaultValue = "true")
+    boolean snapshotCacheEnabled;
+
+    @ConfigProperty(name = "qboot.store.enabled", defaultValue = "false")
+    boolean storeEnabled;
+
+    @ConfigProperty(name = "qboot.store.dir")
+    Optional<String> storeDir;
+
+    @ConfigProperty(name = "qboot.maven.daemon", defaultValue = "auto")
+    String mavenDaemon;
+
+    @ConfigProperty(name = "qboot.node.package-manager", defaultValue = "npm")
+    String packageManager;
+
     @Override
-    public void run() {
+    public Integer call() {
         ConsoleFormatter.bannerRocketBox();
 
+        http.setOffline(offline);
+        OsUtils.setOffline(offline);
         try {
             processTemplate();
+            return EXIT_OK;
+        } catch (OfflineException exc) {
+            ConsoleFormatter.error(
+                "Not Cached",
+                exc.getMessage(),
+                exc,
+                "Run qboot warm -t " + template + " with network access first",
+                "Run without --offline to download what is missing"
+            );
+            return EXIT_OFFLINE;
+        } catch (PrerequisiteException exc) {
+            ConsoleFormatter.error(
+                "Missing Prerequisite",
+                "Required tool is not available: " + exc.getMessage(),
+                exc,
+                "Install " + exc.getTool() + " or make it available on the PATH",
+                "Check the version requested in the template's pre dependencies"
+            );
+            return EXIT_PREREQUISITE;
         } catch (IOException exc) {
             ConsoleFormatter.error(
                 "Template Error",
@@ -64,6 +168,7 @@ public class CreateCmd implements Runnable {
                 "For files: Ensure the template file exists and is readable",
                 "Verify template XML syntax is valid"
             );
+            return EXIT_TEMPLATE;
         } catch (InterruptedException exc) {
             ConsoleFormatter.error(
                 "Network Timeout", 
@@ -73,6 +178,7 @@ public class CreateCmd implements Runnable {
                 "Try again with a more stable connection"
             );
             Thread.currentThread().interrupt();
+            return EXIT_TEMPLATE;
         } catch (Exception exc) {
             ConsoleFormatter.error(
                 "Generation Error",
@@ -85,30 +191,231 @@ public class CreateCmd implements Runnable {
             if (debug) {
                 exc.printStackTrace();
             }
+            return EXIT_GENERATION;
         }
     }
 
     private void processTemplate() throws Exception {
         long startTime = System.nanoTime();
         
+        // Probe tools and open connections the last run of this template needed while it loads
+        SpeculativePrefetch prefetch = SpeculativePrefetch.start(template, http);
+
         // Load template from file or URL
-        QTemplate templateData = templateService.loadTemplate(template);
+        QTemplate templateData = templateService.loadTemplate(template, mirrors);
         
         // Validate template structure
         if (!templateService.validateTemplate(templateData)) {
             throw new IllegalArgumentException("Template validation failed - check template structure");
         }
+        prefetch.templateLoaded(templateData);
+        MavenDaemon.configure(mavenDaemon, SpeculativePrefetch.requiredTools(templateData).contains("mvn"));
+
+        if (offline) {
+            preflight(templateData.getWorkspaces().getItems());
+        }
         
         // Process all workspaces
-        for (Workspace workspace : templateData.getWorkspaces().getItems()) {
-            processWorkspace(workspace);
-        }
+        processWorkspaces(templateData.getWorkspaces().getItems(), templateData.getBundle());
         
+        prefetch.remember(templateData);
+        maintainCaches();
+
+        if (debug) {
+            HttpService.Stats stats = http.stats();
+            ConsoleFormatter.debugKV("HTTP transfer",
+                    "requests", stats.requests(),
+                    "body bytes on wire", stats.bodyBytesOnWire(),
+                    "body bytes decoded", stats.bodyBytesDecoded(),
+                    "compressed responses", stats.compressedResponses());
+            if (!stats.origins().isEmpty()) {
+                Map<String, Object> perOrigin = new LinkedHashMap<>();
+                stats.origins().forEach((origin, originStats) -> perOrigin.put(origin, originStats.requests() + " requests, peak "
+                        + originStats.peakInFlight() + " in flight" + (originStats.http2() ? ", HTTP/2" : ", HTTP/1.1")));
+                ConsoleFormatter.debug("HTTP origins", perOrigin);
+            }
+            printSchedulerStats();
+        }
+
         Duration elapsed = Duration.ofNanos(System.nanoTime() - startTime);
         ConsoleFormatter.footer(destinationDir, elapsed);
     }
 
-    private void processWorkspace(Workspace workspace) throws Exception {
+    /**
+     * Checks before any workspace starts that everything the workspaces download is cached, so an
+     * offline run fails at once instead of halfway through a generation.
+     */
+    private void preflight(List<Workspace> workspaces) throws OfflineException {
+        ConsoleFormatter.section("Offline preflight");
+        List<String> missing = new ArrayList<>();
+        for (Workspace workspace : workspaces) {
+            GenParameters genParameters = createGenParameters(workspace);
+            List<String> uncached = factory.get(workspace.getGeneral().framework()).uncached(workspace, genParameters);
+            ConsoleFormatter.bullet(genParameters.framework() + " " + genParameters.frameworkVersion() + ": "
+                    + (uncached.isEmpty() ? "cached" : uncached.size() + " missing"));
+            uncached.forEach(ConsoleFormatter::subbullet);
+            missing.addAll(uncached);
+        }
+        System.out.println();
+        if (!missing.isEmpty()) {
+            throw new OfflineException(missing.size() + " cache entries the template needs are missing", missing);
+        }
+    }
+
+    /** Keeps the caches within their budgets and records the hits and misses of this run. */
+    private void maintainCaches() {
+        CacheManager caches = CacheManager.shared();
+        try {
+            CacheManager.PruneResult pruned = caches.prune();
+            caches.save();
+            if (debug) {
+                Map<String, String> areas = new LinkedHashMap<>();
+                for (CacheManager.Area area : CacheManager.Area.values()) {
+                    CacheManager.Counters run = caches.runCounters(area);
+                    areas.put(area.dirName(), run.hits() + " hits, " + run.misses() + " misses, " + run.evictions() + " evictions");
+                }
+                ConsoleFormatter.debug("Caches", areas, "evicted " + pruned.evicted() + " entries, " + ConsoleFormatter.humanBytes(pruned.reclaimedBytes()));
+            }
+        } catch (IOException exc) {
+            // an unmaintained cache only grows until the next run
+            if (debug) {
+                ConsoleFormatter.debug("Caches", "Could not maintain caches: " + exc.getMessage());
+            }
+        }
+    }
+
+    private void printSchedulerStats() {
+        StepScheduler scheduler = StepScheduler.shared();
+        Map<String, String> steps = new LinkedHashMap<>();
+        List<StepScheduler.StepStats> stats = scheduler.stats();
+        for (int i = 0; i < stats.size(); i++) {
+            StepScheduler.StepStats step = stats.get(i);
+            steps.put((i + 1) + ". " + step.step(), step.resource()
+                    + ", priority " + step.priority()
+                    + ", queued " + ConsoleFormatter.humanTime(step.queued())
+                    + ", ran " + ConsoleFormatter.humanTime(step.ran()));
+        }
+        ConsoleFormatter.debug("Step scheduling", steps, "permits " + scheduler.permits());
+
+        Map<String, String> maven = new LinkedHashMap<>();
+        Duration total = Duration.ZERO;
+        for (StepScheduler.StepStats step : stats) {
+            if (step.step().startsWith(OsUtils.mavenLauncher() + " ")) {
+                maven.put((maven.size() + 1) + ". " + step.step(), ConsoleFormatter.humanTime(step.ran()));
+                total = total.plus(step.ran());
+            }
+        }
+        if (!maven.isEmpty()) {
+            ConsoleFormatter.debug("Maven invocations", maven, maven.size() + " with " + OsUtils.mavenLauncher()
+                    + ", " + ConsoleFormatter.humanTime(total) + " in total");
+        }
+    }
+
+    /**
+     * Runs the workspaces as a pipeline: prerequisite checks of all workspaces start right away,
+     * workspaces generate (including post dependencies) concurrently unless their target directories
+     * overlap, in which case they keep template order, and changesets of a workspace are applied as
+     * soon as it is generated. The {@link StepScheduler} keeps the concurrent tool runs within the
+     * machine's limits and, based on the durations of earlier runs, serves steps on the longest
+     * remaining path first. Output stays grouped per workspace.
+     * <p>
+     * Workspaces run in a {@link TaskScope}: the first failing workspace cancels the others, kills
+     * the tools they started and removes their temporary files; its failure is rethrown.
+     */
+    private void processWorkspaces(List<Workspace> workspaces, TemplateBundle bundle) throws Exception {
+        StepHistory history = new StepHistory(TemplateCache.systemDefault().getCacheDir().resolve("step-history.properties"));
+        List<Path> targets = new ArrayList<>();
+        List<List<Integer>> waitsFor = new ArrayList<>();
+        List<WorkspaceSchedule.Estimate> estimates = new ArrayList<>();
+        for (int i = 0; i < workspaces.size(); i++) {
+            Workspace workspace = workspaces.get(i);
+            Path target = targetOf(workspace).toAbsolutePath().normalize();
+            List<Integer> overlapping = new ArrayList<>();
+            for (int j = 0; j < i; j++) {
+                if (target.startsWith(targets.get(j)) || targets.get(j).startsWith(target)) {
+                    overlapping.add(j);
+                }
+            }
+            targets.add(target);
+            waitsFor.add(overlapping);
+            estimates.add(new WorkspaceSchedule.Estimate(
+                    estimate(history, workspace, WorkspaceSchedule.PREPARE),
+                    estimate(history, workspace, WorkspaceSchedule.GENERATE),
+                    estimate(history, workspace, WorkspaceSchedule.CHANGESETS)));
+        }
+        WorkspaceSchedule schedule = new WorkspaceSchedule(estimates, waitsFor);
+
+        GenerationJournal journal = GenerationJournal.open(Path.of(destinationDir), resume);
+        long start = System.nanoTime();
+        List<CompletableFuture<Void>> generations = workspaces.stream()
+                .map(workspace -> new CompletableFuture<Void>())
+                .toList();
+        try (GroupedConsole console = GroupedConsole.install(workspaces.size());
+             TaskScope scope = new TaskScope()) {
+            for (int i = 0; i < workspaces.size(); i++) {
+                int index = i;
+                scope.fork(() -> console.call(index, () ->
+                        runWorkspace(console, workspaces, index, waitsFor.get(index), generations, bundle, schedule, history, journal)));
+            }
+            TaskScope.Outcome outcome = scope.join();
+            if (!outcome.succeeded()) {
+                Throwable failure = outcome.failure();
+                throw failure instanceof Exception e ? e : new IllegalStateException(failure);
+            }
+        } finally {
+            for (StepScheduler.StepStats step : StepScheduler.shared().stats()) {
+                if (step.framework() != null) {
+                    history.record(step.framework(), step.version(), step.step(), step.ran());
+                }
+            }
+            history.save();
+        }
+
+        if (debug) {
+            Duration actual = Duration.ofNanos(System.nanoTime() - start);
+            ConsoleFormatter.debugKV("Makespan",
+                    "predicted", schedule.predictedMakespan().map(ConsoleFormatter::humanTime).orElse("no history yet"),
+                    "actual", ConsoleFormatter.humanTime(actual));
+        }
+    }
+
+    /**
+     * One workspace from prerequisite check to changesets. Generation waits for the overlapping
+     * earlier workspaces; {@code generations} tells later workspaces when this one is generated.
+     */
+    private Void runWorkspace(GroupedConsole console, List<Workspace> workspaces, int index, List<Integer> waitsFor,
+                              List<CompletableFuture<Void>> generations, TemplateBundle bundle,
+                              WorkspaceSchedule schedule, StepHistory history, GenerationJournal journal) throws Exception {
+        Workspace workspace = workspaces.get(index);
+        CompletableFuture<Void> generation = generations.get(index);
+        try {
+            PreparedWorkspace prepared = timed(history, workspace, WorkspaceSchedule.PREPARE, null,
+                    () -> prepareWorkspace(workspace, index, journal));
+            for (int earlier : waitsFor) {
+                try {
+                    generations.get(earlier).get();
+                } catch (ExecutionException exc) {
+                    throw new CancellationException("Workspace " + (earlier + 1) + " failed");
+                }
+            }
+            timed(history, workspace, WorkspaceSchedule.GENERATE, prepared.journal(),
+                    () -> generateWorkspace(prepared, schedule, index));
+            generation.complete(null);
+            return timed(history, workspace, WorkspaceSchedule.CHANGESETS, prepared.journal(),
+                    () -> applyChangesets(prepared, bundle, schedule, index));
+        } catch (Exception exc) {
+            generation.completeExceptionally(exc);
+            throw exc;
+        } finally {
+            console.complete(index);
+        }
+    }
+
+    private record PreparedWorkspace(Workspace workspace, GenParameters genParameters, GenerationEngine engine,
+                                     GenerationJournal.Session journal) {
+    }
+
+    private PreparedWorkspace prepareWorkspace(Workspace workspace, int index, GenerationJournal journal) throws Exception {
         GenParameters genParameters = createGenParameters(workspace);
         var engine = factory.get(workspace.getGeneral().framework());
 
@@ -119,20 +426,164 @@ public class CreateCmd implements Runnable {
         var preRequisites = extractDependencies(workspace, "pre");
         engine.createDependencyHandlerFor(genParameters, preRequisites).check();
 
-        // Generate project structure
-        engine.generate(workspace, genParameters);
+        var session = journal.workspace(index, inputHash(workspace, genParameters, preRequisites),
+                genParameters.target(), genParameters.target().resolve(genParameters.name()));
+        return new PreparedWorkspace(workspace, genParameters, engine, session);
+    }
+
+    /** Template section, generation parameters and versions of the required tools. */
+    private String inputHash(Workspace workspace, GenParameters genParameters, List<Dependency> preRequisites) throws IOException {
+        List<String> parts = new ArrayList<>();
+        parts.add(xmlMapper.writeValueAsString(workspace));
+        parts.add(String.valueOf(genParameters.framework()));
+        parts.add(genParameters.name());
+        parts.add(genParameters.packageName());
+        parts.add(genParameters.frameworkVersion());
+        parts.add(genParameters.target().toAbsolutePath().normalize().toString());
+        parts.add(genParameters.cliArgs());
+        parts.add(String.valueOf(genParameters.packageManager()));
+        for (Dependency dependency : preRequisites) {
+            parts.add(dependency.name() + "=" + ToolProbe.probe(dependency.name()).join().output().trim());
+        }
+        return GenerationJournal.hash(parts.toArray(String[]::new));
+    }
+
+    private PreparedWorkspace generateWorkspace(PreparedWorkspace prepared, WorkspaceSchedule schedule, int index) throws Exception {
+        long generationStart = System.nanoTime();
+        var context = stepContext(prepared.workspace(),
+                () -> schedule.remainingMillis(index, Duration.ofNanos(System.nanoTime() - generationStart).toMillis()));
 
-        // Handle post-generation dependencies
-        var postDependencies = extractDependencies(workspace, "post");
-        engine.createDependencyHandlerFor(genParameters, postDependencies).install();
+        GenParameters genParameters = prepared.genParameters();
+        var postDependencies = extractDependencies(prepared.workspace(), "post");
+        Path projectDir = genParameters.target().resolve(genParameters.name());
+        var identity = new SnapshotCache.Identity(genParameters.name(), genParameters.packageName(),
+                prepared.engine().derivedIdentifiers(genParameters));
+        String snapshotKey = snapshotKey(prepared);
+        Path snapshotsDir = CacheManager.shared().dir(CacheManager.Area.SNAPSHOTS);
+        SnapshotCache snapshots = new SnapshotCache(snapshotsDir, new TreeCopier());
+        boolean[] restored = {false};
 
-        // Apply changesets
-        ChangesetHandler.builder()
-                .structure(workspace.getStructure())
-                .build()
-                .run(genParameters);
+        return StepScheduler.within(context, () -> {
+            // a run generating the same snapshot key is waited for and restored from instead
+            try (CacheAccess.Lock ignored = snapshotCacheEnabled ? CacheAccess.lock(snapshotsDir, snapshotKey) : null) {
+                // Generate project structure, or restore it with post dependencies from an identical earlier workspace
+                prepared.journal().run(GenerationJournal.GENERATE, () -> {
+                    if (snapshotCacheEnabled) {
+                        var snapshot = StepScheduler.shared().run("restore snapshot", ResourceClass.DISK, () -> {
+                            CacheManager.shared().promote(CacheManager.Area.SNAPSHOTS, snapshotsDir, snapshotKey);
+                            return snapshots.restore(snapshotKey, projectDir, identity);
+                        });
+                        if (snapshot.isPresent()) {
+                            CacheManager.shared().hit(CacheManager.Area.SNAPSHOTS, snapshotKey);
+                            restored[0] = true;
+                            ConsoleFormatter.success("Restored " + genParameters.name() + " from snapshot ("
+                                    + snapshot.get().method().name().toLowerCase() + ", " + snapshot.get().rendered() + " files rendered)");
+                            return;
+                        }
+                        CacheManager.shared().miss(CacheManager.Area.SNAPSHOTS);
+                    }
+                    var steps = prepared.engine().steps(prepared.workspace(), genParameters);
+                    if (steps.isEmpty()) {
+                        prepared.engine().generate(prepared.workspace(), genParameters);
+                    } else {
+                        new StepRunner(CacheManager.shared().dir(CacheManager.Area.STEPS), stepCacheEnabled)
+                                .run(prepared.engine().framework(), steps, genParameters);
+                    }
+                });
+
+                // Handle post-generation dependencies
+                prepared.journal().run(GenerationJournal.POST_DEPENDENCIES, () -> {
+                    if (!restored[0]) {
+                        prepared.engine().createDependencyHandlerFor(genParameters, postDependencies).install();
+                        if (snapshotCacheEnabled) {
+                            StepScheduler.shared().run("store snapshot", ResourceClass.DISK, () -> {
+                                snapshots.store(snapshotKey, projectDir, identity);
+                                CacheManager.shared().stored(CacheManager.Area.SNAPSHOTS, snapshotKey);
+                                return null;
+                            });
+                        }
+                    }
+                    ContentStore store = contentStore();
+                    if (store != null) {
+                        var deduplicated = StepScheduler.shared().run("deduplicate", ResourceClass.DISK, () -> store.putTree(projectDir));
+                        if (genParameters.debug()) {
+                            ConsoleFormatter.debugKV("Content store", "files", deduplicated.files(), "shared", deduplicated.shared());
+                        }
+                    }
+                });
+            }
+            return prepared;
+        });
+    }
+
+    /**
+     * Everything shaping a generated workspace except its name and package, which a snapshot
+     * restore re-renders: the effective general section, all dependency blocks and the versions of
+     * the required tools.
+     */
+    private String snapshotKey(PreparedWorkspace prepared) throws IOException {
+        GenParameters genParameters = prepared.genParameters();
+        List<String> parts = new ArrayList<>();
+        parts.add(xmlMapper.writeValueAsString(new General(genParameters.framework(), genParameters.frameworkVersion(),
+                genParameters.cliArgs(), null, null, genParameters.packageManager())));
+        parts.add(xmlMapper.writeValueAsString(prepared.workspace().getDependencies()));
+        for (Dependency dependency : extractDependencies(prepared.workspace(), "pre")) {
+            parts.add("pre:" + dependency.name() + "=" + ToolProbe.probe(dependency.name()).join().output().trim());
+        }
+        return GenerationJournal.hash(parts.toArray(String[]::new));
+    }
+
+    private Void applyChangesets(PreparedWorkspace prepared, TemplateBundle bundle, WorkspaceSchedule schedule, int index) throws Exception {
+        var context = stepContext(prepared.workspace(), () -> schedule.changesetsMillis(index));
+
+        prepared.journal().run(GenerationJournal.CHANGESETS, () ->
+                StepScheduler.within(context, () -> StepScheduler.shared().run("changesets", ResourceClass.DISK, () -> {
+                    ChangesetHandler.builder()
+                            .structure(prepared.workspace().getStructure())
+                            .bundle(bundle)
+                            .store(contentStore())
+                            .build()
+                            .run(prepared.genParameters());
+                    return null;
+                })));
 
         System.out.println();
+        return null;
+    }
+
+    /** The content store generated files are deduplicated into, or null if it is not enabled. */
+    private ContentStore contentStore() {
+        if (!storeEnabled) {
+            return null;
+        }
+        return new ContentStore(storeDir.map(Path::of).orElse(TemplateCache.systemDefault().getCacheDir().resolve("store")));
+    }
+
+    private static StepScheduler.StepContext stepContext(Workspace workspace, LongSupplier priority) {
+        return new StepScheduler.StepContext(
+                String.valueOf(workspace.getGeneral().framework()), workspace.getGeneral().frameworkVersion(), priority);
+    }
+
+    private static Duration estimate(StepHistory history, Workspace workspace, String phase) {
+        return history.estimate(String.valueOf(workspace.getGeneral().framework()), workspace.getGeneral().frameworkVersion(), phase)
+                .orElse(null);
+    }
+
+    /**
+     * Runs a pipeline phase and records its duration once it succeeded, unless parts of it were
+     * resumed from the journal.
+     */
+    private static <T> T timed(StepHistory history, Workspace workspace, String phase,
+                               GenerationJournal.Session journal, Callable<T> task) throws Exception {
+        long start = System.nanoTime();
+        int skipped = journal != null ? journal.skipped() : 0;
+        T result = task.call();
+        if (journal != null && journal.skipped() != skipped) {
+            return result;
+        }
+        history.record(String.valueOf(workspace.getGeneral().framework()), workspace.getGeneral().frameworkVersion(), phase,
+                Duration.ofNanos(System.nanoTime() - start));
+        return result;
     }
 
     private GenParameters createGenParameters(Workspace workspace) {
@@ -142,19 +593,20 @@ public class CreateCmd implements Runnable {
             getTemplateOrArg(workspace.getGeneral().projectPackage(), packageName),
             workspace.getGeneral().frameworkVersion(),
             debug,
-            workspace.getPath() != null ? 
-                Path.of(destinationDir).resolve(workspace.getPath()) : 
-                Path.of(destinationDir),
-            getTemplateOrArg(workspace.getGeneral().cliArgs(), cliArgs)
+            targetOf(workspace),
+            getTemplateOrArg(workspace.getGeneral().cliArgs(), cliArgs),
+            Optional.ofNullable(workspace.getGeneral().packageManager()).orElseGet(() -> PackageManager.of(packageManager))
         );
     }
 
-    private java.util.List<de.falkzilm.template.Dependency> extractDependencies(Workspace workspace, String blockName) {
-        return workspace.getDependencies()
-                .stream()
-                .filter(d -> blockName.equals(d.blockName))
-                .flatMap(dependencies -> dependencies.items.stream())
-                .toList();
+    private Path targetOf(Workspace workspace) {
+        Path destination = Path.of(destinationDir);
+        Path target = workspace.getPath() != null ? destination.resolve(workspace.getPath()) : destination;
+        return target;
+    }
+
+    private List<Dependency> extractDependencies(Workspace workspace, String blockName) {
+        return workspace.dependenciesOf(blockName);
     }
 
     private String getTemplateOrArg(String templateData, String argData) {
@@ -0,0 +1,115 @@
+package de.falkzilm.cmds;
+
+import de.falkzilm.cache.CacheAccess;
+import de.falkzilm.exec.LoginEnvironment;
+import de.falkzilm.exec.ToolProbe;
+import de.falkzilm.net.HttpService;
+import de.falkzilm.template.QTemplate;
+import de.falkzilm.template.TemplateCache;
+import de.falkzilm.template.Workspace;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Work started while the template is still downloading, based on the previous run of the same
+ * template: capturing the login environment, probing the tools it required and opening connections
+ * to the hosts it contacted. Once the template is known, probes it does not need are discarded.
+ */
+class SpeculativePrefetch {
+
+    private static final String TOOLS = "tools.";
+    private static final String HOSTS = "hosts.";
+
+    private final String templateSource;
+    private final HttpService http;
+    private final Path historyFile;
+
+    private SpeculativePrefetch(String templateSource, HttpService http, Path historyFile) {
+        this.templateSource = templateSource;
+        this.http = http;
+        this.historyFile = historyFile;
+    }
+
+    static SpeculativePrefetch start(String templateSource, HttpService http) {
+        return start(templateSource, http, TemplateCache.systemDefault().getCacheDir().resolve("prefetch.properties"));
+    }
+
+    static SpeculativePrefetch start(String templateSource, HttpService http, Path historyFile) {
+        SpeculativePrefetch prefetch = new SpeculativePrefetch(templateSource, http, historyFile);
+        LoginEnvironment.prefetch();
+
+        Properties history = prefetch.load();
+        split(history.getProperty(TOOLS + templateSource)).forEach(ToolProbe::probe);
+        split(history.getProperty(HOSTS + templateSource)).forEach(host -> http.preconnect(URI.create(host)));
+        return prefetch;
+    }
+
+    /** Keeps only the probes the loaded template actually needs. */
+    void templateLoaded(QTemplate template) {
+        ToolProbe.retainOnly(requiredTools(template));
+    }
+
+    /** Remembers tools and hosts of this run for the next run of the same template. */
+    void remember(QTemplate template) {
+        Set<String> hosts = http.origins().stream()
+                .filter(origin -> origin.startsWith("https://"))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        // read, update and replace under the lock, so concurrent runs of other templates are not lost
+        try (CacheAccess.Lock ignored = CacheAccess.lock(historyFile.toAbsolutePath().getParent(), historyFile.getFileName().toString())) {
+            Properties history = load();
+            history.setProperty(TOOLS + templateSource, String.join(",", requiredTools(template)));
+            history.setProperty(HOSTS + templateSource, String.join(",", hosts));
+            CacheAccess.writeAtomically(historyFile, writer -> history.store(writer, "qBoot prefetch history per template"));
+        } catch (IOException ignored) {
+            // without history the next run simply does not prefetch
+        }
+    }
+
+    static Set<String> requiredTools(QTemplate template) {
+        if (template.getWorkspaces() == null || template.getWorkspaces().getItems() == null) {
+            return Set.of();
+        }
+        Set<String> tools = new LinkedHashSet<>();
+        for (Workspace workspace : template.getWorkspaces().getItems()) {
+            if (workspace.getDependencies() == null) {
+                continue;
+            }
+            workspace.getDependencies().stream()
+                    .filter(dependencies -> "pre".equals(dependencies.blockName) && dependencies.items != null)
+                    .flatMap(dependencies -> dependencies.items.stream())
+                    .forEach(dependency -> tools.add(dependency.name()));
+        }
+        return tools;
+    }
+
+    private Properties load() {
+        Properties history = new Properties();
+        if (Files.isRegularFile(historyFile)) {
+            try (Reader reader = Files.newBufferedReader(historyFile)) {
+                history.load(reader);
+            } catch (IOException ignored) {
+                // treated as no history
+            }
+        }
+        return history;
+    }
+
+    private static Set<String> split(String value) {
+        if (value == null || value.isBlank()) {
+            return Set.of();
+        }
+        return Arrays.stream(value.split(","))
+                .map(String::trim)
+                .filter(item -> !item.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
@@ -0,0 +1,52 @@
+package de.falkzilm.cmds;
+
+import de.falkzilm.cache.ContentStore;
+import de.falkzilm.helper.ConsoleFormatter;
+import de.falkzilm.template.TemplateCache;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Optional;
+
+@CommandLine.Command(name = "store", description = "Maintain the content store generated projects share files from")
+public class StoreCmd implements Runnable {
+
+    @CommandLine.Option(names= {"-h", "--help"}, usageHelp = true, description="Print help usage")
+    boolean help;
+
+    @ConfigProperty(name = "qboot.store.dir")
+    Optional<String> storeDir;
+
+    @Override
+    public void run() {
+        CommandLine.usage(this, System.out);
+    }
+
+    @CommandLine.Command(name = "gc", description = "Remove blobs no generated project refers to any more")
+    void gc() {
+        long startTime = System.nanoTime();
+        ContentStore store = new ContentStore(storeDir.map(Path::of).orElse(TemplateCache.systemDefault().getCacheDir().resolve("store")));
+        try {
+            ConsoleFormatter.section("Collecting content store");
+            ConsoleFormatter.bullet("Store     : " + store.getRoot());
+            ContentStore.GcResult result = store.gc();
+            ConsoleFormatter.bullet("Blobs     : " + result.blobs());
+            ConsoleFormatter.bullet("Removed   : " + result.removed());
+            ConsoleFormatter.bullet("Reclaimed : " + ConsoleFormatter.humanBytes(result.reclaimedBytes()));
+            ConsoleFormatter.bullet("Took      : " + ConsoleFormatter.humanTime(Duration.ofNanos(System.nanoTime() - startTime)));
+            System.out.println();
+            ConsoleFormatter.success("Content store collected");
+        } catch (IOException exc) {
+            ConsoleFormatter.error(
+                "Store Error",
+                "Could not collect content store: " + exc.getMessage(),
+                exc,
+                "Make sure the store directory is writeable",
+                "Configure another location with qboot.store.dir"
+            );
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package de.falkzilm.cmds;
+
+import de.falkzilm.cache.CacheManager;
+import de.falkzilm.exec.MavenDaemon;
+import de.falkzilm.exec.TaskScope;
+import de.falkzilm.exec.ToolCaches;
+import de.falkzilm.gen.EngineFactory;
+import de.falkzilm.gen.GenParameters;
+import de.falkzilm.gen.GenerationStep;
+import de.falkzilm.gen.node.PackageManager;
+import de.falkzilm.helper.ConsoleFormatter;
+import de.falkzilm.net.HttpService;
+import de.falkzilm.template.QTemplate;
+import de.falkzilm.template.TemplateCache;
+import de.falkzilm.template.TemplateService;
+import de.falkzilm.template.Workspace;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.stream.Stream;
+
+/**
+ * Fills the caches a later {@code create} of the template reads from, without generating: loading
+ * the template fetches its includes, remote contents and bundle, and the prefetch steps of every
+ * workspace's engine ({@link de.falkzilm.gen.GenerationEngine#warmup}) run in parallel.
+ */
+@CommandLine.Command(name = "warm", description = "Prefetch everything a template needs into the local caches, without generating")
+public class WarmCmd implements Callable<Integer> {
+
+    @CommandLine.Option(
+        names = {"-t", "--template"},
+        description = "Template to prefetch for. Can be a local file path or HTTP/HTTPS URL, pointing to an XML template or a .qboot bundle",
+        required = true
+    )
+    private String template;
+
+    @CommandLine.Option(
+        names = {"-m", "--mirror"},
+        description = "Alternative URL serving the same template; repeatable"
+    )
+    private List<String> mirrors = new ArrayList<>();
+
+    @CommandLine.Option(names = {"-p", "--package"}, description = "Package name later runs will use, for archives generated per package")
+    private String packageName;
+
+    @CommandLine.Option(names = {"-n", "--name"}, description = "Project name later runs will use, for archives generated per name")
+    private String projectName;
+
+    @CommandLine.Option(names = {"-c", "--cli-args"}, description = "Additional arguments for cli usage in generation")
+    private String cliArgs;
+
+    @CommandLine.Option(names = {"-d", "--debug"}, description = "Verbose/debug output")
+    private boolean debug;
+
+    @CommandLine.Option(names= {"-h", "--help"}, usageHelp = true, description="Print help usage")
+    boolean help;
+
+    @Inject
+    TemplateService templateService;
+
+    @Inject
+    EngineFactory factory;
+
+    @Inject
+    HttpService http;
+
+    @ConfigProperty(name = "qboot.maven.daemon", defaultValue = "auto")
+    String mavenDaemon;
+
+    @ConfigProperty(name = "qboot.node.package-manager", defaultValue = "npm")
+    String packageManager;
+
+    @Override
+    public Integer call() {
+        long startTime = System.nanoTime();
+        // sizing walks every cache, ~/.m2 and the npm cache included, so only --debug pays for it
+        Map<String, Path> caches = caches();
+        Map<String, Long> before = debug ? sizes(caches) : Map.of();
+        try {
+            ConsoleFormatter.section("Warming caches for " + template);
+            QTemplate templateData = templateService.loadTemplate(template, mirrors);
+            if (!templateService.validateTemplate(templateData)) {
+                throw new IllegalArgumentException("Template validation failed - check template structure");
+            }
+            ConsoleFormatter.bullet("Template, includes and bundle cached");
+            MavenDaemon.configure(mavenDaemon, SpeculativePrefetch.requiredTools(templateData).contains("mvn"));
+
+            List<GenerationStep> steps = new ArrayList<>();
+            for (Workspace workspace : templateData.getWorkspaces().getItems()) {
+                GenParameters genParameters = createGenParameters(workspace);
+                steps.addAll(factory.get(workspace.getGeneral().framework()).warmup(workspace, genParameters));
+            }
+            prefetch(steps);
+            CacheManager.shared().save();
+        } catch (InterruptedException exc) {
+            Thread.currentThread().interrupt();
+            ConsoleFormatter.error("Interrupted", "Prefetching was interrupted", exc, "Run qboot warm again, finished downloads are kept");
+            return CreateCmd.EXIT_TEMPLATE;
+        } catch (IOException exc) {
+            ConsoleFormatter.error(
+                "Prefetch Error",
+                "Could not prefetch: " + exc.getMessage(),
+                exc,
+                "Check network connectivity and the template URL",
+                "Check that the tools the template uses are installed",
+                "Run with --debug flag for detailed information"
+            );
+            return CreateCmd.EXIT_TEMPLATE;
+        } catch (Exception exc) {
+            ConsoleFormatter.error(
+                "Prefetch Error",
+                "Could not prefetch: " + exc.getMessage(),
+                exc,
+                "Run with --debug flag for detailed information",
+                "Verify template configuration is correct"
+            );
+            return CreateCmd.EXIT_GENERATION;
+        }
+
+        System.out.println();
+        ConsoleFormatter.section("Warm-up");
+        long added = 0;
+        if (debug) {
+            Map<String, Long> after = sizes(caches);
+            for (Map.Entry<String, Path> cache : caches.entrySet()) {
+                long grown = Math.max(0, after.get(cache.getKey()) - before.get(cache.getKey()));
+                added += grown;
+                ConsoleFormatter.bullet(String.format("%-8s: +%s (%s, %s)", cache.getKey(), ConsoleFormatter.humanBytes(grown),
+                        ConsoleFormatter.humanBytes(after.get(cache.getKey())), cache.getValue()));
+            }
+        }
+        ConsoleFormatter.bullet(String.format("%-8s: %s", "Fetched", ConsoleFormatter.humanBytes(http.stats().bodyBytesOnWire()) + " by qBoot itself"));
+        ConsoleFormatter.bullet(String.format("%-8s: %s", "Took", ConsoleFormatter.humanTime(Duration.ofNanos(System.nanoTime() - startTime))));
+        System.out.println();
+        ConsoleFormatter.success(debug ? "Caches warm, " + ConsoleFormatter.humanBytes(added) + " added" : "Caches warm");
+        return CreateCmd.EXIT_OK;
+    }
+
+    /** Runs all steps concurrently; tools and downloads queue up on their scheduler permits. */
+    private void prefetch(List<GenerationStep> steps) throws Exception {
+        try (TaskScope scope = new TaskScope()) {
+            for (GenerationStep step : steps) {
+                scope.fork(() -> {
+                    long start = System.nanoTime();
+                    step.action().run();
+                    ConsoleFormatter.bullet(step.name() + " (" + ConsoleFormatter.humanTime(Duration.ofNanos(System.nanoTime() - start)) + ")");
+                    return null;
+                });
+            }
+            TaskScope.Outcome outcome = scope.join();
+            if (!outcome.succeeded()) {
+                Throwable failure = outcome.failure();
+                throw failure instanceof Exception e ? e : new IllegalStateException(failure);
+            }
+        }
+    }
+
+    /** The caches qBoot and the build tools fill, by display name. */
+    private static Map<String, Path> caches() {
+        Map<String, Path> caches = new LinkedHashMap<>();
+        caches.put("qBoot", TemplateCache.systemDefault().getCacheDir());
+        caches.putAll(ToolCaches.all());
+        return caches;
+    }
+
+    private static Map<String, Long> sizes(Map<String, Path> caches) {
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        caches.forEach((name, dir) -> sizes.put(name, sizeOf(dir)));
+        return sizes;
+    }
+
+    private static long sizeOf(Path dir) {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.filter(Files::isRegularFile).mapToLong(file -> {
+                try {
+                    return Files.size(file);
+                } catch (IOException e) {
+                    // removed while walking
+                    return 0;
+                }
+            }).sum();
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private GenParameters createGenParameters(Workspace workspace) {
+        return new GenParameters(
+            workspace.getGeneral().framework(),
+            getTemplateOrArg(workspace.getGeneral().projectName(), projectName),
+            getTemplateOrArg(workspace.getGeneral().projectPackage(), packageName),
+            workspace.getGeneral().frameworkVersion(),
+            debug,
+            Path.of("."),
+            getTemplateOrArg(workspace.getGeneral().cliArgs(), cliArgs),
+            Optional.ofNullable(workspace.getGeneral().packageManager()).orElseGet(() -> PackageManager.of(packageManager))
+        );
+    }
+
+    private String getTemplateOrArg(String templateData, String argData) {
+        return Optional.ofNullable(
+                Optional.ofNullable(templateData).orElse(argData)
+        ).orElse("");
+    }
+}
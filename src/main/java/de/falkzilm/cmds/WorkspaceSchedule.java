@@ -0,0 +1,89 @@
+package de.falkzilm.cmds;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Critical-path view of the workspace pipeline.
+ * <p>
+ * Every workspace is prepared, generated and gets its changesets applied; its generation also waits
+ * for the generation of earlier workspaces it overlaps with. From estimated phase durations this
+ * predicts the makespan of the whole run and, per workspace, how long the path after its generation
+ * still is. Steps on a longer remaining path are started first.
+ */
+final class WorkspaceSchedule {
+
+    static final String PREPARE = "phase prepare";
+    static final String GENERATE = "phase generate";
+    static final String CHANGESETS = "phase changesets";
+
+    /** Estimated phase durations of one workspace; {@code null} when there is no history yet. */
+    record Estimate(Duration prepare, Duration generate, Duration changesets) {
+
+        boolean known() {
+            return prepare != null && generate != null && changesets != null;
+        }
+    }
+
+    private final List<Estimate> estimates;
+    private final List<List<Integer>> waitsFor;
+    private final long[] tails;
+
+    /**
+     * @param estimates phase estimates per workspace, in template order
+     * @param waitsFor  per workspace, the earlier workspaces whose generation it waits for
+     */
+    WorkspaceSchedule(List<Estimate> estimates, List<List<Integer>> waitsFor) {
+        this.estimates = estimates;
+        this.waitsFor = waitsFor;
+        this.tails = new long[estimates.size()];
+        for (int i = estimates.size() - 1; i >= 0; i--) {
+            long tail = millis(estimates.get(i).changesets());
+            for (int k = i + 1; k < estimates.size(); k++) {
+                if (waitsFor.get(k).contains(i)) {
+                    tail = Math.max(tail, millis(estimates.get(k).generate()) + tails[k]);
+                }
+            }
+            tails[i] = tail;
+        }
+    }
+
+    /** Predicted length of the path that is left once the generation of {@code workspace} finished. */
+    long tailMillis(int workspace) {
+        return tails[workspace];
+    }
+
+    /** Predicted length of the path from the start of the generation of {@code workspace}. */
+    long remainingMillis(int workspace, long generationElapsedMillis) {
+        long generation = millis(estimates.get(workspace).generate());
+        return Math.max(0, generation - generationElapsedMillis) + tails[workspace];
+    }
+
+    long changesetsMillis(int workspace) {
+        return millis(estimates.get(workspace).changesets());
+    }
+
+    /** Longest path through the pipeline, ignoring resource limits; empty without full history. */
+    Optional<Duration> predictedMakespan() {
+        if (!estimates.stream().allMatch(Estimate::known)) {
+            return Optional.empty();
+        }
+        long[] generated = new long[estimates.size()];
+        long makespan = 0;
+        for (int i = 0; i < estimates.size(); i++) {
+            Estimate estimate = estimates.get(i);
+            long start = millis(estimate.prepare());
+            for (int j : waitsFor.get(i)) {
+                start = Math.max(start, generated[j]);
+            }
+            generated[i] = start + millis(estimate.generate());
+            makespan = Math.max(makespan, generated[i] + millis(estimate.changesets()));
+        }
+        return Optional.of(Duration.ofMillis(makespan));
+    }
+
+    private static long millis(Duration duration) {
+        return duration == null ? 0 : duration.toMillis();
+    }
+}
@@ -0,0 +1,103 @@
+package de.falkzilm.exec;
+
+import de.falkzilm.helper.OsUtils;
+import org.apache.commons.exec.CommandLine;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Environment of the user's login shell, captured once per run.
+ * <p>
+ * Tools installed through version managers (sdkman, nvm, ...) are only on the PATH after the
+ * shell profile ran. Evaluating the profile costs hundreds of milliseconds, so it is done once here
+ * and tools are resolved against the captured PATH instead of spawning a login shell per probe.
+ */
+public final class LoginEnvironment {
+
+    private static volatile CompletableFuture<LoginEnvironment> shared;
+
+    private final Map<String, String> variables;
+
+    LoginEnvironment(Map<String, String> variables) {
+        this.variables = Map.copyOf(variables);
+    }
+
+    /** Starts capturing in the background unless that already happened. */
+    public static CompletableFuture<LoginEnvironment> prefetch() {
+        if (shared == null) {
+            synchronized (LoginEnvironment.class) {
+                if (shared == null) {
+                    shared = CompletableFuture.supplyAsync(LoginEnvironment::capture, runnable -> Thread.ofVirtual().start(runnable));
+                }
+            }
+        }
+        return shared;
+    }
+
+    public static LoginEnvironment get() {
+        return prefetch().join();
+    }
+
+    public Map<String, String> variables() {
+        return variables;
+    }
+
+    /** Resolves {@code tool} on the captured PATH, like {@code which}. */
+    public Optional<Path> which(String tool) {
+        String path = variables.getOrDefault("PATH", variables.getOrDefault("Path", ""));
+        List<String> names = OsUtils.isWindows()
+                ? List.of(tool + ".exe", tool + ".cmd", tool + ".bat", tool)
+                : List.of(tool);
+        for (String dir : path.split(File.pathSeparator)) {
+            if (dir.isBlank()) {
+                continue;
+            }
+            for (String name : names) {
+                Path candidate = Path.of(dir, name);
+                if (Files.isRegularFile(candidate) && Files.isExecutable(candidate)) {
+                    return Optional.of(candidate);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    static LoginEnvironment capture() {
+        if (OsUtils.isWindows()) {
+            return new LoginEnvironment(System.getenv());
+        }
+        RunWrapper runner = RunWrapper.builder()
+                .cmd(new CommandLine("bash").addArgument("-lc").addArgument("env", false))
+                .resource(ResourceClass.TRIVIAL)
+                .timeout(Duration.ofSeconds(30))
+                .build();
+        if (runner.run(Path.of("."), false) != 0) {
+            return new LoginEnvironment(System.getenv());
+        }
+        return new LoginEnvironment(parse(runner.getOutput()));
+    }
+
+    static Map<String, String> parse(String output) {
+        Map<String, String> variables = new LinkedHashMap<>();
+        String last = null;
+        for (String line : output.split("\n")) {
+            int separator = line.indexOf('=');
+            if (separator > 0 && line.substring(0, separator).matches("[A-Za-z_][A-Za-z0-9_%.:-]*")) {
+                last = line.substring(0, separator);
+                variables.put(last, line.substring(separator + 1));
+            } else if (last != null) {
+                // continuation of a multi-line value (e.g. exported shell functions)
+                variables.put(last, variables.get(last) + "\n" + line);
+            }
+        }
+        return variables;
+    }
+}
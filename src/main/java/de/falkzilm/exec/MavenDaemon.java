@@ -0,0 +1,49 @@
+package de.falkzilm.exec;
+
+import de.falkzilm.helper.OsUtils;
+
+import java.util.Locale;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Decides whether Maven steps run through the Maven daemon ({@code mvnd}) instead of a cold
+ * {@code mvn}, configured with {@code qboot.maven.daemon}: {@code auto} (default) uses it when
+ * {@code mvnd} is on the PATH, {@code always} and {@code never} force the choice.
+ * <p>
+ * A cold {@code mvn} spends seconds on JVM start and plugin resolution before doing the actual
+ * work. All Maven steps of a run share the environment, so mvnd hands them the same daemon (one
+ * per concurrently running step) with its JIT-compiled code and loaded plugins; the daemons stay
+ * alive for later runs.
+ */
+public final class MavenDaemon {
+
+    private MavenDaemon() {
+    }
+
+    /**
+     * Routes the Maven commands of this run through the daemon if {@code mode} says so, and starts
+     * a daemon in the background when the template uses Maven, so the first Maven step does not
+     * wait for its JVM.
+     */
+    public static void configure(String mode, boolean usesMaven) {
+        boolean daemon = use(mode);
+        OsUtils.setMavenDaemon(daemon);
+        if (daemon && usesMaven) {
+            ToolProbe.probe("mvnd");
+        }
+    }
+
+    /** Whether to use the daemon for {@code mode}, looking for {@code mvnd} on the login PATH if needed. */
+    public static boolean use(String mode) {
+        return use(mode, () -> LoginEnvironment.get().which("mvnd").isPresent());
+    }
+
+    static boolean use(String mode, BooleanSupplier installed) {
+        return switch (mode == null ? "auto" : mode.trim().toLowerCase(Locale.ROOT)) {
+            case "always", "true" -> true;
+            case "never", "false" -> false;
+            case "auto", "" -> installed.getAsBoolean();
+            default -> throw new IllegalArgumentException("qboot.maven.daemon must be auto, always or never, not " + mode);
+        };
+    }
+}
@@ -0,0 +1,16 @@
+package de.falkzilm.exec;
+
+/**
+ * What a step mostly waits on. The {@link StepScheduler} limits how many steps of each class run at
+ * the same time.
+ */
+public enum ResourceClass {
+    /** Registry and repository downloads, e.g. {@code npm install}. */
+    NETWORK,
+    /** Compilers and build tools, e.g. {@code mvn} or {@code dotnet new}. */
+    CPU,
+    /** Extracting and copying larger trees, e.g. {@code unzip}. */
+    DISK,
+    /** Quick commands like {@code mkdir}; never queued. */
+    TRIVIAL
+}
@@ -1,12 +1,15 @@
 package de.falkzilm.exec;
 
 import de.falkzilm.helper.ConsoleFormatter;
+import de.falkzilm.helper.OsUtils;
 import lombok.Builder;
 import lombok.Data;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
 import org.apache.commons.exec.ExecuteWatchdog;
+import org.apache.commons.exec.ProcessDestroyer;
 import org.apache.commons.exec.PumpStreamHandler;
+import org.apache.commons.exec.environment.EnvironmentUtils;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -14,6 +17,8 @@ import java.io.PrintStream;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 
 @Builder
@@ -24,12 +29,33 @@ public class RunWrapper {
     private ByteArrayOutputStream outputStream;
     private ByteArrayOutputStream errorStream;
     private Duration timeout;
+    private Map<String, String> environment;
+    /** Required: the scheduler class the command is throttled under, {@link ResourceClass#TRIVIAL} for cheap ones. */
+    private ResourceClass resource;
+    private String step;
+    /** Tracks the started process instead of the current {@link TaskScope}, e.g. to kill a speculative probe. */
+    private ProcessDestroyer processDestroyer;
 
     public int run(Path workingDir, boolean debug) {
+        if (this.cmd == null) {
+            return -1;
+        }
+        if (TaskScope.current().map(TaskScope::isCancelled).orElse(false)) {
+            // a sibling task failed, do not start anything new
+            return -1;
+        }
+        try {
+            return StepScheduler.shared().run(stepName(), resource, () -> execute(workingDir, debug));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    private int execute(Path workingDir, boolean debug) {
         try {
-            if (this.cmd == null) {
-                return -1;
-            }
             if (debug) {
                 ConsoleFormatter.debug("Executing CMD", workingDir.toString() + " -> " + cmd);
             }
@@ -42,6 +68,11 @@ public class RunWrapper {
             errorStream = new ByteArrayOutputStream(512);
 
             executor.setExitValues(null);
+            if (processDestroyer != null) {
+                executor.setProcessDestroyer(processDestroyer);
+            } else {
+                TaskScope.current().ifPresent(scope -> executor.setProcessDestroyer(scope.processDestroyer()));
+            }
             executor.setStreamHandler(new PumpStreamHandler(
                     new PrintStream(outputStream, true, StandardCharsets.UTF_8),
                     new PrintStream(errorStream, true, StandardCharsets.UTF_8)
@@ -51,7 +82,12 @@ public class RunWrapper {
                 executor.setWatchdog(ExecuteWatchdog.builder().setTimeout(timeout).get());
             }
 
-            return executor.execute(cmd);
+            Map<String, String> env = environment;
+            if (OsUtils.isOffline()) {
+                env = new HashMap<>(environment != null ? environment : EnvironmentUtils.getProcEnvironment());
+                env.putAll(OsUtils.offlineEnvironment());
+            }
+            return env != null ? executor.execute(cmd, env) : executor.execute(cmd);
         } catch (IOException e) {
             return -1;
         } finally {
@@ -61,6 +97,24 @@ public class RunWrapper {
         }
     }
 
+    /** Name reported by the scheduler; the executable if the step was not named. */
+    public String stepName() {
+        if (step != null) {
+            return step;
+        }
+        return cmd == null ? "" : Path.of(cmd.getExecutable()).getFileName().toString();
+    }
+
+    public static class RunWrapperBuilder {
+        /** Fails on a missing {@link #resource}, so no command slips past the scheduler unlabelled. */
+        public RunWrapper build() {
+            if (resource == null) {
+                throw new IllegalStateException("No resource class for " + (step != null ? step : cmd));
+            }
+            return new RunWrapper(cmd, outputStream, errorStream, timeout, environment, resource, step, processDestroyer);
+        }
+    }
+
     public String getOutput() {
         var stdout = Optional.ofNullable(outputStream).map(ByteArrayOutputStream::toString).orElse("");
         var stderr = Optional.ofNullable(errorStream).map(ByteArrayOutputStream::toString).orElse("");
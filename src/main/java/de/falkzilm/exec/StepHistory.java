@@ -0,0 +1,97 @@
+package de.falkzilm.exec;
+
+import de.falkzilm.cache.CacheAccess;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+/**
+ * Durations of past steps, keyed by framework, framework version and step name.
+ * <p>
+ * The last few durations of each step are kept in a properties file; their median is the estimate
+ * for the next run. Used to predict how long a workspace will take and to start the steps on the
+ * longest path first.
+ */
+public class StepHistory {
+
+    private static final int HISTORY_SIZE = 10;
+
+    private final Path historyFile;
+    private final Map<String, Deque<Long>> history = new LinkedHashMap<>();
+
+    public StepHistory(Path historyFile) {
+        this.historyFile = historyFile;
+        load();
+    }
+
+    public synchronized Optional<Duration> estimate(String framework, String version, String step) {
+        Deque<Long> samples = history.get(key(framework, version, step));
+        if (samples == null || samples.isEmpty()) {
+            return Optional.empty();
+        }
+        long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+        return Optional.of(Duration.ofMillis(sorted[(sorted.length - 1) / 2]));
+    }
+
+    public synchronized void record(String framework, String version, String step, Duration duration) {
+        Deque<Long> samples = history.computeIfAbsent(key(framework, version, step), key -> new ArrayDeque<>());
+        samples.addLast(duration.toMillis());
+        while (samples.size() > HISTORY_SIZE) {
+            samples.removeFirst();
+        }
+    }
+
+    static String key(String framework, String version, String step) {
+        return String.join("|",
+                framework == null ? "" : framework,
+                version == null ? "" : version,
+                step);
+    }
+
+    private void load() {
+        if (historyFile == null || !Files.isRegularFile(historyFile)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(historyFile)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            return;
+        }
+        for (String key : properties.stringPropertyNames()) {
+            try {
+                history.put(key, Arrays.stream(properties.getProperty(key).split(","))
+                        .filter(value -> !value.isBlank())
+                        .map(value -> Long.parseLong(value.trim()))
+                        .collect(Collectors.toCollection(ArrayDeque::new)));
+            } catch (NumberFormatException ignored) {
+                // a damaged entry only loses that step's history
+            }
+        }
+    }
+
+    public synchronized void save() {
+        if (historyFile == null) {
+            return;
+        }
+        Properties properties = new Properties();
+        history.forEach((key, samples) -> properties.setProperty(key,
+                samples.stream().map(String::valueOf).collect(Collectors.joining(","))));
+        try {
+            CacheAccess.writeAtomically(historyFile, writer -> properties.store(writer, "qBoot step durations in ms"));
+        } catch (IOException ignored) {
+            // without history the next run schedules in arrival order
+        }
+    }
+}
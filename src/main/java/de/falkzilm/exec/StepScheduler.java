@@ -0,0 +1,258 @@
+package de.falkzilm.exec;
+
+import org.eclipse.microprofile.config.ConfigProvider;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.OptionalDouble;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * Central gate for subprocess-heavy steps.
+ * <p>
+ * Every step declares a {@link ResourceClass}; at most a fixed number of steps per class run at the
+ * same time. Defaults are derived from the cores the process may actually use (including a cgroup
+ * CPU quota) and can be overridden with {@code qboot.scheduler.<class>}, e.g.
+ * {@code qboot.scheduler.network=8}. Queue wait and run time of each step are kept for
+ * {@link #stats()}.
+ * <p>
+ * When a permit frees up, the waiting step with the highest priority gets it, ties in arrival order.
+ * The priority comes from the {@link StepContext} the step runs in, usually the predicted length of
+ * the remaining path of its workspace, so long chains start before short ones.
+ */
+public final class StepScheduler {
+
+    private static final Path CGROUP_ROOT = Path.of("/sys/fs/cgroup");
+    private static final StepScheduler SHARED = new StepScheduler(configuredPermits(effectiveCpus(CGROUP_ROOT)));
+
+    private static final ThreadLocal<StepContext> CONTEXT = new ThreadLocal<>();
+
+    private final Map<ResourceClass, Integer> permits;
+    private final Map<ResourceClass, PermitPool> pools = new EnumMap<>(ResourceClass.class);
+    private final List<StepStats> stats = new ArrayList<>();
+
+    /**
+     * Who a step belongs to. {@code priority} is asked when the step queues; higher values are
+     * served first.
+     */
+    public record StepContext(String framework, String version, LongSupplier priority) {
+    }
+
+    public record StepStats(String step, ResourceClass resource, String framework, String version,
+                            long priority, Duration queued, Duration ran) {
+    }
+
+    StepScheduler(Map<ResourceClass, Integer> permits) {
+        this.permits = Map.copyOf(permits);
+        permits.forEach((resource, count) -> pools.put(resource, new PermitPool(count)));
+    }
+
+    public static StepScheduler shared() {
+        return SHARED;
+    }
+
+    /** Runs {@code task} with steps started on the current thread attributed to {@code context}. */
+    public static <T> T within(StepContext context, Callable<T> task) throws Exception {
+        StepContext previous = CONTEXT.get();
+        CONTEXT.set(context);
+        try {
+            return task.call();
+        } finally {
+            CONTEXT.set(previous);
+        }
+    }
+
+    /** Runs {@code task} once a permit of {@code resource} is free. */
+    public <T> T run(String step, ResourceClass resource, Callable<T> task) throws Exception {
+        StepContext context = CONTEXT.get();
+        long priority = context != null ? context.priority().getAsLong() : 0;
+        PermitPool pool = pools.get(resource);
+        long queuedAt = System.nanoTime();
+        if (pool != null) {
+            pool.acquire(priority);
+        }
+        long startedAt = System.nanoTime();
+        try {
+            return task.call();
+        } finally {
+            if (pool != null) {
+                pool.release();
+            }
+            long finishedAt = System.nanoTime();
+            synchronized (stats) {
+                stats.add(new StepStats(step, resource,
+                        context != null ? context.framework() : null,
+                        context != null ? context.version() : null,
+                        priority,
+                        Duration.ofNanos(startedAt - queuedAt), Duration.ofNanos(finishedAt - startedAt)));
+            }
+        }
+    }
+
+    /** Permits per class; classes without an entry are not limited. */
+    public Map<ResourceClass, Integer> permits() {
+        return permits;
+    }
+
+    /** Finished steps in completion order. */
+    public List<StepStats> stats() {
+        synchronized (stats) {
+            return List.copyOf(stats);
+        }
+    }
+
+    /**
+     * Counting permits handed to the highest-priority waiter. Uses a lock instead of monitors so
+     * waiting virtual threads do not pin their carrier.
+     */
+    private static final class PermitPool {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final PriorityQueue<Waiter> waiting = new PriorityQueue<>(
+                Comparator.comparingLong((Waiter waiter) -> waiter.priority).reversed()
+                        .thenComparingLong(waiter -> waiter.sequence));
+        private int available;
+        private long sequence;
+
+        private static final class Waiter {
+            final long priority;
+            final long sequence;
+            final Condition signal;
+            boolean granted;
+
+            Waiter(long priority, long sequence, Condition signal) {
+                this.priority = priority;
+                this.sequence = sequence;
+                this.signal = signal;
+            }
+        }
+
+        PermitPool(int permits) {
+            this.available = permits;
+        }
+
+        void acquire(long priority) throws InterruptedException {
+            lock.lock();
+            try {
+                if (available > 0 && waiting.isEmpty()) {
+                    available--;
+                    return;
+                }
+                Waiter waiter = new Waiter(priority, sequence++, lock.newCondition());
+                waiting.add(waiter);
+                try {
+                    while (!waiter.granted) {
+                        waiter.signal.await();
+                    }
+                } catch (InterruptedException e) {
+                    if (waiter.granted) {
+                        // granted while being interrupted, pass the permit on
+                        releaseLocked();
+                    } else {
+                        waiting.remove(waiter);
+                    }
+                    throw e;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void release() {
+            lock.lock();
+            try {
+                releaseLocked();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void releaseLocked() {
+            Waiter next = waiting.poll();
+            if (next == null) {
+                available++;
+                return;
+            }
+            next.granted = true;
+            next.signal.signal();
+        }
+    }
+
+    static Map<ResourceClass, Integer> defaultPermits(int cpus) {
+        Map<ResourceClass, Integer> permits = new EnumMap<>(ResourceClass.class);
+        // build tools are multi-threaded themselves, two of them already fill a small machine
+        permits.put(ResourceClass.CPU, Math.max(1, cpus / 2));
+        permits.put(ResourceClass.DISK, 2);
+        permits.put(ResourceClass.NETWORK, 4);
+        return permits;
+    }
+
+    private static Map<ResourceClass, Integer> configuredPermits(int cpus) {
+        Map<ResourceClass, Integer> permits = defaultPermits(cpus);
+        for (ResourceClass resource : ResourceClass.values()) {
+            String key = "qboot.scheduler." + resource.name().toLowerCase(Locale.ROOT);
+            try {
+                ConfigProvider.getConfig().getOptionalValue(key, Integer.class).ifPresent(count -> {
+                    if (count > 0) {
+                        permits.put(resource, count);
+                    } else {
+                        permits.remove(resource);
+                    }
+                });
+            } catch (RuntimeException ignored) {
+                // no config available (plain unit tests), defaults apply
+            }
+        }
+        return permits;
+    }
+
+    /** Available processors, further limited by a cgroup CPU quota below {@code cgroupRoot}. */
+    static int effectiveCpus(Path cgroupRoot) {
+        int cpus = Runtime.getRuntime().availableProcessors();
+        OptionalDouble quota = cgroupCpuLimit(cgroupRoot);
+        if (quota.isPresent()) {
+            cpus = Math.min(cpus, Math.max(1, (int) Math.ceil(quota.getAsDouble())));
+        }
+        return cpus;
+    }
+
+    /** CPU quota as a number of cores, read from cgroup v2 {@code cpu.max} or cgroup v1 CFS files. */
+    static OptionalDouble cgroupCpuLimit(Path cgroupRoot) {
+        try {
+            Path cpuMax = cgroupRoot.resolve("cpu.max");
+            if (Files.isRegularFile(cpuMax)) {
+                String[] parts = Files.readString(cpuMax).trim().split("\\s+");
+                if (parts.length == 2 && !"max".equals(parts[0])) {
+                    return cores(Long.parseLong(parts[0]), Long.parseLong(parts[1]));
+                }
+                return OptionalDouble.empty();
+            }
+            Path quota = cgroupRoot.resolve("cpu").resolve("cpu.cfs_quota_us");
+            Path period = cgroupRoot.resolve("cpu").resolve("cpu.cfs_period_us");
+            if (Files.isRegularFile(quota) && Files.isRegularFile(period)) {
+                return cores(Long.parseLong(Files.readString(quota).trim()), Long.parseLong(Files.readString(period).trim()));
+            }
+        } catch (IOException | NumberFormatException ignored) {
+            // unreadable quota, fall back to the processor count
+        }
+        return OptionalDouble.empty();
+    }
+
+    private static OptionalDouble cores(long quota, long period) {
+        if (quota <= 0 || period <= 0) {
+            return OptionalDouble.empty();
+        }
+        return OptionalDouble.of((double) quota / period);
+    }
+}
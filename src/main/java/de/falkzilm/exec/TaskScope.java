@@ -0,0 +1,212 @@
+package de.falkzilm.exec;
+
+import org.apache.commons.exec.ProcessDestroyer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+/**
+ * Fail-fast scope for concurrently running tasks.
+ * <p>
+ * Tasks are forked onto virtual threads. The first task that fails cancels the scope: the other tasks
+ * are interrupted, the process trees they started through {@link RunWrapper} are killed and no new
+ * processes are started. {@link #join()} waits until every task has actually stopped, runs the cleanup
+ * actions registered for the failure case and reports the first failure.
+ */
+public final class TaskScope implements AutoCloseable {
+
+    private static final ThreadLocal<TaskScope> CURRENT = new ThreadLocal<>();
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final List<Future<?>> tasks = new CopyOnWriteArrayList<>();
+    /** Whether each task started or was given up; the executor counts a cancelled task as done while it still runs. */
+    private final List<AtomicBoolean> claims = new CopyOnWriteArrayList<>();
+    private final Phaser running = new Phaser(1);
+    private final Set<Process> processes = ConcurrentHashMap.newKeySet();
+    private final Deque<Runnable> cleanups = new ArrayDeque<>();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private volatile boolean cancelled;
+    private Outcome outcome;
+
+    /** Result of a scope; {@code failure} is the first task failure, or {@code null}. */
+    public record Outcome(Throwable failure) {
+
+        public boolean succeeded() {
+            return failure == null;
+        }
+    }
+
+    /** The scope the current thread runs a task of, if any. */
+    public static Optional<TaskScope> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /** Registers {@code cleanup} with the current scope; it runs if the scope fails. */
+    public static void onFailure(Runnable cleanup) {
+        current().ifPresent(scope -> {
+            synchronized (scope.cleanups) {
+                scope.cleanups.push(cleanup);
+            }
+        });
+    }
+
+    /** Deletes {@code path} (a file or a whole directory tree) if the current scope fails. */
+    public static void deleteOnFailure(Path path) {
+        onFailure(() -> {
+            if (!Files.exists(path)) {
+                return;
+            }
+            try (Stream<Path> files = Files.walk(path)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(file);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public <T> Future<T> fork(Callable<T> task) {
+        AtomicBoolean claim = new AtomicBoolean();
+        claims.add(claim);
+        running.register();
+        Future<T> future = executor.submit(() -> {
+            if (!claim.compareAndSet(false, true)) {
+                return null;
+            }
+            CURRENT.set(this);
+            try {
+                if (cancelled) {
+                    throw new InterruptedException("Cancelled before start");
+                }
+                return task.call();
+            } catch (Throwable e) {
+                fail(e);
+                throw e;
+            } finally {
+                CURRENT.remove();
+                running.arriveAndDeregister();
+            }
+        });
+        tasks.add(future);
+        if (cancelled) {
+            future.cancel(true);
+        }
+        return future;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /** Interrupts all tasks and kills the process trees they started. */
+    public void cancel() {
+        cancelled = true;
+        // kill first: an interrupted task lets commons-exec destroy only the direct child and forget it
+        processes.forEach(process -> destroyTree(process.toHandle()));
+        tasks.forEach(task -> task.cancel(true));
+    }
+
+    /** Waits for all tasks to stop; runs the failure cleanups if a task failed. */
+    public Outcome join() throws InterruptedException {
+        if (outcome != null) {
+            return outcome;
+        }
+        executor.shutdown();
+        while (!executor.awaitTermination(1, TimeUnit.HOURS)) {
+            // keep waiting, tasks are bounded by their own timeouts
+        }
+        // tasks cancelled before they started never will; the others are waited for until they return
+        for (AtomicBoolean claim : claims) {
+            if (claim.compareAndSet(false, true)) {
+                running.arriveAndDeregister();
+            }
+        }
+        running.awaitAdvanceInterruptibly(running.arrive());
+        if (failure.get() != null) {
+            runCleanups();
+        }
+        outcome = new Outcome(failure.get());
+        return outcome;
+    }
+
+    @Override
+    public void close() {
+        if (outcome == null) {
+            // left without join, e.g. by an exception in the forking thread
+            cancel();
+            try {
+                join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Tracks processes started by tasks of this scope so they can be killed on cancellation. */
+    ProcessDestroyer processDestroyer() {
+        return new ProcessDestroyer() {
+            @Override
+            public boolean add(Process process) {
+                processes.add(process);
+                if (cancelled) {
+                    destroyTree(process.toHandle());
+                }
+                return true;
+            }
+
+            @Override
+            public boolean remove(Process process) {
+                return processes.remove(process);
+            }
+
+            @Override
+            public int size() {
+                return processes.size();
+            }
+        };
+    }
+
+    private void fail(Throwable e) {
+        if (failure.compareAndSet(null, e)) {
+            cancel();
+        }
+    }
+
+    private void runCleanups() {
+        synchronized (cleanups) {
+            while (!cleanups.isEmpty()) {
+                try {
+                    cleanups.pop().run();
+                } catch (RuntimeException ignored) {
+                    // one failing cleanup must not keep the others from running
+                }
+            }
+        }
+    }
+
+    /** Kills the children first so they cannot be re-parented and keep running. */
+    static void destroyTree(ProcessHandle process) {
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+}
@@ -0,0 +1,118 @@
+package de.falkzilm.exec;
+
+import de.falkzilm.helper.OsUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Where the build tools keep what they download, honouring the environment variables that move
+ * these caches. {@code qboot warm} fills them and {@code create --offline} works from them.
+ */
+public final class ToolCaches {
+
+    private ToolCaches() {
+    }
+
+    public static Path mavenRepository() {
+        return home().resolve(".m2").resolve("repository");
+    }
+
+    public static Path npmCache() {
+        return fromEnv("npm_config_cache").orElse(home().resolve(".npm"));
+    }
+
+    /**
+     * The content-addressable store pnpm hardlinks packages from into each project's
+     * {@code node_modules}.
+     */
+    public static Path pnpmStore() {
+        return fromEnv("npm_config_store_dir").orElseGet(() -> {
+            if (OsUtils.isWindows()) {
+                return fromEnv("LOCALAPPDATA").orElse(home().resolve("AppData").resolve("Local")).resolve("pnpm").resolve("store");
+            } else if (OsUtils.isMac()) {
+                return home().resolve("Library").resolve("pnpm").resolve("store");
+            }
+            return fromEnv("XDG_DATA_HOME").orElse(home().resolve(".local").resolve("share")).resolve("pnpm").resolve("store");
+        });
+    }
+
+    /** The global cache of yarn (Berry). */
+    public static Path yarnCache() {
+        return fromEnv("YARN_CACHE_FOLDER").orElse(home().resolve(".yarn").resolve("berry").resolve("cache"));
+    }
+
+    public static Path bunCache() {
+        return fromEnv("BUN_INSTALL_CACHE_DIR").orElse(home().resolve(".bun").resolve("install").resolve("cache"));
+    }
+
+    public static Path gradleHome() {
+        return fromEnv("GRADLE_USER_HOME").orElse(home().resolve(".gradle"));
+    }
+
+    /** The NuGet global packages folder, laid out as a local feed ({@code <id>/<version>/}). */
+    public static Path nugetPackages() {
+        return fromEnv("NUGET_PACKAGES").orElse(home().resolve(".nuget").resolve("packages"));
+    }
+
+    /** All tool caches by display name. */
+    public static Map<String, Path> all() {
+        Map<String, Path> caches = new LinkedHashMap<>();
+        caches.put("Maven", mavenRepository());
+        caches.put("npm", npmCache());
+        caches.put("pnpm", pnpmStore());
+        caches.put("yarn", yarnCache());
+        caches.put("bun", bunCache());
+        caches.put("Gradle", gradleHome());
+        caches.put("NuGet", nugetPackages());
+        return caches;
+    }
+
+    /**
+     * The file of a Maven artifact ({@code group:artifact:version[:type[:classifier]]}) in
+     * {@code repository}.
+     */
+    public static Path mavenArtifact(Path repository, String coordinates) {
+        String[] parts = coordinates.split(":");
+        if (parts.length < 3) {
+            throw new IllegalArgumentException("Not a Maven artifact: " + coordinates);
+        }
+        String type = parts.length > 3 ? parts[3] : "jar";
+        String classifier = parts.length > 4 ? "-" + parts[4] : "";
+        String extension = "maven-plugin".equals(type) ? "jar" : type;
+        return repository.resolve(parts[0].replace('.', '/'))
+                .resolve(parts[1])
+                .resolve(parts[2])
+                .resolve(parts[1] + "-" + parts[2] + classifier + "." + extension);
+    }
+
+    /** Whether the global packages folder holds {@code id} in {@code version}, or in any version if it is null. */
+    public static boolean hasNugetPackage(Path packages, String id, String version) {
+        Path dir = packages.resolve(id.toLowerCase(Locale.ROOT));
+        if (version != null) {
+            return Files.isDirectory(dir.resolve(version.toLowerCase(Locale.ROOT)));
+        }
+        if (!Files.isDirectory(dir)) {
+            return false;
+        }
+        try (Stream<Path> versions = Files.list(dir)) {
+            return versions.anyMatch(Files::isDirectory);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static Optional<Path> fromEnv(String name) {
+        return Optional.ofNullable(System.getenv(name)).filter(value -> !value.isBlank()).map(Path::of);
+    }
+
+    private static Path home() {
+        return Path.of(System.getProperty("user.home"));
+    }
+}
@@ -0,0 +1,129 @@
+package de.falkzilm.exec;
+
+import de.falkzilm.helper.OsUtils;
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.ProcessDestroyer;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cached {@code <tool> --version} probes.
+ * <p>
+ * Each tool is probed at most once per run. Probes run on virtual threads, so they can be started
+ * early (e.g. while the template downloads) and joined when the prerequisite check needs them. A
+ * probe that turns out not to be needed is stopped: its thread is interrupted, so it gives up its
+ * scheduler slot, and its process is killed.
+ */
+public final class ToolProbe {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(60);
+    private static final Map<String, Probe> PROBES = new ConcurrentHashMap<>();
+
+    /** Exit code and output of the probe, and the command that produced them, for debug output. */
+    public record Result(int exitCode, String output, String command) {
+    }
+
+    private ToolProbe() {
+    }
+
+    public static CompletableFuture<Result> probe(String tool) {
+        return PROBES.computeIfAbsent(tool, Probe::start).result;
+    }
+
+    /** Stops and drops probes for tools that turned out not to be needed. */
+    public static void retainOnly(Collection<String> tools) {
+        PROBES.entrySet().removeIf(entry -> {
+            if (tools.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().cancel();
+            return true;
+        });
+    }
+
+    static void reset() {
+        PROBES.clear();
+    }
+
+    private static final class Probe {
+        final CompletableFuture<Result> result = new CompletableFuture<>();
+        final Set<Process> processes = ConcurrentHashMap.newKeySet();
+        volatile boolean cancelled;
+        Thread thread;
+
+        static Probe start(String tool) {
+            Probe probe = new Probe();
+            probe.thread = Thread.ofVirtual().unstarted(() -> {
+                try {
+                    probe.result.complete(run(tool, probe.destroyer()));
+                } catch (RuntimeException e) {
+                    probe.result.completeExceptionally(e);
+                }
+            });
+            probe.thread.start();
+            return probe;
+        }
+
+        void cancel() {
+            cancelled = true;
+            result.cancel(true);
+            thread.interrupt();
+            processes.forEach(process -> TaskScope.destroyTree(process.toHandle()));
+        }
+
+        ProcessDestroyer destroyer() {
+            return new ProcessDestroyer() {
+                @Override
+                public boolean add(Process process) {
+                    processes.add(process);
+                    if (cancelled) {
+                        TaskScope.destroyTree(process.toHandle());
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean remove(Process process) {
+                    return processes.remove(process);
+                }
+
+                @Override
+                public int size() {
+                    return processes.size();
+                }
+            };
+        }
+    }
+
+    private static Result run(String tool, ProcessDestroyer destroyer) {
+        LoginEnvironment environment = LoginEnvironment.get();
+        Optional<Path> executable = environment.which(tool);
+
+        RunWrapper runner = executable
+                .map(path -> RunWrapper.builder()
+                        .cmd(new CommandLine(path.toString()).addArgument("--version"))
+                        .environment(environment.variables()))
+                // shell functions and aliases are only known to the login shell itself
+                .orElseGet(() -> RunWrapper.builder()
+                        .cmd(OsUtils.createShellCommand(tool + " --version")))
+                .timeout(TIMEOUT)
+                .resource(ResourceClass.TRIVIAL)
+                .step("probe " + tool)
+                .processDestroyer(destroyer)
+                .build();
+
+        int result = runner.run(Path.of("."), false);
+        String command = String.join(" ", runner.getCmd().toStrings());
+        String origin = executable.isPresent()
+                ? (OsUtils.isWindows() ? "found on the PATH" : "found on the PATH of the bash login shell")
+                : "not found on the PATH, run through " + OsUtils.getShell() + " for shell functions and aliases";
+        return new Result(result, runner.getOutput(), command + " (" + origin + ")");
+    }
+}
@@ -1,9 +1,11 @@
 package de.falkzilm.gen;
 
+import de.falkzilm.cache.ContentStore;
 import de.falkzilm.helper.ConsoleFormatter;
 import de.falkzilm.template.ChangeSet;
 import de.falkzilm.template.PathSpec;
 import de.falkzilm.template.Structure;
+import de.falkzilm.template.TemplateBundle;
 import lombok.Builder;
 import lombok.Data;
 
@@ -16,6 +18,9 @@ import java.nio.file.Path;
 @Data
 public class ChangesetHandler {
     private Structure structure;
+    private TemplateBundle bundle;
+    /** Optional store the written files are deduplicated into. */
+    private ContentStore store;
 
     public void run(GenParameters genParameters) {
         if ("custom".equals(structure.value)) {
@@ -29,11 +34,36 @@ public class ChangesetHandler {
                         new File(projectPath.toFile(), pathSpec.name).mkdirs();
                     }
 
-                    if (pathSpec.content != null && !pathSpec.content.isBlank()) {
+                    if (pathSpec.asset != null && !pathSpec.asset.isBlank()) {
+                        ConsoleFormatter.subbullet("Copying asset " + pathSpec.asset + " to path " + pathSpec.name);
+                        File outputFile = new File(projectPath.toFile(), pathSpec.name);
+                        try {
+                            if (bundle == null) {
+                                throw new IOException("Template is not a bundle, asset references are not supported");
+                            }
+                            outputFile.getParentFile().mkdirs();
+                            bundle.copyAsset(pathSpec.asset, outputFile.toPath());
+                            if (store != null) {
+                                store.put(outputFile.toPath(), ContentStore.immutable(Path.of(pathSpec.name)));
+                            }
+                        } catch (IOException e) {
+                            ConsoleFormatter.error(
+                                    "Write failure",
+                                    "Could not copy asset " + pathSpec.asset + ": " + e.getMessage(), e.getCause(),
+                                    "Make sure the asset is part of the bundle",
+                                    "Make sure destination path is writeable"
+                            );
+                        }
+                    } else if (pathSpec.content != null && !pathSpec.content.isBlank()) {
                         ConsoleFormatter.subbullet("Editing content in path " + pathSpec.name);
                         File outputFile = new File(projectPath.toFile(), pathSpec.name);
-                        try (FileWriter writer = new FileWriter(outputFile)) {
-                            writer.write(pathSpec.content);
+                        try {
+                            try (FileWriter writer = new FileWriter(outputFile)) {
+                                writer.write(pathSpec.content);
+                            }
+                            if (store != null) {
+                                store.put(outputFile.toPath(), false);
+                            }
                         } catch (IOException e) {
                             ConsoleFormatter.error(
                                     "Write failure",
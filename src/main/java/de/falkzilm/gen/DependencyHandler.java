@@ -1,14 +1,14 @@
 package de.falkzilm.gen;
 
-import de.falkzilm.exec.RunWrapper;
+import de.falkzilm.exec.TaskScope;
+import de.falkzilm.exec.ToolProbe;
 import de.falkzilm.helper.ConsoleFormatter;
 import de.falkzilm.template.Dependency;
 import lombok.Data;
 import lombok.experimental.SuperBuilder;
-import org.apache.commons.exec.CommandLine;
 
-import java.nio.file.Path;
 import java.util.List;
+import java.util.concurrent.CancellationException;
 
 @SuperBuilder
 @Data
@@ -16,30 +16,39 @@ public class DependencyHandler {
     private List<Dependency> dependencies;
     private GenParameters genParameters;
 
-    public void check() {
+    /**
+     * Checks the prerequisites in order and stops at the first required tool that is missing or
+     * too old. Throws {@link CancellationException} instead if the workspace was cancelled, since a
+     * probe that did not run says nothing about the tool.
+     */
+    public void check() throws PrerequisiteException {
         ConsoleFormatter.section("PreRequisites:");
+        // Probes run concurrently (or were started while the template downloaded); results are shown in order
+        this.dependencies.forEach(dep -> ToolProbe.probe(dep.name()));
         for(Dependency dep : this.dependencies) {
             var checkItemConsole = ConsoleFormatter.beginCheck(dep.name(), dep.optional(), dep.version());
             checkItemConsole.printStart();
-            var cmd = new CommandLine("bash")
-                    .addArgument("-lc")
-                    .addArgument(dep.name() + " --version", false);
-            var runner = RunWrapper.builder().cmd(cmd).build();
-            var result = runner.run(Path.of("."), genParameters.debug());
+            var probe = ToolProbe.probe(dep.name()).join();
+            var result = probe.exitCode();
 
             if (genParameters.debug()) {
                 System.out.println();
-                ConsoleFormatter.debug("Execution return", dep.name() + " --version [" + result + "]");
-                ConsoleFormatter.debug("Output", runner.getOutput());
+                ConsoleFormatter.debug("Execution return", probe.command() + " [" + result + "]");
+                ConsoleFormatter.debug("Output", probe.output());
             }
 
-            if (result > 0 && !dep.optional()) {
+            if (result != 0 && cancelled()) {
+                checkItemConsole.fail("Cancelled");
+                System.out.println();
+                throw new CancellationException("Cancelled while checking " + dep.name());
+            } else if (result != 0 && !dep.optional()) {
                 checkItemConsole.fail("Not found");
-                System.exit(1);
-            } else if (result > 0) {
+                System.out.println();
+                throw new PrerequisiteException(dep.name(), "not found");
+            } else if (result != 0) {
                 checkItemConsole.fail("Not found");
             } else {
-                var output = runner.getOutput().trim();
+                var output = probe.output().trim();
                 String requiredVersion = dep.version();
 
                 String actualVersion = getActualStringForDep(dep.name(), output);
@@ -52,7 +61,8 @@ public class DependencyHandler {
 
                         if (requiredMajorVersion > actualMajorVersion) {
                             checkItemConsole.fail("Greater version is needed");
-                            System.exit(1);
+                            System.out.println();
+                            throw new PrerequisiteException(dep.name(), "version " + requiredVersion + " is needed, found " + actualVersion);
                         } else {
                             checkItemConsole.ok();
                         }
@@ -62,7 +72,8 @@ public class DependencyHandler {
                 } else {
                     if (!output.contains(dep.version()) && !dep.optional()) {
                         checkItemConsole.fail("Specific version was requested and is not meet");
-                        System.exit(1);
+                        System.out.println();
+                        throw new PrerequisiteException(dep.name(), "version " + requiredVersion + " was requested");
                     } else if (dep.optional()) {
                         checkItemConsole.fail("Not right version");
                     } else {
@@ -86,6 +97,10 @@ public class DependencyHandler {
         throw new IllegalArgumentException("Needs implementation");
     }
 
+    private static boolean cancelled() {
+        return Thread.currentThread().isInterrupted() || TaskScope.current().map(TaskScope::isCancelled).orElse(false);
+    }
+
     private String getActualStringForDep(String dep, String output) {
         return switch (dep) {
             case "java" -> output.split(" ")[1].split("\\.")[0];
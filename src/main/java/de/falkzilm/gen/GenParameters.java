@@ -1,6 +1,9 @@
 package de.falkzilm.gen;
 
+import de.falkzilm.gen.node.PackageManager;
+
 import java.nio.file.Path;
 
-public record GenParameters(Framework framework, String name, String packageName, String frameworkVersion, Boolean debug, Path target, String cliArgs) {
+public record GenParameters(Framework framework, String name, String packageName, String frameworkVersion, Boolean debug, Path target, String cliArgs,
+                            PackageManager packageManager) {
 }
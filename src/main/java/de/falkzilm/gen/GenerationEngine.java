@@ -10,5 +10,40 @@ public interface GenerationEngine {
     /** Erzeugt Projektartefakte für die gegebene Sprache. */
     void generate(Workspace template, GenParameters genParameters) throws Exception;
 
+    /**
+     * The generation as named steps with declared inputs and outputs, so a {@link StepRunner} can
+     * restore unchanged steps from its cache. Engines that return no steps are run via
+     * {@link #generate}.
+     */
+    default List<GenerationStep> steps(Workspace template, GenParameters genParameters) {
+        return List.of();
+    }
+
+    /**
+     * What {@link #generate} would fetch from the network, as steps that only fill the local caches
+     * of qBoot and the build tools (see {@link Warmup}). {@code qboot warm} runs them ahead of time,
+     * so later generations are served from the caches.
+     */
+    default List<GenerationStep> warmup(Workspace template, GenParameters genParameters) {
+        return List.of();
+    }
+
+    /**
+     * What {@link #warmup} prefetches that is missing from the local caches, described for the
+     * user. {@code create --offline} checks every workspace before any of them starts.
+     */
+    default List<String> uncached(Workspace template, GenParameters genParameters) {
+        return List.of();
+    }
+
+    /**
+     * Identifiers the generated project derives from its name and package besides the two
+     * themselves, such as a main class named after the project. A snapshot restore re-renders them
+     * for another project, so every project of the engine must list them in the same order.
+     */
+    default List<String> derivedIdentifiers(GenParameters genParameters) {
+        return List.of();
+    }
+
     DependencyHandler createDependencyHandlerFor(GenParameters genParameters, List<Dependency> dependencyList);
 }
@@ -0,0 +1,204 @@
+package de.falkzilm.gen;
+
+import de.falkzilm.helper.ConsoleFormatter;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Checkpoints of a {@code create} run, kept in {@value #FILE_NAME} in the output directory.
+ * <p>
+ * Every completed phase of a workspace is recorded together with a hash of its inputs (template
+ * section, generation parameters, tool versions) and the directory it produced. A resumed run skips
+ * a phase if the hash is unchanged, its output still exists and all earlier phases of the workspace
+ * were skipped as well; from the first phase that runs again, the rest of the workspace runs too.
+ * <p>
+ * A phase is marked as started before it runs, which drops its own and all later completion
+ * markers, and only counts as completed once it returned. A phase that cannot run twice on the same
+ * output ({@link #CHANGESETS}) and was started without completing makes the whole workspace run
+ * again, since its output was left half changed.
+ */
+public class GenerationJournal {
+
+    public static final String FILE_NAME = ".qboot-journal";
+
+    public static final String GENERATE = "generate";
+    public static final String POST_DEPENDENCIES = "post-dependencies";
+    public static final String CHANGESETS = "changesets";
+
+    /** The phases of a workspace in the order they run. */
+    private static final List<String> PHASES = List.of(GENERATE, POST_DEPENDENCIES, CHANGESETS);
+    /** Phases that must not run again on output they already changed. */
+    private static final Set<String> NOT_IDEMPOTENT = Set.of(CHANGESETS);
+    private static final String STARTED = ".started";
+
+    private final Path journalFile;
+    private final boolean resume;
+    private final Properties entries = new Properties();
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+
+    private GenerationJournal(Path journalFile, boolean resume) {
+        this.journalFile = journalFile;
+        this.resume = resume;
+    }
+
+    /**
+     * Opens the journal of {@code outputDir}. Without {@code resume} earlier checkpoints are
+     * discarded, but this run is recorded so it can be resumed later.
+     */
+    public static GenerationJournal open(Path outputDir, boolean resume) {
+        GenerationJournal journal = new GenerationJournal(outputDir.resolve(FILE_NAME), resume);
+        if (!resume) {
+            try {
+                // a failed run must not leave the checkpoints of an earlier one behind for --resume
+                Files.deleteIfExists(journal.journalFile);
+            } catch (IOException ignored) {
+                // rewritten with the first completed phase
+            }
+        } else if (Files.isRegularFile(journal.journalFile)) {
+            try (Reader reader = Files.newBufferedReader(journal.journalFile)) {
+                journal.entries.load(reader);
+            } catch (IOException ignored) {
+                // an unreadable journal means nothing can be skipped
+            }
+        }
+        return journal;
+    }
+
+    /** Checkpoints of one workspace, whose phases run in order. */
+    public Session workspace(int index, String inputHash, Path target, Path projectPath) {
+        return new Session(index, inputHash, target, projectPath);
+    }
+
+    public class Session {
+        private final int index;
+        private final String inputHash;
+        private final Path target;
+        private final Path projectPath;
+        private boolean skipping;
+        private int skipped;
+
+        private Session(int index, String inputHash, Path target, Path projectPath) {
+            this.index = index;
+            this.inputHash = inputHash;
+            this.target = target;
+            this.projectPath = projectPath;
+            this.skipping = resume && !interrupted(index);
+        }
+
+        /** Runs {@code action} unless the phase can be resumed from the journal. */
+        public void run(String phase, Action action) throws Exception {
+            String phaseHash = hash(inputHash, phase);
+            if (skipping && completed(index, phase, phaseHash)) {
+                ConsoleFormatter.bullet("Skipping " + phase + ", unchanged since the last run");
+                skipped++;
+                return;
+            }
+            skipping = false;
+            start(index, phase, phaseHash);
+            action.run();
+            Path output = Files.exists(projectPath) ? projectPath : target;
+            complete(index, phase, phaseHash, output);
+        }
+
+        /** Number of phases resumed from the journal so far. */
+        public int skipped() {
+            return skipped;
+        }
+    }
+
+    private synchronized boolean completed(int index, String phase, String phaseHash) {
+        String entry = entries.getProperty(key(index, phase));
+        if (entry == null) {
+            return false;
+        }
+        int separator = entry.indexOf(' ');
+        if (separator < 0 || !entry.substring(0, separator).equals(phaseHash)) {
+            return false;
+        }
+        return hasContent(Path.of(entry.substring(separator + 1)));
+    }
+
+    /** Whether a phase of workspace {@code index} that cannot be repeated was started but not completed. */
+    private synchronized boolean interrupted(int index) {
+        for (String phase : NOT_IDEMPOTENT) {
+            if (entries.getProperty(key(index, phase) + STARTED) != null) {
+                ConsoleFormatter.bullet("The " + phase + " of the last run did not finish, generating the workspace again");
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized void start(int index, String phase, String phaseHash) throws IOException {
+        for (String later : PHASES.subList(PHASES.indexOf(phase), PHASES.size())) {
+            entries.remove(key(index, later));
+            entries.remove(key(index, later) + STARTED);
+        }
+        entries.setProperty(key(index, phase) + STARTED, phaseHash);
+        store();
+    }
+
+    private synchronized void complete(int index, String phase, String phaseHash, Path output) throws IOException {
+        entries.remove(key(index, phase) + STARTED);
+        entries.setProperty(key(index, phase), phaseHash + " " + output.toAbsolutePath().normalize());
+        store();
+    }
+
+    private void store() throws IOException {
+        Files.createDirectories(journalFile.toAbsolutePath().getParent());
+        Path temp = journalFile.resolveSibling(FILE_NAME + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temp)) {
+            entries.store(writer, "qBoot generation journal, used by create --resume");
+        }
+        Files.move(temp, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String key(int index, String phase) {
+        return "workspace." + index + "." + phase;
+    }
+
+    private static boolean hasContent(Path output) {
+        if (Files.isRegularFile(output)) {
+            return true;
+        }
+        if (!Files.isDirectory(output)) {
+            return false;
+        }
+        try (Stream<Path> children = Files.list(output)) {
+            return children.anyMatch(child -> !child.getFileName().toString().startsWith(FILE_NAME));
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** SHA-256 over the given parts; {@code null} parts count as empty. */
+    public static String hash(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update((part == null ? "" : part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
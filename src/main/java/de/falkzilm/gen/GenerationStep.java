@@ -0,0 +1,30 @@
+package de.falkzilm.gen;
+
+import lombok.Builder;
+import lombok.Singular;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A named part of a generation with declared inputs and outputs.
+ * <p>
+ * {@code inputs} must cover everything the result depends on (parameters, tool versions, template
+ * fragments); {@code outputs} are paths relative to the generation target. A step with outputs is
+ * cached by the {@link StepRunner} under a hash of its inputs; a step without outputs always runs.
+ * The versions of {@code tools} count as inputs too, but are only probed once the step is keyed.
+ */
+@Builder
+public record GenerationStep(
+        String name,
+        @Singular Map<String, String> inputs,
+        @Singular List<String> tools,
+        @Singular List<Path> outputs,
+        Action action) {
+
+    @FunctionalInterface
+    public interface Action {
+        void run() throws Exception;
+    }
+}
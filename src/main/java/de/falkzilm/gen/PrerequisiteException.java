@@ -0,0 +1,18 @@
+package de.falkzilm.gen;
+
+/**
+ * A required tool is missing or does not have the requested version.
+ */
+public class PrerequisiteException extends Exception {
+
+    private final String tool;
+
+    public PrerequisiteException(String tool, String reason) {
+        super(tool + ": " + reason);
+        this.tool = tool;
+    }
+
+    public String getTool() {
+        return tool;
+    }
+}
@@ -0,0 +1,144 @@
+package de.falkzilm.gen;
+
+import de.falkzilm.cache.CacheAccess;
+import de.falkzilm.cache.CacheManager;
+import de.falkzilm.exec.ResourceClass;
+import de.falkzilm.exec.StepScheduler;
+import de.falkzilm.exec.ToolProbe;
+import de.falkzilm.helper.ConsoleFormatter;
+
+import java.io.IOException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Runs the {@link GenerationStep}s of an engine and memoizes their outputs.
+ * <p>
+ * Each step with outputs is keyed by a hash of framework, step name and declared inputs. If an entry
+ * for the key exists, its outputs are copied into the target instead of running the step; otherwise
+ * the step runs and its outputs are stored under the key for the next run. Both happen under the
+ * key's {@link CacheAccess} lock, so concurrent runs build each entry only once.
+ */
+public class StepRunner {
+
+    private static final String FILES = "files";
+
+    private final Path cacheDir;
+    private final boolean enabled;
+
+    public StepRunner(Path cacheDir, boolean enabled) {
+        this.cacheDir = cacheDir;
+        this.enabled = enabled;
+    }
+
+    public void run(Framework framework, List<GenerationStep> steps, GenParameters genParameters) throws Exception {
+        for (GenerationStep step : steps) {
+            if (!enabled || step.outputs().isEmpty()) {
+                step.action().run();
+                continue;
+            }
+            String key = key(framework, step);
+            // concurrent runs with the same inputs wait for the first one and restore its outputs
+            try (CacheAccess.Lock ignored = CacheAccess.lock(cacheDir, key)) {
+                runLocked(step, key, genParameters);
+            }
+        }
+    }
+
+    private void runLocked(GenerationStep step, String key, GenParameters genParameters) throws Exception {
+        Path entry = cacheDir.resolve(key);
+        CacheManager.shared().promote(CacheManager.Area.STEPS, cacheDir, key);
+        if (Files.isDirectory(entry)) {
+            CacheManager.shared().hit(CacheManager.Area.STEPS, key);
+            ConsoleFormatter.bullet("Restoring " + step.name() + " from step cache");
+            StepScheduler.shared().run("restore " + step.name(), ResourceClass.DISK, () -> {
+                restore(entry, step, genParameters.target());
+                return null;
+            });
+            return;
+        }
+        CacheManager.shared().miss(CacheManager.Area.STEPS);
+        step.action().run();
+        try {
+            store(entry, step, genParameters.target());
+            CacheManager.shared().stored(CacheManager.Area.STEPS, key);
+        } catch (IOException e) {
+            // a failed store only costs the cache hit next time
+            if (genParameters.debug()) {
+                ConsoleFormatter.debug("Step cache", "Could not store " + step.name() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    static String key(Framework framework, GenerationStep step) {
+        List<String> parts = new ArrayList<>();
+        parts.add(String.valueOf(framework));
+        parts.add(step.name());
+        Map<String, String> inputs = new TreeMap<>(step.inputs());
+        step.tools().forEach(tool -> inputs.put(tool, ToolProbe.probe(tool).join().output().trim()));
+        inputs.forEach((name, value) -> parts.add(name + "=" + value));
+        step.outputs().forEach(output -> parts.add("->" + output));
+        return GenerationJournal.hash(parts.toArray(String[]::new));
+    }
+
+    private void restore(Path entry, GenerationStep step, Path target) throws IOException {
+        for (Path output : step.outputs()) {
+            copy(entry.resolve(FILES).resolve(output.toString()), target.resolve(output));
+        }
+    }
+
+    private void store(Path entry, GenerationStep step, Path target) throws IOException {
+        for (Path output : step.outputs()) {
+            if (!Files.exists(target.resolve(output))) {
+                // the step did not produce what it declared, nothing reliable to cache
+                return;
+            }
+        }
+        Files.createDirectories(cacheDir);
+        Path staging = Files.createTempDirectory(cacheDir, ".staging-");
+        try {
+            for (Path output : step.outputs()) {
+                copy(target.resolve(output), staging.resolve(FILES).resolve(output.toString()));
+            }
+            Files.move(staging, entry, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+            // stored concurrently by another run with the same inputs
+        } finally {
+            delete(staging);
+        }
+    }
+
+    private static void copy(Path source, Path destination) throws IOException {
+        try (Stream<Path> files = Files.walk(source)) {
+            for (Path file : files.toList()) {
+                Path copy = destination.resolve(source.relativize(file).toString());
+                if (Files.isDirectory(file)) {
+                    Files.createDirectories(copy);
+                } else {
+                    Files.createDirectories(copy.getParent());
+                    Files.copy(file, copy, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        }
+    }
+
+    private static void delete(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> files = Files.walk(path)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package de.falkzilm.gen;
+
+import de.falkzilm.exec.ResourceClass;
+import de.falkzilm.exec.RunWrapper;
+import de.falkzilm.gen.node.PackageManager;
+import de.falkzilm.helper.OsUtils;
+import org.apache.commons.exec.CommandLine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Building blocks for {@link GenerationEngine#warmup}: prefetch steps that fill the caches of the
+ * build tools (Maven repository, Node package caches, Gradle distributions, NuGet packages) without touching
+ * the generation target. Tools that need a project to fetch into run in a scratch directory that
+ * is removed afterwards.
+ */
+public final class Warmup {
+
+    private Warmup() {
+    }
+
+    @FunctionalInterface
+    public interface ScratchAction {
+        void run(Path dir) throws Exception;
+    }
+
+    /** Resolves a Maven artifact ({@code group:artifact:version[:type[:classifier]]}) with its dependencies. */
+    public static GenerationStep mavenArtifact(String coordinates, boolean debug) {
+        return GenerationStep.builder()
+                .name("prefetch " + coordinates)
+                .action(() -> inScratchDir(dir -> run(
+                        OsUtils.createMavenCommand("-B -q dependency:get -Dartifact=" + coordinates),
+                        OsUtils.mavenLauncher() + " dependency:get", dir, debug)))
+                .build();
+    }
+
+    /**
+     * Installs Node packages into a scratch project with {@code packageManager}, so they and their
+     * dependencies end up in its cache (npm, yarn, bun) or content store (pnpm).
+     */
+    public static GenerationStep nodePackages(PackageManager packageManager, List<String> packages, boolean debug) {
+        return GenerationStep.builder()
+                .name("prefetch " + String.join(" ", packages))
+                .action(() -> inScratchDir(dir -> {
+                    packageManager.prepareScratch(dir);
+                    run(packageManager.command(packageManager.prefetch(packages)), packageManager.id() + " install", dir, debug);
+                }))
+                .build();
+    }
+
+    /**
+     * Lets the Gradle wrapper of a project archive download its distribution into the Gradle user
+     * home, as the first build of the extracted project would.
+     */
+    public static void gradleDistribution(Path archive, boolean debug) throws Exception {
+        inScratchDir(dir -> {
+            Path wrapper = extractWrapper(archive, dir);
+            if (wrapper == null) {
+                return;
+            }
+            String gradlew = OsUtils.isWindows() ? "gradlew.bat" : "./gradlew";
+            wrapper.resolve("gradlew").toFile().setExecutable(true);
+            run(OsUtils.createShellCommand(gradlew + " --version"), "gradle wrapper download", wrapper, debug);
+        });
+    }
+
+    /** Runs {@code action} in a fresh temporary directory that is deleted afterwards. */
+    public static void inScratchDir(ScratchAction action) throws Exception {
+        Path dir = Files.createTempDirectory("qboot-warm-");
+        try {
+            action.run(dir);
+        } finally {
+            delete(dir);
+        }
+    }
+
+    /** Runs {@code cmd} as a {@link ResourceClass#NETWORK} step and fails if the tool does. */
+    public static void run(CommandLine cmd, String step, Path workingDir, boolean debug) throws IOException {
+        RunWrapper wrapper = RunWrapper.builder()
+                .cmd(cmd)
+                .resource(ResourceClass.NETWORK)
+                .step(step)
+                .build();
+        int exitCode = wrapper.run(workingDir, debug);
+        if (exitCode != 0) {
+            throw new IOException(step + " failed with exit code " + exitCode + ": " + wrapper.getOutput().strip());
+        }
+    }
+
+    /** Extracts the wrapper scripts and {@code gradle/wrapper} of the archive; returns their project directory. */
+    private static Path extractWrapper(Path archive, Path dir) throws IOException {
+        Path project = null;
+        try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(archive))) {
+            for (ZipEntry entry; (entry = zip.getNextEntry()) != null; ) {
+                String name = entry.getName();
+                int wrapperAt = name.indexOf("gradle/wrapper/");
+                boolean script = name.endsWith("gradlew") || name.endsWith("gradlew.bat");
+                if (entry.isDirectory() || (wrapperAt < 0 && !script)) {
+                    continue;
+                }
+                Path file = dir.resolve(name).normalize();
+                if (!file.startsWith(dir)) {
+                    throw new IOException("Archive entry outside of the archive root: " + name);
+                }
+                Files.createDirectories(file.getParent());
+                Files.copy(zip, file, StandardCopyOption.REPLACE_EXISTING);
+                if (script) {
+                    project = file.getParent();
+                }
+            }
+        }
+        return project;
+    }
+
+    private static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+}
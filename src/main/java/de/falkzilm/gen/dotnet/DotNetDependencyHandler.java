@@ -1,5 +1,6 @@
 package de.falkzilm.gen.dotnet;
 
+import de.falkzilm.exec.ResourceClass;
 import de.falkzilm.exec.RunWrapper;
 import de.falkzilm.gen.DependencyHandler;
 import de.falkzilm.helper.ConsoleFormatter;
@@ -27,12 +28,14 @@ public class DotNetDependencyHandler extends DependencyHandler {
             
             // Build dotnet add package command
             String dotnetArgs = String.format("add package %s --version %s", 
-                packageName, dep.version());
+                packageName, dep.version()) + DotNetEngine.packageSourceArgs();
             
             CommandLine dotnetCmd = OsUtils.createShellCommand("dotnet " + dotnetArgs);
             
             RunWrapper.builder()
                     .cmd(dotnetCmd)
+                    .resource(ResourceClass.NETWORK)
+                    .step("dotnet add package")
                     .build()
                     .run(projectPath, getGenParameters().debug());
         }
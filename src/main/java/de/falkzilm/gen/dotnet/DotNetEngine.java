@@ -1,6 +1,8 @@
 package de.falkzilm.gen.dotnet;
 
+import de.falkzilm.exec.ResourceClass;
 import de.falkzilm.exec.RunWrapper;
+import de.falkzilm.exec.ToolCaches;
 import de.falkzilm.gen.*;
 import de.falkzilm.helper.ConsoleFormatter;
 import de.falkzilm.helper.OsUtils;
@@ -10,7 +12,9 @@ import jakarta.enterprise.context.ApplicationScoped;
 import org.apache.commons.exec.CommandLine;
 
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 @ApplicationScoped
 @FrameworkUsage(Framework.DOTNET)
@@ -30,6 +34,7 @@ public class DotNetEngine implements GenerationEngine {
         CommandLine mkdirCmd = OsUtils.createMkdirCommand(genParameters.target().toString());
         RunWrapper.builder()
                 .cmd(mkdirCmd)
+                .resource(ResourceClass.TRIVIAL)
                 .build()
                 .run(Path.of("."), genParameters.debug());
 
@@ -42,6 +47,8 @@ public class DotNetEngine implements GenerationEngine {
         
         RunWrapper.builder()
                 .cmd(dotnetCmd)
+                .resource(ResourceClass.CPU)
+                .step("dotnet new")
                 .build()
                 .run(genParameters.target(), genParameters.debug());
 
@@ -50,6 +57,12 @@ public class DotNetEngine implements GenerationEngine {
 
     }
 
+    /** The root namespace, which {@code dotnet new} takes from the project name with dashes replaced. */
+    @Override
+    public List<String> derivedIdentifiers(GenParameters genParameters) {
+        return List.of(genParameters.name().replace('-', '_'));
+    }
+
     private String buildCreateCommand(GenParameters genParameters) {
         String projectName = genParameters.name();
         String cliArgs = genParameters.cliArgs() != null ? genParameters.cliArgs() : "";
@@ -128,42 +141,108 @@ public class DotNetEngine implements GenerationEngine {
     }
 
     private void addAdditionalPackages(GenParameters genParameters) {
-        String cliArgs = genParameters.cliArgs() != null ? genParameters.cliArgs() : "";
         String projectPath = genParameters.target().resolve(genParameters.name()).toString();
-        
+        for (String packageName : additionalPackages(genParameters.cliArgs())) {
+            addNuGetPackage(packageName, projectPath, genParameters);
+        }
+    }
+
+    private List<String> additionalPackages(String cliArgs) {
+        List<String> packages = new ArrayList<>();
+        if (cliArgs == null) {
+            return packages;
+        }
+
         if (cliArgs.contains("--ef") || cliArgs.contains("--entity-framework")) {
-            addNuGetPackage("Microsoft.EntityFrameworkCore.SqlServer", projectPath, genParameters);
-            addNuGetPackage("Microsoft.EntityFrameworkCore.Tools", projectPath, genParameters);
+            packages.add("Microsoft.EntityFrameworkCore.SqlServer");
+            packages.add("Microsoft.EntityFrameworkCore.Tools");
         }
         
         if (cliArgs.contains("--swagger")) {
-            addNuGetPackage("Swashbuckle.AspNetCore", projectPath, genParameters);
+            packages.add("Swashbuckle.AspNetCore");
         }
         
         if (cliArgs.contains("--serilog")) {
-            addNuGetPackage("Serilog.AspNetCore", projectPath, genParameters);
+            packages.add("Serilog.AspNetCore");
         }
         
         if (cliArgs.contains("--automapper")) {
-            addNuGetPackage("AutoMapper.Extensions.Microsoft.DependencyInjection", projectPath, genParameters);
+            packages.add("AutoMapper.Extensions.Microsoft.DependencyInjection");
         }
         
         if (cliArgs.contains("--jwt")) {
-            addNuGetPackage("Microsoft.AspNetCore.Authentication.JwtBearer", projectPath, genParameters);
+            packages.add("Microsoft.AspNetCore.Authentication.JwtBearer");
         }
+        return packages;
     }
 
     private void addNuGetPackage(String packageName, String projectPath, GenParameters genParameters) {
         ConsoleFormatter.bullet("Adding NuGet package: " + packageName);
         
-        String addPackageCommand = String.format("dotnet add %s package %s", projectPath, packageName);
+        String addPackageCommand = String.format("dotnet add %s package %s", projectPath, packageName) + packageSourceArgs();
         CommandLine packageCmd = OsUtils.createShellCommand(addPackageCommand);
         RunWrapper.builder()
                 .cmd(packageCmd)
+                .resource(ResourceClass.NETWORK)
+                .step("dotnet add package")
                 .build()
                 .run(genParameters.target(), genParameters.debug());
     }
 
+    /**
+     * Restores the NuGet packages of the project template, the generation and the post
+     * dependencies into the global packages folder, through a scratch project of the same template
+     * and target framework.
+     */
+    @Override
+    public List<GenerationStep> warmup(Workspace template, GenParameters genParameters) {
+        List<NuGetPackage> packages = nugetPackages(template, genParameters);
+        String projectTemplate = parseTemplate(genParameters.cliArgs());
+        String framework = parseFramework(genParameters.cliArgs());
+        return List.of(GenerationStep.builder()
+                .name("prefetch nuget packages")
+                .action(() -> Warmup.inScratchDir(dir -> {
+                    Warmup.run(OsUtils.createShellCommand("dotnet new " + projectTemplate + " --output warm --framework " + framework),
+                            "dotnet new", dir, genParameters.debug());
+                    for (NuGetPackage nuGetPackage : packages) {
+                        String versionArgs = nuGetPackage.version() != null ? " --version " + nuGetPackage.version() : "";
+                        Warmup.run(OsUtils.createShellCommand("dotnet add warm package " + nuGetPackage.id() + versionArgs),
+                                "dotnet add package", dir, genParameters.debug());
+                    }
+                }))
+                .build());
+    }
+
+    @Override
+    public List<String> uncached(Workspace template, GenParameters genParameters) {
+        return nugetPackages(template, genParameters).stream()
+                .filter(nuGetPackage -> !ToolCaches.hasNugetPackage(ToolCaches.nugetPackages(), nuGetPackage.id(), nuGetPackage.version()))
+                .map(nuGetPackage -> "NuGet package " + nuGetPackage.id() + (nuGetPackage.version() != null ? " " + nuGetPackage.version() : ""))
+                .toList();
+    }
+
+    private record NuGetPackage(String id, String version) {
+    }
+
+    /** Packages added by CLI arguments (latest version) and versioned post dependencies. */
+    private List<NuGetPackage> nugetPackages(Workspace template, GenParameters genParameters) {
+        List<NuGetPackage> packages = new ArrayList<>();
+        for (String id : additionalPackages(genParameters.cliArgs())) {
+            packages.add(new NuGetPackage(id, null));
+        }
+        for (Dependency dep : template.dependenciesOf("post")) {
+            if (dep.version() != null && (dep.name() != null || dep.packageName() != null)) {
+                packages.add(new NuGetPackage(Optional.ofNullable(dep.packageName()).orElse(dep.name()), dep.version()));
+            }
+        }
+        return packages;
+    }
+
+    /** Offline, packages come from the global packages folder that {@code qboot warm} fills. */
+    static String packageSourceArgs() {
+        return OsUtils.isOffline() ? " --source \"" + ToolCaches.nugetPackages() + "\"" : "";
+    }
+
     @Override
     public DependencyHandler createDependencyHandlerFor(GenParameters genParameters, List<Dependency> dependencyList) {
         return DotNetDependencyHandler.builder()
@@ -0,0 +1,404 @@
+package de.falkzilm.gen.java;
+
+import com.ctc.wstx.stax.WstxInputFactory;
+import org.codehaus.stax2.LocationInfo;
+import org.codehaus.stax2.XMLStreamReader2;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adds dependencies and annotation processor paths to a {@code pom.xml} in one pass.
+ * <p>
+ * The pom is streamed once with Woodstox to find the project's {@code <dependencies>}, the
+ * {@code maven-compiler-plugin} and the coordinates already present; the new elements are then
+ * spliced into the original text at the character offsets reported by the parser. Everything
+ * else, including comments, blank lines and attribute formatting, is kept as it was, and new
+ * elements follow the indentation and line separators of the file.
+ */
+public class PomEditor {
+
+    private static final XMLInputFactory FACTORY = createFactory();
+
+    private static final String DEPENDENCY = "project/dependencies/dependency";
+    private static final String PLUGIN = "project/build/plugins/plugin";
+    private static final String MANAGED_PLUGIN = "project/build/pluginManagement/plugins/plugin";
+    private static final String COMPILER_PLUGIN = "maven-compiler-plugin";
+
+    private final Map<String, Artifact> dependencies = new LinkedHashMap<>();
+    private final Map<String, Artifact> processorPaths = new LinkedHashMap<>();
+
+    /** A Maven artifact to add; {@code version} and {@code scope} are left out when null. */
+    public record Artifact(String groupId, String artifactId, String version, String scope) {
+
+        /** Parses {@code group:artifact}. */
+        public static Artifact of(String coordinates, String version, String scope) {
+            String[] parts = coordinates.split(":");
+            if (parts.length < 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                throw new IllegalArgumentException("Not a Maven artifact (group:artifact): " + coordinates);
+            }
+            return new Artifact(parts[0].trim(), parts[1].trim(), version, scope);
+        }
+
+        public String key() {
+            return groupId + ":" + artifactId;
+        }
+    }
+
+    /**
+     * What {@link #apply} changed. Processor paths are {@code unplaced} when the pom has no
+     * {@code maven-compiler-plugin} to add them to.
+     */
+    public record Result(List<Artifact> added, List<Artifact> present,
+                         List<Artifact> processorPathsAdded, List<Artifact> unplaced) {
+
+        public boolean changed() {
+            return !added.isEmpty() || !processorPathsAdded.isEmpty();
+        }
+    }
+
+    public PomEditor addDependency(Artifact artifact) {
+        dependencies.putIfAbsent(artifact.key(), artifact);
+        return this;
+    }
+
+    /** Adds {@code artifact} to the {@code annotationProcessorPaths} of the compiler plugin. */
+    public PomEditor addAnnotationProcessorPath(Artifact artifact) {
+        processorPaths.putIfAbsent(artifact.key(), artifact);
+        return this;
+    }
+
+    /** Edits {@code pom} in place; the file is only written if something was added. */
+    public Result apply(Path pom) throws IOException {
+        String xml = Files.readString(pom, StandardCharsets.UTF_8);
+        Edit edit = edit(xml);
+        if (edit.result().changed()) {
+            Files.writeString(pom, edit.xml(), StandardCharsets.UTF_8);
+        }
+        return edit.result();
+    }
+
+    record Edit(String xml, Result result) {
+    }
+
+    Edit edit(String xml) throws IOException {
+        Scan scan;
+        try {
+            scan = scan(xml);
+        } catch (XMLStreamException e) {
+            throw new IOException("pom.xml could not be parsed: " + e.getMessage(), e);
+        }
+        if (scan.project == null) {
+            throw new IOException("pom.xml has no <project> element");
+        }
+        Layout layout = new Layout(xml, scan.indent != null ? scan.indent : "    ",
+                xml.contains("\r\n") ? "\r\n" : "\n");
+        List<Splice> splices = new ArrayList<>();
+
+        List<Artifact> added = new ArrayList<>();
+        List<Artifact> present = new ArrayList<>();
+        for (Artifact artifact : dependencies.values()) {
+            (scan.dependencyKeys.contains(artifact.key()) ? present : added).add(artifact);
+        }
+        if (!added.isEmpty()) {
+            List<Node> nodes = added.stream().map(artifact -> node("dependency", artifact, true)).toList();
+            if (scan.dependencies != null) {
+                splices.add(layout.appendChildren(scan.dependencies, "dependencies", nodes));
+            } else if (scan.build != null) {
+                // conventional order: dependencies before build
+                String indent = layout.indentOfLine(scan.build.startTagStart);
+                String block = layout.render(new Node("dependencies", null, nodes), indent);
+                splices.add(new Splice(scan.build.startTagStart, scan.build.startTagStart,
+                        block + layout.newline + layout.newline + indent));
+            } else {
+                splices.add(layout.appendChildren(scan.project, "project", List.of(new Node("dependencies", null, nodes))));
+            }
+        }
+
+        List<Artifact> pathsAdded = new ArrayList<>();
+        List<Artifact> unplaced = new ArrayList<>();
+        PluginScan compiler = scan.compiler;
+        for (Artifact artifact : processorPaths.values()) {
+            if (compiler == null) {
+                unplaced.add(artifact);
+            } else if (!compiler.pathKeys.contains(artifact.key())) {
+                pathsAdded.add(artifact);
+            }
+        }
+        if (!pathsAdded.isEmpty()) {
+            List<Node> paths = pathsAdded.stream().map(artifact -> node("path", artifact, false)).toList();
+            if (compiler.processorPaths != null) {
+                splices.add(layout.appendChildren(compiler.processorPaths, "annotationProcessorPaths", paths));
+            } else if (compiler.configuration != null) {
+                splices.add(layout.appendChildren(compiler.configuration, "configuration",
+                        List.of(new Node("annotationProcessorPaths", null, paths))));
+            } else {
+                splices.add(layout.appendChildren(compiler.plugin, "plugin",
+                        List.of(new Node("configuration", null, List.of(new Node("annotationProcessorPaths", null, paths))))));
+            }
+        }
+
+        return new Edit(splice(xml, splices), new Result(List.copyOf(added), List.copyOf(present),
+                List.copyOf(pathsAdded), List.copyOf(unplaced)));
+    }
+
+    private static Scan scan(String xml) throws XMLStreamException {
+        Scan scan = new Scan();
+        XMLStreamReader2 reader = (XMLStreamReader2) FACTORY.createXMLStreamReader(new StringReader(xml));
+        try {
+            List<String> path = new ArrayList<>();
+            Deque<Element> open = new ArrayDeque<>();
+            Coordinates coordinates = null;
+            PluginScan plugin = null;
+            while (reader.hasNext()) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    String name = reader.getLocalName();
+                    String parent = String.join("/", path);
+                    LocationInfo location = reader.getLocationInfo();
+                    int start = (int) location.getStartingCharOffset();
+                    if (path.size() == 1 && scan.indent == null) {
+                        scan.indent = lineIndent(xml, start);
+                    }
+                    if (("groupId".equals(name) || "artifactId".equals(name)) && coordinates != null
+                            && parent.equals(coordinates.path)) {
+                        coordinates.set(name, reader.getElementText().trim());
+                        continue;
+                    }
+                    Element element = new Element(start, (int) location.getEndingCharOffset(), reader.isEmptyElement());
+                    path.add(name);
+                    open.push(element);
+                    String current = String.join("/", path);
+                    switch (current) {
+                        case "project" -> scan.project = element;
+                        case "project/dependencies" -> scan.dependencies = element;
+                        case "project/build" -> scan.build = element;
+                        case DEPENDENCY -> coordinates = new Coordinates(current);
+                        case PLUGIN, MANAGED_PLUGIN -> {
+                            plugin = new PluginScan(element, current.equals(MANAGED_PLUGIN));
+                            coordinates = plugin.coordinates;
+                        }
+                        default -> {
+                            if (plugin != null && current.equals(plugin.coordinates.path + "/configuration")) {
+                                plugin.configuration = element;
+                            } else if (plugin != null && current.equals(plugin.coordinates.path + "/configuration/annotationProcessorPaths")) {
+                                plugin.processorPaths = element;
+                            } else if (plugin != null && current.equals(plugin.coordinates.path + "/configuration/annotationProcessorPaths/path")) {
+                                coordinates = new Coordinates(current);
+                            }
+                        }
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    String current = String.join("/", path);
+                    open.pop().endTagStart = (int) reader.getLocationInfo().getStartingCharOffset();
+                    if (coordinates != null && current.equals(coordinates.path)) {
+                        if (current.equals(DEPENDENCY)) {
+                            scan.dependencyKeys.add(coordinates.key());
+                        } else if (plugin != null && coordinates != plugin.coordinates) {
+                            plugin.pathKeys.add(coordinates.key());
+                        }
+                        coordinates = plugin != null && coordinates != plugin.coordinates ? plugin.coordinates : null;
+                    }
+                    if (plugin != null && current.equals(plugin.coordinates.path)) {
+                        boolean preferred = scan.compiler == null || (scan.compiler.managed && !plugin.managed);
+                        if (COMPILER_PLUGIN.equals(plugin.coordinates.artifactId) && preferred) {
+                            scan.compiler = plugin;
+                        }
+                        plugin = null;
+                        coordinates = null;
+                    }
+                    path.remove(path.size() - 1);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+        return scan;
+    }
+
+    private static Node node(String name, Artifact artifact, boolean withScope) {
+        List<Node> children = new ArrayList<>();
+        children.add(new Node("groupId", artifact.groupId(), null));
+        children.add(new Node("artifactId", artifact.artifactId(), null));
+        if (artifact.version() != null) {
+            children.add(new Node("version", artifact.version(), null));
+        }
+        if (withScope && artifact.scope() != null) {
+            children.add(new Node("scope", artifact.scope(), null));
+        }
+        return new Node(name, null, children);
+    }
+
+    /** Whitespace between the start of the line and {@code offset}, or null if there is other text. */
+    private static String lineIndent(String xml, int offset) {
+        int lineStart = offset;
+        while (lineStart > 0 && (xml.charAt(lineStart - 1) == ' ' || xml.charAt(lineStart - 1) == '\t')) {
+            lineStart--;
+        }
+        if (lineStart > 0 && xml.charAt(lineStart - 1) != '\n' && xml.charAt(lineStart - 1) != '\r') {
+            return null;
+        }
+        return xml.substring(lineStart, offset);
+    }
+
+    private static String splice(String xml, List<Splice> splices) {
+        StringBuilder out = new StringBuilder(xml.length() + 512);
+        int copied = 0;
+        for (Splice splice : splices.stream().sorted(Comparator.comparingInt(Splice::at)).toList()) {
+            out.append(xml, copied, splice.at()).append(splice.text());
+            copied = splice.to();
+        }
+        return out.append(xml, copied, xml.length()).toString();
+    }
+
+    private static XMLInputFactory createFactory() {
+        XMLInputFactory factory = new WstxInputFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    /** Offsets of an element in the original text. */
+    private static final class Element {
+        final int startTagStart;
+        final int startTagEnd;
+        final boolean empty;
+        int endTagStart = -1;
+
+        Element(int startTagStart, int startTagEnd, boolean empty) {
+            this.startTagStart = startTagStart;
+            this.startTagEnd = startTagEnd;
+            this.empty = empty;
+        }
+    }
+
+    private static final class Coordinates {
+        final String path;
+        String groupId;
+        String artifactId;
+
+        Coordinates(String path) {
+            this.path = path;
+        }
+
+        void set(String name, String value) {
+            if ("groupId".equals(name)) {
+                groupId = value;
+            } else {
+                artifactId = value;
+            }
+        }
+
+        String key() {
+            // plugins default to the org.apache.maven.plugins group
+            return (groupId != null ? groupId : "org.apache.maven.plugins") + ":" + artifactId;
+        }
+    }
+
+    private static final class PluginScan {
+        final Element plugin;
+        final boolean managed;
+        final Coordinates coordinates;
+        final Set<String> pathKeys = new HashSet<>();
+        Element configuration;
+        Element processorPaths;
+
+        PluginScan(Element plugin, boolean managed) {
+            this.plugin = plugin;
+            this.managed = managed;
+            this.coordinates = new Coordinates(managed ? MANAGED_PLUGIN : PLUGIN);
+        }
+    }
+
+    private static final class Scan {
+        final Set<String> dependencyKeys = new HashSet<>();
+        Element project;
+        Element dependencies;
+        Element build;
+        PluginScan compiler;
+        String indent;
+    }
+
+    /** Replaces {@code [at, to)} of the original text with {@code text}. */
+    private record Splice(int at, int to, String text) {
+    }
+
+    /** An element to insert, with either text or children. */
+    private record Node(String name, String text, List<Node> children) {
+    }
+
+    private record Layout(String xml, String unit, String newline) {
+
+        /** Inserts {@code children} as the last children of {@code parent}, on lines of their own. */
+        Splice appendChildren(Element parent, String name, List<Node> children) {
+            String parentIndent = indentOfLine(parent.startTagStart);
+            if (parent.empty) {
+                String childIndent = parentIndent + unit;
+                StringBuilder text = new StringBuilder(">");
+                children.forEach(child -> text.append(newline).append(childIndent).append(render(child, childIndent)));
+                text.append(newline).append(parentIndent).append("</").append(name).append(">");
+                return new Splice(xml.lastIndexOf("/>", parent.startTagEnd), parent.startTagEnd, text.toString());
+            }
+            String closingIndent = lineIndent(parent.endTagStart);
+            String childIndent = (closingIndent != null ? closingIndent : parentIndent) + unit;
+            StringBuilder text = new StringBuilder();
+            children.forEach(child -> text.append(newline).append(childIndent).append(render(child, childIndent)));
+            int at = parent.endTagStart;
+            if (closingIndent != null) {
+                // keep the line break and indentation of the closing tag after the new children
+                while (at > parent.startTagEnd && Character.isWhitespace(xml.charAt(at - 1))) {
+                    at--;
+                }
+            } else {
+                text.append(newline).append(parentIndent);
+            }
+            return new Splice(at, at, text.toString());
+        }
+
+        String render(Node node, String indent) {
+            if (node.text() != null) {
+                return "<" + node.name() + ">" + escape(node.text()) + "</" + node.name() + ">";
+            }
+            StringBuilder out = new StringBuilder("<").append(node.name()).append(">");
+            String childIndent = indent + unit;
+            node.children().forEach(child -> out.append(newline).append(childIndent).append(render(child, childIndent)));
+            return out.append(newline).append(indent).append("</").append(node.name()).append(">").toString();
+        }
+
+        String lineIndent(int offset) {
+            return PomEditor.lineIndent(xml, offset);
+        }
+
+        /** Leading whitespace of the line {@code offset} is on. */
+        String indentOfLine(int offset) {
+            int lineStart = offset;
+            while (lineStart > 0 && xml.charAt(lineStart - 1) != '\n' && xml.charAt(lineStart - 1) != '\r') {
+                lineStart--;
+            }
+            int end = lineStart;
+            while (end < offset && (xml.charAt(end) == ' ' || xml.charAt(end) == '\t')) {
+                end++;
+            }
+            return xml.substring(lineStart, end);
+        }
+
+        private static String escape(String text) {
+            return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+        }
+    }
+}
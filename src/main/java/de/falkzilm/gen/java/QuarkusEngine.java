@@ -1,6 +1,8 @@
 package de.falkzilm.gen.java;
 
+import de.falkzilm.exec.ResourceClass;
 import de.falkzilm.exec.RunWrapper;
+import de.falkzilm.exec.ToolCaches;
 import de.falkzilm.gen.*;
 import de.falkzilm.helper.ConsoleFormatter;
 import de.falkzilm.helper.OsUtils;
@@ -9,13 +11,23 @@ import de.falkzilm.template.Workspace;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.apache.commons.exec.CommandLine;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 @ApplicationScoped
 @FrameworkUsage(Framework.QUARKUS)
 public class QuarkusEngine implements GenerationEngine {
 
+    private static final Pattern EXTENSIONS_ARG = Pattern.compile("-Dextensions=\"?([^\"\\s]+)\"?");
+
     @Override
     public Framework framework() {
         return Framework.QUARKUS;
@@ -23,18 +35,28 @@ public class QuarkusEngine implements GenerationEngine {
 
     @Override
     public void generate(Workspace template, GenParameters genParameters) throws Exception {
-        ConsoleFormatter.section("Bootstrapping default structure via " + OsUtils.getOsDescription());
+        for (GenerationStep step : steps(template, genParameters)) {
+            step.action().run();
+        }
+    }
 
-        // Create target directory with OS-appropriate command
-        ConsoleFormatter.bullet("Creating destination dir: " + genParameters.target().toString());
-        CommandLine mkdirCmd = OsUtils.createMkdirCommand(genParameters.target().toString());
-        RunWrapper.builder()
-                .cmd(mkdirCmd)
-                .build()
-                .run(Path.of("."), genParameters.debug());
+    @Override
+    public List<GenerationStep> steps(Workspace template, GenParameters genParameters) {
+        GenerationStep createDirectory = GenerationStep.builder()
+                .name("create destination dir")
+                .action(() -> {
+                    ConsoleFormatter.section("Bootstrapping default structure via " + OsUtils.getOsDescription());
 
-        ConsoleFormatter.bullet("Calling Maven Quarkus plugin (" + OsUtils.getOsDescription() + ")");
-        System.out.println();
+                    // Create target directory with OS-appropriate command
+                    ConsoleFormatter.bullet("Creating destination dir: " + genParameters.target().toString());
+                    CommandLine mkdirCmd = OsUtils.createMkdirCommand(genParameters.target().toString());
+                    RunWrapper.builder()
+                            .cmd(mkdirCmd)
+                            .resource(ResourceClass.TRIVIAL)
+                            .build()
+                            .run(Path.of("."), genParameters.debug());
+                })
+                .build();
 
         // Build Maven command with OS-appropriate handling
         String mavenArgs = "io.quarkus.platform:quarkus-maven-plugin:" +
@@ -43,15 +65,127 @@ public class QuarkusEngine implements GenerationEngine {
                 genParameters.packageName() +
                 " -DprojectArtifactId=" + genParameters.name();
 
-        if (genParameters.cliArgs() != null && !genParameters.cliArgs().trim().isEmpty()) {
-            mavenArgs += " " + genParameters.cliArgs();
+        String createArgs = withExtensions(mavenArgs, genParameters.cliArgs(), extensions(template.dependenciesOf("post")));
+        GenerationStep createProject = GenerationStep.builder()
+                .name("quarkus create")
+                .input("args", createArgs)
+                .tool("mvn")
+                .tool("java")
+                .output(Path.of(genParameters.name()))
+                .action(() -> {
+                    ConsoleFormatter.bullet("Calling Maven Quarkus plugin (" + OsUtils.getOsDescription() + ")");
+                    System.out.println();
+
+                    CommandLine mavenCmd = OsUtils.createMavenCommand(createArgs);
+                    RunWrapper.builder()
+                            .cmd(mavenCmd)
+                            .resource(ResourceClass.CPU)
+                            .step(OsUtils.mavenLauncher() + " quarkus:create")
+                            .build()
+                            .run(genParameters.target(), genParameters.debug());
+                })
+                .build();
+
+        return List.of(createDirectory, createProject);
+    }
+
+    /**
+     * The Maven plugin, the platform BOM and descriptor and the artifacts of all extensions and
+     * dependencies the template adds.
+     */
+    @Override
+    public List<GenerationStep> warmup(Workspace template, GenParameters genParameters) {
+        return artifacts(template, genParameters).stream()
+                .map(coordinates -> Warmup.mavenArtifact(coordinates, genParameters.debug()))
+                .toList();
+    }
+
+    @Override
+    public List<String> uncached(Workspace template, GenParameters genParameters) {
+        return artifacts(template, genParameters).stream()
+                .filter(coordinates -> !Files.isRegularFile(ToolCaches.mavenArtifact(ToolCaches.mavenRepository(), coordinates)))
+                .map(coordinates -> "Maven artifact " + coordinates)
+                .toList();
+    }
+
+    private static List<String> artifacts(Workspace template, GenParameters genParameters) {
+        String version = genParameters.frameworkVersion();
+        List<String> artifacts = new ArrayList<>(List.of(
+                "io.quarkus.platform:quarkus-maven-plugin:" + version,
+                "io.quarkus.platform:quarkus-bom:" + version + ":pom",
+                "io.quarkus.platform:quarkus-bom-quarkus-platform-descriptor:" + version + ":json:" + version));
+        artifacts.addAll(dependencyArtifacts(template.dependenciesOf("post"), genParameters.cliArgs(), version));
+        return artifacts;
+    }
+
+    /**
+     * Maven coordinates of the extensions passed with {@code -Dextensions} and of the post
+     * dependencies; extensions without a group are core extensions of the platform version.
+     */
+    static List<String> dependencyArtifacts(List<Dependency> post, String cliArgs, String version) {
+        Set<String> artifacts = new LinkedHashSet<>();
+        Matcher extensions = EXTENSIONS_ARG.matcher(cliArgs != null ? cliArgs : "");
+        while (extensions.find()) {
+            for (String extension : extensions.group(1).split(",")) {
+                if (!extension.isBlank()) {
+                    artifacts.add(extensionArtifact(extension.trim(), version));
+                }
+            }
+        }
+        for (Dependency dep : post) {
+            String name = Optional.ofNullable(dep.packageName()).orElse(dep.name());
+            if (Boolean.TRUE.equals(dep.extension())) {
+                artifacts.add(extensionArtifact(name, version));
+            } else if (name.contains(":") && dep.version() != null) {
+                artifacts.add(name + ":" + dep.version());
+            }
+        }
+        return List.copyOf(artifacts);
+    }
+
+    /** Names of the post dependencies marked as extensions, as {@code quarkus:create} and {@code quarkus:add-extension} take them. */
+    static List<String> extensions(List<Dependency> post) {
+        return post.stream()
+                .filter(dep -> Boolean.TRUE.equals(dep.extension()))
+                .map(Dependency::name)
+                .toList();
+    }
+
+    /**
+     * Arguments of the create goal: {@code createArgs}, the CLI arguments and the extensions, so
+     * that one Maven run creates the project with all of them instead of one
+     * {@code quarkus:add-extension} run per extension. Extensions already passed with
+     * {@code -Dextensions} in the CLI arguments are kept in front.
+     */
+    static String withExtensions(String createArgs, String cliArgs, List<String> extensions) {
+        String args = cliArgs != null ? cliArgs.trim() : "";
+        if (!extensions.isEmpty()) {
+            Matcher given = EXTENSIONS_ARG.matcher(args);
+            if (given.find()) {
+                Set<String> merged = new LinkedHashSet<>(List.of(given.group(1).split(",")));
+                merged.addAll(extensions);
+                merged.remove("");
+                args = args.substring(0, given.start()) + extensionsArg(merged) + args.substring(given.end());
+            } else {
+                args = (args + " " + extensionsArg(extensions)).trim();
+            }
         }
+        return args.isEmpty() ? createArgs : createArgs + " " + args;
+    }
 
-        CommandLine mavenCmd = OsUtils.createMavenCommand(mavenArgs);
-        RunWrapper.builder()
-                .cmd(mavenCmd)
-                .build()
-                .run(genParameters.target(), genParameters.debug());
+    private static String extensionsArg(Collection<String> extensions) {
+        return "-Dextensions=\"" + String.join(",", extensions) + "\"";
+    }
+
+    private static String extensionArtifact(String extension, String version) {
+        String[] parts = extension.split(":");
+        if (parts.length >= 3) {
+            return extension;
+        }
+        if (parts.length == 2) {
+            return extension + ":" + version;
+        }
+        return "io.quarkus:" + (extension.startsWith("quarkus-") ? extension : "quarkus-" + extension) + ":" + version;
     }
 
     @Override
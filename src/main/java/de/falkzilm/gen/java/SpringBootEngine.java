@@ -1,21 +1,33 @@
 package de.falkzilm.gen.java;
 
+import de.falkzilm.exec.ResourceClass;
 import de.falkzilm.exec.RunWrapper;
+import de.falkzilm.exec.StepScheduler;
+import de.falkzilm.exec.TaskScope;
 import de.falkzilm.gen.*;
 import de.falkzilm.helper.ConsoleFormatter;
 import de.falkzilm.helper.OsUtils;
+import de.falkzilm.net.DownloadManager;
 import de.falkzilm.template.Dependency;
 import de.falkzilm.template.Workspace;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import org.apache.commons.exec.CommandLine;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 
 @ApplicationScoped
 @FrameworkUsage(Framework.SPRINGBOOT)
 public class SpringBootEngine implements GenerationEngine {
 
+    @Inject
+    DownloadManager downloads;
+
     @Override
     public Framework framework() {
         return Framework.SPRINGBOOT;
@@ -23,45 +35,106 @@ public class SpringBootEngine implements GenerationEngine {
 
     @Override
     public void generate(Workspace template, GenParameters genParameters) throws Exception {
-        ConsoleFormatter.section("Bootstrapping Spring Boot project via " + OsUtils.getOsDescription());
-
-        // Create target directory
-        ConsoleFormatter.bullet("Creating destination dir: " + genParameters.target().toString());
-        CommandLine mkdirCmd = OsUtils.createMkdirCommand(genParameters.target().toString());
-        RunWrapper.builder()
-                .cmd(mkdirCmd)
-                .build()
-                .run(Path.of("."), genParameters.debug());
-
-        ConsoleFormatter.bullet("Creating Spring Boot project from Spring Initializr (" + OsUtils.getOsDescription() + ")");
-        System.out.println();
-
-        // Generate Spring Boot project using Spring Initializr
-        String curlCommand = buildSpringInitializrCommand(genParameters);
-        CommandLine springCmd = OsUtils.createShellCommand(curlCommand);
-        
-        RunWrapper.builder()
-                .cmd(springCmd)
-                .build()
-                .run(genParameters.target(), genParameters.debug());
-
-        // Extract the downloaded zip file
-        String extractCommand = buildExtractCommand(genParameters);
-        CommandLine extractCmd = OsUtils.createShellCommand(extractCommand);
-        
-        ConsoleFormatter.bullet("Extracting project files...");
-        RunWrapper.builder()
-                .cmd(extractCmd)
-                .build()
-                .run(genParameters.target(), genParameters.debug());
+        for (GenerationStep step : steps(template, genParameters)) {
+            step.action().run();
+        }
     }
 
-    private String buildSpringInitializrCommand(GenParameters genParameters) {
+    @Override
+    public List<GenerationStep> steps(Workspace template, GenParameters genParameters) {
+        GenerationStep createDirectory = GenerationStep.builder()
+                .name("create destination dir")
+                .action(() -> {
+                    ConsoleFormatter.section("Bootstrapping Spring Boot project via " + OsUtils.getOsDescription());
+
+                    // Create target directory
+                    ConsoleFormatter.bullet("Creating destination dir: " + genParameters.target().toString());
+                    CommandLine mkdirCmd = OsUtils.createMkdirCommand(genParameters.target().toString());
+                    RunWrapper.builder()
+                            .cmd(mkdirCmd)
+                            .resource(ResourceClass.TRIVIAL)
+                            .build()
+                            .run(Path.of("."), genParameters.debug());
+                })
+                .build();
+
+        // Generate Spring Boot project using Spring Initializr; the archive unpacks to <name>/
+        URI initializrUri = buildSpringInitializrUri(genParameters);
+        GenerationStep createProject = GenerationStep.builder()
+                .name("spring initializr")
+                .input("uri", initializrUri.toString())
+                .output(Path.of(genParameters.name()))
+                .action(() -> {
+                    ConsoleFormatter.bullet("Creating Spring Boot project from Spring Initializr (" + OsUtils.getOsDescription() + ")");
+                    System.out.println();
+
+                    Path archive = genParameters.target().resolve(genParameters.name() + ".zip");
+                    TaskScope.deleteOnFailure(archive);
+                    Files.copy(downloads.cached(initializrUri), archive, StandardCopyOption.REPLACE_EXISTING);
+
+                    // Extract the downloaded zip file
+                    String extractCommand = buildExtractCommand(genParameters);
+                    CommandLine extractCmd = OsUtils.createShellCommand(extractCommand);
+
+                    ConsoleFormatter.bullet("Extracting project files...");
+                    RunWrapper.builder()
+                            .cmd(extractCmd)
+                            .resource(ResourceClass.DISK)
+                            .step("unzip")
+                            .build()
+                            .run(genParameters.target(), genParameters.debug());
+                })
+                .build();
+
+        return List.of(createDirectory, createProject);
+    }
+
+    @Override
+    public List<GenerationStep> warmup(Workspace template, GenParameters genParameters) {
+        URI initializrUri = buildSpringInitializrUri(genParameters);
+        return List.of(GenerationStep.builder()
+                .name("prefetch spring initializr archive")
+                .action(() -> StepScheduler.shared().run("initializr archive", ResourceClass.NETWORK,
+                        () -> downloads.cached(initializrUri)))
+                .build());
+    }
+
+    @Override
+    public List<String> uncached(Workspace template, GenParameters genParameters) {
+        URI initializrUri = buildSpringInitializrUri(genParameters);
+        try {
+            return downloads.isCached(initializrUri) ? List.of() : List.of("Spring Initializr archive " + initializrUri);
+        } catch (IOException e) {
+            return List.of("Spring Initializr archive " + initializrUri + " (" + e.getMessage() + ")");
+        }
+    }
+
+    /** The artifact id and the application and test classes Spring Initializr names after the project. */
+    @Override
+    public List<String> derivedIdentifiers(GenParameters genParameters) {
+        String applicationClass = applicationClassName(genParameters.name());
+        return List.of(genParameters.name().toLowerCase(), applicationClass, applicationClass + "Tests");
+    }
+
+    /** {@code my-app} becomes {@code MyAppApplication}, as Spring Initializr names it. */
+    static String applicationClassName(String projectName) {
+        StringBuilder className = new StringBuilder();
+        for (String word : projectName.split("[^\\p{Alnum}]+")) {
+            if (!word.isEmpty()) {
+                className.append(Character.toUpperCase(word.charAt(0))).append(word.substring(1));
+            }
+        }
+        if (className.isEmpty() || !Character.isJavaIdentifierStart(className.charAt(0))) {
+            return "Application";
+        }
+        return className + "Application";
+    }
+
+    private URI buildSpringInitializrUri(GenParameters genParameters) {
         String projectName = genParameters.name();
         String packageName = genParameters.packageName() != null ? 
             genParameters.packageName() : "com.example." + projectName.toLowerCase();
         String cliArgs = genParameters.cliArgs() != null ? genParameters.cliArgs() : "";
-        String targetDir = genParameters.target().toString();
         
         // Parse dependencies from CLI args
         String dependencies = parseDependencies(cliArgs);
@@ -83,10 +156,8 @@ public class SpringBootEngine implements GenerationEngine {
         url.append("&packaging=").append(packaging);
         url.append("&javaVersion=").append(javaVersion);
         url.append("&dependencies=").append(dependencies);
-        
-        // Curl command to download and save
-        return String.format("curl -o %s/%s.zip '%s'", 
-            targetDir, projectName, url.toString());
+
+        return URI.create(url.toString());
     }
 
     private String buildExtractCommand(GenParameters genParameters) {
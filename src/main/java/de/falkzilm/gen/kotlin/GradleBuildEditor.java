@@ -0,0 +1,259 @@
+package de.falkzilm.gen.kotlin;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Adds dependencies to the top-level {@code dependencies {}} block of a {@code build.gradle.kts}
+ * or {@code build.gradle} in one write.
+ * <p>
+ * A small tokenizer walks the script, skipping comments and string literals and counting braces,
+ * so that {@code dependencies} blocks nested in {@code buildscript} or {@code subprojects} and
+ * braces inside strings are not mistaken for the project's block. Coordinates already declared in
+ * string notation ({@code "group:artifact:version"}) are not added again. A script without a
+ * top-level block gets one appended.
+ */
+public class GradleBuildEditor {
+
+    private final Map<String, Declaration> declarations = new LinkedHashMap<>();
+
+    /** A dependency in string notation ({@code group:artifact:version}) for {@code configuration}. */
+    public record Declaration(String configuration, String notation) {
+
+        public Declaration {
+            String[] parts = notation.split(":");
+            if (parts.length < 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                throw new IllegalArgumentException("Not a Gradle dependency (group:artifact[:version]): " + notation);
+            }
+        }
+
+        public String key() {
+            return GradleBuildEditor.key(notation);
+        }
+
+        String render(boolean kotlinDsl) {
+            return kotlinDsl
+                    ? configuration + "(\"" + notation + "\")"
+                    : configuration + " '" + notation + "'";
+        }
+    }
+
+    public record Result(List<Declaration> added, List<Declaration> present) {
+    }
+
+    public GradleBuildEditor add(String configuration, String notation) {
+        Declaration declaration = new Declaration(configuration, notation);
+        declarations.putIfAbsent(declaration.key(), declaration);
+        return this;
+    }
+
+    /**
+     * Edits {@code buildFile} in place, creating it if it does not exist; the Kotlin DSL is
+     * assumed for {@code .kts} files.
+     */
+    public Result apply(Path buildFile) throws IOException {
+        String script = Files.exists(buildFile) ? Files.readString(buildFile, StandardCharsets.UTF_8) : "";
+        Edit edit = edit(script, buildFile.getFileName().toString().endsWith(".kts"));
+        if (!edit.result().added().isEmpty()) {
+            Files.writeString(buildFile, edit.script(), StandardCharsets.UTF_8);
+        }
+        return edit.result();
+    }
+
+    record Edit(String script, Result result) {
+    }
+
+    Edit edit(String script, boolean kotlinDsl) throws IOException {
+        Block block = scan(script);
+        List<Declaration> added = new ArrayList<>();
+        List<Declaration> present = new ArrayList<>();
+        for (Declaration declaration : declarations.values()) {
+            (block != null && block.keys.contains(declaration.key()) ? present : added).add(declaration);
+        }
+        if (added.isEmpty()) {
+            return new Edit(script, new Result(List.of(), List.copyOf(present)));
+        }
+
+        String newline = script.contains("\r\n") ? "\r\n" : "\n";
+        StringBuilder lines = new StringBuilder();
+        if (block == null) {
+            // no top-level block yet: append one
+            boolean endsWithNewline = script.isEmpty() || script.endsWith("\n");
+            lines.append(endsWithNewline ? "" : newline).append(script.isBlank() ? "" : newline).append("dependencies {");
+            added.forEach(declaration -> lines.append(newline).append("    ").append(declaration.render(kotlinDsl)));
+            lines.append(newline).append("}").append(newline);
+            return new Edit(script + lines, new Result(List.copyOf(added), List.copyOf(present)));
+        }
+
+        String closingIndent = lineIndent(script, block.close);
+        String indent = block.indent != null ? block.indent : indentOfLine(script, block.close) + "    ";
+        added.forEach(declaration -> lines.append(newline).append(indent).append(declaration.render(kotlinDsl)));
+        int at = block.close;
+        if (closingIndent != null) {
+            // keep the line break and indentation of the closing brace after the new lines
+            while (at > block.open + 1 && Character.isWhitespace(script.charAt(at - 1))) {
+                at--;
+            }
+        } else {
+            lines.append(newline).append(indentOfLine(script, block.close));
+        }
+        String edited = script.substring(0, at) + lines + script.substring(at);
+        return new Edit(edited, new Result(List.copyOf(added), List.copyOf(present)));
+    }
+
+    /** Offsets of the braces of the first top-level {@code dependencies} block and the coordinates declared in it. */
+    private static final class Block {
+        final int open;
+        final Set<String> keys = new HashSet<>();
+        int close = -1;
+        String indent;
+
+        Block(int open) {
+            this.open = open;
+        }
+    }
+
+    private static Block scan(String script) throws IOException {
+        int depth = 0;
+        boolean pending = false;
+        Block block = null;
+        int length = script.length();
+        int i = 0;
+        while (i < length) {
+            char c = script.charAt(i);
+            boolean inBlock = block != null && block.close < 0;
+            if (script.startsWith("//", i)) {
+                i = endOfLine(script, i);
+            } else if (script.startsWith("/*", i)) {
+                int end = script.indexOf("*/", i + 2);
+                i = end < 0 ? length : end + 2;
+            } else if (script.startsWith("\"\"\"", i) || script.startsWith("'''", i)) {
+                String quotes = script.substring(i, i + 3);
+                int end = script.indexOf(quotes, i + 3);
+                i = end < 0 ? length : end + 3;
+                pending = false;
+            } else if (c == '"' || c == '\'') {
+                int end = endOfString(script, i, c);
+                if (inBlock) {
+                    String literal = script.substring(i + 1, Math.min(end, length));
+                    if (literal.matches("[^\\s:$]+:[^\\s:$]+(:.*)?")) {
+                        block.keys.add(key(literal));
+                    }
+                }
+                i = end + 1;
+                pending = false;
+            } else if (c == '{') {
+                if (pending && depth == 0 && block == null) {
+                    block = new Block(i);
+                    block.indent = firstLineIndent(script, i);
+                }
+                depth++;
+                i++;
+                pending = false;
+            } else if (c == '}') {
+                depth--;
+                if (depth < 0) {
+                    throw new IOException("Unbalanced braces in build script at offset " + i);
+                }
+                if (inBlock && depth == 0) {
+                    block.close = i;
+                }
+                i++;
+                pending = false;
+            } else if (Character.isJavaIdentifierStart(c)) {
+                int end = i;
+                while (end < length && Character.isJavaIdentifierPart(script.charAt(end))) {
+                    end++;
+                }
+                boolean qualified = i > 0 && script.charAt(i - 1) == '.';
+                pending = depth == 0 && !qualified && "dependencies".equals(script.substring(i, end));
+                i = end;
+            } else {
+                if (!Character.isWhitespace(c)) {
+                    pending = false;
+                }
+                i++;
+            }
+        }
+        if (block != null && block.close < 0) {
+            throw new IOException("Unterminated dependencies block in build script");
+        }
+        return block;
+    }
+
+    private static int endOfLine(String script, int from) {
+        int end = script.indexOf('\n', from);
+        return end < 0 ? script.length() : end;
+    }
+
+    private static int endOfString(String script, int start, char quote) {
+        int i = start + 1;
+        while (i < script.length()) {
+            char c = script.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (c == quote || c == '\n') {
+                return i;
+            } else {
+                i++;
+            }
+        }
+        return script.length();
+    }
+
+    /** Indentation of the first non-blank line after {@code open}, if the block has one before its end. */
+    private static String firstLineIndent(String script, int open) {
+        int lineStart = script.indexOf('\n', open);
+        while (lineStart >= 0) {
+            int end = lineStart + 1;
+            while (end < script.length() && (script.charAt(end) == ' ' || script.charAt(end) == '\t')) {
+                end++;
+            }
+            if (end >= script.length() || script.charAt(end) == '}') {
+                return null;
+            }
+            if (script.charAt(end) != '\n' && script.charAt(end) != '\r') {
+                return script.substring(lineStart + 1, end);
+            }
+            lineStart = script.indexOf('\n', end);
+        }
+        return null;
+    }
+
+    /** Whitespace between the start of the line and {@code offset}, or null if there is other text. */
+    private static String lineIndent(String script, int offset) {
+        int lineStart = offset;
+        while (lineStart > 0 && (script.charAt(lineStart - 1) == ' ' || script.charAt(lineStart - 1) == '\t')) {
+            lineStart--;
+        }
+        if (lineStart > 0 && script.charAt(lineStart - 1) != '\n' && script.charAt(lineStart - 1) != '\r') {
+            return null;
+        }
+        return script.substring(lineStart, offset);
+    }
+
+    private static String indentOfLine(String script, int offset) {
+        int lineStart = offset;
+        while (lineStart > 0 && script.charAt(lineStart - 1) != '\n' && script.charAt(lineStart - 1) != '\r') {
+            lineStart--;
+        }
+        int end = lineStart;
+        while (end < offset && (script.charAt(end) == ' ' || script.charAt(end) == '\t')) {
+            end++;
+        }
+        return script.substring(lineStart, end);
+    }
+
+    private static String key(String notation) {
+        String[] parts = notation.split(":");
+        return parts[0].trim() + ":" + parts[1].trim();
+    }
+}
@@ -1,44 +1,57 @@
 package de.falkzilm.gen.kotlin;
 
-import de.falkzilm.exec.RunWrapper;
 import de.falkzilm.gen.DependencyHandler;
+import de.falkzilm.gen.java.PomEditor;
 import de.falkzilm.helper.ConsoleFormatter;
-import de.falkzilm.helper.OsUtils;
 import de.falkzilm.template.Dependency;
 import lombok.Getter;
 import lombok.experimental.SuperBuilder;
-import org.apache.commons.exec.CommandLine;
 
+import java.io.IOException;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
 
 @SuperBuilder
 @Getter
 public class KotlinDependencyHandler extends DependencyHandler {
 
+    /**
+     * Edits all dependencies into the build file in one pass: the pom of Maven projects, otherwise
+     * the Gradle build script, which is created if the project has no build file yet.
+     */
     @Override
-    protected void frameworkInstall(Dependency dep) {
+    public void install() {
+        ConsoleFormatter.section("Installing dependencies");
         Path projectPath = getGenParameters().target().resolve(Path.of(getGenParameters().name()));
-        
-        if (dep.version() != null && (dep.name() != null || dep.packageName() != null)) {
-            String packageName = Optional.ofNullable(dep.packageName()).orElse(dep.name());
-            
-            ConsoleFormatter.bullet("Adding Gradle dependency: " + packageName);
-            
-            // Determine if it's a Gradle or Maven project by checking for build files
-            boolean isGradleProject = isGradleProject(projectPath);
-            boolean isMavenProject = isMavenProject(projectPath);
-            
-            if (isGradleProject) {
-                addGradleDependency(dep, projectPath);
-            } else if (isMavenProject) {
-                addMavenDependency(dep, projectPath);
+        List<Dependency> dependencies = getDependencies().stream()
+                .filter(dep -> dep.version() != null && (dep.name() != null || dep.packageName() != null))
+                .toList();
+        if (dependencies.isEmpty()) {
+            System.out.println();
+            return;
+        }
+        String buildFile = "pom.xml";
+        try {
+            if (!isGradleProject(projectPath) && isMavenProject(projectPath)) {
+                addMavenDependencies(dependencies, projectPath);
             } else {
-                // Default to Gradle for Kotlin projects
-                ConsoleFormatter.bullet("No build file detected, assuming Gradle project");
-                addGradleDependency(dep, projectPath);
+                if (!isGradleProject(projectPath)) {
+                    // Default to Gradle for Kotlin projects
+                    ConsoleFormatter.bullet("No build file detected, assuming Gradle project");
+                }
+                buildFile = projectPath.resolve("build.gradle.kts").toFile().exists() ? "build.gradle.kts" : "build.gradle";
+                addGradleDependencies(dependencies, projectPath.resolve(buildFile));
             }
+        } catch (IOException e) {
+            ConsoleFormatter.error(
+                    "Write failure",
+                    "Failed to edit " + buildFile + ": " + e.getMessage(), e.getCause(),
+                    "Make sure destination path is writeable",
+                    "Run with debug flag for verbose information"
+            );
         }
+        System.out.println();
     }
 
     private boolean isGradleProject(Path projectPath) {
@@ -50,56 +63,31 @@ public class KotlinDependencyHandler extends DependencyHandler {
         return projectPath.resolve("pom.xml").toFile().exists();
     }
 
-    private void addGradleDependency(Dependency dep, Path projectPath) {
-        String packageName = Optional.ofNullable(dep.packageName()).orElse(dep.name());
-        String scope = Boolean.TRUE.equals(dep.extension()) ? "testImplementation" : "implementation";
-        
-        // Build dependency string for Gradle
-        String dependencyLine = String.format("%s(\"%s:%s\")", 
-            scope, packageName, dep.version());
-        
-        ConsoleFormatter.bullet("Adding to Gradle: " + dependencyLine);
-        
-        // For now, we'll use a shell command to append to build.gradle.kts
-        // In a real implementation, you might want to parse and modify the build file properly
-        String buildFile = projectPath.resolve("build.gradle.kts").toFile().exists() ? 
-            "build.gradle.kts" : "build.gradle";
-            
-        String addDependencyCmd = createAppendToBuildFileCommand(
-            projectPath.resolve(buildFile).toString(),
-            "    " + dependencyLine
-        );
-        
-        CommandLine gradleCmd = OsUtils.createShellCommand(addDependencyCmd);
-        
-        RunWrapper.builder()
-                .cmd(gradleCmd)
-                .build()
-                .run(projectPath, getGenParameters().debug());
+    private void addGradleDependencies(List<Dependency> dependencies, Path buildFile) throws IOException {
+        GradleBuildEditor editor = new GradleBuildEditor();
+        for (Dependency dep : dependencies) {
+            String packageName = Optional.ofNullable(dep.packageName()).orElse(dep.name());
+            String scope = Boolean.TRUE.equals(dep.extension()) ? "testImplementation" : "implementation";
+            editor.add(scope, extractGroupId(packageName) + ":" + extractArtifactId(packageName) + ":" + dep.version());
+        }
+        GradleBuildEditor.Result result = editor.apply(buildFile);
+        boolean kotlinDsl = buildFile.getFileName().toString().endsWith(".kts");
+        result.added().forEach(declaration -> ConsoleFormatter.bullet("Adding to Gradle: " + declaration.render(kotlinDsl)));
+        result.present().forEach(declaration -> ConsoleFormatter.bullet("Dependency " + declaration.key() + " already exists in " + buildFile.getFileName()));
     }
 
-    private void addMavenDependency(Dependency dep, Path projectPath) {
+    private void addMavenDependencies(List<Dependency> dependencies, Path projectPath) throws IOException {
+        PomEditor editor = new PomEditor();
+        dependencies.forEach(dep -> editor.addDependency(mavenArtifact(dep)));
+        PomEditor.Result result = editor.apply(projectPath.resolve("pom.xml"));
+        result.added().forEach(artifact -> ConsoleFormatter.bullet("Adding to Maven: " + artifact.key() + ":" + artifact.version()));
+        result.present().forEach(artifact -> ConsoleFormatter.bullet("Dependency " + artifact.key() + " already exists in pom.xml"));
+    }
+
+    private PomEditor.Artifact mavenArtifact(Dependency dep) {
         String packageName = Optional.ofNullable(dep.packageName()).orElse(dep.name());
-        String scope = Boolean.TRUE.equals(dep.extension()) ? "test" : "compile";
-        
-        // Extract group and artifact from package name
-        String groupId = extractGroupId(packageName);
-        String artifactId = extractArtifactId(packageName);
-        
-        ConsoleFormatter.bullet("Adding to Maven: " + groupId + ":" + artifactId + ":" + dep.version());
-        
-        // Use Maven dependency:resolve to add dependency
-        String mavenArgs = String.format(
-            "dependency:resolve -Ddependency.groupId=%s -Ddependency.artifactId=%s -Ddependency.version=%s -Ddependency.scope=%s",
-            groupId, artifactId, dep.version(), scope
-        );
-        
-        CommandLine mvnCmd = OsUtils.createMavenCommand(mavenArgs);
-        
-        RunWrapper.builder()
-                .cmd(mvnCmd)
-                .build()
-                .run(projectPath, getGenParameters().debug());
+        String scope = Boolean.TRUE.equals(dep.extension()) ? "test" : null;
+        return new PomEditor.Artifact(extractGroupId(packageName), extractArtifactId(packageName), dep.version(), scope);
     }
 
     private String extractGroupId(String packageName) {
@@ -130,14 +118,4 @@ public class KotlinDependencyHandler extends DependencyHandler {
         
         return packageName;
     }
-
-    private String createAppendToBuildFileCommand(String buildFilePath, String dependencyLine) {
-        if (OsUtils.isWindows()) {
-            // Windows: append to dependencies block
-            return String.format("echo %s >> \"%s\"", dependencyLine, buildFilePath);
-        } else {
-            // Unix/Linux: append to dependencies block
-            return String.format("echo '%s' >> \"%s\"", dependencyLine, buildFilePath);
-        }
-    }
-}
\ No newline at end of file
+}
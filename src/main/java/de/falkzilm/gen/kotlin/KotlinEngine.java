@@ -1,21 +1,33 @@
 package de.falkzilm.gen.kotlin;
 
+import de.falkzilm.exec.ResourceClass;
 import de.falkzilm.exec.RunWrapper;
+import de.falkzilm.exec.StepScheduler;
+import de.falkzilm.exec.TaskScope;
 import de.falkzilm.gen.*;
 import de.falkzilm.helper.ConsoleFormatter;
 import de.falkzilm.helper.OsUtils;
+import de.falkzilm.net.DownloadManager;
 import de.falkzilm.template.Dependency;
 import de.falkzilm.template.Workspace;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import org.apache.commons.exec.CommandLine;
 
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.List;
 
 @ApplicationScoped
 @FrameworkUsage(Framework.KOTLIN)
 public class KotlinEngine implements GenerationEngine {
 
+    @Inject
+    DownloadManager downloads;
+
     @Override
     public Framework framework() {
         return Framework.KOTLIN;
@@ -30,6 +42,7 @@ public class KotlinEngine implements GenerationEngine {
         CommandLine mkdirCmd = OsUtils.createMkdirCommand(genParameters.target().toString());
         RunWrapper.builder()
                 .cmd(mkdirCmd)
+                .resource(ResourceClass.TRIVIAL)
                 .build()
                 .run(Path.of("."), genParameters.debug());
 
@@ -48,6 +61,36 @@ public class KotlinEngine implements GenerationEngine {
         }
     }
 
+    /** Ktor and basic projects are written locally; Spring Boot needs its Initializr archive and Gradle. */
+    @Override
+    public List<GenerationStep> warmup(Workspace template, GenParameters genParameters) {
+        if (!determineKotlinType(genParameters.cliArgs()).equals("Spring Boot")) {
+            return List.of();
+        }
+        URI initializrUri = buildKotlinSpringInitializrUri(genParameters);
+        return List.of(GenerationStep.builder()
+                .name("prefetch kotlin initializr archive and gradle distribution")
+                .action(() -> {
+                    Path archive = StepScheduler.shared().run("initializr archive", ResourceClass.NETWORK,
+                            () -> downloads.cached(initializrUri));
+                    Warmup.gradleDistribution(archive, genParameters.debug());
+                })
+                .build());
+    }
+
+    @Override
+    public List<String> uncached(Workspace template, GenParameters genParameters) {
+        if (!determineKotlinType(genParameters.cliArgs()).equals("Spring Boot")) {
+            return List.of();
+        }
+        URI initializrUri = buildKotlinSpringInitializrUri(genParameters);
+        try {
+            return downloads.isCached(initializrUri) ? List.of() : List.of("Spring Initializr archive " + initializrUri);
+        } catch (IOException e) {
+            return List.of("Spring Initializr archive " + initializrUri + " (" + e.getMessage() + ")");
+        }
+    }
+
     private String determineKotlinType(String cliArgs) {
         if (cliArgs != null && cliArgs.contains("--ktor")) {
             return "Ktor";
@@ -73,13 +116,10 @@ public class KotlinEngine implements GenerationEngine {
 
     private void generateKotlinSpringBootProject(GenParameters genParameters) throws Exception {
         // Use Spring Initializr for Kotlin + Spring Boot
-        String initializrCommand = buildKotlinSpringInitializrCommand(genParameters);
-        CommandLine springCmd = OsUtils.createShellCommand(initializrCommand);
-        
-        RunWrapper.builder()
-                .cmd(springCmd)
-                .build()
-                .run(genParameters.target(), genParameters.debug());
+        URI initializrUri = buildKotlinSpringInitializrUri(genParameters);
+        Path archive = genParameters.target().resolve(genParameters.name() + ".zip");
+        TaskScope.deleteOnFailure(archive);
+        Files.copy(downloads.cached(initializrUri), archive, StandardCopyOption.REPLACE_EXISTING);
 
         // Extract the downloaded zip file
         String extractCommand = buildExtractCommand(genParameters);
@@ -87,6 +127,8 @@ public class KotlinEngine implements GenerationEngine {
         
         RunWrapper.builder()
                 .cmd(extractCmd)
+                .resource(ResourceClass.DISK)
+                .step("unzip")
                 .build()
                 .run(genParameters.target(), genParameters.debug());
     }
@@ -114,6 +156,7 @@ public class KotlinEngine implements GenerationEngine {
             CommandLine mkdirCmd = OsUtils.createMkdirCommand(projectPath + "/" + dir);
             RunWrapper.builder()
                     .cmd(mkdirCmd)
+                    .resource(ResourceClass.TRIVIAL)
                     .build()
                     .run(genParameters.target(), genParameters.debug());
         }
@@ -127,6 +170,7 @@ public class KotlinEngine implements GenerationEngine {
         CommandLine buildCmd = OsUtils.createShellCommand(createBuildCmd);
         RunWrapper.builder()
                 .cmd(buildCmd)
+                .resource(ResourceClass.TRIVIAL)
                 .build()
                 .run(genParameters.target(), genParameters.debug());
     }
@@ -139,6 +183,7 @@ public class KotlinEngine implements GenerationEngine {
         CommandLine buildCmd = OsUtils.createShellCommand(createBuildCmd);
         RunWrapper.builder()
                 .cmd(buildCmd)
+                .resource(ResourceClass.TRIVIAL)
                 .build()
                 .run(genParameters.target(), genParameters.debug());
     }
@@ -155,6 +200,7 @@ public class KotlinEngine implements GenerationEngine {
         CommandLine mkdirCmd = OsUtils.createMkdirCommand(projectPath + "/src/main/kotlin/" + packagePath);
         RunWrapper.builder()
                 .cmd(mkdirCmd)
+                .resource(ResourceClass.TRIVIAL)
                 .build()
                 .run(genParameters.target(), genParameters.debug());
         
@@ -162,6 +208,7 @@ public class KotlinEngine implements GenerationEngine {
         CommandLine appCmd = OsUtils.createShellCommand(createAppCmd);
         RunWrapper.builder()
                 .cmd(appCmd)
+                .resource(ResourceClass.TRIVIAL)
                 .build()
                 .run(genParameters.target(), genParameters.debug());
     }
@@ -178,6 +225,7 @@ public class KotlinEngine implements GenerationEngine {
         CommandLine mkdirCmd = OsUtils.createMkdirCommand(projectPath + "/src/main/kotlin/" + packagePath);
         RunWrapper.builder()
                 .cmd(mkdirCmd)
+                .resource(ResourceClass.TRIVIAL)
                 .build()
                 .run(genParameters.target(), genParameters.debug());
         
@@ -185,6 +233,7 @@ public class KotlinEngine implements GenerationEngine {
         CommandLine mainCmd = OsUtils.createShellCommand(createMainCmd);
         RunWrapper.builder()
                 .cmd(mainCmd)
+                .resource(ResourceClass.TRIVIAL)
                 .build()
                 .run(genParameters.target(), genParameters.debug());
     }
@@ -198,6 +247,7 @@ public class KotlinEngine implements GenerationEngine {
         CommandLine configCmd = OsUtils.createShellCommand(createConfigCmd);
         RunWrapper.builder()
                 .cmd(configCmd)
+                .resource(ResourceClass.TRIVIAL)
                 .build()
                 .run(genParameters.target(), genParameters.debug());
         
@@ -207,6 +257,7 @@ public class KotlinEngine implements GenerationEngine {
         CommandLine logbackCmd = OsUtils.createShellCommand(createLogbackCmd);
         RunWrapper.builder()
                 .cmd(logbackCmd)
+                .resource(ResourceClass.TRIVIAL)
                 .build()
                 .run(genParameters.target(), genParameters.debug());
     }
@@ -398,11 +449,10 @@ ktor {
     }
 
     // Helper methods for Spring Boot Kotlin support
-    private String buildKotlinSpringInitializrCommand(GenParameters genParameters) {
+    private URI buildKotlinSpringInitializrUri(GenParameters genParameters) {
         String projectName = genParameters.name();
         String packageName = genParameters.packageName() != null ? 
             genParameters.packageName() : "com.example." + projectName.toLowerCase();
-        String targetDir = genParameters.target().toString();
         
         StringBuilder url = new StringBuilder("https://start.spring.io/starter.zip?");
         url.append("type=gradle-project");
@@ -418,7 +468,7 @@ ktor {
         url.append("&javaVersion=21");
         url.append("&dependencies=web,data-jpa,h2");
         
-        return String.format("curl -o %s/%s.zip '%s'", targetDir, projectName, url.toString());
+        return URI.create(url.toString());
     }
 
     private String buildExtractCommand(GenParameters genParameters) {
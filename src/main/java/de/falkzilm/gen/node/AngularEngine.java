@@ -1,6 +1,8 @@
 package de.falkzilm.gen.node;
 
+import de.falkzilm.exec.ResourceClass;
 import de.falkzilm.exec.RunWrapper;
+import de.falkzilm.exec.TaskScope;
 import de.falkzilm.gen.*;
 import de.falkzilm.helper.ConsoleFormatter;
 import de.falkzilm.helper.OsUtils;
@@ -26,23 +28,23 @@ public class AngularEngine implements GenerationEngine {
         ConsoleFormatter.section("Bootstrapping Angular project via " + OsUtils.getOsDescription());
 
         Path tempNpmDir = genParameters.target().resolve("temp-npm");
+        TaskScope.deleteOnFailure(tempNpmDir);
 
-        // Create temporary directory for npm install
+        // Create temporary project for the Angular CLI install
+        PackageManager packageManager = genParameters.packageManager();
         ConsoleFormatter.bullet("Creating temporary directory: " + tempNpmDir);
-        CommandLine mkdirCmd = OsUtils.createMkdirCommand(tempNpmDir.toString());
-        RunWrapper.builder()
-                .cmd(mkdirCmd)
-                .build()
-                .run(Path.of("."), genParameters.debug());
+        packageManager.prepareScratch(tempNpmDir);
 
         // Install Angular CLI in temp directory
-        ConsoleFormatter.bullet("Installing @angular/cli@" + genParameters.frameworkVersion());
+        ConsoleFormatter.bullet("Installing @angular/cli@" + genParameters.frameworkVersion() + " with " + packageManager.id());
         String angularCliVersion = genParameters.frameworkVersion();
-        String npmInstallArgs = "install @angular/cli@" + angularCliVersion;
+        String installArgs = packageManager.add(List.of("@angular/cli@" + angularCliVersion), false);
         
-        CommandLine npmInstallCmd = OsUtils.createNpmCommand(npmInstallArgs);
+        CommandLine installCmd = packageManager.command(installArgs);
         RunWrapper.builder()
-                .cmd(npmInstallCmd)
+                .cmd(installCmd)
+                .resource(ResourceClass.NETWORK)
+                .step(packageManager.id() + " install @angular/cli")
                 .build()
                 .run(tempNpmDir, genParameters.debug());
 
@@ -52,6 +54,10 @@ public class AngularEngine implements GenerationEngine {
         if (genParameters.cliArgs() != null && !genParameters.cliArgs().trim().isEmpty()) {
             ngArgs += " " + genParameters.cliArgs();
         }
+        if (packageManager != PackageManager.NPM && (genParameters.cliArgs() == null || !genParameters.cliArgs().contains("--package-manager"))) {
+            // let ng new install the project's dependencies with the same tool
+            ngArgs += " --package-manager=" + packageManager.id();
+        }
 
         // Use the locally installed ng binary
         String ngPath = OsUtils.isWindows() 
@@ -61,6 +67,8 @@ public class AngularEngine implements GenerationEngine {
         CommandLine ngCmd = OsUtils.createShellCommand(ngPath + " " + ngArgs);
         RunWrapper.builder()
                 .cmd(ngCmd)
+                .resource(ResourceClass.NETWORK)
+                .step("ng new")
                 .build()
                 .run(genParameters.target(), genParameters.debug());
 
@@ -73,12 +81,24 @@ public class AngularEngine implements GenerationEngine {
         CommandLine cleanupCmd = OsUtils.createShellCommand(cleanupCommand);
         RunWrapper.builder()
                 .cmd(cleanupCmd)
+                .resource(ResourceClass.DISK)
+                .step("remove temp-npm")
                 .build()
                 .run(genParameters.target(), genParameters.debug());
         
         System.out.println();
     }
 
+    @Override
+    public List<GenerationStep> warmup(Workspace template, GenParameters genParameters) {
+        return NodeDependencyHandler.warmup(template, genParameters, "@angular/cli@" + genParameters.frameworkVersion());
+    }
+
+    @Override
+    public List<String> uncached(Workspace template, GenParameters genParameters) {
+        return NodeDependencyHandler.uncached(template, genParameters, "@angular/cli@" + genParameters.frameworkVersion());
+    }
+
     @Override
     public DependencyHandler createDependencyHandlerFor(GenParameters genParameters, List<Dependency> dependencyList) {
         return NodeDependencyHandler.builder()
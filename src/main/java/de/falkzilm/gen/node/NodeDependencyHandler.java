@@ -1,38 +1,150 @@
 package de.falkzilm.gen.node;
 
+import de.falkzilm.exec.ResourceClass;
 import de.falkzilm.exec.RunWrapper;
+import de.falkzilm.exec.TaskScope;
 import de.falkzilm.gen.DependencyHandler;
+import de.falkzilm.gen.GenParameters;
+import de.falkzilm.gen.GenerationStep;
+import de.falkzilm.gen.Warmup;
 import de.falkzilm.helper.ConsoleFormatter;
 import de.falkzilm.helper.OsUtils;
 import de.falkzilm.template.Dependency;
+import de.falkzilm.template.Workspace;
 import lombok.Getter;
 import lombok.experimental.SuperBuilder;
-import org.apache.commons.exec.CommandLine;
 
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Future;
 
 @SuperBuilder
 @Getter
 public class NodeDependencyHandler extends DependencyHandler {
 
+    /**
+     * Installs the post dependencies with one run of the workspace's package manager for the
+     * regular and one for the development dependencies ({@code npm install --save} and
+     * {@code --save-dev}, {@code pnpm add}, ...), instead of one run, with a full resolve and link
+     * of the tree, per package.
+     */
     @Override
-    protected void frameworkInstall(Dependency dep) {
+    public void install() {
+        ConsoleFormatter.section("Installing dependencies");
         Path projectPath = getGenParameters().target().resolve(Path.of(getGenParameters().name()));
-        if (dep.version() != null && (dep.name() != null || dep.packageName() != null)) {
-            String flag = Boolean.TRUE.equals(dep.extension()) ? " --save-dev " : " --save ";
-            String packageName = Optional.ofNullable(dep.packageName()).orElse(dep.name());
-            
-            ConsoleFormatter.bullet("Installing " + packageName + " with npm install" + flag);
-            
-            // Build npm install command with proper package@version syntax
-            String npmArgs = "install" + flag + packageName + "@" + dep.version();
-            CommandLine npmCmd = OsUtils.createNpmCommand(npmArgs);
-            
-            RunWrapper.builder()
-                    .cmd(npmCmd)
-                    .build()
-                    .run(projectPath, getGenParameters().debug());
+        List<String> regular = new ArrayList<>();
+        List<String> development = new ArrayList<>();
+        for (Dependency dep : getDependencies()) {
+            if (isInstallable(dep)) {
+                (Boolean.TRUE.equals(dep.extension()) ? development : regular).add(spec(dep));
+            }
         }
+        installGroup(false, regular, projectPath);
+        installGroup(true, development, projectPath);
+        System.out.println();
+    }
+
+    private void installGroup(boolean dev, List<String> specs, Path projectPath) {
+        if (specs.isEmpty()) {
+            return;
+        }
+        PackageManager packageManager = getGenParameters().packageManager();
+        String operation = packageManager.id() + " " + packageManager.add(List.of(), dev);
+        ConsoleFormatter.bullet("Installing " + String.join(", ", specs) + " with " + operation);
+        long start = System.nanoTime();
+        RunWrapper install = RunWrapper.builder()
+                .cmd(packageManager.command(packageManager.add(specs, dev)))
+                .resource(ResourceClass.NETWORK)
+                .step(operation)
+                .build();
+        int exitCode = install.run(projectPath, getGenParameters().debug());
+        Duration took = Duration.ofNanos(System.nanoTime() - start);
+        if (exitCode != 0) {
+            ConsoleFormatter.error(
+                    packageManager.id() + " install failed",
+                    operation + " exited with " + exitCode + " after " + ConsoleFormatter.humanTime(took), null,
+                    "Check that the versions in the template's post dependencies exist",
+                    "Run with debug flag for the " + packageManager.id() + " output"
+            );
+            return;
+        }
+        ConsoleFormatter.subbullet(specs.size() + (specs.size() == 1 ? " package" : " packages") + " installed in " + ConsoleFormatter.humanTime(took));
+    }
+
+    /**
+     * Prefetch steps of a Node engine: {@code packages} the generation runs (may be null) and the
+     * versioned post dependencies of the workspace, installed separately so their peer dependencies
+     * cannot conflict. They go through the workspace's package manager, filling its cache or store.
+     */
+    static List<GenerationStep> warmup(Workspace template, GenParameters genParameters, String packages) {
+        List<GenerationStep> steps = new ArrayList<>();
+        if (packages != null && !packages.isBlank()) {
+            steps.add(Warmup.nodePackages(genParameters.packageManager(), List.of(packages.trim().split("\\s+")), genParameters.debug()));
+        }
+        List<String> post = postSpecs(template);
+        if (!post.isEmpty()) {
+            steps.add(Warmup.nodePackages(genParameters.packageManager(), post, genParameters.debug()));
+        }
+        return steps;
+    }
+
+    /**
+     * The packages of {@link #warmup} whose metadata npm does not have in its cache. Only npm can
+     * be asked without installing; with pnpm, yarn or bun nothing is reported and a missing package
+     * fails the offline install itself.
+     */
+    static List<String> uncached(Workspace template, GenParameters genParameters, String packages) {
+        if (genParameters.packageManager() != PackageManager.NPM) {
+            return List.of();
+        }
+        List<String> specs = new ArrayList<>();
+        if (packages != null && !packages.isBlank()) {
+            specs.addAll(List.of(packages.trim().split("\\s+")));
+        }
+        specs.addAll(postSpecs(template));
+        Path workingDir = Path.of(System.getProperty("java.io.tmpdir"));
+        // one npm per package, run side by side; the scheduler bounds how many start at once
+        List<Future<Boolean>> lookups = new ArrayList<>();
+        try (TaskScope scope = new TaskScope()) {
+            for (String spec : specs) {
+                lookups.add(scope.fork(() -> RunWrapper.builder()
+                        .cmd(OsUtils.createNpmCommand("view " + spec + " name --offline"))
+                        // reads only npm's local cache, so it does not take the slots of installs
+                        .resource(ResourceClass.DISK)
+                        .step("npm view")
+                        .build()
+                        .run(workingDir, genParameters.debug()) == 0));
+            }
+            scope.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return specs.stream().map(spec -> "npm package " + spec).toList();
+        }
+        List<String> missing = new ArrayList<>();
+        for (int i = 0; i < specs.size(); i++) {
+            if (lookups.get(i).state() != Future.State.SUCCESS || !lookups.get(i).resultNow()) {
+                missing.add("npm package " + specs.get(i));
+            }
+        }
+        return missing;
+    }
+
+    private static List<String> postSpecs(Workspace template) {
+        return template.dependenciesOf("post").stream()
+                .filter(NodeDependencyHandler::isInstallable)
+                .map(NodeDependencyHandler::spec)
+                .toList();
+    }
+
+    private static boolean isInstallable(Dependency dep) {
+        return dep.version() != null && (dep.name() != null || dep.packageName() != null);
+    }
+
+    /** {@code package@version}, as all package managers take it. */
+    private static String spec(Dependency dep) {
+        return Optional.ofNullable(dep.packageName()).orElse(dep.name()) + "@" + dep.version();
     }
 }
@@ -1,5 +1,6 @@
 package de.falkzilm.gen.node;
 
+import de.falkzilm.exec.ResourceClass;
 import de.falkzilm.exec.RunWrapper;
 import de.falkzilm.gen.*;
 import de.falkzilm.helper.ConsoleFormatter;
@@ -10,7 +11,9 @@ import jakarta.enterprise.context.ApplicationScoped;
 import org.apache.commons.exec.CommandLine;
 
 import java.nio.file.Path;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @ApplicationScoped
 @FrameworkUsage(Framework.NODEJS)
@@ -30,49 +33,42 @@ public class NodeJsEngine implements GenerationEngine {
         CommandLine mkdirCmd = OsUtils.createMkdirCommand(genParameters.target().toString());
         RunWrapper.builder()
                 .cmd(mkdirCmd)
+                .resource(ResourceClass.TRIVIAL)
                 .build()
                 .run(Path.of("."), genParameters.debug());
 
         ConsoleFormatter.bullet("Initializing Node.js project (" + OsUtils.getOsDescription() + ")");
         System.out.println();
 
-        // Initialize package.json
-        String initCommand = buildInitCommand(genParameters);
-        CommandLine initCmd = OsUtils.createNpmCommand(initCommand);
-        
-        RunWrapper.builder()
-                .cmd(initCmd)
-                .build()
-                .run(genParameters.target(), genParameters.debug());
+        // Initialize package.json, with the scripts for the server created below
+        Path projectPath = genParameters.target().resolve(genParameters.name());
+        PackageManager.init(projectPath, genParameters.name(), scripts(isTypeScript(genParameters)));
 
         // Install Express and basic dependencies
-        String installCommand = buildInstallCommand(genParameters);
-        CommandLine installCmd = OsUtils.createNpmCommand(installCommand);
+        PackageManager packageManager = genParameters.packageManager();
+        CommandLine installCmd = packageManager.command(packageManager.add(List.of(buildPackages(genParameters).split(" ")), false));
         
-        ConsoleFormatter.bullet("Installing Node.js dependencies...");
+        ConsoleFormatter.bullet("Installing Node.js dependencies with " + packageManager.id() + "...");
         RunWrapper.builder()
                 .cmd(installCmd)
+                .resource(ResourceClass.NETWORK)
+                .step(packageManager.id() + " install")
                 .build()
-                .run(genParameters.target(), genParameters.debug());
+                .run(projectPath, genParameters.debug());
 
         // Create basic project structure
         createProjectStructure(genParameters);
 
     }
 
-    private String buildInitCommand(GenParameters genParameters) {
-        String projectName = genParameters.name();
-        String targetDir = genParameters.target().resolve(projectName).toString();
-        
-        // Change to project directory and initialize npm
-        return String.format("init -y --name %s --version 1.0.0 --main index.js && cd %s", 
-            projectName, targetDir);
+    private static boolean isTypeScript(GenParameters genParameters) {
+        String cliArgs = genParameters.cliArgs() != null ? genParameters.cliArgs() : "";
+        return cliArgs.contains("--typescript") || cliArgs.contains("--ts");
     }
 
-    private String buildInstallCommand(GenParameters genParameters) {
+    private String buildPackages(GenParameters genParameters) {
         String cliArgs = genParameters.cliArgs() != null ? genParameters.cliArgs() : "";
-        String targetDir = genParameters.target().resolve(genParameters.name()).toString();
-        
+
         // Parse framework type from CLI args
         StringBuilder packages = new StringBuilder("express");
         
@@ -111,25 +107,25 @@ public class NodeJsEngine implements GenerationEngine {
             packages.append(" helmet dotenv");
         }
         
-        return String.format("install %s && cd %s", packages.toString(), targetDir);
+        return packages.toString();
     }
 
     private void createProjectStructure(GenParameters genParameters) {
         String projectPath = genParameters.target().resolve(genParameters.name()).toString();
-        String cliArgs = genParameters.cliArgs() != null ? genParameters.cliArgs() : "";
-        
+
         // Create basic directory structure
         String[] dirs = {"src", "src/routes", "src/middleware", "src/controllers", "public", "tests"};
         for (String dir : dirs) {
             CommandLine mkdirCmd = OsUtils.createMkdirCommand(projectPath + "/" + dir);
             RunWrapper.builder()
                     .cmd(mkdirCmd)
+                    .resource(ResourceClass.TRIVIAL)
                     .build()
                     .run(genParameters.target(), genParameters.debug());
         }
         
         // Create basic server file
-        boolean isTypeScript = cliArgs.contains("--typescript") || cliArgs.contains("--ts");
+        boolean isTypeScript = isTypeScript(genParameters);
         String serverFile = isTypeScript ? "src/index.ts" : "src/index.js";
         String serverContent = createServerContent(genParameters, isTypeScript);
         
@@ -137,14 +133,7 @@ public class NodeJsEngine implements GenerationEngine {
         CommandLine serverCmd = OsUtils.createShellCommand(createServerCmd);
         RunWrapper.builder()
                 .cmd(serverCmd)
-                .build()
-                .run(genParameters.target(), genParameters.debug());
-        
-        // Create package.json scripts
-        String updatePackageCmd = createPackageJsonUpdateCommand(projectPath, isTypeScript);
-        CommandLine packageCmd = OsUtils.createShellCommand(updatePackageCmd);
-        RunWrapper.builder()
-                .cmd(packageCmd)
+                .resource(ResourceClass.TRIVIAL)
                 .build()
                 .run(genParameters.target(), genParameters.debug());
     }
@@ -211,22 +200,28 @@ public class NodeJsEngine implements GenerationEngine {
         }
     }
 
-    private String createPackageJsonUpdateCommand(String projectPath, boolean isTypeScript) {
-        String packageJsonPath = projectPath + "/package.json";
-        
+    private static Map<String, String> scripts(boolean isTypeScript) {
+        Map<String, String> scripts = new LinkedHashMap<>();
         if (isTypeScript) {
-            return String.format(
-                "cd %s && npm pkg set scripts.start=\"node dist/index.js\" && " +
-                "npm pkg set scripts.dev=\"ts-node src/index.ts\" && " +
-                "npm pkg set scripts.build=\"tsc\" && " +
-                "npm pkg set scripts.watch=\"nodemon src/index.ts\"",
-                projectPath);
+            scripts.put("start", "node dist/index.js");
+            scripts.put("dev", "ts-node src/index.ts");
+            scripts.put("build", "tsc");
+            scripts.put("watch", "nodemon src/index.ts");
         } else {
-            return String.format(
-                "cd %s && npm pkg set scripts.start=\"node src/index.js\" && " +
-                "npm pkg set scripts.dev=\"nodemon src/index.js\"",
-                projectPath);
+            scripts.put("start", "node src/index.js");
+            scripts.put("dev", "nodemon src/index.js");
         }
+        return scripts;
+    }
+
+    @Override
+    public List<GenerationStep> warmup(Workspace template, GenParameters genParameters) {
+        return NodeDependencyHandler.warmup(template, genParameters, buildPackages(genParameters));
+    }
+
+    @Override
+    public List<String> uncached(Workspace template, GenParameters genParameters) {
+        return NodeDependencyHandler.uncached(template, genParameters, buildPackages(genParameters));
     }
 
     @Override
@@ -0,0 +1,202 @@
+package de.falkzilm.gen.node;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import de.falkzilm.exec.ToolProbe;
+import de.falkzilm.helper.OsUtils;
+import org.apache.commons.exec.CommandLine;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The package manager the Node engines install, create and run packages with, chosen per
+ * workspace ({@code <packageManager>} in {@code <general>}) or globally with
+ * {@code qboot.node.package-manager} (default {@code npm}).
+ * <p>
+ * Each constant translates the operations the engines need into the arguments of its tool. pnpm
+ * keeps every package version once in a content-addressable store and hardlinks it into the
+ * {@code node_modules} of each project, so workspaces and repeated runs share the files instead of
+ * extracting a copy per project; yarn and bun keep a global cache of their own.
+ * <p>
+ * yarn 1 (classic) and yarn 2+ (Berry) differ in what qBoot uses: only Berry has {@code dlx},
+ * reads {@code .yarnrc.yml} and honours {@code YARN_ENABLE_NETWORK}, while classic takes
+ * {@code --offline} and runs packages through npx instead. The major version is taken from
+ * {@code yarn --version}.
+ */
+public enum PackageManager {
+    NPM("npm"),
+    PNPM("pnpm"),
+    YARN("yarn"),
+    BUN("bun");
+
+    private final String id;
+
+    PackageManager(String id) {
+        this.id = id;
+    }
+
+    /** The package manager named {@code in}; {@code null} or blank for npm. */
+    @JsonCreator(mode = JsonCreator.Mode.DELEGATING)
+    public static PackageManager of(String in) {
+        if (in == null || in.isBlank()) {
+            return NPM;
+        }
+        return switch (in.trim().toLowerCase(Locale.ROOT)) {
+            case "npm" -> NPM;
+            case "pnpm" -> PNPM;
+            case "yarn" -> YARN;
+            case "bun" -> BUN;
+            default -> throw new IllegalArgumentException("Unknown Node package manager (npm, pnpm, yarn or bun): " + in);
+        };
+    }
+
+    @JsonValue
+    public String id() {
+        return id;
+    }
+
+    /** The command to start the tool with on this platform. */
+    public String executable() {
+        if (this == BUN) {
+            return OsUtils.isWindows() ? "bun.exe" : "bun";
+        }
+        return OsUtils.normalizeCommandName(id);
+    }
+
+    /** Runs the tool with {@code args}, offline if {@link OsUtils#isOffline()} is set. */
+    public CommandLine command(String args) {
+        return OsUtils.createShellCommand(executable() + (OsUtils.isOffline() ? offlineFlag(classicYarn()) : " ") + args);
+    }
+
+    /**
+     * Runs the binary of {@code pkg} without adding it to a project. yarn classic has no
+     * {@code dlx}, so npm runs the package for it.
+     */
+    public CommandLine execCommand(String pkg, String args) {
+        return classicYarn() ? NPM.command(NPM.exec(pkg, args)) : command(exec(pkg, args));
+    }
+
+    /**
+     * Arguments adding {@code specs} ({@code package@version}) to the project in the working
+     * directory, as development dependencies if {@code dev} is set.
+     */
+    public String add(List<String> specs, boolean dev) {
+        String packages = specs.isEmpty() ? "" : " " + String.join(" ", specs);
+        return switch (this) {
+            case NPM -> "install " + (dev ? "--save-dev" : "--save") + packages;
+            case PNPM -> "add" + (dev ? " --save-dev" : "") + packages;
+            case YARN, BUN -> "add" + (dev ? " --dev" : "") + packages;
+        };
+    }
+
+    /**
+     * Arguments creating project {@code name} with the {@code create-*} package of
+     * {@code initializer} (for example {@code vite@latest} for {@code create-vite}), passing
+     * {@code args} on to the initializer.
+     */
+    public String create(String initializer, String name, String args) {
+        String passed = args == null || args.isBlank() ? "" : " " + args.trim();
+        return switch (this) {
+            case NPM -> "create " + initializer + " " + name + (passed.isEmpty() ? "" : " --" + passed);
+            case PNPM -> "create " + initializer + " " + name + passed;
+            // yarn and bun always run the latest initializer and do not take a version
+            case YARN, BUN -> "create " + withoutVersion(initializer) + " " + name + passed;
+        };
+    }
+
+    /**
+     * Arguments running the binary of {@code pkg} without adding it to a project; yarn's are
+     * those of Berry, see {@link #execCommand}.
+     */
+    public String exec(String pkg, String args) {
+        String passed = args == null || args.isBlank() ? "" : " " + args.trim();
+        return switch (this) {
+            case NPM -> "exec --yes -- " + pkg + passed;
+            case PNPM, YARN -> "dlx " + pkg + passed;
+            case BUN -> "x " + pkg + passed;
+        };
+    }
+
+    /**
+     * Arguments installing {@code specs} into a scratch project prepared with
+     * {@link #prepareScratch}, so they and their dependencies land in the tool's cache or store.
+     */
+    public String prefetch(List<String> specs) {
+        return this == NPM
+                ? "install --no-audit --no-fund --no-save " + String.join(" ", specs)
+                : add(specs, false);
+    }
+
+    /**
+     * Writes the {@code package.json} of new project {@code name} into {@code dir}, with what
+     * {@code npm init -y} would put there and {@code scripts}. It is written here rather than by a
+     * tool because pnpm, yarn and bun each initialize projects differently, and bun-only hosts
+     * have no npm.
+     */
+    public static void init(Path dir, String name, Map<String, String> scripts) throws IOException {
+        JsonStringEncoder json = JsonStringEncoder.getInstance();
+        StringBuilder content = new StringBuilder("{\n")
+                .append("  \"name\": \"").append(json.quoteAsString(name)).append("\",\n")
+                .append("  \"version\": \"1.0.0\",\n")
+                .append("  \"main\": \"index.js\",\n")
+                .append("  \"license\": \"ISC\",\n")
+                .append("  \"scripts\": {");
+        String separator = "\n";
+        for (Map.Entry<String, String> script : scripts.entrySet()) {
+            content.append(separator).append("    \"").append(json.quoteAsString(script.getKey())).append("\": \"")
+                    .append(json.quoteAsString(script.getValue())).append('"');
+            separator = ",\n";
+        }
+        content.append(scripts.isEmpty() ? "}\n" : "\n  }\n").append("}\n");
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("package.json"), content, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Makes {@code dir} a minimal private project to install into. yarn is told to lay out a
+     * {@code node_modules} directory instead of Plug'n'Play, so binaries end up in
+     * {@code node_modules/.bin} as with the other tools.
+     */
+    public void prepareScratch(Path dir) throws IOException {
+        prepareScratch(dir, classicYarn());
+    }
+
+    void prepareScratch(Path dir, boolean classicYarn) throws IOException {
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve("package.json"), "{\n  \"private\": true\n}\n", StandardCharsets.UTF_8);
+        if (this == YARN && !classicYarn) {
+            // yarn classic always uses node_modules and does not read .yarnrc.yml
+            Files.writeString(dir.resolve(".yarnrc.yml"), "nodeLinker: node-modules\n", StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * npm, pnpm and yarn classic take {@code --offline}; yarn Berry is kept offline by
+     * {@code YARN_ENABLE_NETWORK}, bun not at all.
+     */
+    String offlineFlag(boolean classicYarn) {
+        return this == NPM || this == PNPM || (this == YARN && classicYarn) ? " --offline " : " ";
+    }
+
+    /** Whether this is yarn 1, whose {@code yarn --version} is probed once per run. */
+    private boolean classicYarn() {
+        return this == YARN && isClassicYarn(ToolProbe.probe(id).join().output());
+    }
+
+    /** Whether {@code version}, the output of {@code yarn --version}, is yarn 1; unknown counts as Berry. */
+    static boolean isClassicYarn(String version) {
+        return version != null && version.trim().startsWith("1.");
+    }
+
+    private static String withoutVersion(String initializer) {
+        int at = initializer.indexOf('@', 1);
+        return at < 0 ? initializer : initializer.substring(0, at);
+    }
+}
@@ -1,5 +1,6 @@
 package de.falkzilm.gen.node;
 
+import de.falkzilm.exec.ResourceClass;
 import de.falkzilm.exec.RunWrapper;
 import de.falkzilm.gen.*;
 import de.falkzilm.helper.ConsoleFormatter;
@@ -30,6 +31,7 @@ public class ReactEngine implements GenerationEngine {
         CommandLine mkdirCmd = OsUtils.createMkdirCommand(genParameters.target().toString());
         RunWrapper.builder()
                 .cmd(mkdirCmd)
+                .resource(ResourceClass.TRIVIAL)
                 .build()
                 .run(Path.of("."), genParameters.debug());
 
@@ -40,11 +42,14 @@ public class ReactEngine implements GenerationEngine {
         System.out.println();
 
         // Generate React project
+        PackageManager packageManager = genParameters.packageManager();
         String createCommand = buildCreateCommand(reactType, genParameters);
-        CommandLine reactCmd = OsUtils.createNpmCommand(createCommand);
+        CommandLine reactCmd = packageManager.command(createCommand);
         
         RunWrapper.builder()
                 .cmd(reactCmd)
+                .resource(ResourceClass.NETWORK)
+                .step(packageManager.id() + " create react")
                 .build()
                 .run(genParameters.target(), genParameters.debug());
     }
@@ -62,18 +67,16 @@ public class ReactEngine implements GenerationEngine {
         String projectName = genParameters.name();
         String cliArgs = genParameters.cliArgs() != null ? genParameters.cliArgs() : "";
         
+        PackageManager packageManager = genParameters.packageManager();
         if (reactType.equals("Next.js")) {
             // Next.js project
-            return "create next-app@latest " + projectName + " " + 
-                   filterNextJsArgs(cliArgs);
+            return packageManager.create("next-app@latest", projectName, filterNextJsArgs(cliArgs));
         } else if (reactType.equals("React + Vite")) {
             // Vite React project  
-            return "create vite@latest " + projectName + " -- --template react " +
-                   filterViteArgs(cliArgs);
+            return packageManager.create("vite@latest", projectName, "--template react " + filterViteArgs(cliArgs));
         } else {
             // Standard Create React App
-            return "create-react-app " + projectName + " " + 
-                   filterCreateReactAppArgs(cliArgs);
+            return packageManager.create("react-app", projectName, filterCreateReactAppArgs(cliArgs));
         }
     }
 
@@ -102,6 +105,24 @@ public class ReactEngine implements GenerationEngine {
                      .trim();
     }
 
+    @Override
+    public List<GenerationStep> warmup(Workspace template, GenParameters genParameters) {
+        return NodeDependencyHandler.warmup(template, genParameters, creatorPackage(genParameters));
+    }
+
+    @Override
+    public List<String> uncached(Workspace template, GenParameters genParameters) {
+        return NodeDependencyHandler.uncached(template, genParameters, creatorPackage(genParameters));
+    }
+
+    private String creatorPackage(GenParameters genParameters) {
+        return switch (determineReactType(genParameters.cliArgs())) {
+            case "Next.js" -> "create-next-app@latest";
+            case "React + Vite" -> "create-vite@latest";
+            default -> "create-react-app";
+        };
+    }
+
     @Override
     public DependencyHandler createDependencyHandlerFor(GenParameters genParameters, List<Dependency> dependencyList) {
         return NodeDependencyHandler.builder()
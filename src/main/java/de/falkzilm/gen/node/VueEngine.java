@@ -1,5 +1,6 @@
 package de.falkzilm.gen.node;
 
+import de.falkzilm.exec.ResourceClass;
 import de.falkzilm.exec.RunWrapper;
 import de.falkzilm.gen.*;
 import de.falkzilm.helper.ConsoleFormatter;
@@ -30,6 +31,7 @@ public class VueEngine implements GenerationEngine {
         CommandLine mkdirCmd = OsUtils.createMkdirCommand(genParameters.target().toString());
         RunWrapper.builder()
                 .cmd(mkdirCmd)
+                .resource(ResourceClass.TRIVIAL)
                 .build()
                 .run(Path.of("."), genParameters.debug());
 
@@ -37,28 +39,29 @@ public class VueEngine implements GenerationEngine {
         System.out.println();
 
         // Generate Vue project using Vue CLI or Vite
-        String createCommand = buildCreateCommand(genParameters);
-        CommandLine vueCmd = OsUtils.createNpmCommand(createCommand);
+        PackageManager packageManager = genParameters.packageManager();
+        CommandLine vueCmd = buildCreateCommand(genParameters);
         
         RunWrapper.builder()
                 .cmd(vueCmd)
+                .resource(ResourceClass.NETWORK)
+                .step(packageManager.id() + " create vue")
                 .build()
                 .run(genParameters.target(), genParameters.debug());
     }
 
-    private String buildCreateCommand(GenParameters genParameters) {
+    private CommandLine buildCreateCommand(GenParameters genParameters) {
         String projectName = genParameters.name();
         String cliArgs = genParameters.cliArgs() != null ? genParameters.cliArgs() : "";
         
+        PackageManager packageManager = genParameters.packageManager();
         // Determine if using Vite or Vue CLI
         if (cliArgs.contains("--vite") || cliArgs.contains("--vue3")) {
             // Use create-vue (official Vue 3 + Vite template)
-            return "create-vue@latest " + projectName + " " + 
-                   filterCreateVueArgs(cliArgs);
+            return packageManager.command(packageManager.create("vue@latest", projectName, filterCreateVueArgs(cliArgs)));
         } else {
             // Use Vue CLI
-            return "vue create " + projectName + " " + 
-                   filterVueCliArgs(cliArgs);
+            return packageManager.execCommand("@vue/cli", "create " + projectName + " " + filterVueCliArgs(cliArgs));
         }
     }
 
@@ -80,6 +83,22 @@ public class VueEngine implements GenerationEngine {
                      .trim();
     }
 
+    @Override
+    public List<GenerationStep> warmup(Workspace template, GenParameters genParameters) {
+        return NodeDependencyHandler.warmup(template, genParameters, creatorPackage(genParameters));
+    }
+
+    @Override
+    public List<String> uncached(Workspace template, GenParameters genParameters) {
+        return NodeDependencyHandler.uncached(template, genParameters, creatorPackage(genParameters));
+    }
+
+    /** The package the generation runs: create-vue, or the Vue CLI. */
+    private String creatorPackage(GenParameters genParameters) {
+        String cliArgs = genParameters.cliArgs() != null ? genParameters.cliArgs() : "";
+        return cliArgs.contains("--vite") || cliArgs.contains("--vue3") ? "create-vue@latest" : "@vue/cli";
+    }
+
     @Override
     public DependencyHandler createDependencyHandlerFor(GenParameters genParameters, List<Dependency> dependencyList) {
         return NodeDependencyHandler.builder()
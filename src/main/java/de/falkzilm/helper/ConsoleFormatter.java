@@ -11,6 +11,7 @@ import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.Locale;
 import java.util.Map;
 
 public class ConsoleFormatter {
@@ -87,6 +88,18 @@ public class ConsoleFormatter {
         return s + "." + String.format("%03d", rem) + " s";
     }
 
+    public static String humanBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        String[] units = {"KB", "MB", "GB", "TB"};
+        double value = bytes;
+        int unit = -1;
+        while (value >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return String.format(Locale.ROOT, "%.1f %s", value, units[unit]);
+    }
+
     public static void footer(String destinationDir, Duration took) {
         String ansi = Help.Ansi.AUTO.string(String.join("\n",
                 "@|bold,green  ✅  Generation complete!|@",
@@ -0,0 +1,153 @@
+package de.falkzilm.helper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Keeps console output of concurrently running groups (e.g. workspaces) together.
+ * <p>
+ * While installed, {@code System.out} and {@code System.err} are routed by the group bound to the
+ * current thread. The lowest unfinished group prints live; the others are buffered and printed
+ * in group order as soon as every group before them has completed. Output of threads without a
+ * group passes through unchanged.
+ */
+public final class GroupedConsole implements AutoCloseable {
+
+    private static final InheritableThreadLocal<Integer> CURRENT = new InheritableThreadLocal<>();
+
+    private final PrintStream originalOut;
+    private final PrintStream originalErr;
+    private final List<Group> groups = new ArrayList<>();
+    private final Thread flushOnExit;
+    private int head;
+
+    @FunctionalInterface
+    public interface Task {
+        void run() throws Exception;
+    }
+
+    private record Chunk(boolean error, byte[] bytes) {
+    }
+
+    private static final class Group {
+        final List<Chunk> buffered = new ArrayList<>();
+        boolean completed;
+    }
+
+    private GroupedConsole(int count) {
+        this.originalOut = System.out;
+        this.originalErr = System.err;
+        for (int i = 0; i < count; i++) {
+            groups.add(new Group());
+        }
+        // a System.exit from inside a group must not swallow its buffered explanation
+        this.flushOnExit = new Thread(this::flushAll);
+    }
+
+    public static GroupedConsole install(int count) {
+        GroupedConsole console = new GroupedConsole(count);
+        Runtime.getRuntime().addShutdownHook(console.flushOnExit);
+        System.setOut(new PrintStream(console.new Routing(false), true, StandardCharsets.UTF_8));
+        System.setErr(new PrintStream(console.new Routing(true), true, StandardCharsets.UTF_8));
+        return console;
+    }
+
+    /** Runs {@code task} on the current thread with its output attributed to {@code group}. */
+    public <T> T call(int group, Callable<T> task) throws Exception {
+        Integer previous = CURRENT.get();
+        CURRENT.set(group);
+        try {
+            return task.call();
+        } finally {
+            System.out.flush();
+            System.err.flush();
+            CURRENT.set(previous);
+        }
+    }
+
+    public void run(int group, Task task) throws Exception {
+        call(group, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /** Marks {@code group} as finished and releases buffered output of the groups after it. */
+    public synchronized void complete(int group) {
+        groups.get(group).completed = true;
+        while (head < groups.size() && groups.get(head).completed) {
+            head++;
+            if (head < groups.size()) {
+                drain(groups.get(head));
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        flushAll();
+        System.setOut(originalOut);
+        System.setErr(originalErr);
+        try {
+            Runtime.getRuntime().removeShutdownHook(flushOnExit);
+        } catch (IllegalStateException ignored) {
+            // already shutting down, the hook runs anyway
+        }
+    }
+
+    private synchronized void flushAll() {
+        for (; head < groups.size(); head++) {
+            drain(groups.get(head));
+        }
+        originalOut.flush();
+        originalErr.flush();
+    }
+
+    private synchronized void write(boolean error, byte[] bytes, int offset, int length) {
+        Integer group = CURRENT.get();
+        if (group == null || group <= head || group >= groups.size()) {
+            (error ? originalErr : originalOut).write(bytes, offset, length);
+            return;
+        }
+        byte[] copy = new byte[length];
+        System.arraycopy(bytes, offset, copy, 0, length);
+        groups.get(group).buffered.add(new Chunk(error, copy));
+    }
+
+    private void drain(Group group) {
+        for (Chunk chunk : group.buffered) {
+            (chunk.error() ? originalErr : originalOut).write(chunk.bytes(), 0, chunk.bytes().length);
+        }
+        group.buffered.clear();
+        originalOut.flush();
+        originalErr.flush();
+    }
+
+    private final class Routing extends OutputStream {
+        private final boolean error;
+
+        Routing(boolean error) {
+            this.error = error;
+        }
+
+        @Override
+        public void write(int b) {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) {
+            GroupedConsole.this.write(error, bytes, offset, length);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            (error ? originalErr : originalOut).flush();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package de.falkzilm.helper;
 
 import org.apache.commons.exec.CommandLine;
 
+import java.util.Map;
+
 /**
  * Utility class for operating system detection and command execution.
  * Provides cross-platform support for Windows, macOS, and Linux.
@@ -13,6 +15,9 @@ public class OsUtils {
     private static final boolean IS_MAC = OS_NAME.contains("mac");
     private static final boolean IS_LINUX = OS_NAME.contains("linux");
 
+    private static volatile boolean offline;
+    private static volatile boolean mavenDaemon;
+
     /**
      * Determines if the current operating system is Windows.
      * @return true if running on Windows
@@ -45,6 +50,45 @@ public class OsUtils {
         return IS_LINUX || IS_MAC;
     }
 
+    /**
+     * Makes the Maven and npm commands created here work from the local caches only
+     * ({@code mvn -o}, {@code npm --offline}).
+     * @param offline true to fail instead of downloading
+     */
+    public static void setOffline(boolean offline) {
+        OsUtils.offline = offline;
+    }
+
+    public static boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * Makes Maven commands created here run through the Maven daemon ({@code mvnd}).
+     * @param mavenDaemon true to use mvnd instead of mvn
+     */
+    public static void setMavenDaemon(boolean mavenDaemon) {
+        OsUtils.mavenDaemon = mavenDaemon;
+    }
+
+    /**
+     * Gets the Maven launcher commands are created for, used to name Maven steps.
+     * @return "mvnd" with the Maven daemon, "mvn" otherwise
+     */
+    public static String mavenLauncher() {
+        return mavenDaemon ? "mvnd" : "mvn";
+    }
+
+    /**
+     * Environment that keeps tools started by other tools offline as well, such as the npm
+     * install run by {@code ng new} or a create-* package, and keeps yarn (which has no offline
+     * flag for every command) from fetching.
+     * @return Environment variables to add while offline
+     */
+    public static Map<String, String> offlineEnvironment() {
+        return Map.of("npm_config_offline", "true", "YARN_ENABLE_NETWORK", "false");
+    }
+
     /**
      * Gets the appropriate shell command for the current operating system.
      * @return "cmd" for Windows, "bash" for Unix-like systems
@@ -145,8 +189,10 @@ public class OsUtils {
      * @return CommandLine for Maven execution
      */
     public static CommandLine createMavenCommand(String mavenArgs) {
-        String mvnCommand = IS_WINDOWS ? "mvnw.cmd" : "mvn";
-        return createShellCommand(mvnCommand + " " + mavenArgs);
+        String mvnCommand = mavenDaemon
+                ? (IS_WINDOWS ? "mvnd.cmd" : "mvnd")
+                : (IS_WINDOWS ? "mvnw.cmd" : "mvn");
+        return createShellCommand(mvnCommand + (offline ? " -o " : " ") + mavenArgs);
     }
 
     /**
@@ -156,7 +202,7 @@ public class OsUtils {
      */
     public static CommandLine createNpmCommand(String npmArgs) {
         String npmCommand = IS_WINDOWS ? "npm.cmd" : "npm";
-        return createShellCommand(npmCommand + " " + npmArgs);
+        return createShellCommand(npmCommand + (offline ? " --offline " : " ") + npmArgs);
     }
 
     /**
@@ -0,0 +1,493 @@
+package de.falkzilm.net;
+
+import de.falkzilm.cache.CacheAccess;
+import de.falkzilm.cache.CacheManager;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resumable downloads of large files such as template bundles and initializer archives.
+ * <p>
+ * Data is written to {@code <target>.part}, and the validators of the response go to
+ * {@code <target>.part.meta}. An interrupted download continues with a {@code Range} request guarded
+ * by {@code If-Range}, so a changed file on the server restarts cleanly instead of being stitched
+ * together. When the server accepts ranges and the file is large, the download is split into
+ * parallel ranged chunks whose progress is resumable as well.
+ */
+@ApplicationScoped
+public class DownloadManager {
+
+    static final String PART_SUFFIX = ".part";
+    static final String META_SUFFIX = ".part.meta";
+    private static final int MAX_ATTEMPTS = 3;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    /** Bytes after which the progress of a chunked download is saved, so another run resumes from there. */
+    private static final long SAVE_INTERVAL = 4L * 1024 * 1024;
+
+    @Inject
+    HttpService http;
+
+    @ConfigProperty(name = "qboot.download.chunks", defaultValue = "4")
+    int chunks;
+
+    @ConfigProperty(name = "qboot.download.chunk-threshold-mb", defaultValue = "16")
+    long chunkThresholdMb;
+
+    public DownloadManager() {
+    }
+
+    DownloadManager(HttpService http, int chunks, long chunkThresholdMb) {
+        this.http = http;
+        this.chunks = chunks;
+        this.chunkThresholdMb = chunkThresholdMb;
+    }
+
+    /**
+     * Downloads {@code uri} to {@code target}, continuing a previous partial download if possible.
+     * Concurrent downloads to the same target, also from other processes, wait for the first one
+     * and reuse its file.
+     */
+    public Path download(URI uri, Path target) throws IOException, InterruptedException {
+        Path dir = target.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        String name = target.getFileName().toString();
+        Optional<CacheAccess.Lock> free = CacheAccess.tryLock(dir, name);
+        if (free.isPresent()) {
+            try (CacheAccess.Lock ignored = free.get()) {
+                return downloadLocked(uri, target);
+            }
+        }
+        // another thread or process downloads the same target: wait and reuse its file if it completed
+        try (CacheAccess.Lock ignored = CacheAccess.lock(dir, name)) {
+            if (complete(target)) {
+                return target;
+            }
+            return downloadLocked(uri, target);
+        }
+    }
+
+    /**
+     * Returns {@code uri} from the archive cache, downloading it on the first request. Meant for
+     * archives that are fixed for their URL, such as Initializr projects with pinned versions.
+     */
+    public Path cached(URI uri) throws IOException, InterruptedException {
+        return cached(uri, CacheManager.shared());
+    }
+
+    Path cached(URI uri, CacheManager caches) throws IOException, InterruptedException {
+        Path dir = caches.dir(CacheManager.Area.ARCHIVES);
+        String entry = archiveName(uri);
+        if (caches.promote(CacheManager.Area.ARCHIVES, dir, entry) != CacheManager.Lookup.MISSING) {
+            caches.hit(CacheManager.Area.ARCHIVES, entry);
+            return dir.resolve(entry);
+        }
+        caches.miss(CacheManager.Area.ARCHIVES);
+        download(uri, dir.resolve(entry));
+        caches.stored(CacheManager.Area.ARCHIVES, entry);
+        return dir.resolve(entry);
+    }
+
+    /** Whether {@link #cached} can serve {@code uri} without downloading it. */
+    public boolean isCached(URI uri) throws IOException {
+        CacheManager caches = CacheManager.shared();
+        return caches.promote(CacheManager.Area.ARCHIVES, caches.dir(CacheManager.Area.ARCHIVES), archiveName(uri))
+                != CacheManager.Lookup.MISSING;
+    }
+
+    /** A file name unique to {@code uri} that keeps the name of the archive readable. */
+    static String archiveName(URI uri) {
+        String path = uri.getPath() != null ? uri.getPath() : "";
+        String name = path.substring(path.lastIndexOf('/') + 1).replaceAll("[^a-zA-Z0-9.-]", "_");
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(uri.toString().getBytes(StandardCharsets.UTF_8));
+            String hash = HexFormat.of().formatHex(digest, 0, 12);
+            return name.isEmpty() ? hash : hash + "-" + name;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Whether {@code target} is a finished download, with no partial download of it pending. */
+    static boolean complete(Path target) {
+        return Files.isRegularFile(target) && !Files.exists(sibling(target, PART_SUFFIX));
+    }
+
+    private Path downloadLocked(URI uri, Path target) throws IOException, InterruptedException {
+        Path part = sibling(target, PART_SUFFIX);
+        Path metaFile = sibling(target, META_SUFFIX);
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                State state = State.load(metaFile, uri);
+                if (state == null || !Files.exists(part)) {
+                    Files.deleteIfExists(part);
+                    state = new State(uri.toString());
+                    state.save(metaFile);
+                }
+                boolean complete = state.chunked() ? transferChunks(uri, part, metaFile, state, null)
+                        : transfer(uri, part, metaFile, state);
+                if (!complete) {
+                    // the server no longer honours our validators; start over
+                    restart(part, metaFile);
+                    if (attempt >= MAX_ATTEMPTS) {
+                        throw new IOException("Download of " + uri + " keeps changing on the server");
+                    }
+                    continue;
+                }
+                if (state.length >= 0 && Files.size(part) != state.length) {
+                    throw new IOException("Download of " + uri + " is incomplete: " + Files.size(part) + " of " + state.length + " bytes");
+                }
+                Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                Files.deleteIfExists(metaFile);
+                return target;
+            } catch (IOException e) {
+                // the partial file stays for the next run if the error is not retried or retries run out
+                if (attempt >= MAX_ATTEMPTS || !isTransient(e)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether a failed transfer may succeed when repeated: dropped connections, timeouts and
+     * truncated bodies, and server errors. Client errors such as 404, offline mode and local file
+     * system errors are not.
+     */
+    static boolean isTransient(IOException e) {
+        if (e instanceof StatusException status) {
+            return status.statusCode >= 500 || status.statusCode == 408 || status.statusCode == 429;
+        }
+        return !(e instanceof OfflineException) && !(e instanceof FileSystemException);
+    }
+
+    /** A response status the download cannot continue with. */
+    static final class StatusException extends IOException {
+        final int statusCode;
+
+        StatusException(URI uri, int statusCode) {
+            super("Failed to download " + uri + ". HTTP " + statusCode + ": " + HttpService.getStatusText(statusCode));
+            this.statusCode = statusCode;
+        }
+    }
+
+    /**
+     * Whether a response announcing the whole file is worth splitting: the server accepts ranges
+     * with a strong validator and the file is at least {@code qboot.download.chunk-threshold-mb}.
+     */
+    private boolean worthChunking(State state) {
+        return chunks > 1 && state.acceptsRanges && state.hasValidator()
+                && state.length >= chunkThresholdMb * 1024 * 1024 && state.length >= chunks;
+    }
+
+    private boolean transfer(URI uri, Path part, Path metaFile, State state) throws IOException, InterruptedException {
+        long offset = Files.exists(part) && state.hasValidator() ? Files.size(part) : 0;
+        if (state.length >= 0 && offset == state.length) {
+            return true;
+        }
+
+        HttpRequest.Builder request = http.request(uri).header("Accept-Encoding", "identity").GET();
+        if (offset > 0) {
+            request.header("Range", "bytes=" + offset + "-").header("If-Range", state.validator());
+        }
+        HttpResponse<InputStream> response = http.send(request.build());
+        try (InputStream body = response.body()) {
+            switch (response.statusCode()) {
+                case 206 -> {
+                    if (contentRangeStart(response) != offset) {
+                        return false;
+                    }
+                }
+                case 200 -> {
+                    offset = 0;
+                    state.adopt(response);
+                    if (worthChunking(state)) {
+                        // chunking is decided on the headers of this response, which then delivers the first chunk
+                        state.planChunks(chunks);
+                        state.save(metaFile);
+                        return transferChunks(uri, part, metaFile, state, body);
+                    }
+                    state.save(metaFile);
+                }
+                case 416 -> {
+                    return false;
+                }
+                default -> throw new StatusException(uri, response.statusCode());
+            }
+            try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                channel.truncate(offset);
+                copy(body, channel, offset, new AtomicLong(), Long.MAX_VALUE, written -> { });
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fetches the missing parts of all chunks in parallel. {@code first}, if given, is the body of a
+     * response for the whole file and supplies the first chunk instead of another request.
+     * Returns {@code false} if the server no longer honours the validator; a chunk that ends early
+     * fails with an {@link IOException}, and the next attempt continues where it stopped.
+     */
+    private boolean transferChunks(URI uri, Path part, Path metaFile, State state, InputStream first)
+            throws IOException, InterruptedException {
+        List<Future<Boolean>> futures = new ArrayList<>();
+        AtomicLong unsaved = new AtomicLong();
+        Progress progress = written -> {
+            long total = unsaved.addAndGet(written);
+            if (total >= SAVE_INTERVAL && unsaved.compareAndSet(total, 0)) {
+                state.save(metaFile);
+            }
+        };
+        try (FileChannel channel = FileChannel.open(part, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Chunk chunk : state.chunks) {
+                boolean fromFirst = first != null && chunk == state.chunks.getFirst() && chunk.done.get() == 0;
+                futures.add(executor.submit(() -> {
+                    boolean honoured = fromFirst
+                            ? copyChunk(uri, first, channel, chunk, progress)
+                            : transferChunk(uri, channel, state, chunk, progress);
+                    if (honoured) {
+                        state.save(metaFile);
+                    }
+                    return honoured;
+                }));
+            }
+            try {
+                boolean complete = true;
+                IncompleteChunkException incomplete = null;
+                for (Future<Boolean> future : futures) {
+                    try {
+                        complete &= future.get();
+                    } catch (ExecutionException e) {
+                        // the other chunks still make progress, so they are not stopped for it
+                        if (!(e.getCause() instanceof IncompleteChunkException chunk)) {
+                            throw e;
+                        }
+                        incomplete = incomplete == null ? chunk : incomplete;
+                    }
+                }
+                if (complete && incomplete != null) {
+                    throw incomplete;
+                }
+                return complete;
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException io) {
+                    throw io;
+                }
+                throw new IOException("Chunked download of " + uri + " failed: " + e.getCause().getMessage(), e.getCause());
+            } finally {
+                // stops the other chunks after a failure; closing the executor waits for them
+                futures.forEach(future -> future.cancel(true));
+            }
+        } finally {
+            state.save(metaFile);
+        }
+    }
+
+    private boolean transferChunk(URI uri, FileChannel channel, State state, Chunk chunk, Progress progress)
+            throws IOException, InterruptedException {
+        long from = chunk.start + chunk.done.get();
+        if (from > chunk.end) {
+            return true;
+        }
+        HttpResponse<InputStream> response = http.send(http.request(uri)
+                .header("Accept-Encoding", "identity")
+                .header("Range", "bytes=" + from + "-" + chunk.end)
+                .header("If-Range", state.validator())
+                .GET()
+                .build());
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 206 || contentRangeStart(response) != from) {
+                return false;
+            }
+            copy(body, channel, from, chunk.done, chunk.end - from + 1, progress);
+        }
+        checkComplete(uri, chunk);
+        return true;
+    }
+
+    private static boolean copyChunk(URI uri, InputStream body, FileChannel channel, Chunk chunk, Progress progress) throws IOException {
+        copy(body, channel, chunk.start, chunk.done, chunk.end - chunk.start + 1, progress);
+        checkComplete(uri, chunk);
+        return true;
+    }
+
+    /** Fails a chunk whose response ended early, which is transient: the next attempt continues it. */
+    private static void checkComplete(URI uri, Chunk chunk) throws IOException {
+        if (chunk.start + chunk.done.get() <= chunk.end) {
+            throw new IncompleteChunkException("Chunk " + chunk.start + "-" + chunk.end + " of " + uri + " ended after "
+                    + chunk.done.get() + " of " + (chunk.end - chunk.start + 1) + " bytes");
+        }
+    }
+
+    /** A chunk whose response ended before the chunk did; transient, unlike a changed validator. */
+    static final class IncompleteChunkException extends IOException {
+        IncompleteChunkException(String message) {
+            super(message);
+        }
+    }
+
+    /** Told about the bytes {@link #copy} has written. */
+    @FunctionalInterface
+    private interface Progress {
+        void written(long bytes) throws IOException;
+    }
+
+    /**
+     * Copies up to {@code limit} bytes of {@code body} to {@code position}, adding them to
+     * {@code done} and reporting them to {@code progress}.
+     */
+    private static void copy(InputStream body, FileChannel channel, long position, AtomicLong done, long limit, Progress progress)
+            throws IOException {
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = limit;
+        int read;
+        while (remaining > 0 && (read = body.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+            remaining -= read;
+            ByteBuffer data = ByteBuffer.wrap(buffer, 0, read);
+            while (data.hasRemaining()) {
+                position += channel.write(data, position);
+            }
+            done.addAndGet(read);
+            progress.written(read);
+        }
+    }
+
+    private static long contentRangeStart(HttpResponse<?> response) {
+        // Content-Range: bytes 100-199/1000
+        return response.headers().firstValue("Content-Range")
+                .map(value -> value.replaceFirst("^bytes\\s+", ""))
+                .map(value -> value.substring(0, Math.max(0, value.indexOf('-'))))
+                .filter(value -> !value.isBlank())
+                .map(Long::parseLong)
+                .orElse(-1L);
+    }
+
+    private static void restart(Path part, Path metaFile) throws IOException {
+        Files.deleteIfExists(part);
+        Files.deleteIfExists(metaFile);
+    }
+
+    private static Path sibling(Path target, String suffix) {
+        return target.resolveSibling(target.getFileName() + suffix);
+    }
+
+    private record Chunk(long start, long end, AtomicLong done) {
+    }
+
+    /** What is known about the remote file; persisted next to the partial file. */
+    private static final class State {
+        final String url;
+        String etag;
+        String lastModified;
+        long length = -1;
+        boolean acceptsRanges;
+        final List<Chunk> chunks = new ArrayList<>();
+
+        State(String url) {
+            this.url = url;
+        }
+
+        boolean hasValidator() {
+            // weak ETags must not be used with If-Range
+            return (etag != null && !etag.startsWith("W/")) || lastModified != null;
+        }
+
+        String validator() {
+            return etag != null && !etag.startsWith("W/") ? etag : lastModified;
+        }
+
+        boolean chunked() {
+            return !chunks.isEmpty();
+        }
+
+        void adopt(HttpResponse<?> response) {
+            etag = response.headers().firstValue("ETag").orElse(null);
+            lastModified = response.headers().firstValue("Last-Modified").orElse(null);
+            length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            acceptsRanges = response.headers().firstValue("Accept-Ranges").map("bytes"::equalsIgnoreCase).orElse(false);
+        }
+
+        void planChunks(int count) {
+            long size = (length + count - 1) / count;
+            for (long start = 0; start < length; start += size) {
+                chunks.add(new Chunk(start, Math.min(length, start + size) - 1, new AtomicLong()));
+            }
+        }
+
+        static State load(Path metaFile, URI uri) {
+            if (!Files.isRegularFile(metaFile)) {
+                return null;
+            }
+            Properties meta = new Properties();
+            try (Reader reader = Files.newBufferedReader(metaFile)) {
+                meta.load(reader);
+            } catch (IOException e) {
+                return null;
+            }
+            if (!uri.toString().equals(meta.getProperty("url"))) {
+                return null;
+            }
+            State state = new State(uri.toString());
+            state.etag = meta.getProperty("etag");
+            state.lastModified = meta.getProperty("last-modified");
+            state.length = Long.parseLong(meta.getProperty("length", "-1"));
+            state.acceptsRanges = Boolean.parseBoolean(meta.getProperty("accept-ranges"));
+            for (int i = 0; meta.containsKey("chunk." + i); i++) {
+                String[] range = meta.getProperty("chunk." + i).split(",");
+                state.chunks.add(new Chunk(Long.parseLong(range[0]), Long.parseLong(range[1]),
+                        new AtomicLong(Long.parseLong(range[2]))));
+            }
+            return state;
+        }
+
+        synchronized void save(Path metaFile) throws IOException {
+            Properties meta = new Properties();
+            meta.setProperty("url", url);
+            if (etag != null) meta.setProperty("etag", etag);
+            if (lastModified != null) meta.setProperty("last-modified", lastModified);
+            meta.setProperty("length", String.valueOf(length));
+            meta.setProperty("accept-ranges", String.valueOf(acceptsRanges));
+            for (int i = 0; i < chunks.size(); i++) {
+                Chunk chunk = chunks.get(i);
+                meta.setProperty("chunk." + i, chunk.start + "," + chunk.end + "," + chunk.done.get());
+            }
+            // written aside and moved, so a run killed while saving never leaves half a file; the
+            // leading dot keeps the cache scan from taking it for an entry
+            Path written = metaFile.resolveSibling("." + metaFile.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(written)) {
+                meta.store(writer, "qBoot partial download");
+            }
+            Files.move(written, metaFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
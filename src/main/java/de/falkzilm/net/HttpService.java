@@ -0,0 +1,364 @@
+package de.falkzilm.net;
+
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * The one HTTP client every remote access in qBoot goes through.
+ * <p>
+ * It prefers HTTP/2 so that concurrent requests to the same host share a connection, asks for
+ * gzip/deflate encoded bodies and decodes them while streaming, and keeps counters about what went
+ * over the wire. Offline ({@link #setOffline}), every request fails at once with an
+ * {@link OfflineException} instead of running into connect timeouts.
+ */
+@ApplicationScoped
+public class HttpService {
+
+    public static final String USER_AGENT = "qBoot-CLI/1.0";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(60);
+
+    private volatile HttpClient httpClient;
+    private volatile boolean offline;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong bodyBytesOnWire = new AtomicLong();
+    private final AtomicLong bodyBytesDecoded = new AtomicLong();
+    private final AtomicLong compressedResponses = new AtomicLong();
+    private final Map<String, Origin> origins = new ConcurrentHashMap<>();
+
+    /**
+     * Snapshot of the transfer counters. The JDK client does not expose its connection pool, so
+     * only what the requests themselves show is reported, per origin in {@link #origins}.
+     */
+    public record Stats(long requests, Map<String, OriginStats> origins,
+                        long bodyBytesOnWire, long bodyBytesDecoded, long compressedResponses) {
+    }
+
+    /**
+     * Requests sent to one origin, the most that were in flight at once (from sending until the
+     * body was read or closed) and whether responses came over HTTP/2.
+     */
+    public record OriginStats(long requests, int peakInFlight, boolean http2) {
+    }
+
+    private static final class Origin {
+        final AtomicLong requests = new AtomicLong();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger peakInFlight = new AtomicInteger();
+        volatile boolean multiplexed;
+    }
+
+    private HttpClient getHttpClient() {
+        if (httpClient == null) {
+            synchronized (this) {
+                if (httpClient == null) {
+                    httpClient = HttpClient.newBuilder()
+                            .version(HttpClient.Version.HTTP_2)
+                            .followRedirects(HttpClient.Redirect.NORMAL)
+                            .connectTimeout(Duration.ofSeconds(30))
+                            .build();
+                }
+            }
+        }
+        return httpClient;
+    }
+
+    public void setOffline(boolean offline) {
+        this.offline = offline;
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    /** Request builder with qBoot's defaults (user agent, timeout). */
+    public HttpRequest.Builder request(URI uri) {
+        return HttpRequest.newBuilder()
+                .uri(uri)
+                .timeout(REQUEST_TIMEOUT)
+                .header("User-Agent", USER_AGENT);
+    }
+
+    /** Sends a request; the returned body is already decoded and must be closed by the caller. */
+    public HttpResponse<InputStream> send(HttpRequest request) throws IOException, InterruptedException {
+        if (offline) {
+            throw OfflineException.notCached(request.uri());
+        }
+        Origin origin = begin(request);
+        HttpResponse<InputStream> response;
+        try {
+            response = getHttpClient().send(withEncoding(request), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            origin.inFlight.decrementAndGet();
+            throw e;
+        }
+        return decode(response, origin);
+    }
+
+    public CompletableFuture<HttpResponse<InputStream>> sendAsync(HttpRequest request) {
+        if (offline) {
+            return CompletableFuture.failedFuture(OfflineException.notCached(request.uri()));
+        }
+        Origin origin = begin(request);
+        return getHttpClient().sendAsync(withEncoding(request), HttpResponse.BodyHandlers.ofInputStream())
+                .whenComplete((response, error) -> {
+                    if (error != null) {
+                        origin.inFlight.decrementAndGet();
+                    }
+                })
+                .thenApply(response -> decode(response, origin));
+    }
+
+    public String getString(HttpRequest request) throws IOException, InterruptedException {
+        return new String(getBytes(request), StandardCharsets.UTF_8);
+    }
+
+    public byte[] getBytes(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = send(request);
+        try (InputStream body = response.body()) {
+            expectOk(request.uri(), response.statusCode());
+            return body.readAllBytes();
+        }
+    }
+
+    /** Streams the response body into {@code target}, replacing it. */
+    public Path download(HttpRequest request, Path target) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = send(request);
+        try (InputStream body = response.body()) {
+            expectOk(request.uri(), response.statusCode());
+            if (target.getParent() != null) {
+                Files.createDirectories(target.getParent());
+            }
+            try (OutputStream out = Files.newOutputStream(target)) {
+                body.transferTo(out);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Opens a connection (including the TLS handshake) to {@code origin} in the background, so that a
+     * later request to the same host can reuse it. Failures are ignored, and the request is not
+     * counted in {@link #stats()} or {@link #origins()}.
+     */
+    public void preconnect(URI origin) {
+        if (offline) {
+            return;
+        }
+        getHttpClient().sendAsync(request(origin.resolve("/")).method("HEAD", HttpRequest.BodyPublishers.noBody()).build(),
+                        HttpResponse.BodyHandlers.discarding())
+                .exceptionally(error -> null);
+    }
+
+    /** Origins ({@code scheme://authority}) contacted so far. */
+    public Set<String> origins() {
+        return Set.copyOf(origins.keySet());
+    }
+
+    public Stats stats() {
+        Map<String, OriginStats> perOrigin = new TreeMap<>();
+        origins.forEach((name, origin) -> perOrigin.put(name,
+                new OriginStats(origin.requests.get(), origin.peakInFlight.get(), origin.multiplexed)));
+        return new Stats(requests.get(), Collections.unmodifiableMap(perOrigin),
+                bodyBytesOnWire.get(), bodyBytesDecoded.get(), compressedResponses.get());
+    }
+
+    public static void expectOk(URI uri, int statusCode) throws IOException {
+        if (statusCode != 200) {
+            throw new IOException("Failed to download " + uri + ". HTTP " + statusCode + ": " + getStatusText(statusCode));
+        }
+    }
+
+    public static String getStatusText(int statusCode) {
+        return switch (statusCode) {
+            case 400 -> "Bad Request";
+            case 401 -> "Unauthorized";
+            case 403 -> "Forbidden";
+            case 404 -> "Not Found";
+            case 408 -> "Request Timeout";
+            case 416 -> "Range Not Satisfiable";
+            case 429 -> "Too Many Requests";
+            case 500 -> "Internal Server Error";
+            case 502 -> "Bad Gateway";
+            case 503 -> "Service Unavailable";
+            case 504 -> "Gateway Timeout";
+            default -> "HTTP Error";
+        };
+    }
+
+    private Origin begin(HttpRequest request) {
+        requests.incrementAndGet();
+        URI uri = request.uri();
+        Origin origin = origins.computeIfAbsent(uri.getScheme() + "://" + uri.getAuthority(), key -> new Origin());
+        origin.requests.incrementAndGet();
+        int current = origin.inFlight.incrementAndGet();
+        origin.peakInFlight.accumulateAndGet(current, Math::max);
+        return origin;
+    }
+
+    /** Asks for compressed bodies unless the caller negotiates encoding or ranges itself. */
+    private HttpRequest withEncoding(HttpRequest request) {
+        HttpHeaders headers = request.headers();
+        if (headers.firstValue("Accept-Encoding").isPresent() || headers.firstValue("Range").isPresent()) {
+            return request;
+        }
+        return HttpRequest.newBuilder(request, (name, value) -> true)
+                .header("Accept-Encoding", "gzip, deflate")
+                .build();
+    }
+
+    private HttpResponse<InputStream> decode(HttpResponse<InputStream> response, Origin origin) {
+        if (response.version() == HttpClient.Version.HTTP_2) {
+            origin.multiplexed = true;
+        }
+        String encoding = response.headers().firstValue("Content-Encoding").orElse("identity").trim().toLowerCase(Locale.ROOT);
+        InputStream wire = new CountingInputStream(response.body(), bodyBytesOnWire);
+        InputStream decoded = switch (encoding) {
+            case "gzip", "x-gzip" -> new LazyInputStream(() -> new GZIPInputStream(wire, 8192));
+            case "deflate" -> new InflaterInputStream(wire, new Inflater(), 8192);
+            default -> wire;
+        };
+        if (decoded != wire) {
+            compressedResponses.incrementAndGet();
+        }
+        return new DecodedResponse(response, new InFlightInputStream(new CountingInputStream(decoded, bodyBytesDecoded), origin));
+    }
+
+    /** Counts the request as in flight until its body has been read to the end or closed. */
+    private static final class InFlightInputStream extends FilterInputStream {
+        private final Origin origin;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        InFlightInputStream(InputStream in, Origin origin) {
+            super(in);
+            this.origin = origin;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value == -1) release();
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read == -1) release();
+            return read;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                release();
+            }
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                origin.inFlight.decrementAndGet();
+            }
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+        private final AtomicLong counter;
+
+        CountingInputStream(InputStream in, AtomicLong counter) {
+            super(in);
+            this.counter = counter;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = super.read();
+            if (value != -1) counter.incrementAndGet();
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) counter.addAndGet(read);
+            return read;
+        }
+    }
+
+    @FunctionalInterface
+    private interface StreamOpener {
+        InputStream open() throws IOException;
+    }
+
+    /** Defers opening, because a gzip stream reads its header eagerly and must not block the client's executor. */
+    private static final class LazyInputStream extends InputStream {
+        private final StreamOpener opener;
+        private InputStream delegate;
+
+        LazyInputStream(StreamOpener opener) {
+            this.opener = opener;
+        }
+
+        private InputStream delegate() throws IOException {
+            if (delegate == null) {
+                delegate = opener.open();
+            }
+            return delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return delegate().read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            return delegate().read(buffer, offset, length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (delegate != null) {
+                delegate.close();
+            }
+        }
+    }
+
+    private record DecodedResponse(HttpResponse<InputStream> delegate, InputStream body) implements HttpResponse<InputStream> {
+        @Override public int statusCode() { return delegate.statusCode(); }
+        @Override public HttpRequest request() { return delegate.request(); }
+        @Override public java.util.Optional<HttpResponse<InputStream>> previousResponse() { return delegate.previousResponse(); }
+        @Override public HttpHeaders headers() { return delegate.headers(); }
+        @Override public java.util.Optional<javax.net.ssl.SSLSession> sslSession() { return delegate.sslSession(); }
+        @Override public URI uri() { return delegate.uri(); }
+        @Override public HttpClient.Version version() { return delegate.version(); }
+    }
+}
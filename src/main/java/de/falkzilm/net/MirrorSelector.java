@@ -0,0 +1,203 @@
+package de.falkzilm.net;
+
+import de.falkzilm.cache.CacheAccess;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Picks the fastest of several mirrors serving the same document and hedges slow answers.
+ * <p>
+ * The mirror with the lowest median latency is asked first. When it has not answered after the
+ * configured percentile of its own latency history, the next mirror is asked as well and whichever
+ * answers first wins; the other request is cancelled. Latencies are kept per mirror URL and persisted
+ * between runs, so the primary for the next run reflects how the mirrors behaved recently.
+ */
+public class MirrorSelector {
+
+    private static final int HISTORY_SIZE = 20;
+    private static final int MIN_SAMPLES = 3;
+
+    private final Path historyFile;
+    private final double percentile;
+    private final Duration defaultDelay;
+    private final Map<String, Deque<Long>> history = new LinkedHashMap<>();
+
+    @FunctionalInterface
+    public interface Attempt<T> {
+        T fetch(URI uri) throws Exception;
+    }
+
+    public record Winner<T>(URI uri, T value, Duration latency) {
+    }
+
+    public MirrorSelector(Path historyFile, double percentile, Duration defaultDelay) {
+        this.historyFile = historyFile;
+        this.percentile = Math.min(100, Math.max(0, percentile));
+        this.defaultDelay = defaultDelay;
+        load();
+    }
+
+    /** Mirrors ordered by median latency; mirrors without history keep their order and are tried first. */
+    public synchronized List<URI> order(List<URI> mirrors) {
+        List<URI> ordered = new ArrayList<>(mirrors);
+        ordered.sort(Comparator.comparingLong(uri -> percentileOf(history.get(uri.toString()), 50, 0)));
+        return ordered;
+    }
+
+    /** How long to wait for {@code mirror} before hedging with the next one. */
+    public synchronized Duration hedgeDelay(URI mirror) {
+        Deque<Long> samples = history.get(mirror.toString());
+        if (samples == null || samples.size() < MIN_SAMPLES) {
+            return defaultDelay;
+        }
+        return Duration.ofMillis(percentileOf(samples, percentile, defaultDelay.toMillis()));
+    }
+
+    public synchronized void record(URI mirror, Duration latency) {
+        Deque<Long> samples = history.computeIfAbsent(mirror.toString(), key -> new ArrayDeque<>());
+        samples.addLast(latency.toMillis());
+        while (samples.size() > HISTORY_SIZE) {
+            samples.removeFirst();
+        }
+    }
+
+    /**
+     * Fetches from the fastest mirror, hedging with the next one after {@link #hedgeDelay(URI)}. A
+     * failed mirror is replaced by the next one right away. Latency history is updated and saved.
+     */
+    public <T> Winner<T> fetch(List<URI> mirrors, Attempt<T> attempt) throws IOException, InterruptedException {
+        if (mirrors.isEmpty()) {
+            throw new IllegalArgumentException("No mirrors given");
+        }
+        List<URI> ordered = order(mirrors);
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CompletionService<T> completion = new ExecutorCompletionService<>(executor);
+        Map<Future<T>, Started> running = new LinkedHashMap<>();
+        IOException failure = null;
+        int next = 0;
+        try {
+            submit(completion, running, attempt, ordered.get(next++));
+            Future<T> done = completion.poll(hedgeDelay(ordered.get(0)).toMillis(), TimeUnit.MILLISECONDS);
+            if (done == null && next < ordered.size()) {
+                submit(completion, running, attempt, ordered.get(next++));
+            }
+            while (!running.isEmpty()) {
+                if (done == null) {
+                    done = completion.take();
+                }
+                Started started = running.remove(done);
+                try {
+                    T value = done.get();
+                    record(started.uri(), started.elapsed());
+                    // The others were slower so far; their elapsed time is a lower bound of their latency
+                    running.forEach((future, slower) -> {
+                        future.cancel(true);
+                        record(slower.uri(), slower.elapsed());
+                    });
+                    running.clear();
+                    save();
+                    return new Winner<>(started.uri(), value, Duration.ofNanos(System.nanoTime() - start));
+                } catch (ExecutionException e) {
+                    record(started.uri(), started.elapsed().plus(defaultDelay));
+                    failure = asIOException(started.uri(), e.getCause(), failure);
+                    if (next < ordered.size()) {
+                        submit(completion, running, attempt, ordered.get(next++));
+                    }
+                }
+                done = null;
+            }
+            save();
+            throw failure;
+        } finally {
+            running.keySet().forEach(future -> future.cancel(true));
+            executor.shutdownNow();
+        }
+    }
+
+    private record Started(URI uri, long nanos) {
+        Duration elapsed() {
+            return Duration.ofNanos(System.nanoTime() - nanos);
+        }
+    }
+
+    private static <T> void submit(CompletionService<T> completion, Map<Future<T>, Started> running,
+                                   Attempt<T> attempt, URI uri) {
+        running.put(completion.submit(() -> attempt.fetch(uri)), new Started(uri, System.nanoTime()));
+    }
+
+    private static IOException asIOException(URI uri, Throwable cause, IOException previous) {
+        IOException exc = new IOException("Mirror " + uri + " failed: " + cause.getMessage(), cause);
+        if (previous != null) {
+            exc.addSuppressed(previous);
+        }
+        return exc;
+    }
+
+    private static long percentileOf(Deque<Long> samples, double percentile, long fallback) {
+        if (samples == null || samples.isEmpty()) {
+            return fallback;
+        }
+        long[] sorted = samples.stream().mapToLong(Long::longValue).sorted().toArray();
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.min(sorted.length - 1, Math.max(0, index))];
+    }
+
+    private void load() {
+        if (historyFile == null || !Files.isRegularFile(historyFile)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(historyFile)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            return;
+        }
+        for (String mirror : properties.stringPropertyNames()) {
+            try {
+                history.put(mirror, Arrays.stream(properties.getProperty(mirror).split(","))
+                        .filter(value -> !value.isBlank())
+                        .map(value -> Long.parseLong(value.trim()))
+                        .collect(Collectors.toCollection(ArrayDeque::new)));
+            } catch (NumberFormatException ignored) {
+                // a damaged entry only loses that mirror's history
+            }
+        }
+    }
+
+    private synchronized void save() {
+        if (historyFile == null) {
+            return;
+        }
+        Properties properties = new Properties();
+        history.forEach((mirror, samples) -> properties.setProperty(mirror,
+                samples.stream().map(String::valueOf).collect(Collectors.joining(","))));
+        try {
+            CacheAccess.writeAtomically(historyFile, writer -> properties.store(writer, "qBoot mirror latencies in ms"));
+        } catch (IOException ignored) {
+            // history is an optimisation, losing it only costs a less informed choice next time
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package de.falkzilm.net;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Something qBoot runs offline for is not in the local caches.
+ */
+public class OfflineException extends IOException {
+
+    private final List<String> missing;
+
+    public OfflineException(String message, List<String> missing) {
+        super(message);
+        this.missing = List.copyOf(missing);
+    }
+
+    /** Thrown instead of a request to {@code uri}. */
+    public static OfflineException notCached(Object uri) {
+        return new OfflineException(uri + " is not cached and qBoot runs offline", List.of(String.valueOf(uri)));
+    }
+
+    /** The missing cache entries, described for the user. */
+    public List<String> getMissing() {
+        return missing;
+    }
+}
@@ -2,6 +2,7 @@ package de.falkzilm.template;
 
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
 import de.falkzilm.gen.Framework;
+import de.falkzilm.gen.node.PackageManager;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 
 @RegisterForReflection
@@ -10,5 +11,6 @@ public record General(
         @JacksonXmlProperty(localName = "frameworkVersion") String frameworkVersion,
         @JacksonXmlProperty(localName = "cliArgs") String cliArgs,
         @JacksonXmlProperty(localName = "projectName") String projectName,
-        @JacksonXmlProperty(localName = "projectPackage") String projectPackage) {
+        @JacksonXmlProperty(localName = "projectPackage") String projectPackage,
+        @JacksonXmlProperty(localName = "packageManager") PackageManager packageManager) {
 }
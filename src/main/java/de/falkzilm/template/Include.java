@@ -0,0 +1,15 @@
+package de.falkzilm.template;
+
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+
+/**
+ * Reference to a shared template fragment, resolved relative to the including template.
+ * Inside {@code <workspaces>} the fragment contributes workspaces, inside {@code <structure>}
+ * it contributes changesets.
+ */
+@RegisterForReflection
+public class Include {
+    @JacksonXmlProperty(isAttribute = true, localName = "href")
+    public String href;
+}
@@ -12,6 +12,14 @@ public class PathSpec {
     @JacksonXmlProperty(isAttribute = true, localName = "autocreate")
     public Boolean autocreate;
 
+    /** Name of a bundled asset whose bytes are copied to {@link #name} instead of inline content. */
+    @JacksonXmlProperty(isAttribute = true, localName = "asset")
+    public String asset;
+
+    /** Location (URL or path relative to the template) the content is fetched from. */
+    @JacksonXmlProperty(isAttribute = true, localName = "src")
+    public String src;
+
     @JacksonXmlText
     public String content;
 }
\ No newline at end of file
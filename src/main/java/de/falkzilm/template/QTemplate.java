@@ -1,5 +1,6 @@
 package de.falkzilm.template;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlRootElement;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 import lombok.Data;
@@ -9,4 +10,7 @@ import lombok.Data;
 @Data
 public class QTemplate {
     private Workspaces workspaces;
+
+    @JsonIgnore
+    private TemplateBundle bundle;
 }
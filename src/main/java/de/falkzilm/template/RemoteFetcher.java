@@ -0,0 +1,94 @@
+package de.falkzilm.template;
+
+import de.falkzilm.cache.CacheAccess;
+import de.falkzilm.cache.CacheManager;
+import de.falkzilm.helper.ConsoleFormatter;
+import de.falkzilm.net.HttpService;
+import de.falkzilm.net.OfflineException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Fetches remote template documents through the shared {@link HttpService}.
+ * <p>
+ * Responses are cached with their validators and revalidated with conditional GETs; offline, the
+ * cached document is used as is. Every host
+ * gets its own permit pool so a burst of concurrent fetches is multiplexed over few connections
+ * instead of opening one per request.
+ */
+public class RemoteFetcher {
+
+    private final HttpService http;
+    private final TemplateCache cache;
+    private final int maxPerHost;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    public RemoteFetcher(HttpService http, TemplateCache cache, int maxPerHost) {
+        this.http = http;
+        this.cache = cache;
+        this.maxPerHost = Math.max(1, maxPerHost);
+    }
+
+    public String fetch(URI uri, String accept) throws IOException, InterruptedException {
+        Semaphore permits = hostPermits.computeIfAbsent(uri.getAuthority(), host -> new Semaphore(maxPerHost));
+        permits.acquire();
+        // one process fetches a document at a time; the others then revalidate what it cached
+        try (CacheAccess.Lock ignored = cache.lock(uri.toString())) {
+            return fetchConditional(uri, accept);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private String fetchConditional(URI uri, String accept) throws IOException, InterruptedException {
+        Path document = cache.documentFileFor(uri.toString());
+        CacheManager.shared().promote(CacheManager.Area.TEMPLATES, document.getParent(), document.getFileName().toString());
+        Optional<TemplateCache.Cached> cached = cache.lookup(uri.toString());
+        if (http.isOffline()) {
+            if (cached.isEmpty()) {
+                CacheManager.shared().miss(CacheManager.Area.TEMPLATES);
+                throw OfflineException.notCached(uri);
+            }
+            CacheManager.shared().hit(CacheManager.Area.TEMPLATES, cached.get().file().getFileName().toString());
+            return cached.get().content();
+        }
+
+        HttpRequest.Builder request = http.request(uri)
+                .header("Accept", accept)
+                .GET();
+        cached.map(TemplateCache.Cached::etag).ifPresent(etag -> request.header("If-None-Match", etag));
+        cached.map(TemplateCache.Cached::lastModified).ifPresent(date -> request.header("If-Modified-Since", date));
+
+        HttpResponse<InputStream> response = http.send(request.build());
+        String body;
+        try (InputStream in = response.body()) {
+            if (response.statusCode() == 304 && cached.isPresent()) {
+                CacheManager.shared().hit(CacheManager.Area.TEMPLATES, cached.get().file().getFileName().toString());
+                return cached.get().content();
+            }
+            CacheManager.shared().miss(CacheManager.Area.TEMPLATES);
+            HttpService.expectOk(uri, response.statusCode());
+            body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+
+        try {
+            Path file = cache.store(uri.toString(), body,
+                    response.headers().firstValue("ETag").orElse(null),
+                    response.headers().firstValue("Last-Modified").orElse(null));
+            CacheManager.shared().stored(CacheManager.Area.TEMPLATES, file.getFileName().toString());
+        } catch (IOException e) {
+            ConsoleFormatter.debug("Failed to cache template", "Error: " + e.getMessage());
+        }
+        return body;
+    }
+}
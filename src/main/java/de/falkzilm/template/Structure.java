@@ -13,4 +13,8 @@ public class Structure {
 
     @JacksonXmlElementWrapper(useWrapping = false)
     public List<ChangeSet> changeset;
+
+    @JacksonXmlElementWrapper(useWrapping = false)
+    @JacksonXmlProperty(localName = "include")
+    public List<Include> include;
 }
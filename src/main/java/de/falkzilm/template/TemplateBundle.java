@@ -0,0 +1,279 @@
+package de.falkzilm.template;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * A distributable template bundle ({@code .qboot}).
+ * <p>
+ * A bundle is a plain zip archive whose entries are all stored uncompressed. The first entry is an
+ * index listing the absolute data offset, size and CRC of every other entry, so opening a bundle only
+ * touches its first few hundred bytes no matter how large the assets are. Local bundles are
+ * memory-mapped and asset bytes are sliced out of the mapping when a changeset actually needs them.
+ */
+public final class TemplateBundle {
+
+    public static final String EXTENSION = ".qboot";
+    public static final String DESCRIPTOR_ENTRY = "qtemplate.xml";
+    static final String INDEX_ENTRY = "qboot.idx";
+    static final String ASSET_PREFIX = "assets/";
+
+    private static final String INDEX_HEADER = "qboot-bundle 1";
+    private static final int LOC_SIGNATURE = 0x04034b50;
+    private static final int LOC_HEADER_SIZE = 30;
+
+    /** Offset, size and CRC are written with a fixed width so the index size is known up front. */
+    private static final String INDEX_LINE = "%016x %016x %08x %s\n";
+    private static final int INDEX_LINE_FIXED = 16 + 1 + 16 + 1 + 8 + 1 + 1;
+
+    private final ByteBuffer data;
+    private final Map<String, Entry> entries;
+
+    record Entry(String name, long offset, long size, long crc) {
+    }
+
+    private TemplateBundle(ByteBuffer data) throws IOException {
+        this.data = data.order(ByteOrder.LITTLE_ENDIAN);
+        this.entries = readIndex();
+    }
+
+    /** Whether {@code source} names a bundle; for URLs the path is checked, ignoring query and fragment. */
+    public static boolean isBundle(String source) {
+        if (source == null) {
+            return false;
+        }
+        String path = source;
+        if (source.contains("://")) {
+            try {
+                path = Objects.requireNonNullElse(URI.create(source).getPath(), "");
+            } catch (IllegalArgumentException e) {
+                // not a valid URI, strip query and fragment by hand
+                path = source.split("[?#]", 2)[0];
+            }
+        }
+        return path.toLowerCase(Locale.ROOT).endsWith(EXTENSION);
+    }
+
+    /** Opens a local bundle by memory-mapping it; nothing beyond the index is read. */
+    public static TemplateBundle open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Bundle too large to map: " + file);
+            }
+            return new TemplateBundle(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /** Wraps a bundle that is already held in memory, e.g. a remote download. */
+    public static TemplateBundle of(byte[] content) throws IOException {
+        return new TemplateBundle(ByteBuffer.wrap(content));
+    }
+
+    public String descriptor() {
+        return StandardCharsets.UTF_8.decode(slice(entries.get(DESCRIPTOR_ENTRY))).toString();
+    }
+
+    public Set<String> assets() {
+        return entries.keySet().stream()
+                .filter(name -> name.startsWith(ASSET_PREFIX))
+                .map(name -> name.substring(ASSET_PREFIX.length()))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    public boolean hasAsset(String name) {
+        return entries.containsKey(ASSET_PREFIX + name);
+    }
+
+    /** Read-only view on the stored bytes of an asset. */
+    public ByteBuffer asset(String name) throws IOException {
+        Entry entry = entries.get(ASSET_PREFIX + name);
+        if (entry == null) {
+            throw new IOException("Asset not found in bundle: " + name);
+        }
+        return slice(entry);
+    }
+
+    /** Writes an asset to {@code target}; entries are stored, so this is a plain channel copy. */
+    public void copyAsset(String name, Path target) throws IOException {
+        ByteBuffer content = asset(name);
+        try (FileChannel out = FileChannel.open(target,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (content.hasRemaining()) {
+                out.write(content);
+            }
+        }
+    }
+
+    private ByteBuffer slice(Entry entry) {
+        return data.slice((int) entry.offset(), (int) entry.size()).asReadOnlyBuffer();
+    }
+
+    private Map<String, Entry> readIndex() throws IOException {
+        if (data.limit() < LOC_HEADER_SIZE || data.getInt(0) != LOC_SIGNATURE) {
+            throw new IOException("Not a qboot bundle: missing zip header");
+        }
+        int method = Short.toUnsignedInt(data.getShort(8));
+        long size = Integer.toUnsignedLong(data.getInt(22));
+        int nameLength = Short.toUnsignedInt(data.getShort(26));
+        int extraLength = Short.toUnsignedInt(data.getShort(28));
+        String name = StandardCharsets.UTF_8.decode(data.slice(LOC_HEADER_SIZE, nameLength)).toString();
+        if (!INDEX_ENTRY.equals(name) || method != ZipEntry.STORED) {
+            throw new IOException("Not a qboot bundle: first entry must be a stored " + INDEX_ENTRY);
+        }
+
+        int indexOffset = LOC_HEADER_SIZE + nameLength + extraLength;
+        String index = StandardCharsets.UTF_8.decode(data.slice(indexOffset, (int) size)).toString();
+        List<String> lines = index.lines().toList();
+        if (lines.isEmpty() || !INDEX_HEADER.equals(lines.get(0))) {
+            throw new IOException("Unsupported bundle index format");
+        }
+
+        Map<String, Entry> result = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            String[] parts = line.split(" ", 4);
+            if (parts.length != 4) {
+                throw new IOException("Corrupt bundle index line: " + line);
+            }
+            Entry entry = new Entry(parts[3], Long.parseLong(parts[0], 16),
+                    Long.parseLong(parts[1], 16), Long.parseLong(parts[2], 16));
+            if (entry.offset() + entry.size() > data.limit()) {
+                throw new IOException("Bundle is truncated at entry " + entry.name());
+            }
+            result.put(entry.name(), entry);
+        }
+        if (!result.containsKey(DESCRIPTOR_ENTRY)) {
+            throw new IOException("Bundle contains no " + DESCRIPTOR_ENTRY);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Packs a template directory into a bundle. {@code descriptor} becomes the bundle's
+     * {@value #DESCRIPTOR_ENTRY}; every other regular file becomes an asset addressed by its
+     * path relative to {@code sourceDir}.
+     *
+     * @return number of assets written
+     */
+    public static int write(Path sourceDir, Path descriptor, Path target) throws IOException {
+        List<Source> sources = new ArrayList<>();
+        sources.add(Source.of(DESCRIPTOR_ENTRY, descriptor));
+
+        Path normalizedTarget = target.toAbsolutePath().normalize();
+        Path normalizedDescriptor = descriptor.toAbsolutePath().normalize();
+        try (Stream<Path> files = Files.walk(sourceDir)) {
+            for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                Path absolute = file.toAbsolutePath().normalize();
+                if (absolute.equals(normalizedTarget) || absolute.equals(normalizedDescriptor)) {
+                    continue;
+                }
+                String relative = sourceDir.relativize(file).toString().replace('\\', '/');
+                sources.add(Source.of(ASSET_PREFIX + relative, file));
+            }
+        }
+
+        // Layout is fully determined by names and sizes: index first, then every entry in order.
+        int indexSize = INDEX_HEADER.length() + 1;
+        for (Source source : sources) {
+            indexSize += INDEX_LINE_FIXED + source.nameBytes();
+        }
+        long position = LOC_HEADER_SIZE + INDEX_ENTRY.length() + (long) indexSize;
+        StringBuilder index = new StringBuilder(indexSize).append(INDEX_HEADER).append('\n');
+        List<Entry> layout = new ArrayList<>();
+        for (Source source : sources) {
+            position += LOC_HEADER_SIZE + source.nameBytes();
+            Entry entry = new Entry(source.name(), position, source.size(), source.crc());
+            layout.add(entry);
+            index.append(String.format(INDEX_LINE, entry.offset(), entry.size(), entry.crc(), entry.name()));
+            position += source.size();
+        }
+        byte[] indexBytes = index.toString().getBytes(StandardCharsets.UTF_8);
+
+        try (OutputStream out = Files.newOutputStream(target);
+             ZipOutputStream zip = new ZipOutputStream(out)) {
+            CRC32 indexCrc = new CRC32();
+            indexCrc.update(indexBytes);
+            zip.putNextEntry(storedEntry(INDEX_ENTRY, indexBytes.length, indexCrc.getValue()));
+            zip.write(indexBytes);
+            zip.closeEntry();
+
+            for (Source source : sources) {
+                zip.putNextEntry(storedEntry(source.name(), source.size(), source.crc()));
+                try (InputStream in = Files.newInputStream(source.file())) {
+                    in.transferTo(zip);
+                }
+                zip.closeEntry();
+            }
+        }
+
+        verifyLayout(target, layout);
+        return sources.size() - 1;
+    }
+
+    private static ZipEntry storedEntry(String name, long size, long crc) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setMethod(ZipEntry.STORED);
+        entry.setSize(size);
+        entry.setCompressedSize(size);
+        entry.setCrc(crc);
+        return entry;
+    }
+
+    /** Guards against zip writers that add extra fields and thereby shift the precomputed offsets. */
+    private static void verifyLayout(Path target, List<Entry> layout) throws IOException {
+        TemplateBundle bundle = open(target);
+        for (Entry entry : layout) {
+            int nameLength = entry.name().getBytes(StandardCharsets.UTF_8).length;
+            int header = (int) entry.offset() - LOC_HEADER_SIZE - nameLength;
+            if (header < 0 || bundle.data.getInt(header) != LOC_SIGNATURE
+                    || Short.toUnsignedInt(bundle.data.getShort(header + 28)) != 0) {
+                Files.deleteIfExists(target);
+                throw new IOException("Unexpected zip layout while writing bundle entry " + entry.name());
+            }
+        }
+    }
+
+    private record Source(String name, Path file, long size, long crc) {
+        static Source of(String name, Path file) throws IOException {
+            CRC32 crc = new CRC32();
+            long size = 0;
+            byte[] buffer = new byte[8192];
+            try (InputStream in = Files.newInputStream(file)) {
+                for (int read; (read = in.read(buffer)) != -1; ) {
+                    crc.update(buffer, 0, read);
+                    size += read;
+                }
+            }
+            if (size > 0xFFFFFFFFL) {
+                throw new IOException("Asset exceeds 4 GiB and cannot be bundled: " + file);
+            }
+            return new Source(name, file, size, crc.getValue());
+        }
+
+        int nameBytes() {
+            return name.getBytes(StandardCharsets.UTF_8).length;
+        }
+    }
+}
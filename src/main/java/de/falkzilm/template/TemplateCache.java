@@ -0,0 +1,96 @@
+package de.falkzilm.template;
+
+import de.falkzilm.cache.CacheAccess;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * On-disk cache of remote template documents together with their HTTP validators,
+ * so that later downloads can be turned into conditional GETs.
+ */
+public class TemplateCache {
+
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "last-modified";
+
+    private final Path cacheDir;
+
+    public record Cached(Path file, String content, String etag, String lastModified) {
+    }
+
+    public TemplateCache(Path cacheDir) {
+        this.cacheDir = cacheDir;
+    }
+
+    public static TemplateCache systemDefault() {
+        return new TemplateCache(Path.of(System.getProperty("java.io.tmpdir"), "qboot-cache"));
+    }
+
+    public Path getCacheDir() {
+        return cacheDir;
+    }
+
+    public Optional<Cached> lookup(String url) {
+        Path file = documentFileFor(url);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        try {
+            Properties meta = new Properties();
+            Path metaFile = metaFor(file);
+            if (Files.isRegularFile(metaFile)) {
+                try (Reader reader = Files.newBufferedReader(metaFile)) {
+                    meta.load(reader);
+                }
+            }
+            return Optional.of(new Cached(file, Files.readString(file),
+                    meta.getProperty(ETAG), meta.getProperty(LAST_MODIFIED)));
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    public Path store(String url, String content, String etag, String lastModified) throws IOException {
+        Path file = documentFileFor(url);
+        Properties meta = new Properties();
+        if (etag != null) meta.setProperty(ETAG, etag);
+        if (lastModified != null) meta.setProperty(LAST_MODIFIED, lastModified);
+        // content first: new content with old validators only costs a full download next time
+        CacheAccess.writeAtomically(file, writer -> writer.write(content));
+        CacheAccess.writeAtomically(metaFor(file), writer -> meta.store(writer, url));
+        return file;
+    }
+
+    /** Lock on the cached document of {@code url}, so only one process fetches it at a time. */
+    public CacheAccess.Lock lock(String url) throws IOException {
+        Path file = documentFileFor(url);
+        return CacheAccess.lock(file.getParent(), file.getFileName().toString());
+    }
+
+    /** Where a downloaded template bundle for {@code url} is kept. */
+    public Path bundleFileFor(String url) {
+        return cacheDir.resolve("bundles").resolve(fileNameFor(url));
+    }
+
+    /** Where the template document for {@code url} is kept. */
+    public Path documentFileFor(String url) {
+        return cacheDir.resolve("templates").resolve(fileNameFor(url) + ".xml");
+    }
+
+    private static String fileNameFor(String url) {
+        String fileName = url.replaceAll("[^a-zA-Z0-9.-]", "_");
+        if (fileName.length() > 180) {
+            fileName = fileName.substring(0, 160) + "_" + Integer.toHexString(url.hashCode());
+        }
+        return fileName;
+    }
+
+    private Path metaFor(Path file) {
+        return file.resolveSibling(file.getFileName() + ".meta");
+    }
+}
@@ -0,0 +1,212 @@
+package de.falkzilm.template;
+
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Expands {@code <include href="..."/>} fragments and {@code <path src="..."/>} contents of a loaded
+ * template.
+ * <p>
+ * Resolution works level by level: every reference known at one nesting level is fetched
+ * concurrently, then the fetched fragments are merged and may contribute references for the next
+ * level. The overall latency is therefore close to the slowest fetch per level rather than the sum of
+ * all fetches. Included workspaces and changesets are appended after the inline ones.
+ * <p>
+ * What a document may reference depends on where it came from: a local template may include local
+ * files and URLs, a remote one only HTTP/HTTPS URLs, so a downloaded template cannot pull local
+ * files into the generated project. Relative references in a bundle resolve to entries of the
+ * bundle ({@link #BUNDLE_BASE}), never to files next to it.
+ */
+class TemplateResolver {
+
+    private static final int MAX_DEPTH = 16;
+
+    static final String BUNDLE_SCHEME = "qboot-bundle";
+
+    /** Base for the documents of a bundle; references resolve to its entries. */
+    static final URI BUNDLE_BASE = URI.create(BUNDLE_SCHEME + ":/" + TemplateBundle.DESCRIPTOR_ENTRY);
+
+    private final XmlMapper xmlMapper;
+    private final RemoteFetcher fetcher;
+    private TemplateBundle bundle;
+
+    @FunctionalInterface
+    private interface Merge {
+        void apply(String document, List<Pending> next) throws IOException;
+    }
+
+    private record Pending(URI uri, Merge merge) {
+    }
+
+    TemplateResolver(XmlMapper xmlMapper, RemoteFetcher fetcher) {
+        this.xmlMapper = xmlMapper;
+        this.fetcher = fetcher;
+    }
+
+    void resolve(QTemplate template, URI base) throws IOException, InterruptedException {
+        Workspaces workspaces = template.getWorkspaces();
+        if (workspaces == null) {
+            return;
+        }
+
+        bundle = template.getBundle();
+        List<Pending> pending = new ArrayList<>();
+        collectWorkspaces(workspaces, workspaces, base, pending);
+
+        for (int depth = 0; !pending.isEmpty(); depth++) {
+            if (depth >= MAX_DEPTH) {
+                throw new IOException("Template includes are nested deeper than " + MAX_DEPTH + " levels, check for include cycles");
+            }
+            Map<URI, String> documents = fetchAll(pending);
+            List<Pending> next = new ArrayList<>();
+            for (Pending item : pending) {
+                item.merge().apply(documents.get(item.uri()), next);
+            }
+            pending = next;
+        }
+    }
+
+    private void collectWorkspaces(Workspaces root, Workspaces fragment, URI base, List<Pending> out) throws IOException {
+        if (fragment.getItems() != null) {
+            for (Workspace workspace : fragment.getItems()) {
+                if (workspace.getStructure() != null) {
+                    collectStructure(workspace.getStructure(), base, out);
+                }
+            }
+        }
+        if (fragment.includes != null) {
+            for (Include include : fragment.includes) {
+                URI uri = reference(base, include.href);
+                out.add(new Pending(uri, (document, next) -> {
+                    Workspaces included = xmlMapper.readValue(document, Workspaces.class);
+                    collectWorkspaces(root, included, uri, next);
+                    if (included.getItems() != null) {
+                        if (root.getItems() == null) {
+                            root.setItems(new ArrayList<>());
+                        }
+                        root.getItems().addAll(included.getItems());
+                    }
+                }));
+            }
+            fragment.includes = null;
+        }
+    }
+
+    private void collectStructure(Structure structure, URI base, List<Pending> out) throws IOException {
+        if (structure.changeset != null) {
+            for (ChangeSet changeSet : structure.changeset) {
+                if (changeSet.paths == null) {
+                    continue;
+                }
+                for (PathSpec pathSpec : changeSet.paths) {
+                    if (pathSpec.src != null && !pathSpec.src.isBlank()) {
+                        out.add(new Pending(reference(base, pathSpec.src), (document, next) -> pathSpec.content = document));
+                    }
+                }
+            }
+        }
+        if (structure.include != null) {
+            for (Include include : structure.include) {
+                URI uri = reference(base, include.href);
+                out.add(new Pending(uri, (document, next) -> {
+                    Structure included = xmlMapper.readValue(document, Structure.class);
+                    collectStructure(included, uri, next);
+                    if (included.changeset != null) {
+                        if (structure.changeset == null) {
+                            structure.changeset = new ArrayList<>();
+                        }
+                        structure.changeset.addAll(included.changeset);
+                    }
+                }));
+            }
+            structure.include = null;
+        }
+    }
+
+    /**
+     * Resolves {@code reference} against the document at {@code base}, rejecting locations the
+     * document's origin may not reach.
+     */
+    static URI reference(URI base, String reference) throws IOException {
+        URI uri = base.resolve(reference.trim());
+        String origin = scheme(base);
+        boolean allowed = switch (scheme(uri)) {
+            case "http", "https" -> true;
+            case "file" -> origin.equals("file");
+            case BUNDLE_SCHEME -> origin.equals(BUNDLE_SCHEME);
+            default -> false;
+        };
+        if (!allowed) {
+            throw new IOException("Template include " + reference + " is not allowed from " + base
+                    + ": remote templates and bundles may only include HTTP/HTTPS URLs or bundle entries");
+        }
+        return uri;
+    }
+
+    private Map<URI, String> fetchAll(List<Pending> pending) throws IOException, InterruptedException {
+        Map<URI, Future<String>> futures = new LinkedHashMap<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Pending item : pending) {
+                futures.computeIfAbsent(item.uri(), uri -> executor.submit(() -> read(uri)));
+            }
+            try {
+                Map<URI, String> documents = new LinkedHashMap<>();
+                for (var entry : futures.entrySet()) {
+                    documents.put(entry.getKey(), entry.getValue().get());
+                }
+                return documents;
+            } catch (ExecutionException e) {
+                throw failure(e);
+            } finally {
+                // stops the fetches still running after a failure; closing the executor waits for them
+                futures.values().forEach(future -> future.cancel(true));
+            }
+        }
+    }
+
+    private static IOException failure(ExecutionException e) {
+        if (e.getCause() instanceof IOException io) {
+            return io;
+        }
+        if (e.getCause() instanceof UncheckedIOException io) {
+            return io.getCause();
+        }
+        return new IOException("Could not resolve template include: " + e.getCause().getMessage(), e.getCause());
+    }
+
+    private String read(URI uri) throws IOException, InterruptedException {
+        return switch (scheme(uri)) {
+            case "http", "https" -> fetcher.fetch(uri, "*/*");
+            case "file" -> Files.readString(Path.of(uri));
+            case BUNDLE_SCHEME -> readEntry(uri);
+            default -> throw new IOException("Unsupported include location: " + uri);
+        };
+    }
+
+    private String readEntry(URI uri) throws IOException {
+        String name = uri.getPath().startsWith("/") ? uri.getPath().substring(1) : uri.getPath();
+        if (bundle == null || !bundle.hasAsset(name)) {
+            throw new IOException("Template include not found in bundle: " + name);
+        }
+        return StandardCharsets.UTF_8.decode(bundle.asset(name)).toString();
+    }
+
+    private static String scheme(URI uri) {
+        return uri.getScheme() == null ? "file" : uri.getScheme().toLowerCase(Locale.ROOT);
+    }
+}
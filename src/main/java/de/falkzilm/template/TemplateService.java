@@ -2,17 +2,22 @@ package de.falkzilm.template;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import de.falkzilm.cache.CacheManager;
 import de.falkzilm.helper.ConsoleFormatter;
+import de.falkzilm.net.DownloadManager;
+import de.falkzilm.net.HttpService;
+import de.falkzilm.net.MirrorSelector;
+import de.falkzilm.net.OfflineException;
 import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.io.IOException;
 import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 @ApplicationScoped
@@ -21,27 +26,76 @@ public class TemplateService {
     @Inject
     XmlMapper xmlMapper;
 
-    private volatile HttpClient httpClient;
+    @Inject
+    HttpService http;
+
+    @Inject
+    DownloadManager downloads;
+
+    @ConfigProperty(name = "qboot.http.max-per-host", defaultValue = "6")
+    int maxRequestsPerHost;
+
+    @ConfigProperty(name = "qboot.hedge.percentile", defaultValue = "95")
+    double hedgePercentile;
+
+    @ConfigProperty(name = "qboot.hedge.default-delay-ms", defaultValue = "500")
+    long hedgeDefaultDelayMs;
 
-    private HttpClient getHttpClient() {
-        if (httpClient == null) {
+    private final TemplateCache templateCache = TemplateCache.systemDefault();
+
+    private volatile RemoteFetcher remoteFetcher;
+    private volatile MirrorSelector mirrorSelector;
+
+    private RemoteFetcher getRemoteFetcher() {
+        if (remoteFetcher == null) {
             synchronized (this) {
-                if (httpClient == null) {
-                    httpClient = HttpClient.newBuilder()
-                            .connectTimeout(Duration.ofSeconds(30))
-                            .build();
+                if (remoteFetcher == null) {
+                    remoteFetcher = new RemoteFetcher(http, templateCache, maxRequestsPerHost);
                 }
             }
         }
-        return httpClient;
+        return remoteFetcher;
+    }
+
+    private MirrorSelector getMirrorSelector() {
+        if (mirrorSelector == null) {
+            synchronized (this) {
+                if (mirrorSelector == null) {
+                    mirrorSelector = new MirrorSelector(templateCache.getCacheDir().resolve("mirror-latency.properties"),
+                            hedgePercentile, Duration.ofMillis(hedgeDefaultDelayMs));
+                }
+            }
+        }
+        return mirrorSelector;
     }
 
     public QTemplate loadTemplate(String templateSource) throws IOException, InterruptedException {
-        if (isUrl(templateSource)) {
-            return loadFromUrl(templateSource);
+        return loadTemplate(templateSource, List.of());
+    }
+
+    /**
+     * Loads a template that may also be served by {@code mirrors}. With mirrors, the fastest one is
+     * asked first and a hedged request goes to the next one if it does not answer in time.
+     */
+    public QTemplate loadTemplate(String templateSource, List<String> mirrors) throws IOException, InterruptedException {
+        QTemplate template;
+        if (mirrors != null && !mirrors.isEmpty()) {
+            MirrorSelector.Winner<QTemplate> winner = loadFromMirrors(templateSource, mirrors);
+            template = winner.value();
+            templateSource = winner.uri().toString();
+        } else if (TemplateBundle.isBundle(templateSource)) {
+            template = loadBundle(templateSource);
+        } else if (isUrl(templateSource)) {
+            template = loadFromUrl(templateSource);
         } else {
-            return loadFromFile(templateSource);
+            template = loadFromFile(templateSource);
         }
+
+        // Shared fragments and remote path contents are fetched concurrently, relative to the template
+        URI base = template.getBundle() != null ? TemplateResolver.BUNDLE_BASE
+                : isUrl(templateSource) ? URI.create(templateSource) : Path.of(templateSource).toAbsolutePath().toUri();
+        new TemplateResolver(xmlMapper, getRemoteFetcher()).resolve(template, base);
+        return template;
     }
 
     private boolean isUrl(String source) {
@@ -58,44 +112,85 @@ public class TemplateService {
         return xmlMapper.readValue(xmlContent, QTemplate.class);
     }
 
+    private QTemplate loadBundle(String source) throws IOException, InterruptedException {
+        if (isUrl(source)) {
+            ConsoleFormatter.bullet("Downloading template bundle from: " + source);
+            QTemplate template = downloadBundle(URI.create(source));
+            ConsoleFormatter.success("Template bundle downloaded successfully");
+            return template;
+        }
+
+        Path bundlePath = Path.of(source);
+        if (!Files.exists(bundlePath)) {
+            throw new IOException("Template bundle not found: " + source);
+        }
+        return fromBundle(TemplateBundle.open(bundlePath));
+    }
+
+    private QTemplate downloadBundle(URI uri) throws IOException, InterruptedException {
+        // Large bundles are resumable; the finished file is memory-mapped like a local bundle
+        Path bundle = templateCache.bundleFileFor(uri.toString());
+        // a bundle pre-warmed in the shared cache layer is used as is, offline any cached one
+        CacheManager.Lookup lookup = CacheManager.shared().promote(CacheManager.Area.BUNDLES, bundle.getParent(), bundle.getFileName().toString());
+        if (http.isOffline() && lookup == CacheManager.Lookup.MISSING) {
+            throw OfflineException.notCached(uri);
+        }
+        if (lookup != CacheManager.Lookup.PROMOTED && !http.isOffline()) {
+            downloads.download(uri, bundle);
+        }
+        CacheManager.shared().stored(CacheManager.Area.BUNDLES, bundle.getFileName().toString());
+        return fromBundle(TemplateBundle.open(bundle));
+    }
+
+    private QTemplate fromBundle(TemplateBundle bundle) throws IOException {
+        QTemplate template = xmlMapper.readValue(bundle.descriptor(), QTemplate.class);
+        template.setBundle(bundle);
+        return template;
+    }
+
     private QTemplate loadFromUrl(String url) throws IOException, InterruptedException {
         ConsoleFormatter.bullet("Downloading template from: " + url);
-        
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .timeout(Duration.ofSeconds(60))
-                .header("User-Agent", "qBoot-CLI/1.0")
-                .header("Accept", "application/xml, text/xml")
-                .GET()
-                .build();
-
-        HttpResponse<String> response = getHttpClient().send(request, HttpResponse.BodyHandlers.ofString());
-        
-        if (response.statusCode() != 200) {
-            throw new IOException("Failed to download template. HTTP " + response.statusCode() + 
-                                ": " + getStatusText(response.statusCode()));
-        }
+        QTemplate template = downloadTemplate(URI.create(url));
+        ConsoleFormatter.success("Template downloaded successfully");
+        return template;
+    }
 
-        String xmlContent = response.body();
+    private QTemplate downloadTemplate(URI uri) throws IOException, InterruptedException {
+        String xmlContent = getRemoteFetcher().fetch(uri, "application/xml, text/xml");
         if (xmlContent == null || xmlContent.trim().isEmpty()) {
             throw new IOException("Template content is empty");
         }
-
-        ConsoleFormatter.success("Template downloaded successfully");
         return xmlMapper.readValue(xmlContent, QTemplate.class);
     }
 
+    private MirrorSelector.Winner<QTemplate> loadFromMirrors(String templateSource, List<String> mirrors)
+            throws IOException, InterruptedException {
+        List<URI> candidates = new ArrayList<>();
+        for (String source : concat(templateSource, mirrors)) {
+            if (!isUrl(source)) {
+                throw new IOException("Template mirrors must be HTTP/HTTPS URLs: " + source);
+            }
+            candidates.add(URI.create(source));
+        }
+
+        ConsoleFormatter.bullet("Downloading template from " + candidates.size() + " mirrors");
+        boolean bundle = TemplateBundle.isBundle(templateSource);
+        MirrorSelector.Winner<QTemplate> winner = getMirrorSelector().fetch(candidates,
+                uri -> bundle ? downloadBundle(uri) : downloadTemplate(uri));
+        ConsoleFormatter.success("Template downloaded from " + winner.uri() + " in " + ConsoleFormatter.humanTime(winner.latency()));
+        return winner;
+    }
+
+    private static List<String> concat(String first, List<String> rest) {
+        List<String> all = new ArrayList<>();
+        all.add(first);
+        rest.stream().filter(source -> !source.equals(first)).forEach(all::add);
+        return all;
+    }
+
     public Optional<Path> cacheTemplate(String url, String xmlContent) {
         try {
-            // Create cache directory in system temp
-            Path cacheDir = Path.of(System.getProperty("java.io.tmpdir"), "qboot-cache");
-            Files.createDirectories(cacheDir);
-            
-            // Generate cache file name from URL
-            String fileName = url.replaceAll("[^a-zA-Z0-9.-]", "_") + ".xml";
-            Path cacheFile = cacheDir.resolve(fileName);
-            
-            Files.writeString(cacheFile, xmlContent);
+            Path cacheFile = templateCache.store(url, xmlContent, null, null);
             ConsoleFormatter.bullet("Template cached at: " + cacheFile);
             
             return Optional.of(cacheFile);
@@ -105,22 +200,6 @@ public class TemplateService {
         }
     }
 
-    private String getStatusText(int statusCode) {
-        return switch (statusCode) {
-            case 400 -> "Bad Request";
-            case 401 -> "Unauthorized";
-            case 403 -> "Forbidden";
-            case 404 -> "Not Found";
-            case 408 -> "Request Timeout";
-            case 429 -> "Too Many Requests";
-            case 500 -> "Internal Server Error";
-            case 502 -> "Bad Gateway";
-            case 503 -> "Service Unavailable";
-            case 504 -> "Gateway Timeout";
-            default -> "HTTP Error";
-        };
-    }
-
     public boolean validateTemplate(QTemplate template) {
         if (template == null) {
             return false;
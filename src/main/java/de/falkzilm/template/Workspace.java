@@ -19,4 +19,15 @@ public class Workspace {
     private List<Dependencies> dependencies;
 
     private Structure structure;
+
+    /** The dependencies of all blocks named {@code blockName}, e.g. {@code pre} or {@code post}. */
+    public List<Dependency> dependenciesOf(String blockName) {
+        if (dependencies == null) {
+            return List.of();
+        }
+        return dependencies.stream()
+                .filter(d -> blockName.equals(d.blockName))
+                .flatMap(block -> block.items.stream())
+                .toList();
+    }
 }
@@ -13,4 +13,8 @@ public class Workspaces {
     @JacksonXmlProperty(localName = "workspace")
     @JacksonXmlElementWrapper(useWrapping = false)
     List<Workspace> items;
+
+    @JacksonXmlProperty(localName = "include")
+    @JacksonXmlElementWrapper(useWrapping = false)
+    List<Include> includes;
 }
@@ -0,0 +1,122 @@
+package de.falkzilm.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheAccessTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("qboot-cache-access-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    void testLockIsHeldOnTheFile() throws IOException {
+        try (CacheAccess.Lock ignored = CacheAccess.lock(dir, "entry");
+             FileChannel channel = FileChannel.open(CacheAccess.lockFileFor(dir, "entry"), StandardOpenOption.WRITE)) {
+            assertThrows(OverlappingFileLockException.class, channel::tryLock);
+        }
+    }
+
+    @Test
+    void testDiscardedLockFileIsDeletedOnRelease() throws IOException {
+        try (CacheAccess.Lock lock = CacheAccess.lock(dir, "entry")) {
+            lock.discard();
+        }
+        assertFalse(Files.exists(CacheAccess.lockFileFor(dir, "entry")));
+
+        try (CacheAccess.Lock ignored = CacheAccess.lock(dir, "entry")) {
+            assertTrue(Files.exists(CacheAccess.lockFileFor(dir, "entry")));
+        }
+    }
+
+    @Test
+    void testLockedNameOfLockFiles() {
+        assertEquals(Optional.of("api.xml"), CacheAccess.lockedName(".api.xml.lock"));
+        assertEquals(Optional.empty(), CacheAccess.lockedName("api.xml"));
+        assertEquals(Optional.empty(), CacheAccess.lockedName(".lock"));
+    }
+
+    @Test
+    void testLockIsReentrant() throws IOException {
+        try (CacheAccess.Lock outer = CacheAccess.lock(dir, "entry");
+             CacheAccess.Lock inner = CacheAccess.lock(dir, "entry")) {
+            assertNotNull(inner);
+        }
+        Optional<CacheAccess.Lock> again = CacheAccess.tryLock(dir, "entry");
+        assertTrue(again.isPresent());
+        again.get().close();
+    }
+
+    @Test
+    void testOtherThreadsWaitAndReuseTheEntry() throws Exception {
+        Path entry = dir.resolve("entry");
+        List<String> builds = new CopyOnWriteArrayList<>();
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> build(entry, builds, locked, release));
+        locked.await();
+        assertTrue(CacheAccess.tryLock(dir, "entry").isEmpty());
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> build(entry, builds, new CountDownLatch(1), new CountDownLatch(0)));
+        release.countDown();
+        first.join();
+        second.join();
+
+        assertEquals(List.of("built"), builds);
+    }
+
+    private void build(Path entry, List<String> builds, CountDownLatch locked, CountDownLatch release) {
+        try (CacheAccess.Lock ignored = CacheAccess.lock(dir, "entry")) {
+            locked.countDown();
+            release.await();
+            if (!Files.exists(entry)) {
+                Files.writeString(entry, "content");
+                builds.add("built");
+            }
+        } catch (IOException | InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    void testWriteReplacesAtomically() throws IOException {
+        Path file = dir.resolve("history.properties");
+        Files.writeString(file, "old");
+
+        CacheAccess.writeAtomically(file, writer -> writer.write("new"));
+
+        assertEquals("new", Files.readString(file));
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(1, files.count());
+        }
+    }
+}
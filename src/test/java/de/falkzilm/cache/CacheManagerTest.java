@@ -0,0 +1,207 @@
+package de.falkzilm.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheManagerTest {
+
+    private Path root;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root = Files.createTempDirectory("qboot-cache-manager-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private CacheManager manager(long stepsBudget, long globalBudget, CacheManager.Eviction eviction) {
+        Map<CacheManager.Area, Long> budgets = new EnumMap<>(CacheManager.Area.class);
+        for (CacheManager.Area area : CacheManager.Area.values()) {
+            budgets.put(area, Long.MAX_VALUE);
+        }
+        budgets.put(CacheManager.Area.STEPS, stepsBudget);
+        return new CacheManager(root, budgets, globalBudget, eviction);
+    }
+
+    private void entry(CacheManager.Area area, String name, int bytes, long modified) throws IOException {
+        Path file = root.resolve(area.dirName()).resolve(name).resolve("data");
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[bytes]);
+        Files.setLastModifiedTime(file.getParent(), FileTime.fromMillis(modified));
+    }
+
+    private List<String> names(CacheManager manager) throws IOException {
+        return manager.entries().stream().map(CacheManager.Entry::name).sorted().toList();
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntriesAreEvictedFirst() throws IOException {
+        entry(CacheManager.Area.STEPS, "old", 10, 1_000);
+        entry(CacheManager.Area.STEPS, "used", 10, 2_000);
+        entry(CacheManager.Area.STEPS, "new", 10, 3_000);
+        CacheManager manager = manager(20, Long.MAX_VALUE, CacheManager.Eviction.LRU);
+        manager.hit(CacheManager.Area.STEPS, "used");
+
+        CacheManager.PruneResult result = manager.prune();
+
+        assertEquals(1, result.evicted());
+        assertEquals(10, result.reclaimedBytes());
+        assertEquals(List.of("new", "used"), names(manager));
+        assertEquals(1, manager.runCounters(CacheManager.Area.STEPS).evictions());
+    }
+
+    @Test
+    void testLeastFrequentlyUsedEntriesAreEvictedFirst() throws IOException {
+        entry(CacheManager.Area.STEPS, "frequent", 10, 1_000);
+        entry(CacheManager.Area.STEPS, "rare", 10, 2_000);
+        CacheManager manager = manager(10, Long.MAX_VALUE, CacheManager.Eviction.LFU);
+        manager.hit(CacheManager.Area.STEPS, "frequent");
+        manager.hit(CacheManager.Area.STEPS, "frequent");
+        manager.save();
+
+        manager.prune();
+
+        assertEquals(List.of("frequent"), names(manager));
+    }
+
+    @Test
+    void testGlobalBudgetSpansAreas() throws IOException {
+        entry(CacheManager.Area.SNAPSHOTS, "snapshot", 30, 1_000);
+        entry(CacheManager.Area.STEPS, "step", 10, 2_000);
+        CacheManager manager = manager(Long.MAX_VALUE, 20, CacheManager.Eviction.LRU);
+
+        manager.prune();
+
+        assertEquals(List.of("step"), names(manager));
+    }
+
+    @Test
+    void testMetaFilesBelongToTheirEntry() throws IOException {
+        Path templates = root.resolve("templates");
+        Files.createDirectories(templates);
+        Files.writeString(templates.resolve("api.xml"), "<qtemplate/>");
+        Files.writeString(templates.resolve("api.xml.meta"), "etag=1");
+        Files.createDirectories(root.resolve("steps/.staging-1"));
+
+        CacheManager manager = manager(Long.MAX_VALUE, Long.MAX_VALUE, CacheManager.Eviction.LRU);
+
+        assertEquals(List.of("api.xml"), names(manager));
+        manager.clear();
+        assertFalse(Files.exists(templates.resolve("api.xml.meta")));
+        assertTrue(Files.isDirectory(root.resolve("steps/.staging-1")));
+    }
+
+    @Test
+    void testLockFilesOfRemovedEntriesAreDeleted() throws IOException {
+        Path templates = root.resolve("templates");
+        Files.createDirectories(templates);
+        Files.writeString(templates.resolve("api.xml"), "<qtemplate/>");
+        CacheAccess.lock(templates, "api.xml").close();
+        CacheAccess.lock(templates, "gone.xml").close();
+        CacheManager manager = manager(Long.MAX_VALUE, Long.MAX_VALUE, CacheManager.Eviction.LRU);
+
+        manager.prune();
+        assertTrue(Files.exists(templates.resolve(".api.xml.lock")));
+        assertFalse(Files.exists(templates.resolve(".gone.xml.lock")));
+
+        manager.clear();
+        assertFalse(Files.exists(templates.resolve(".api.xml.lock")));
+    }
+
+    @Test
+    void testPartialDownloadsAreNotEvictedWhileLocked() throws Exception {
+        Path archives = root.resolve("archives");
+        Files.createDirectories(archives);
+        Files.write(archives.resolve("app.zip.part"), new byte[10]);
+        Files.writeString(archives.resolve("app.zip.part.meta"), "uri=https://example.com/app.zip");
+        CacheManager manager = manager(Long.MAX_VALUE, Long.MAX_VALUE, CacheManager.Eviction.LRU);
+
+        assertEquals(List.of("app.zip"), names(manager));
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch cleared = new CountDownLatch(1);
+        Thread download = Thread.ofVirtual().start(() -> {
+            try (CacheAccess.Lock ignored = CacheAccess.lock(archives, "app.zip")) {
+                locked.countDown();
+                cleared.await();
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        locked.await();
+        assertEquals(0, manager.clear().evicted());
+        cleared.countDown();
+        download.join();
+        assertTrue(Files.exists(archives.resolve("app.zip.part")));
+
+        assertEquals(1, manager.clear().evicted());
+        assertFalse(Files.exists(archives.resolve("app.zip.part")));
+        assertFalse(Files.exists(archives.resolve("app.zip.part.meta")));
+    }
+
+    @Test
+    void testCountersArePersistedPerRun() throws IOException {
+        CacheManager first = manager(Long.MAX_VALUE, Long.MAX_VALUE, CacheManager.Eviction.LRU);
+        first.hit(CacheManager.Area.SNAPSHOTS, "a");
+        first.miss(CacheManager.Area.SNAPSHOTS);
+        first.save();
+        CacheManager second = manager(Long.MAX_VALUE, Long.MAX_VALUE, CacheManager.Eviction.LRU);
+        second.miss(CacheManager.Area.SNAPSHOTS);
+        second.save();
+
+        CacheManager.AreaStats snapshots = second.stats().stream()
+                .filter(stats -> stats.area() == CacheManager.Area.SNAPSHOTS)
+                .findFirst().orElseThrow();
+        assertEquals(new CacheManager.Counters(0, 1, 0), snapshots.run());
+        assertEquals(new CacheManager.Counters(1, 2, 0), snapshots.total());
+    }
+
+    @Test
+    void testEntriesArePromotedFromTheSharedLayer() throws IOException {
+        Path shared = root.resolve("shared");
+        Files.createDirectories(shared.resolve("templates"));
+        Files.writeString(shared.resolve("templates/api.xml"), "<qtemplate/>");
+        Files.writeString(shared.resolve("templates/api.xml.meta"), "etag=1");
+        Files.createDirectories(shared.resolve("snapshots/key/tree"));
+        Files.writeString(shared.resolve("snapshots/key/tree/pom.xml"), "<project/>");
+        Path local = root.resolve("local");
+        CacheManager manager = new CacheManager(local, shared, Map.of(), Long.MAX_VALUE, CacheManager.Eviction.LRU);
+
+        assertEquals(CacheManager.Lookup.PROMOTED, manager.promote(CacheManager.Area.TEMPLATES, local.resolve("templates"), "api.xml"));
+        assertEquals(CacheManager.Lookup.PROMOTED, manager.promote(CacheManager.Area.SNAPSHOTS, local.resolve("snapshots"), "key"));
+        assertEquals(CacheManager.Lookup.LOCAL, manager.promote(CacheManager.Area.TEMPLATES, local.resolve("templates"), "api.xml"));
+        assertEquals(CacheManager.Lookup.MISSING, manager.promote(CacheManager.Area.STEPS, local.resolve("steps"), "other"));
+
+        assertEquals("<qtemplate/>", Files.readString(local.resolve("templates/api.xml")));
+        assertEquals("etag=1", Files.readString(local.resolve("templates/api.xml.meta")));
+        assertEquals("<project/>", Files.readString(local.resolve("snapshots/key/tree/pom.xml")));
+        assertTrue(Files.exists(shared.resolve("snapshots/key/tree/pom.xml")));
+    }
+
+    @Test
+    void testWithoutSharedLayerNothingIsPromoted() throws IOException {
+        CacheManager manager = manager(Long.MAX_VALUE, Long.MAX_VALUE, CacheManager.Eviction.LRU);
+
+        assertEquals(CacheManager.Lookup.MISSING, manager.promote(CacheManager.Area.STEPS, root.resolve("steps"), "key"));
+    }
+}
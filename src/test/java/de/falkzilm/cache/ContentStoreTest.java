@@ -0,0 +1,108 @@
+package de.falkzilm.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentStoreTest {
+
+    private Path dir;
+    private ContentStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("qboot-store-test");
+        store = new ContentStore(dir.resolve("store"));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                file.toFile().setWritable(true);
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private Path write(String path, String content) throws IOException {
+        Path file = dir.resolve(path);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, content);
+        return file;
+    }
+
+    @Test
+    void testIdenticalImmutableFilesShareOneBlob() throws IOException {
+        Path first = write("first/mvnw", "#!/bin/sh");
+        Path second = write("second/mvnw", "#!/bin/sh");
+
+        TreeCopier.Method method = store.put(first, true);
+        store.put(second, true);
+
+        assertNotEquals(TreeCopier.Method.COPY, method);
+        assertEquals("#!/bin/sh", Files.readString(second));
+        if (method == TreeCopier.Method.HARDLINK) {
+            assertTrue(Files.isSameFile(first, second));
+        }
+    }
+
+    @Test
+    void testMutableFilesStayWritable() throws IOException {
+        Path first = write("first/application.properties", "quarkus.http.port=8080");
+        Path second = write("second/application.properties", "quarkus.http.port=8080");
+
+        store.put(first, false);
+        store.put(second, false);
+        Files.writeString(second, "quarkus.http.port=9090");
+
+        assertTrue(Files.isWritable(second));
+        assertEquals("quarkus.http.port=8080", Files.readString(first));
+    }
+
+    @Test
+    void testUnreferencedBlobsAreCollected() throws IOException {
+        Path kept = write("first/logo.png", "png");
+        Path dropped = write("second/icon.ico", "ico");
+        store.put(kept, true);
+        store.put(dropped, true);
+        dropped.toFile().setWritable(true);
+        Files.delete(dropped);
+
+        ContentStore.GcResult result = store.gc();
+
+        assertEquals(2, result.blobs());
+        assertEquals(1, result.removed());
+        assertEquals(3, result.reclaimedBytes());
+        assertEquals(0, store.gc().removed());
+        assertEquals("png", Files.readString(kept));
+    }
+
+    @Test
+    void testTreeSkipsDependencyDirectories() throws IOException {
+        write("project/mvnw", "#!/bin/sh");
+        write("project/node_modules/lib/index.js", "module.exports = 1;");
+
+        ContentStore.Deduplicated result = store.putTree(dir.resolve("project"));
+
+        assertEquals(1, result.files());
+        assertEquals(1, result.shared());
+    }
+
+    @Test
+    void testImmutableFiles() {
+        assertTrue(ContentStore.immutable(Path.of("mvnw")));
+        assertTrue(ContentStore.immutable(Path.of(".mvn/wrapper/maven-wrapper.properties")));
+        assertTrue(ContentStore.immutable(Path.of("src/assets/logo.PNG")));
+        assertFalse(ContentStore.immutable(Path.of("src/main/resources/application.properties")));
+        assertFalse(ContentStore.immutable(Path.of("package-lock.json")));
+    }
+}
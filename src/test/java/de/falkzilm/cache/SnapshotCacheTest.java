@@ -0,0 +1,178 @@
+package de.falkzilm.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnapshotCacheTest {
+
+    private static final SnapshotCache.Identity ORIGINAL = new SnapshotCache.Identity("shop", "com.example.shop");
+
+    private Path dir;
+    private Path project;
+    private SnapshotCache cache;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("qboot-snapshot-test");
+        project = dir.resolve("first/shop");
+        Path sources = project.resolve("src/main/java/com/example/shop");
+        Files.createDirectories(sources);
+        Files.createDirectories(project.resolve("node_modules/lib"));
+        Files.writeString(sources.resolve("App.java"), "package com.example.shop;\nclass App {}\n");
+        Files.writeString(project.resolve("pom.xml"), "<artifactId>shop</artifactId>");
+        Files.writeString(project.resolve("README.md"), "Generated project");
+        Files.writeString(project.resolve("node_modules/lib/shop.js"), "// shop");
+        cache = new SnapshotCache(dir.resolve("snapshots"), new TreeCopier());
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    void testMissingSnapshotIsNotRestored() throws IOException {
+        assertTrue(cache.restore("unknown", dir.resolve("second/shop"), ORIGINAL).isEmpty());
+    }
+
+    @Test
+    void testSameIdentityIsRestoredUnchanged() throws IOException {
+        cache.store("key", project, ORIGINAL);
+        Path restored = dir.resolve("second/shop");
+
+        Optional<SnapshotCache.Restored> result = cache.restore("key", restored, ORIGINAL);
+
+        assertTrue(result.isPresent());
+        assertEquals(0, result.get().rendered());
+        assertEquals("<artifactId>shop</artifactId>", Files.readString(restored.resolve("pom.xml")));
+        assertTrue(Files.isRegularFile(restored.resolve("src/main/java/com/example/shop/App.java")));
+    }
+
+    @Test
+    void testOtherIdentityIsRendered() throws IOException {
+        cache.store("key", project, ORIGINAL);
+        Path restored = dir.resolve("second/store");
+
+        Optional<SnapshotCache.Restored> result = cache.restore("key", restored, new SnapshotCache.Identity("store", "org.acme.store"));
+
+        assertTrue(result.isPresent());
+        assertEquals(2, result.get().rendered());
+        assertEquals("<artifactId>store</artifactId>", Files.readString(restored.resolve("pom.xml")));
+        assertEquals("package org.acme.store;\nclass App {}\n",
+                Files.readString(restored.resolve("src/main/java/org/acme/store/App.java")));
+        assertFalse(Files.exists(restored.resolve("src/main/java/com/example/shop/App.java")));
+        assertEquals("Generated project", Files.readString(restored.resolve("README.md")));
+        assertEquals("// shop", Files.readString(restored.resolve("node_modules/lib/shop.js")));
+    }
+
+    @Test
+    void testNonEmptyProjectIsNotOverwritten() throws IOException {
+        cache.store("key", project, ORIGINAL);
+
+        assertTrue(cache.restore("key", project, ORIGINAL).isEmpty());
+    }
+
+    @Test
+    void testShortNamesAreNotRendered() throws IOException {
+        SnapshotCache.Identity shortName = new SnapshotCache.Identity("ab", "com.example.shop");
+        Path shortProject = dir.resolve("first/ab");
+        Files.createDirectories(shortProject);
+        Files.writeString(shortProject.resolve("pom.xml"), "<artifactId>ab</artifactId>");
+        cache.store("short", shortProject, shortName);
+
+        assertTrue(cache.restore("short", dir.resolve("second/other"), ORIGINAL).isEmpty());
+    }
+
+    @Test
+    void testOnlyWholeTokensAreRendered() throws IOException {
+        SnapshotCache.Identity app = new SnapshotCache.Identity("app", "com.example");
+        Path appProject = dir.resolve("first/app");
+        Files.createDirectories(appProject.resolve("src/main/resources"));
+        Files.writeString(appProject.resolve("src/main/resources/application.properties"), "spring.application.name=app\n");
+        cache.store("app", appProject, app);
+        Path restored = dir.resolve("second/shop");
+
+        cache.restore("app", restored, new SnapshotCache.Identity("shop", "com.example"));
+
+        assertEquals("spring.application.name=shop\n", Files.readString(restored.resolve("src/main/resources/application.properties")));
+    }
+
+    @Test
+    void testDerivedIdentifiersAreRendered() throws IOException {
+        SnapshotCache.Identity demo = new SnapshotCache.Identity("demo", "com.example.demo", List.of("DemoApplication"));
+        Path demoProject = dir.resolve("first/demo");
+        Path sources = demoProject.resolve("src/main/java/com/example/demo");
+        Files.createDirectories(sources);
+        Files.writeString(sources.resolve("DemoApplication.java"), "package com.example.demo;\nclass DemoApplication {}\n");
+        cache.store("demo", demoProject, demo);
+        Path restored = dir.resolve("second/shop");
+
+        Optional<SnapshotCache.Restored> result = cache.restore("demo", restored,
+                new SnapshotCache.Identity("shop", "org.acme.shop", List.of("ShopApplication")));
+
+        assertTrue(result.isPresent());
+        assertEquals("package org.acme.shop;\nclass ShopApplication {}\n",
+                Files.readString(restored.resolve("src/main/java/org/acme/shop/ShopApplication.java")));
+    }
+
+    @Test
+    void testConflictingRenamesAreNotRestored() throws IOException {
+        cache.store("key", project, new SnapshotCache.Identity("shop", "com.example.shop", List.of("shop")));
+
+        assertTrue(cache.restore("key", dir.resolve("second/store"),
+                new SnapshotCache.Identity("store", "org.acme.store", List.of("Store"))).isEmpty());
+    }
+
+    @Test
+    void testSnapshotIsStoredAsCopy() throws IOException {
+        cache.store("key", project, ORIGINAL);
+
+        try (Stream<Path> entries = Files.walk(dir.resolve("snapshots/key"))) {
+            assertTrue(entries.filter(Files::isRegularFile)
+                    .noneMatch(file -> file.endsWith("shop.js") && sameFile(file, project.resolve("node_modules/lib/shop.js"))));
+        }
+    }
+
+    @Test
+    void testPnpmLayoutKeepsItsLinks() throws IOException {
+        Path modules = project.resolve("node_modules");
+        Path stored = modules.resolve(".pnpm/axios@1.7.9/node_modules/axios");
+        Files.createDirectories(stored);
+        Files.writeString(stored.resolve("index.js"), "// axios");
+        Files.createSymbolicLink(modules.resolve("axios"), Path.of(".pnpm/axios@1.7.9/node_modules/axios"));
+        cache.store("key", project, ORIGINAL);
+
+        for (SnapshotCache.Identity identity : List.of(ORIGINAL, new SnapshotCache.Identity("store", "org.acme.store"))) {
+            Path restored = dir.resolve("second").resolve(identity.name());
+            assertTrue(cache.restore("key", restored, identity).isPresent());
+
+            Path link = restored.resolve("node_modules/axios");
+            assertTrue(Files.isSymbolicLink(link));
+            assertEquals(Path.of(".pnpm/axios@1.7.9/node_modules/axios"), Files.readSymbolicLink(link));
+            assertEquals("// axios", Files.readString(link.resolve("index.js")));
+        }
+    }
+
+    private static boolean sameFile(Path a, Path b) {
+        try {
+            return Files.isSameFile(a, b);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
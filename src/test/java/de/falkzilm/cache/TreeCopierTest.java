@@ -0,0 +1,98 @@
+package de.falkzilm.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreeCopierTest {
+
+    private Path dir;
+    private Path source;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("qboot-copier-test");
+        source = dir.resolve("source");
+        Files.createDirectories(source.resolve("node_modules/lib"));
+        Files.createDirectories(source.resolve("src"));
+        Files.writeString(source.resolve("node_modules/lib/index.js"), "module.exports = 1;");
+        Files.writeString(source.resolve("src/main.ts"), "bootstrap();");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    void testTreeIsCopied() throws IOException {
+        Path target = dir.resolve("target");
+
+        TreeCopier.Method method = new TreeCopier().copy(source, target);
+
+        assertNotNull(method);
+        assertEquals("module.exports = 1;", Files.readString(target.resolve("node_modules/lib/index.js")));
+        assertEquals("bootstrap();", Files.readString(target.resolve("src/main.ts")));
+    }
+
+    @Test
+    void testImmutableFilesAreHardlinked() throws IOException {
+        Path target = dir.resolve("target");
+
+        TreeCopier.Method method = new TreeCopier().copy(source, target, UnaryOperator.identity(), Set.of());
+
+        assertEquals(TreeCopier.Method.HARDLINK, method);
+        assertTrue(Files.isSameFile(source.resolve("node_modules/lib/index.js"), target.resolve("node_modules/lib/index.js")));
+        assertFalse(Files.isSameFile(source.resolve("src/main.ts"), target.resolve("src/main.ts")));
+    }
+
+    @Test
+    void testFilesAreMappedAndSkipped() throws IOException {
+        Path target = dir.resolve("target");
+
+        new TreeCopier(Set.of()).copy(source, target,
+                relative -> Path.of(relative.toString().replace("src", "app")),
+                Set.of(Path.of("node_modules/lib/index.js")));
+
+        assertTrue(Files.isRegularFile(target.resolve("app/main.ts")));
+        assertFalse(Files.exists(target.resolve("src/main.ts")));
+        assertFalse(Files.exists(target.resolve("node_modules/lib/index.js")));
+    }
+
+    @Test
+    void testSymlinkedDirectoriesAreCopiedAsLinks() throws IOException {
+        Files.createSymbolicLink(source.resolve("node_modules/alias"), Path.of("lib"));
+        Path target = dir.resolve("target");
+
+        new TreeCopier().copy(source, target, UnaryOperator.identity(), Set.of());
+
+        Path alias = target.resolve("node_modules/alias");
+        assertTrue(Files.isSymbolicLink(alias));
+        assertEquals(Path.of("lib"), Files.readSymbolicLink(alias));
+        assertEquals("module.exports = 1;", Files.readString(alias.resolve("index.js")));
+    }
+
+    @Test
+    void testIndependentCopiesAreNeverHardlinked() throws IOException {
+        Path target = dir.resolve("target");
+
+        TreeCopier.Method method = TreeCopier.independentCopies().copy(source, target, UnaryOperator.identity(), Set.of());
+
+        assertEquals(TreeCopier.Method.COPY, method);
+        assertFalse(Files.isSameFile(source.resolve("node_modules/lib/index.js"), target.resolve("node_modules/lib/index.js")));
+    }
+}
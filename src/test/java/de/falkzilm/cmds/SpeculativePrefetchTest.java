@@ -0,0 +1,73 @@
+package de.falkzilm.cmds;
+
+import com.fasterxml.jackson.dataformat.xml.JacksonXmlModule;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import de.falkzilm.net.HttpService;
+import de.falkzilm.template.QTemplate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpeculativePrefetchTest {
+
+    private Path historyFile;
+    private QTemplate template;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        historyFile = Files.createTempDirectory("qboot-prefetch-test").resolve("prefetch.properties");
+        JacksonXmlModule module = new JacksonXmlModule();
+        module.setDefaultUseWrapper(false);
+        template = new XmlMapper(module).readValue("""
+                <qtemplate>
+                    <workspaces>
+                        <workspace>
+                            <general><framework>quarkus</framework></general>
+                            <dependencies name="pre"><java>21+</java><mvn>3+</mvn></dependencies>
+                            <dependencies name="post"><lombok>1.18.30</lombok></dependencies>
+                        </workspace>
+                        <workspace>
+                            <general><framework>angular</framework></general>
+                            <dependencies name="pre"><node>20+</node><java>21+</java></dependencies>
+                        </workspace>
+                    </workspaces>
+                </qtemplate>
+                """, QTemplate.class);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (var files = Files.walk(historyFile.getParent())) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    void testRequiredToolsArePreRequisitesOfAllWorkspaces() {
+        assertEquals(Set.of("java", "mvn", "node"), SpeculativePrefetch.requiredTools(template));
+    }
+
+    @Test
+    void testHistoryIsKeptPerTemplate() throws IOException {
+        SpeculativePrefetch.start("https://templates.example/api.xml", new HttpService(), historyFile).remember(template);
+
+        Properties history = new Properties();
+        try (Reader reader = Files.newBufferedReader(historyFile)) {
+            history.load(reader);
+        }
+        assertEquals("java,mvn,node", history.getProperty("tools.https://templates.example/api.xml"));
+        assertNull(history.getProperty("tools.https://templates.example/other.xml"));
+    }
+}
@@ -0,0 +1,56 @@
+package de.falkzilm.cmds;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkspaceScheduleTest {
+
+    private static WorkspaceSchedule.Estimate estimate(long prepare, long generate, long changesets) {
+        return new WorkspaceSchedule.Estimate(Duration.ofSeconds(prepare), Duration.ofSeconds(generate), Duration.ofSeconds(changesets));
+    }
+
+    @Test
+    void testIndependentWorkspacesOverlap() {
+        WorkspaceSchedule schedule = new WorkspaceSchedule(
+                List.of(estimate(1, 40, 2), estimate(1, 10, 2)),
+                List.of(List.of(), List.of()));
+
+        assertEquals(Duration.ofSeconds(43), schedule.predictedMakespan().orElseThrow());
+    }
+
+    @Test
+    void testOverlappingWorkspacesChainTheirGeneration() {
+        WorkspaceSchedule schedule = new WorkspaceSchedule(
+                List.of(estimate(1, 40, 2), estimate(1, 10, 2)),
+                List.of(List.of(), List.of(0)));
+
+        assertEquals(Duration.ofSeconds(53), schedule.predictedMakespan().orElseThrow());
+        // the second generation and its changesets still follow the first one
+        assertEquals(12_000, schedule.tailMillis(0));
+        assertEquals(2_000, schedule.tailMillis(1));
+    }
+
+    @Test
+    void testLongerRemainingPathRanksHigher() {
+        WorkspaceSchedule schedule = new WorkspaceSchedule(
+                List.of(estimate(1, 2, 1), estimate(1, 40, 1)),
+                List.of(List.of(), List.of()));
+
+        assertTrue(schedule.remainingMillis(1, 0) > schedule.remainingMillis(0, 0));
+        assertEquals(1_000, schedule.remainingMillis(1, 60_000));
+    }
+
+    @Test
+    void testMakespanNeedsHistoryOfEveryWorkspace() {
+        WorkspaceSchedule schedule = new WorkspaceSchedule(
+                List.of(estimate(1, 40, 2), new WorkspaceSchedule.Estimate(null, null, null)),
+                List.of(List.of(), List.of()));
+
+        assertTrue(schedule.predictedMakespan().isEmpty());
+        assertEquals(42_000, schedule.remainingMillis(0, 0));
+    }
+}
@@ -0,0 +1,26 @@
+package de.falkzilm.exec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MavenDaemonTest {
+
+    @Test
+    void testAutoUsesDaemonWhenInstalled() {
+        assertTrue(MavenDaemon.use("auto", () -> true));
+        assertFalse(MavenDaemon.use("auto", () -> false));
+        assertTrue(MavenDaemon.use(null, () -> true));
+    }
+
+    @Test
+    void testExplicitModesIgnoreInstallation() {
+        assertTrue(MavenDaemon.use("always", () -> fail("not looked up")));
+        assertFalse(MavenDaemon.use("NEVER", () -> fail("not looked up")));
+    }
+
+    @Test
+    void testUnknownModeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> MavenDaemon.use("sometimes", () -> true));
+    }
+}
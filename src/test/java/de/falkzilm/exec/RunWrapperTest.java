@@ -69,7 +69,7 @@ class RunWrapperTest {
     @Test
     @DisplayName("Returns -1 when cmd is null")
     void nullCommandReturnsMinusOne() {
-        RunWrapper wrapper = RunWrapper.builder().cmd(null).build();
+        RunWrapper wrapper = RunWrapper.builder().cmd(null).resource(ResourceClass.TRIVIAL).build();
         int exit = wrapper.run(tempDir, false);
         assertEquals(-1, exit);
         assertEquals("", wrapper.getOutput());
@@ -78,7 +78,7 @@ class RunWrapperTest {
     @Test
     @DisplayName("Captures STDOUT for a successful command")
     void capturesStdout() {
-        RunWrapper wrapper = RunWrapper.builder().cmd(echo("hello-world")).build();
+        RunWrapper wrapper = RunWrapper.builder().cmd(echo("hello-world")).resource(ResourceClass.TRIVIAL).build();
         int exit = wrapper.run(tempDir, false);
         assertEquals(0, exit, "echo should exit 0");
         String out = wrapper.getOutput().trim();
@@ -90,7 +90,7 @@ class RunWrapperTest {
     @Test
     @DisplayName("Falls back to STDERR when STDOUT is empty (java -version)")
     void picksStderrWhenNoStdout() {
-        RunWrapper wrapper = RunWrapper.builder().cmd(javaVersion()).build();
+        RunWrapper wrapper = RunWrapper.builder().cmd(javaVersion()).resource(ResourceClass.TRIVIAL).build();
         int exit = wrapper.run(tempDir, false);
         assertEquals(0, exit, "java -version should exit 0");
         String out = wrapper.getOutput();
@@ -101,7 +101,7 @@ class RunWrapperTest {
     @Test
     @DisplayName("Returns -1 on timeout (watchdog kills long-running command)")
     void returnsMinusOneOnTimeout() {
-        RunWrapper wrapper = RunWrapper.builder().cmd(longRunning()).timeout(Duration.ofSeconds(5)).build();
+        RunWrapper wrapper = RunWrapper.builder().cmd(longRunning()).timeout(Duration.ofSeconds(5)).resource(ResourceClass.TRIVIAL).build();
         long t0 = System.currentTimeMillis();
         int exit = wrapper.run(tempDir, false);
         long elapsed = System.currentTimeMillis() - t0;
@@ -114,9 +114,15 @@ class RunWrapperTest {
     @Test
     @DisplayName("Debug path should not break execution")
     void debugDoesNotBreak() {
-        RunWrapper wrapper = RunWrapper.builder().cmd(echo("dbg")).build();
+        RunWrapper wrapper = RunWrapper.builder().cmd(echo("dbg")).resource(ResourceClass.TRIVIAL).build();
         int exit = wrapper.run(tempDir, true);
         assertEquals(0, exit);
         assertTrue(wrapper.getOutput().contains("dbg"));
     }
+
+    @Test
+    @DisplayName("Refuses to build without a resource class")
+    void missingResourceFailsAtBuild() {
+        assertThrows(IllegalStateException.class, () -> RunWrapper.builder().cmd(echo("unlabelled")).build());
+    }
 }
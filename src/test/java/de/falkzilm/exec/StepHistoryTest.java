@@ -0,0 +1,56 @@
+package de.falkzilm.exec;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StepHistoryTest {
+
+    private Path historyFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        historyFile = Files.createTempDirectory("qboot-step-history-test").resolve("step-history.properties");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(historyFile);
+        Files.deleteIfExists(historyFile.getParent());
+    }
+
+    @Test
+    void testEstimateIsMedianOfRecordedDurations() {
+        StepHistory history = new StepHistory(historyFile);
+        history.record("ANGULAR", "17.0.0", "npm install @angular/cli", Duration.ofSeconds(40));
+        history.record("ANGULAR", "17.0.0", "npm install @angular/cli", Duration.ofSeconds(90));
+        history.record("ANGULAR", "17.0.0", "npm install @angular/cli", Duration.ofSeconds(42));
+
+        assertEquals(Duration.ofSeconds(42), history.estimate("ANGULAR", "17.0.0", "npm install @angular/cli").orElseThrow());
+    }
+
+    @Test
+    void testEstimatesAreKeptPerFrameworkVersion() {
+        StepHistory history = new StepHistory(historyFile);
+        history.record("ANGULAR", "17.0.0", "ng new", Duration.ofSeconds(20));
+
+        assertTrue(history.estimate("ANGULAR", "18.0.0", "ng new").isEmpty());
+        assertTrue(history.estimate("REACT", "17.0.0", "ng new").isEmpty());
+    }
+
+    @Test
+    void testHistorySurvivesSave() {
+        StepHistory history = new StepHistory(historyFile);
+        history.record("QUARKUS", null, "mvn quarkus:create", Duration.ofMillis(1500));
+        history.save();
+
+        assertEquals(Duration.ofMillis(1500), new StepHistory(historyFile).estimate("QUARKUS", null, "mvn quarkus:create").orElseThrow());
+    }
+}
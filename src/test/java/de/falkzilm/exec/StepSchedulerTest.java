@@ -0,0 +1,201 @@
+package de.falkzilm.exec;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StepSchedulerTest {
+
+    private Path cgroupRoot;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        cgroupRoot = Files.createTempDirectory("qboot-cgroup-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(cgroupRoot)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void testPermitsLimitConcurrentSteps() throws Exception {
+        StepScheduler scheduler = new StepScheduler(Map.of(ResourceClass.CPU, 2));
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            threads.add(Thread.ofVirtual().start(() -> {
+                try {
+                    scheduler.run("build", ResourceClass.CPU, () -> {
+                        peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        release.await(5, TimeUnit.SECONDS);
+                        return running.decrementAndGet();
+                    });
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }));
+        }
+        Thread.sleep(200);
+        assertEquals(2, running.get());
+        release.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(2, peak.get());
+        assertEquals(5, scheduler.stats().size());
+    }
+
+    @Test
+    void testUnlimitedClassDoesNotQueue() throws Exception {
+        StepScheduler scheduler = new StepScheduler(Map.of(ResourceClass.CPU, 1));
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread build = Thread.ofVirtual().start(() -> {
+            try {
+                scheduler.run("build", ResourceClass.CPU, () -> {
+                    busy.countDown();
+                    return release.await(5, TimeUnit.SECONDS);
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        busy.await();
+
+        assertEquals("done", scheduler.run("mkdir", ResourceClass.TRIVIAL, () -> "done"));
+
+        release.countDown();
+        build.join();
+    }
+
+    @Test
+    void testQueueWaitIsRecordedPerStep() throws Exception {
+        StepScheduler scheduler = new StepScheduler(Map.of(ResourceClass.NETWORK, 1));
+        CountDownLatch busy = new CountDownLatch(1);
+        Thread first = Thread.ofVirtual().start(() -> {
+            try {
+                scheduler.run("npm install", ResourceClass.NETWORK, () -> {
+                    busy.countDown();
+                    Thread.sleep(150);
+                    return null;
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        busy.await();
+        scheduler.run("ng new", ResourceClass.NETWORK, () -> null);
+        first.join();
+
+        StepScheduler.StepStats second = scheduler.stats().stream()
+                .filter(step -> step.step().equals("ng new"))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(ResourceClass.NETWORK, second.resource());
+        assertTrue(second.queued().compareTo(Duration.ofMillis(50)) > 0, "queued " + second.queued());
+    }
+
+    @Test
+    void testHighestPriorityWaiterGoesFirst() throws Exception {
+        StepScheduler scheduler = new StepScheduler(Map.of(ResourceClass.NETWORK, 1));
+        CountDownLatch busy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+
+        Thread holder = Thread.ofVirtual().start(() -> {
+            try {
+                scheduler.run("npm create vue", ResourceClass.NETWORK, () -> {
+                    busy.countDown();
+                    return release.await(5, TimeUnit.SECONDS);
+                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        busy.await();
+
+        Thread shortPath = queue(scheduler, "changesets", 2_000, order);
+        Thread.sleep(100);
+        Thread longPath = queue(scheduler, "npm install @angular/cli", 40_000, order);
+        Thread.sleep(100);
+
+        release.countDown();
+        holder.join();
+        shortPath.join();
+        longPath.join();
+
+        assertEquals(List.of("npm install @angular/cli", "changesets"), order);
+        assertEquals(40_000, scheduler.stats().stream()
+                .filter(step -> step.step().equals("npm install @angular/cli"))
+                .findFirst()
+                .orElseThrow()
+                .priority());
+    }
+
+    private static Thread queue(StepScheduler scheduler, String step, long priority, List<String> order) {
+        StepScheduler.StepContext context = new StepScheduler.StepContext("ANGULAR", "17.0.0", () -> priority);
+        return Thread.ofVirtual().start(() -> {
+            try {
+                StepScheduler.within(context, () -> scheduler.run(step, ResourceClass.NETWORK, () -> order.add(step)));
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    void testDefaultPermitsFollowCores() {
+        assertEquals(1, StepScheduler.defaultPermits(1).get(ResourceClass.CPU));
+        assertEquals(4, StepScheduler.defaultPermits(8).get(ResourceClass.CPU));
+        assertNull(StepScheduler.defaultPermits(8).get(ResourceClass.TRIVIAL));
+    }
+
+    @Test
+    void testCgroupV2QuotaIsRead() throws IOException {
+        Files.writeString(cgroupRoot.resolve("cpu.max"), "150000 100000\n");
+
+        assertEquals(1.5, StepScheduler.cgroupCpuLimit(cgroupRoot).orElseThrow(), 0.001);
+        assertEquals(Math.min(2, Runtime.getRuntime().availableProcessors()), StepScheduler.effectiveCpus(cgroupRoot));
+    }
+
+    @Test
+    void testUnlimitedCgroupIsIgnored() throws IOException {
+        Files.writeString(cgroupRoot.resolve("cpu.max"), "max 100000\n");
+
+        assertTrue(StepScheduler.cgroupCpuLimit(cgroupRoot).isEmpty());
+    }
+
+    @Test
+    void testCgroupV1QuotaIsRead() throws IOException {
+        Path cpu = Files.createDirectories(cgroupRoot.resolve("cpu"));
+        Files.writeString(cpu.resolve("cpu.cfs_quota_us"), "400000\n");
+        Files.writeString(cpu.resolve("cpu.cfs_period_us"), "100000\n");
+
+        assertEquals(4.0, StepScheduler.cgroupCpuLimit(cgroupRoot).orElseThrow(), 0.001);
+    }
+}
@@ -0,0 +1,139 @@
+package de.falkzilm.exec;
+
+import de.falkzilm.helper.OsUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskScopeTest {
+
+    private Path workDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        workDir = Files.createTempDirectory("qboot-scope-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    @Test
+    void testFailureCancelsSiblings() throws Exception {
+        AtomicBoolean siblingInterrupted = new AtomicBoolean();
+        CountDownLatch siblingRunning = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("mvn not found");
+
+        TaskScope.Outcome outcome;
+        try (TaskScope scope = new TaskScope()) {
+            scope.fork(() -> {
+                siblingRunning.countDown();
+                try {
+                    Thread.sleep(Duration.ofSeconds(30));
+                } catch (InterruptedException e) {
+                    siblingInterrupted.set(true);
+                    throw e;
+                }
+                return null;
+            });
+            scope.fork(() -> {
+                siblingRunning.await();
+                throw failure;
+            });
+            outcome = scope.join();
+        }
+
+        assertFalse(outcome.succeeded());
+        assertSame(failure, outcome.failure());
+        assertTrue(siblingInterrupted.get());
+    }
+
+    @Test
+    void testCleanupRunsOnlyOnFailure() throws Exception {
+        Path succeeded = Files.createDirectories(workDir.resolve("ok/temp-npm"));
+        Path failed = Files.createDirectories(workDir.resolve("failed/temp-npm"));
+        Files.writeString(failed.resolve("package.json"), "{}");
+
+        try (TaskScope scope = new TaskScope()) {
+            scope.fork(() -> {
+                TaskScope.deleteOnFailure(succeeded);
+                return null;
+            });
+            assertTrue(scope.join().succeeded());
+        }
+        assertTrue(Files.isDirectory(succeeded));
+
+        try (TaskScope scope = new TaskScope()) {
+            scope.fork(() -> {
+                TaskScope.deleteOnFailure(failed);
+                throw new IOException("network dropped");
+            });
+            assertFalse(scope.join().succeeded());
+        }
+        assertFalse(Files.exists(failed));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void testCancellationKillsProcessTree() throws Exception {
+        Path pidFile = workDir.resolve("child.pid");
+        CountDownLatch started = new CountDownLatch(1);
+
+        try (TaskScope scope = new TaskScope()) {
+            scope.fork(() -> RunWrapper.builder()
+                    .cmd(OsUtils.createShellCommand("sleep 30 & echo $! > child.pid; wait"))
+                    .resource(ResourceClass.TRIVIAL)
+                    .build()
+                    .run(workDir, false));
+            scope.fork(() -> {
+                while (!Files.exists(pidFile) || Files.readString(pidFile).isBlank()) {
+                    Thread.sleep(20);
+                }
+                started.countDown();
+                throw new IllegalStateException("sibling failed");
+            });
+            assertTrue(started.await(10, TimeUnit.SECONDS));
+            assertFalse(scope.join().succeeded());
+        }
+
+        long childPid = Long.parseLong(Files.readString(pidFile).trim());
+        ProcessHandle child = ProcessHandle.of(childPid).orElse(null);
+        if (child != null) {
+            child.onExit().get(5, TimeUnit.SECONDS);
+            assertFalse(child.isAlive());
+        }
+    }
+
+    @Test
+    void testForkAfterCancellationDoesNotRun() throws Exception {
+        try (TaskScope scope = new TaskScope()) {
+            scope.cancel();
+            CountDownLatch ran = new CountDownLatch(1);
+            scope.fork(() -> {
+                ran.countDown();
+                return null;
+            });
+            scope.join();
+            assertEquals(1, ran.getCount());
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package de.falkzilm.exec;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolCachesTest {
+
+    private Path dir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        dir = Files.createTempDirectory("qboot-tool-caches-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    @Test
+    void testMavenArtifactPaths() {
+        Path repository = Path.of("repo");
+
+        assertEquals(repository.resolve("io/quarkus/platform/quarkus-maven-plugin/3.28.5/quarkus-maven-plugin-3.28.5.jar"),
+                ToolCaches.mavenArtifact(repository, "io.quarkus.platform:quarkus-maven-plugin:3.28.5"));
+        assertEquals(repository.resolve("io/quarkus/platform/quarkus-bom/3.28.5/quarkus-bom-3.28.5.pom"),
+                ToolCaches.mavenArtifact(repository, "io.quarkus.platform:quarkus-bom:3.28.5:pom"));
+        assertEquals(repository.resolve("io/quarkus/platform/quarkus-bom-quarkus-platform-descriptor/3.28.5/quarkus-bom-quarkus-platform-descriptor-3.28.5-3.28.5.json"),
+                ToolCaches.mavenArtifact(repository, "io.quarkus.platform:quarkus-bom-quarkus-platform-descriptor:3.28.5:json:3.28.5"));
+        assertThrows(IllegalArgumentException.class, () -> ToolCaches.mavenArtifact(repository, "org.example:artifact"));
+    }
+
+    @Test
+    void testNugetPackageLookup() throws IOException {
+        Files.createDirectories(dir.resolve("serilog.aspnetcore/8.0.3"));
+
+        assertTrue(ToolCaches.hasNugetPackage(dir, "Serilog.AspNetCore", "8.0.3"));
+        assertTrue(ToolCaches.hasNugetPackage(dir, "Serilog.AspNetCore", null));
+        assertFalse(ToolCaches.hasNugetPackage(dir, "Serilog.AspNetCore", "9.0.0"));
+        assertFalse(ToolCaches.hasNugetPackage(dir, "Swashbuckle.AspNetCore", null));
+    }
+}
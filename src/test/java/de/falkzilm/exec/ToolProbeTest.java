@@ -0,0 +1,92 @@
+package de.falkzilm.exec;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ToolProbeTest {
+
+    @AfterEach
+    void tearDown() {
+        ToolProbe.reset();
+    }
+
+    @Test
+    void testEnvironmentOutputIsParsed() {
+        Map<String, String> variables = LoginEnvironment.parse("""
+                PATH=/usr/local/bin:/usr/bin
+                BASH_FUNC_greet%%=() {  echo hi
+                }
+                EMPTY=
+                """);
+
+        assertEquals("/usr/local/bin:/usr/bin", variables.get("PATH"));
+        assertEquals("() {  echo hi\n}", variables.get("BASH_FUNC_greet%%"));
+        assertEquals("", variables.get("EMPTY"));
+    }
+
+    @Test
+    void testWhichResolvesOnCapturedPath() {
+        LoginEnvironment environment = new LoginEnvironment(Map.of("PATH", System.getProperty("java.home") + "/bin"));
+
+        assertTrue(environment.which("java").isPresent());
+        assertTrue(environment.which("definitely-not-a-tool-qboot").isEmpty());
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void testProbeIsRunOnce() {
+        CompletableFuture<ToolProbe.Result> first = ToolProbe.probe("bash");
+        CompletableFuture<ToolProbe.Result> second = ToolProbe.probe("bash");
+
+        assertSame(first, second);
+        assertEquals(0, first.join().exitCode());
+        assertTrue(first.join().output().toLowerCase().contains("bash"));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void testMissingToolFails() {
+        assertNotEquals(0, ToolProbe.probe("definitely-not-a-tool-qboot").join().exitCode());
+    }
+
+    @Test
+    void testUnusedProbesAreDiscarded() {
+        CompletableFuture<ToolProbe.Result> unused = ToolProbe.probe("definitely-not-a-tool-qboot");
+
+        ToolProbe.retainOnly(List.of("bash"));
+
+        assertNotSame(unused, ToolProbe.probe("definitely-not-a-tool-qboot"));
+    }
+
+    @Test
+    @DisabledOnOs(OS.WINDOWS)
+    void testDiscardedProbeIsKilled() throws Exception {
+        // not on the PATH, so it runs through the shell, where the comment swallows --version
+        CompletableFuture<ToolProbe.Result> slow = ToolProbe.probe("sleep 30 #");
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (ProcessHandle.current().descendants().noneMatch(ToolProbeTest::isSleep) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+
+        ToolProbe.retainOnly(List.of());
+
+        assertTrue(slow.isCancelled());
+        deadline = System.nanoTime() + 5_000_000_000L;
+        while (ProcessHandle.current().descendants().anyMatch(ToolProbeTest::isSleep) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(ProcessHandle.current().descendants().noneMatch(ToolProbeTest::isSleep));
+    }
+
+    private static boolean isSleep(ProcessHandle process) {
+        return process.isAlive() && process.info().commandLine().map(line -> line.contains("sleep 30")).orElse(false);
+    }
+}
@@ -0,0 +1,55 @@
+package de.falkzilm.gen;
+
+import de.falkzilm.exec.TaskScope;
+import de.falkzilm.gen.node.PackageManager;
+import de.falkzilm.template.Dependency;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DependencyHandlerTest {
+
+    private static final Dependency MISSING = new Dependency("definitely-not-a-tool-qboot", null, false, "1+", false);
+
+    private static DependencyHandler handler(Dependency dependency) {
+        return DependencyHandler.builder()
+                .dependencies(List.of(dependency))
+                .genParameters(new GenParameters(Framework.QUARKUS, "demo", "com.example", "1.0", false, Path.of("."), "", PackageManager.NPM))
+                .build();
+    }
+
+    @Test
+    void testMissingToolIsAPrerequisiteFailure() {
+        PrerequisiteException e = assertThrows(PrerequisiteException.class, () -> handler(MISSING).check());
+        assertEquals(MISSING.name(), e.getTool());
+    }
+
+    @Test
+    void testOptionalMissingToolPasses() throws Exception {
+        handler(new Dependency("definitely-not-a-tool-qboot", null, true, "1+", false)).check();
+    }
+
+    @Test
+    void testCancelledScopeIsNotReportedAsMissingTool() throws Exception {
+        AtomicReference<Exception> thrown = new AtomicReference<>();
+        TaskScope scope = new TaskScope();
+        scope.fork(() -> {
+            // as if a sibling task had failed
+            scope.cancel();
+            try {
+                handler(MISSING).check();
+            } catch (Exception e) {
+                thrown.set(e);
+            }
+            return null;
+        });
+        scope.join();
+
+        assertInstanceOf(CancellationException.class, thrown.get());
+    }
+}
@@ -0,0 +1,122 @@
+package de.falkzilm.gen;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationJournalTest {
+
+    private Path outputDir;
+    private Path projectPath;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        outputDir = Files.createTempDirectory("qboot-journal-test");
+        projectPath = outputDir.resolve("demo");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(outputDir)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private List<String> run(boolean resume, String inputHash, boolean failPostDependencies) {
+        return run(resume, inputHash, failPostDependencies ? GenerationJournal.POST_DEPENDENCIES : null);
+    }
+
+    /** Runs the three phases, failing in phase {@code failIn} if it is set. */
+    private List<String> run(boolean resume, String inputHash, String failIn) {
+        List<String> ran = new ArrayList<>();
+        GenerationJournal.Session session = GenerationJournal.open(outputDir, resume)
+                .workspace(0, inputHash, outputDir, projectPath);
+        try {
+            session.run(GenerationJournal.GENERATE, () -> {
+                ran.add(GenerationJournal.GENERATE);
+                Files.createDirectories(projectPath);
+                Files.writeString(projectPath.resolve("pom.xml"), "<project/>");
+                if (GenerationJournal.GENERATE.equals(failIn)) {
+                    throw new IOException("create failed");
+                }
+            });
+            session.run(GenerationJournal.POST_DEPENDENCIES, () -> {
+                ran.add(GenerationJournal.POST_DEPENDENCIES);
+                if (GenerationJournal.POST_DEPENDENCIES.equals(failIn)) {
+                    throw new IOException("network dropped");
+                }
+            });
+            session.run(GenerationJournal.CHANGESETS, () -> {
+                ran.add(GenerationJournal.CHANGESETS);
+                if (GenerationJournal.CHANGESETS.equals(failIn)) {
+                    throw new IOException("disk full");
+                }
+            });
+        } catch (Exception e) {
+            ran.add("failed");
+        }
+        return ran;
+    }
+
+    @Test
+    void testResumeSkipsCompletedPhases() {
+        assertEquals(List.of("generate", "post-dependencies", "failed"), run(false, "a", true));
+
+        assertEquals(List.of("post-dependencies", "changesets"), run(true, "a", false));
+    }
+
+    @Test
+    void testChangedInputsRunEverything() {
+        run(false, "a", false);
+
+        assertEquals(List.of("generate", "post-dependencies", "changesets"), run(true, "b", false));
+    }
+
+    @Test
+    void testMissingOutputRunsEverything() throws IOException {
+        run(false, "a", false);
+        Files.delete(projectPath.resolve("pom.xml"));
+
+        assertEquals(List.of("generate", "post-dependencies", "changesets"), run(true, "a", false));
+    }
+
+    @Test
+    void testWithoutResumeNothingIsSkipped() {
+        run(false, "a", false);
+
+        assertEquals(List.of("generate", "post-dependencies", "changesets"), run(false, "a", false));
+    }
+
+    @Test
+    void testInterruptedChangesetsRunEverything() {
+        assertEquals(List.of("generate", "post-dependencies", "changesets", "failed"), run(false, "a", GenerationJournal.CHANGESETS));
+
+        assertEquals(List.of("generate", "post-dependencies", "changesets"), run(true, "a", false));
+    }
+
+    @Test
+    void testFailedRunDropsCheckpointsOfEarlierRun() {
+        run(false, "a", false);
+        assertEquals(List.of("generate", "failed"), run(false, "a", GenerationJournal.GENERATE));
+
+        assertEquals(List.of("generate", "post-dependencies", "changesets"), run(true, "a", false));
+    }
+
+    @Test
+    void testHashSeparatesParts() {
+        assertNotEquals(GenerationJournal.hash("ab", "c"), GenerationJournal.hash("a", "bc"));
+        assertEquals(GenerationJournal.hash("a", null), GenerationJournal.hash("a", ""));
+    }
+}
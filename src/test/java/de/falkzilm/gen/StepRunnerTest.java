@@ -0,0 +1,130 @@
+package de.falkzilm.gen;
+
+import de.falkzilm.gen.node.PackageManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StepRunnerTest {
+
+    private Path root;
+    private Path cacheDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        root = Files.createTempDirectory("qboot-step-runner-test");
+        cacheDir = root.resolve("cache");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private GenParameters parameters(String target) {
+        return new GenParameters(Framework.QUARKUS, "demo", "com.example", "3.28.5", false, root.resolve(target), "", PackageManager.NPM);
+    }
+
+    private GenerationStep createStep(GenParameters parameters, String version, AtomicInteger runs) {
+        return GenerationStep.builder()
+                .name("quarkus create")
+                .input("version", version)
+                .output(Path.of("demo"))
+                .action(() -> {
+                    runs.incrementAndGet();
+                    Path project = Files.createDirectories(parameters.target().resolve("demo/src/main/java"));
+                    Files.writeString(project.resolveSibling("resources.txt"), version);
+                    Files.writeString(parameters.target().resolve("demo/pom.xml"), "<project/>");
+                })
+                .build();
+    }
+
+    @Test
+    void testUnchangedStepIsRestoredFromCache() throws Exception {
+        StepRunner runner = new StepRunner(cacheDir, true);
+        AtomicInteger runs = new AtomicInteger();
+
+        GenParameters first = parameters("first");
+        runner.run(Framework.QUARKUS, List.of(createStep(first, "3.28.5", runs)), first);
+        GenParameters second = parameters("second");
+        runner.run(Framework.QUARKUS, List.of(createStep(second, "3.28.5", runs)), second);
+
+        assertEquals(1, runs.get());
+        assertEquals("<project/>", Files.readString(second.target().resolve("demo/pom.xml")));
+        assertEquals("3.28.5", Files.readString(second.target().resolve("demo/src/main/resources.txt")));
+        assertTrue(Files.isDirectory(second.target().resolve("demo/src/main/java")));
+    }
+
+    @Test
+    void testChangedInputRunsAgain() throws Exception {
+        StepRunner runner = new StepRunner(cacheDir, true);
+        AtomicInteger runs = new AtomicInteger();
+
+        GenParameters first = parameters("first");
+        runner.run(Framework.QUARKUS, List.of(createStep(first, "3.28.5", runs)), first);
+        GenParameters second = parameters("second");
+        runner.run(Framework.QUARKUS, List.of(createStep(second, "3.29.0", runs)), second);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void testStepsWithoutOutputsAlwaysRun() throws Exception {
+        StepRunner runner = new StepRunner(cacheDir, true);
+        AtomicInteger runs = new AtomicInteger();
+        GenerationStep mkdir = GenerationStep.builder()
+                .name("create destination dir")
+                .action(runs::incrementAndGet)
+                .build();
+
+        runner.run(Framework.QUARKUS, List.of(mkdir), parameters("first"));
+        runner.run(Framework.QUARKUS, List.of(mkdir), parameters("first"));
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void testDisabledCacheRunsEveryStep() throws Exception {
+        StepRunner runner = new StepRunner(cacheDir, false);
+        AtomicInteger runs = new AtomicInteger();
+
+        GenParameters first = parameters("first");
+        runner.run(Framework.QUARKUS, List.of(createStep(first, "3.28.5", runs)), first);
+        runner.run(Framework.QUARKUS, List.of(createStep(first, "3.28.5", runs)), first);
+
+        assertEquals(2, runs.get());
+        assertFalse(Files.exists(cacheDir));
+    }
+
+    @Test
+    void testKeyDependsOnFrameworkAndInputs() {
+        GenerationStep step = GenerationStep.builder().name("create").input("a", "1").input("b", "2").build();
+        GenerationStep reordered = GenerationStep.builder().name("create").input("b", "2").input("a", "1").build();
+
+        assertEquals(StepRunner.key(Framework.QUARKUS, step), StepRunner.key(Framework.QUARKUS, reordered));
+        assertNotEquals(StepRunner.key(Framework.QUARKUS, step), StepRunner.key(Framework.SPRINGBOOT, step));
+    }
+
+    @Test
+    void testToolVersionsArePartOfTheKey() {
+        GenerationStep step = GenerationStep.builder().name("create").input("a", "1").build();
+        GenerationStep withJava = GenerationStep.builder().name("create").input("a", "1").tool("java").build();
+
+        assertNotEquals(StepRunner.key(Framework.QUARKUS, step), StepRunner.key(Framework.QUARKUS, withJava));
+        assertEquals(StepRunner.key(Framework.QUARKUS, withJava), StepRunner.key(Framework.QUARKUS, withJava));
+    }
+}
@@ -0,0 +1,58 @@
+package de.falkzilm.gen.java;
+
+import de.falkzilm.gen.Framework;
+import de.falkzilm.gen.GenParameters;
+import de.falkzilm.gen.node.PackageManager;
+import de.falkzilm.template.Dependency;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MavenDependencyHandlerTest {
+
+    private static final String POM = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <project xmlns="http://maven.apache.org/POM/4.0.0">
+              <modelVersion>4.0.0</modelVersion>
+              <dependencies>
+              </dependencies>
+            </project>
+            """;
+
+    private static final List<Dependency> DEPENDENCIES = List.of(
+            new Dependency("quarkus-rest", null, false, null, true),
+            new Dependency("org.springdoc:springdoc-openapi-starter-webmvc-ui", null, false, "2.6.0", true));
+
+    private static String install(Framework framework, Path dir) throws IOException {
+        Files.createDirectories(dir.resolve("demo"));
+        Files.writeString(dir.resolve("demo/pom.xml"), POM);
+        MavenDependencyHandler.builder()
+                .dependencies(DEPENDENCIES)
+                .genParameters(new GenParameters(framework, "demo", "com.example", "1.0", false, dir, "", PackageManager.NPM))
+                .build()
+                .install();
+        return Files.readString(dir.resolve("demo/pom.xml"));
+    }
+
+    @Test
+    void testQuarkusLeavesExtensionsToCreate(@TempDir Path dir) throws IOException {
+        String pom = install(Framework.QUARKUS, dir);
+
+        assertFalse(pom.contains("springdoc-openapi-starter-webmvc-ui"));
+        assertFalse(pom.contains("quarkus-rest"));
+    }
+
+    @Test
+    void testSpringAddsExtensionFlaggedArtifacts(@TempDir Path dir) throws IOException {
+        String pom = install(Framework.SPRINGBOOT, dir);
+
+        assertTrue(pom.contains("<artifactId>springdoc-openapi-starter-webmvc-ui</artifactId>"));
+        assertFalse(pom.contains("quarkus-rest"));
+    }
+}
@@ -0,0 +1,168 @@
+package de.falkzilm.gen.java;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PomEditorTest {
+
+    private static final String POM = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <project xmlns="http://maven.apache.org/POM/4.0.0">
+              <modelVersion>4.0.0</modelVersion>
+              <!-- keep me -->
+              <dependencyManagement>
+                <dependencies>
+                  <dependency>
+                    <groupId>io.quarkus.platform</groupId>
+                    <artifactId>quarkus-bom</artifactId>
+                  </dependency>
+                </dependencies>
+              </dependencyManagement>
+              <dependencies>
+                <dependency>
+                  <groupId>io.quarkus</groupId>
+                  <artifactId>quarkus-arc</artifactId>
+                </dependency>
+              </dependencies>
+              <build>
+                <plugins>
+                  <plugin>
+                    <artifactId>maven-compiler-plugin</artifactId>
+                    <configuration>
+                      <parameters>true</parameters>
+                    </configuration>
+                  </plugin>
+                </plugins>
+              </build>
+            </project>
+            """;
+
+    @Test
+    void testDependenciesAndProcessorPathsInOnePass() throws IOException {
+        PomEditor.Edit edit = new PomEditor()
+                .addDependency(PomEditor.Artifact.of("org.projectlombok:lombok", "1.18.36", "provided"))
+                .addDependency(PomEditor.Artifact.of("io.quarkus:quarkus-arc", null, null))
+                .addDependency(PomEditor.Artifact.of("io.quarkus.platform:quarkus-bom", "1.0", null))
+                .addAnnotationProcessorPath(PomEditor.Artifact.of("org.projectlombok:lombok", "1.18.36", "provided"))
+                .edit(POM);
+
+        assertEquals("""
+                <?xml version="1.0" encoding="UTF-8"?>
+                <project xmlns="http://maven.apache.org/POM/4.0.0">
+                  <modelVersion>4.0.0</modelVersion>
+                  <!-- keep me -->
+                  <dependencyManagement>
+                    <dependencies>
+                      <dependency>
+                        <groupId>io.quarkus.platform</groupId>
+                        <artifactId>quarkus-bom</artifactId>
+                      </dependency>
+                    </dependencies>
+                  </dependencyManagement>
+                  <dependencies>
+                    <dependency>
+                      <groupId>io.quarkus</groupId>
+                      <artifactId>quarkus-arc</artifactId>
+                    </dependency>
+                    <dependency>
+                      <groupId>org.projectlombok</groupId>
+                      <artifactId>lombok</artifactId>
+                      <version>1.18.36</version>
+                      <scope>provided</scope>
+                    </dependency>
+                    <dependency>
+                      <groupId>io.quarkus.platform</groupId>
+                      <artifactId>quarkus-bom</artifactId>
+                      <version>1.0</version>
+                    </dependency>
+                  </dependencies>
+                  <build>
+                    <plugins>
+                      <plugin>
+                        <artifactId>maven-compiler-plugin</artifactId>
+                        <configuration>
+                          <parameters>true</parameters>
+                          <annotationProcessorPaths>
+                            <path>
+                              <groupId>org.projectlombok</groupId>
+                              <artifactId>lombok</artifactId>
+                              <version>1.18.36</version>
+                            </path>
+                          </annotationProcessorPaths>
+                        </configuration>
+                      </plugin>
+                    </plugins>
+                  </build>
+                </project>
+                """, edit.xml());
+        assertEquals(List.of("org.projectlombok:lombok", "io.quarkus.platform:quarkus-bom"),
+                edit.result().added().stream().map(PomEditor.Artifact::key).toList());
+        assertEquals(List.of("io.quarkus:quarkus-arc"), edit.result().present().stream().map(PomEditor.Artifact::key).toList());
+    }
+
+    @Test
+    void testExistingProcessorPathIsKept() throws IOException {
+        String pom = "<project>\r\n\t<build>\r\n\t\t<plugins>\r\n\t\t\t<plugin>\r\n"
+                + "\t\t\t\t<artifactId>maven-compiler-plugin</artifactId>\r\n"
+                + "\t\t\t\t<configuration><annotationProcessorPaths><path><groupId>a</groupId><artifactId>b</artifactId></path></annotationProcessorPaths></configuration>\r\n"
+                + "\t\t\t</plugin>\r\n\t\t</plugins>\r\n\t</build>\r\n</project>\r\n";
+
+        PomEditor.Edit edit = new PomEditor()
+                .addAnnotationProcessorPath(PomEditor.Artifact.of("a:b", "1", null))
+                .addAnnotationProcessorPath(PomEditor.Artifact.of("c:d", null, null))
+                .addDependency(PomEditor.Artifact.of("c:d", "2", null))
+                .edit(pom);
+
+        assertEquals("<project>\r\n"
+                + "\t<dependencies>\r\n\t\t<dependency>\r\n\t\t\t<groupId>c</groupId>\r\n\t\t\t<artifactId>d</artifactId>\r\n"
+                + "\t\t\t<version>2</version>\r\n\t\t</dependency>\r\n\t</dependencies>\r\n\r\n"
+                + "\t<build>\r\n\t\t<plugins>\r\n\t\t\t<plugin>\r\n"
+                + "\t\t\t\t<artifactId>maven-compiler-plugin</artifactId>\r\n"
+                + "\t\t\t\t<configuration><annotationProcessorPaths><path><groupId>a</groupId><artifactId>b</artifactId></path>"
+                + "\r\n\t\t\t\t\t<path>\r\n\t\t\t\t\t\t<groupId>c</groupId>\r\n\t\t\t\t\t\t<artifactId>d</artifactId>\r\n\t\t\t\t\t</path>"
+                + "\r\n\t\t\t\t</annotationProcessorPaths></configuration>\r\n"
+                + "\t\t\t</plugin>\r\n\t\t</plugins>\r\n\t</build>\r\n</project>\r\n", edit.xml());
+        assertEquals(List.of("c:d"), edit.result().processorPathsAdded().stream().map(PomEditor.Artifact::key).toList());
+    }
+
+    @Test
+    void testEmptyDependenciesAndMissingCompilerPlugin(@TempDir Path dir) throws IOException {
+        Path pom = dir.resolve("pom.xml");
+        Files.writeString(pom, "<project>\n  <dependencies/>\n</project>\n");
+
+        PomEditor.Result result = new PomEditor()
+                .addDependency(PomEditor.Artifact.of("a:b", "1", "test"))
+                .addAnnotationProcessorPath(PomEditor.Artifact.of("a:b", "1", null))
+                .apply(pom);
+
+        assertEquals("<project>\n  <dependencies>\n    <dependency>\n      <groupId>a</groupId>\n"
+                + "      <artifactId>b</artifactId>\n      <version>1</version>\n      <scope>test</scope>\n"
+                + "    </dependency>\n  </dependencies>\n</project>\n", Files.readString(pom));
+        assertEquals(List.of("a:b"), result.unplaced().stream().map(PomEditor.Artifact::key).toList());
+    }
+
+    @Test
+    void testUnchangedPomIsNotWritten(@TempDir Path dir) throws IOException {
+        Path pom = dir.resolve("pom.xml");
+        Files.writeString(pom, POM);
+        pom.toFile().setLastModified(0);
+
+        PomEditor.Result result = new PomEditor().addDependency(PomEditor.Artifact.of("io.quarkus:quarkus-arc", null, null)).apply(pom);
+
+        assertFalse(result.changed());
+        assertEquals(0, pom.toFile().lastModified());
+    }
+
+    @Test
+    void testMalformedPomFails() {
+        assertThrows(IOException.class, () -> new PomEditor().addDependency(PomEditor.Artifact.of("a:b", null, null)).edit("<project><dependencies></project>"));
+        assertThrows(IllegalArgumentException.class, () -> PomEditor.Artifact.of("lombok", null, null));
+    }
+}
@@ -0,0 +1,51 @@
+package de.falkzilm.gen.java;
+
+import de.falkzilm.template.Dependency;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuarkusEngineTest {
+
+    @Test
+    void testDependencyArtifacts() {
+        List<Dependency> post = List.of(
+                new Dependency("rest", null, false, null, true),
+                new Dependency("quarkus-hibernate-orm", null, false, null, true),
+                new Dependency("lombok", "org.projectlombok:lombok", false, "1.18.36", false),
+                new Dependency("unversioned", "org.example:unversioned", false, null, false));
+
+        List<String> artifacts = QuarkusEngine.dependencyArtifacts(post, "-Dextensions=\"smallrye-health,io.quarkiverse.mcp:quarkus-mcp-server-sse:1.0.0\"", "3.28.5");
+
+        assertEquals(List.of(
+                "io.quarkus:quarkus-smallrye-health:3.28.5",
+                "io.quarkiverse.mcp:quarkus-mcp-server-sse:1.0.0",
+                "io.quarkus:quarkus-rest:3.28.5",
+                "io.quarkus:quarkus-hibernate-orm:3.28.5",
+                "org.projectlombok:lombok:1.18.36"), artifacts);
+    }
+
+    @Test
+    void testExtensionsArePassedToCreate() {
+        List<Dependency> post = List.of(
+                new Dependency("quarkus-config-yaml", null, false, null, true),
+                new Dependency("lombok", "org.projectlombok:lombok", false, "1.18.36", false),
+                new Dependency("rest-jackson", null, false, null, true));
+
+        assertEquals(List.of("quarkus-config-yaml", "rest-jackson"), QuarkusEngine.extensions(post));
+        assertEquals("create -DnoCode -Dextensions=\"quarkus-config-yaml,rest-jackson\"",
+                QuarkusEngine.withExtensions("create", "-DnoCode", QuarkusEngine.extensions(post)));
+        assertEquals("create -B", QuarkusEngine.withExtensions("create", " -B ", List.of()));
+        assertEquals("create", QuarkusEngine.withExtensions("create", null, List.of()));
+    }
+
+    @Test
+    void testExtensionsMergeWithCliArgs() {
+        assertEquals("create -Dextensions=\"smallrye-health,rest\" -DnoCode",
+                QuarkusEngine.withExtensions("create", "-Dextensions=\"smallrye-health,rest\" -DnoCode", List.of("rest")));
+        assertEquals("create -DnoCode -Dextensions=\"smallrye-health,rest\"",
+                QuarkusEngine.withExtensions("create", "-DnoCode -Dextensions=smallrye-health", List.of("rest")));
+    }
+}
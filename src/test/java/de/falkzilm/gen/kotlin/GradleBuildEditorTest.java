@@ -0,0 +1,104 @@
+package de.falkzilm.gen.kotlin;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GradleBuildEditorTest {
+
+    @Test
+    void testDependenciesGoIntoTheTopLevelBlock() throws IOException {
+        String script = """
+                buildscript {
+                    dependencies {
+                        classpath("org.example:plugin:1.0")
+                    }
+                }
+
+                val banner = "dependencies { not a block }"
+
+                dependencies {
+                    // io.ktor:ktor-server-core:2.3.0 in a comment does not count
+                    implementation("io.ktor:ktor-server-netty:2.3.0")
+                    testImplementation(kotlin("test"))
+                }
+
+                tasks.test {
+                    useJUnitPlatform()
+                }
+                """;
+
+        GradleBuildEditor.Edit edit = new GradleBuildEditor()
+                .add("implementation", "io.ktor:ktor-server-core:2.3.0")
+                .add("implementation", "io.ktor:ktor-server-netty:2.3.1")
+                .add("testImplementation", "io.mockk:mockk:1.13.8")
+                .add("implementation", "org.example:plugin:1.0")
+                .edit(script, true);
+
+        assertEquals("""
+                buildscript {
+                    dependencies {
+                        classpath("org.example:plugin:1.0")
+                    }
+                }
+
+                val banner = "dependencies { not a block }"
+
+                dependencies {
+                    // io.ktor:ktor-server-core:2.3.0 in a comment does not count
+                    implementation("io.ktor:ktor-server-netty:2.3.0")
+                    testImplementation(kotlin("test"))
+                    implementation("io.ktor:ktor-server-core:2.3.0")
+                    testImplementation("io.mockk:mockk:1.13.8")
+                    implementation("org.example:plugin:1.0")
+                }
+
+                tasks.test {
+                    useJUnitPlatform()
+                }
+                """, edit.script());
+        assertEquals(List.of("io.ktor:ktor-server-netty"), edit.result().present().stream().map(GradleBuildEditor.Declaration::key).toList());
+    }
+
+    @Test
+    void testGroovyScriptWithoutBlockGetsOne() throws IOException {
+        GradleBuildEditor.Edit edit = new GradleBuildEditor()
+                .add("implementation", "a:b:1")
+                .edit("plugins {\n\tid 'java'\n}", false);
+
+        assertEquals("plugins {\n\tid 'java'\n}\n\ndependencies {\n    implementation 'a:b:1'\n}\n", edit.script());
+    }
+
+    @Test
+    void testSingleLineBlock() throws IOException {
+        GradleBuildEditor.Edit edit = new GradleBuildEditor()
+                .add("implementation", "a:b:1")
+                .edit("dependencies {}\n", true);
+
+        assertEquals("dependencies {\n    implementation(\"a:b:1\")\n}\n", edit.script());
+    }
+
+    @Test
+    void testBuildFileIsWrittenOnce(@TempDir Path dir) throws IOException {
+        Path buildFile = dir.resolve("build.gradle.kts");
+
+        GradleBuildEditor.Result first = new GradleBuildEditor().add("implementation", "a:b:1").add("implementation", "c:d:2").apply(buildFile);
+        GradleBuildEditor.Result second = new GradleBuildEditor().add("implementation", "a:b:1").apply(buildFile);
+
+        assertEquals(2, first.added().size());
+        assertTrue(second.added().isEmpty());
+        assertEquals("dependencies {\n    implementation(\"a:b:1\")\n    implementation(\"c:d:2\")\n}\n", Files.readString(buildFile));
+    }
+
+    @Test
+    void testInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> new GradleBuildEditor().add("implementation", "ktor"));
+        assertThrows(IOException.class, () -> new GradleBuildEditor().add("implementation", "a:b:1").edit("dependencies {\n", true));
+    }
+}
@@ -0,0 +1,112 @@
+package de.falkzilm.gen.node;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PackageManagerTest {
+
+    @Test
+    void testOfParsesNamesAndDefaultsToNpm() {
+        assertEquals(PackageManager.PNPM, PackageManager.of(" PNPM "));
+        assertEquals(PackageManager.BUN, PackageManager.of("bun"));
+        assertEquals(PackageManager.NPM, PackageManager.of(null));
+        assertEquals(PackageManager.NPM, PackageManager.of(""));
+        assertThrows(IllegalArgumentException.class, () -> PackageManager.of("cnpm"));
+    }
+
+    @Test
+    void testAddTranslatesDevFlag() {
+        List<String> specs = List.of("axios@1.7.9", "zod@3.24.1");
+        assertEquals("install --save axios@1.7.9 zod@3.24.1", PackageManager.NPM.add(specs, false));
+        assertEquals("install --save-dev axios@1.7.9 zod@3.24.1", PackageManager.NPM.add(specs, true));
+        assertEquals("add axios@1.7.9 zod@3.24.1", PackageManager.PNPM.add(specs, false));
+        assertEquals("add --save-dev axios@1.7.9 zod@3.24.1", PackageManager.PNPM.add(specs, true));
+        assertEquals("add --dev axios@1.7.9 zod@3.24.1", PackageManager.YARN.add(specs, true));
+        assertEquals("add --dev axios@1.7.9 zod@3.24.1", PackageManager.BUN.add(specs, true));
+    }
+
+    @Test
+    void testCreatePassesArgumentsToInitializer() {
+        assertEquals("create vite@latest demo -- --template react", PackageManager.NPM.create("vite@latest", "demo", "--template react"));
+        assertEquals("create react-app demo", PackageManager.NPM.create("react-app", "demo", " "));
+        assertEquals("create vite@latest demo --template react", PackageManager.PNPM.create("vite@latest", "demo", "--template react"));
+        assertEquals("create vite demo --template react", PackageManager.YARN.create("vite@latest", "demo", "--template react"));
+        assertEquals("create next-app demo", PackageManager.BUN.create("next-app@latest", "demo", null));
+        assertEquals("create @scope/app demo", PackageManager.YARN.create("@scope/app@1.0.0", "demo", ""));
+    }
+
+    @Test
+    void testExecRunsPackageWithoutInstalling() {
+        assertEquals("exec --yes -- @vue/cli create demo", PackageManager.NPM.exec("@vue/cli", "create demo"));
+        assertEquals("dlx @vue/cli create demo", PackageManager.PNPM.exec("@vue/cli", "create demo"));
+        assertEquals("dlx @vue/cli create demo", PackageManager.YARN.exec("@vue/cli", "create demo"));
+        assertEquals("x @vue/cli create demo", PackageManager.BUN.exec("@vue/cli", "create demo"));
+    }
+
+    @Test
+    void testInitWritesPackageJson(@TempDir Path dir) throws Exception {
+        Map<String, String> scripts = new LinkedHashMap<>();
+        scripts.put("start", "node src/index.js");
+        scripts.put("dev", "nodemon \"src/index.js\"");
+
+        PackageManager.init(dir.resolve("demo"), "demo", scripts);
+
+        assertEquals("""
+                {
+                  "name": "demo",
+                  "version": "1.0.0",
+                  "main": "index.js",
+                  "license": "ISC",
+                  "scripts": {
+                    "start": "node src/index.js",
+                    "dev": "nodemon \\"src/index.js\\""
+                  }
+                }
+                """, Files.readString(dir.resolve("demo/package.json")));
+    }
+
+    @Test
+    void testDetectsClassicYarn() {
+        assertTrue(PackageManager.isClassicYarn("1.22.22\n"));
+        assertFalse(PackageManager.isClassicYarn("4.5.3"));
+        assertFalse(PackageManager.isClassicYarn(""));
+        assertFalse(PackageManager.isClassicYarn(null));
+    }
+
+    @Test
+    void testOfflineFlagForClassicYarnOnly() {
+        assertEquals(" --offline ", PackageManager.YARN.offlineFlag(true));
+        assertEquals(" ", PackageManager.YARN.offlineFlag(false));
+        assertEquals(" --offline ", PackageManager.PNPM.offlineFlag(false));
+        assertEquals(" ", PackageManager.BUN.offlineFlag(false));
+    }
+
+    @Test
+    void testPrefetchKeepsNpmScratchInstallUnsaved() {
+        assertEquals("install --no-audit --no-fund --no-save create-vite@latest", PackageManager.NPM.prefetch(List.of("create-vite@latest")));
+        assertEquals("add create-vite@latest", PackageManager.PNPM.prefetch(List.of("create-vite@latest")));
+    }
+
+    @Test
+    void testPrepareScratchUsesNodeModulesLinkerForYarn(@TempDir Path dir) throws Exception {
+        PackageManager.YARN.prepareScratch(dir.resolve("yarn"), false);
+        assertTrue(Files.exists(dir.resolve("yarn/package.json")));
+        assertEquals("nodeLinker: node-modules\n", Files.readString(dir.resolve("yarn/.yarnrc.yml")));
+
+        PackageManager.YARN.prepareScratch(dir.resolve("classic"), true);
+        assertTrue(Files.exists(dir.resolve("classic/package.json")));
+        assertFalse(Files.exists(dir.resolve("classic/.yarnrc.yml")));
+
+        PackageManager.PNPM.prepareScratch(dir.resolve("pnpm"));
+        assertTrue(Files.readString(dir.resolve("pnpm/package.json")).contains("\"private\": true"));
+        assertFalse(Files.exists(dir.resolve("pnpm/.yarnrc.yml")));
+    }
+}
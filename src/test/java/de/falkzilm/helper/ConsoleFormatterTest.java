@@ -166,4 +166,11 @@ class ConsoleFormatterTest {
         assertTrue(output.contains("5") || output.contains("30") || 
                   output.contains("minute") || output.contains("second"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testHumanBytes() {
+        assertEquals("512 B", ConsoleFormatter.humanBytes(512));
+        assertEquals("1.5 KB", ConsoleFormatter.humanBytes(1536));
+        assertEquals("2.0 GB", ConsoleFormatter.humanBytes(2L * 1024 * 1024 * 1024));
+    }
+}
@@ -0,0 +1,78 @@
+package de.falkzilm.helper;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupedConsoleTest {
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private PrintStream originalOut;
+
+    @BeforeEach
+    void setUp() {
+        originalOut = System.out;
+        System.setOut(new PrintStream(out, true, StandardCharsets.UTF_8));
+    }
+
+    @AfterEach
+    void tearDown() {
+        System.setOut(originalOut);
+    }
+
+    private String output() {
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void testLaterGroupIsBufferedUntilEarlierCompletes() throws Exception {
+        CountDownLatch secondDone = new CountDownLatch(1);
+        try (GroupedConsole console = GroupedConsole.install(2)) {
+            Thread second = Thread.ofVirtual().start(() -> {
+                try {
+                    console.run(1, () -> System.out.println("second workspace"));
+                    console.complete(1);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                secondDone.countDown();
+            });
+            secondDone.await();
+            second.join();
+
+            assertEquals("", output());
+
+            console.run(0, () -> System.out.println("first workspace"));
+            assertEquals("first workspace" + System.lineSeparator(), output());
+
+            console.complete(0);
+        }
+
+        assertEquals("first workspace" + System.lineSeparator() + "second workspace" + System.lineSeparator(), output());
+    }
+
+    @Test
+    void testUngroupedOutputPassesThrough() {
+        try (GroupedConsole console = GroupedConsole.install(2)) {
+            System.out.print("banner");
+            assertEquals("banner", output());
+        }
+    }
+
+    @Test
+    void testCloseFlushesUnfinishedGroups() throws Exception {
+        try (GroupedConsole console = GroupedConsole.install(3)) {
+            console.run(2, () -> System.out.print("c"));
+            console.run(1, () -> System.out.print("b"));
+        }
+
+        assertEquals("bc", output());
+    }
+}
@@ -149,6 +149,33 @@ class OsUtilsTest {
         }
     }
 
+    @Test
+    void testOfflineCommandsWorkFromCaches() {
+        OsUtils.setOffline(true);
+        try {
+            assertTrue(OsUtils.createMavenCommand("quarkus:add-extension").getArguments()[1].endsWith(" -o quarkus:add-extension"));
+            assertTrue(OsUtils.createNpmCommand("install").getArguments()[1].endsWith(" --offline install"));
+        } finally {
+            OsUtils.setOffline(false);
+        }
+        assertFalse(OsUtils.createMavenCommand("quarkus:add-extension").getArguments()[1].contains(" -o "));
+    }
+
+    @Test
+    void testMavenDaemonReplacesMaven() {
+        OsUtils.setMavenDaemon(true);
+        try {
+            assertEquals("mvnd", OsUtils.mavenLauncher());
+            String command = OsUtils.createMavenCommand("quarkus:add-extension").getArguments()[1];
+            assertTrue(command.startsWith(OsUtils.isWindows() ? "mvnd.cmd " : "mvnd "));
+            assertTrue(command.endsWith(" quarkus:add-extension"));
+        } finally {
+            OsUtils.setMavenDaemon(false);
+        }
+        assertEquals("mvn", OsUtils.mavenLauncher());
+        assertFalse(OsUtils.createMavenCommand("quarkus:add-extension").getArguments()[1].startsWith("mvnd"));
+    }
+
     @Test
     void testCreateAngularCommand() {
         String args = "new my-app";
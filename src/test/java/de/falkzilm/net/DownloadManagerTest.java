@@ -0,0 +1,269 @@
+package de.falkzilm.net;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.falkzilm.cache.CacheManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DownloadManagerTest {
+
+    private static final String ETAG = "\"bundle-v1\"";
+
+    private final byte[] content = new byte[1024 * 1024];
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private final AtomicInteger gets = new AtomicInteger();
+    private final AtomicInteger heads = new AtomicInteger();
+    /** Most bytes a range response carries; a smaller one is still a valid 206. */
+    private volatile int maxRangeBytes = Integer.MAX_VALUE;
+    private HttpServer server;
+    private Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        new Random(42).nextBytes(content);
+        tempDir = Files.createTempDirectory("qboot-download-test");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/bundle.qboot", this::serve);
+        server.createContext("/missing.qboot", exchange -> {
+            gets.incrementAndGet();
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.stop(0);
+        try (var paths = Files.walk(tempDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    /** Minimal range-capable server. */
+    private void serve(HttpExchange exchange) throws IOException {
+        exchange.getResponseHeaders().add("ETag", ETAG);
+        exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            heads.incrementAndGet();
+            exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+            return;
+        }
+
+        gets.incrementAndGet();
+        String range = exchange.getRequestHeaders().getFirst("Range");
+        String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+        int start = 0;
+        int end = content.length - 1;
+        boolean partial = range != null && ETAG.equals(ifRange);
+        if (partial) {
+            ranges.add(range);
+            String[] bounds = range.substring("bytes=".length()).split("-", -1);
+            start = Integer.parseInt(bounds[0]);
+            if (!bounds[1].isEmpty()) {
+                end = Integer.parseInt(bounds[1]);
+            }
+            end = (int) Math.min(end, (long) start + maxRangeBytes - 1);
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + start + "-" + end + "/" + content.length);
+        }
+        int length = end - start + 1;
+        exchange.sendResponseHeaders(partial ? 206 : 200, length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(content, start, length);
+        } catch (IOException ignored) {
+            // the client went away
+        }
+    }
+
+    private URI uri() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/bundle.qboot");
+    }
+
+    @Test
+    void testSingleStreamDownload() throws Exception {
+        Path target = tempDir.resolve("bundle.qboot");
+
+        new DownloadManager(new HttpService(), 1, 16).download(uri(), target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertFalse(Files.exists(tempDir.resolve("bundle.qboot" + DownloadManager.PART_SUFFIX)));
+        assertFalse(Files.exists(tempDir.resolve("bundle.qboot" + DownloadManager.META_SUFFIX)));
+    }
+
+    @Test
+    void testPartialFileIsContinuedWithRange() throws Exception {
+        Path target = tempDir.resolve("bundle.qboot");
+        int already = 300_000;
+        Files.write(tempDir.resolve("bundle.qboot" + DownloadManager.PART_SUFFIX), Arrays.copyOf(content, already));
+        Files.writeString(tempDir.resolve("bundle.qboot" + DownloadManager.META_SUFFIX),
+                "url=" + uri().toString().replace(":", "\\:") + "\netag=" + ETAG + "\nlength=" + content.length + "\n");
+
+        new DownloadManager(new HttpService(), 1, 16).download(uri(), target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertEquals(List.of("bytes=" + already + "-"), ranges);
+    }
+
+    @Test
+    void testChangedFileRestartsFromZero() throws Exception {
+        Path target = tempDir.resolve("bundle.qboot");
+        Files.write(tempDir.resolve("bundle.qboot" + DownloadManager.PART_SUFFIX), new byte[1000]);
+        Files.writeString(tempDir.resolve("bundle.qboot" + DownloadManager.META_SUFFIX),
+                "url=" + uri().toString().replace(":", "\\:") + "\netag=\"bundle-v0\"\nlength=" + content.length + "\n");
+
+        new DownloadManager(new HttpService(), 1, 16).download(uri(), target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        assertTrue(ranges.isEmpty());
+    }
+
+    @Test
+    void testLargeDownloadIsSplitIntoParallelChunks() throws Exception {
+        Path target = tempDir.resolve("bundle.qboot");
+
+        new DownloadManager(new HttpService(), 4, 0).download(uri(), target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        // the first GET decides on chunking and delivers the first chunk itself
+        assertEquals(0, heads.get());
+        assertEquals(4, gets.get());
+        assertEquals(3, ranges.size());
+        assertFalse(ranges.contains("bytes=0-262143"));
+        assertTrue(ranges.contains("bytes=262144-524287"));
+        assertTrue(ranges.contains("bytes=786432-1048575"));
+    }
+
+    @Test
+    void testShortChunkIsContinued() throws Exception {
+        Path target = tempDir.resolve("bundle.qboot");
+        maxRangeBytes = 150_000;
+
+        new DownloadManager(new HttpService(), 4, 0).download(uri(), target);
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        // one whole-file GET, then each short chunk is asked for its rest instead of starting over
+        assertEquals(7, gets.get());
+        assertEquals(6, ranges.size());
+        assertTrue(ranges.contains("bytes=412144-524287"));
+        assertFalse(Files.exists(tempDir.resolve("bundle.qboot" + DownloadManager.META_SUFFIX)));
+    }
+
+    @Test
+    void testSmallDownloadIsNotProbed() throws Exception {
+        new DownloadManager(new HttpService(), 4, 16).download(uri(), tempDir.resolve("bundle.qboot"));
+
+        assertEquals(0, heads.get());
+        assertEquals(1, gets.get());
+        assertTrue(ranges.isEmpty());
+    }
+
+    @Test
+    void testClientErrorsAreNotRetried() throws Exception {
+        URI missing = URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/missing.qboot");
+        // a partial file from an earlier run does not make a 404 worth repeating
+        Files.write(tempDir.resolve("missing.qboot" + DownloadManager.PART_SUFFIX), new byte[1000]);
+        Files.writeString(tempDir.resolve("missing.qboot" + DownloadManager.META_SUFFIX),
+                "url=" + missing.toString().replace(":", "\\:") + "\netag=" + ETAG + "\nlength=" + content.length + "\n");
+
+        IOException e = assertThrows(IOException.class,
+                () -> new DownloadManager(new HttpService(), 1, 16).download(missing, tempDir.resolve("missing.qboot")));
+        assertTrue(e.getMessage().contains("404"), e.getMessage());
+        assertEquals(1, gets.get());
+        assertFalse(DownloadManager.isTransient(OfflineException.notCached(missing)));
+    }
+
+    @Test
+    void testCachedArchiveIsDownloadedOnce() throws Exception {
+        CacheManager caches = new CacheManager(tempDir.resolve("cache"), Map.of(), Long.MAX_VALUE, CacheManager.Eviction.LRU);
+        DownloadManager downloads = new DownloadManager(new HttpService(), 1, 16);
+
+        Path first = downloads.cached(uri(), caches);
+        Path second = downloads.cached(uri(), caches);
+
+        assertEquals(first, second);
+        assertTrue(first.startsWith(caches.dir(CacheManager.Area.ARCHIVES)));
+        assertArrayEquals(content, Files.readAllBytes(first));
+        assertEquals(1, gets.get());
+        assertEquals(new CacheManager.Counters(1, 1, 0), caches.runCounters(CacheManager.Area.ARCHIVES));
+    }
+
+    @Test
+    void testArchiveNamesKeepTheFileName() {
+        String name = DownloadManager.archiveName(URI.create("https://start.spring.io/starter.zip?type=maven-project&name=demo"));
+        String other = DownloadManager.archiveName(URI.create("https://start.spring.io/starter.zip?type=maven-project&name=shop"));
+
+        assertTrue(name.endsWith("-starter.zip"), name);
+        assertNotEquals(name, other);
+    }
+
+    @Test
+    void testDroppedConnectionIsResumed() throws Exception {
+        Path target = tempDir.resolve("bundle.qboot");
+        int dropAfter = 400_000;
+
+        // HttpServer cannot cut a connection mid-body, so this one speaks plain HTTP/1.1 on a socket
+        try (ServerSocket socket = new ServerSocket(0, 0, InetAddress.getLoopbackAddress())) {
+            Thread.ofVirtual().start(() -> {
+                for (int connection = 0; ; connection++) {
+                    try (Socket client = socket.accept()) {
+                        BufferedReader request = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.ISO_8859_1));
+                        String range = null;
+                        for (String line = request.readLine(); line != null && !line.isEmpty(); line = request.readLine()) {
+                            if (line.toLowerCase().startsWith("range:")) {
+                                range = line.substring(6).trim();
+                                ranges.add(range);
+                            }
+                        }
+                        int start = range == null ? 0 : Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+                        String status = range == null ? "200 OK" : "206 Partial Content";
+                        OutputStream out = client.getOutputStream();
+                        out.write(("HTTP/1.1 " + status + "\r\nETag: " + ETAG + "\r\nAccept-Ranges: bytes\r\n"
+                                + "Content-Range: bytes " + start + "-" + (content.length - 1) + "/" + content.length + "\r\n"
+                                + "Content-Length: " + (content.length - start) + "\r\n\r\n").getBytes(StandardCharsets.ISO_8859_1));
+                        out.write(content, start, connection == 0 ? dropAfter : content.length - start);
+                        out.flush();
+                    } catch (IOException e) {
+                        return;
+                    }
+                }
+            });
+
+            new DownloadManager(new HttpService(), 1, 16)
+                    .download(URI.create("http://127.0.0.1:" + socket.getLocalPort() + "/bundle.qboot"), target);
+        }
+
+        assertArrayEquals(content, Files.readAllBytes(target));
+        // bytes still in flight when the socket closed may be lost, so the exact offset varies
+        assertEquals(1, ranges.size());
+        long resumedAt = Long.parseLong(ranges.get(0).substring("bytes=".length(), ranges.get(0).indexOf('-')));
+        assertTrue(resumedAt > 0 && resumedAt <= dropAfter, "Resumed at " + resumedAt);
+    }
+}
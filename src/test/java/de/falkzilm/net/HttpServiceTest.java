@@ -0,0 +1,168 @@
+package de.falkzilm.net;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HttpServiceTest {
+
+    private static final String BODY = "<qtemplate>" + "<workspace/>".repeat(500) + "</qtemplate>";
+
+    private HttpServer server;
+    private HttpService http;
+    private final List<String> acceptEncodings = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/plain", exchange -> respond(exchange, null, BODY.getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/gzip", exchange -> {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (OutputStream out = new GZIPOutputStream(buffer)) {
+                out.write(BODY.getBytes(StandardCharsets.UTF_8));
+            }
+            respond(exchange, "gzip", buffer.toByteArray());
+        });
+        server.createContext("/deflate", exchange -> {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try (OutputStream out = new DeflaterOutputStream(buffer)) {
+                out.write(BODY.getBytes(StandardCharsets.UTF_8));
+            }
+            respond(exchange, "deflate", buffer.toByteArray());
+        });
+        server.createContext("/missing", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+        http = new HttpService();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    private void respond(HttpExchange exchange, String encoding, byte[] bytes) throws IOException {
+        acceptEncodings.add(String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding")));
+        if (encoding != null) {
+            exchange.getResponseHeaders().add("Content-Encoding", encoding);
+        }
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + path);
+    }
+
+    @Test
+    void testGzipBodyIsDecodedWhileStreaming() throws Exception {
+        assertEquals(BODY, http.getString(http.request(uri("/gzip")).GET().build()));
+
+        HttpService.Stats stats = http.stats();
+        assertEquals(1, stats.compressedResponses());
+        assertEquals(BODY.length(), stats.bodyBytesDecoded());
+        assertTrue(stats.bodyBytesOnWire() < BODY.length() / 10,
+                "Compressed transfer was " + stats.bodyBytesOnWire() + " bytes");
+        assertEquals("gzip, deflate", acceptEncodings.get(0));
+    }
+
+    @Test
+    void testOfflineRequestsFailWithoutConnecting() {
+        http.setOffline(true);
+
+        OfflineException exc = assertThrows(OfflineException.class,
+                () -> http.getString(http.request(uri("/plain")).GET().build()));
+        assertEquals(List.of(uri("/plain").toString()), exc.getMissing());
+        assertEquals(0, http.stats().requests());
+    }
+
+    @Test
+    void testDeflateBodyIsDecoded() throws Exception {
+        assertEquals(BODY, http.getString(http.request(uri("/deflate")).GET().build()));
+    }
+
+    @Test
+    void testRangeRequestsAreNotCompressed() throws Exception {
+        http.getString(http.request(uri("/plain")).header("Range", "bytes=0-").GET().build());
+
+        assertEquals("null", acceptEncodings.get(0));
+    }
+
+    @Test
+    void testSequentialRequestsAreCountedPerOrigin() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            http.getString(http.request(uri("/plain")).GET().build());
+        }
+
+        HttpService.Stats stats = http.stats();
+        assertEquals(3, stats.requests());
+        HttpService.OriginStats origin = stats.origins().get("http://127.0.0.1:" + server.getAddress().getPort());
+        assertEquals(3, origin.requests());
+        assertEquals(1, origin.peakInFlight());
+        assertEquals(0, stats.compressedResponses());
+        assertEquals(stats.bodyBytesOnWire(), stats.bodyBytesDecoded());
+    }
+
+    @Test
+    void testSendAsyncDecodesBody() throws Exception {
+        HttpResponse<InputStream> response = http.sendAsync(http.request(uri("/gzip")).GET().build()).get();
+
+        try (InputStream body = response.body()) {
+            assertEquals(BODY, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testDownloadWritesTarget() throws Exception {
+        Path target = Files.createTempDirectory("qboot-http-test").resolve("nested/out.xml");
+
+        http.download(http.request(uri("/gzip")).GET().build(), target);
+
+        assertEquals(BODY, Files.readString(target));
+        Files.delete(target);
+    }
+
+    @Test
+    void testErrorStatusFails() {
+        IOException exc = assertThrows(IOException.class,
+                () -> http.getBytes(http.request(uri("/missing")).GET().build()));
+        assertTrue(exc.getMessage().contains("Not Found"));
+    }
+
+    @Test
+    void testStreamedBodyCountsAsInFlightUntilClosed() throws Exception {
+        HttpResponse<InputStream> first = http.send(http.request(uri("/plain")).GET().build());
+        try (InputStream body = http.send(http.request(uri("/plain")).GET().build()).body()) {
+            body.readAllBytes();
+        }
+        first.body().close();
+        http.getString(http.request(uri("/plain")).GET().build());
+
+        HttpService.OriginStats origin = http.stats().origins().get("http://127.0.0.1:" + server.getAddress().getPort());
+        assertEquals(3, origin.requests());
+        assertEquals(2, origin.peakInFlight());
+    }
+}
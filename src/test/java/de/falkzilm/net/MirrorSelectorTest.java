@@ -0,0 +1,121 @@
+package de.falkzilm.net;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MirrorSelectorTest {
+
+    private static final URI PRIMARY = URI.create("https://mirror-a.example/template.xml");
+    private static final URI SECONDARY = URI.create("https://mirror-b.example/template.xml");
+
+    private Path historyFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        historyFile = Files.createTempDirectory("qboot-mirror-test").resolve("mirror-latency.properties");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(historyFile);
+        Files.deleteIfExists(historyFile.getParent());
+    }
+
+    private MirrorSelector selector() {
+        return new MirrorSelector(historyFile, 95, Duration.ofMillis(100));
+    }
+
+    @Test
+    void testSlowPrimaryIsHedgedAndCancelled() throws Exception {
+        CountDownLatch primaryCancelled = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        MirrorSelector.Winner<String> winner = selector().fetch(List.of(PRIMARY, SECONDARY), uri -> {
+            if (uri.equals(PRIMARY)) {
+                try {
+                    Thread.sleep(5_000);
+                } catch (InterruptedException e) {
+                    primaryCancelled.countDown();
+                    throw e;
+                }
+            }
+            return uri.getHost();
+        });
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(SECONDARY, winner.uri());
+        assertEquals("mirror-b.example", winner.value());
+        assertTrue(elapsedMs < 2_000, "Hedged fetch took " + elapsedMs + "ms");
+        assertTrue(primaryCancelled.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFastPrimaryIsNotHedged() throws Exception {
+        MirrorSelector.Winner<String> winner = selector().fetch(List.of(PRIMARY, SECONDARY), uri -> {
+            if (uri.equals(SECONDARY)) {
+                fail("Secondary mirror must not be asked");
+            }
+            return "primary";
+        });
+
+        assertEquals(PRIMARY, winner.uri());
+    }
+
+    @Test
+    void testFailedMirrorFallsBackImmediately() throws Exception {
+        MirrorSelector.Winner<String> winner = new MirrorSelector(historyFile, 95, Duration.ofSeconds(30))
+                .fetch(List.of(PRIMARY, SECONDARY), uri -> {
+                    if (uri.equals(PRIMARY)) {
+                        throw new IOException("HTTP 503");
+                    }
+                    return "secondary";
+                });
+
+        assertEquals(SECONDARY, winner.uri());
+    }
+
+    @Test
+    void testAllMirrorsFailing() {
+        IOException exc = assertThrows(IOException.class, () -> selector().fetch(List.of(PRIMARY, SECONDARY), uri -> {
+            throw new IOException("HTTP 404");
+        }));
+        assertTrue(exc.getMessage().contains("HTTP 404"));
+    }
+
+    @Test
+    void testHistoryChoosesPrimaryAcrossRuns() throws Exception {
+        selector().fetch(List.of(PRIMARY, SECONDARY), uri -> {
+            if (uri.equals(PRIMARY)) {
+                Thread.sleep(1_000);
+            }
+            return uri;
+        });
+
+        // the slow mirror is ordered last in the next run, even though it is listed first
+        assertEquals(List.of(SECONDARY, PRIMARY), selector().order(List.of(PRIMARY, SECONDARY)));
+    }
+
+    @Test
+    void testHedgeDelayUsesPercentileOfHistory() {
+        MirrorSelector selector = new MirrorSelector(null, 90, Duration.ofMillis(700));
+        assertEquals(Duration.ofMillis(700), selector.hedgeDelay(PRIMARY));
+
+        for (int i = 1; i <= 10; i++) {
+            selector.record(PRIMARY, Duration.ofMillis(i * 10L));
+        }
+
+        assertEquals(Duration.ofMillis(90), selector.hedgeDelay(PRIMARY));
+    }
+}
@@ -0,0 +1,122 @@
+package de.falkzilm.template;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateBundleTest {
+
+    private Path tempDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("qboot-bundle-test");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (var paths = Files.walk(tempDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private Path templateDir() throws IOException {
+        Path dir = Files.createDirectories(tempDir.resolve("tpl"));
+        Files.writeString(dir.resolve("qtemplate.xml"), "<qtemplate><workspaces/></qtemplate>");
+        Files.createDirectories(dir.resolve("ci"));
+        Files.writeString(dir.resolve("ci/pipeline.yml"), "stages: [build]\n");
+        Files.write(dir.resolve("logo.png"), new byte[]{(byte) 0x89, 'P', 'N', 'G', 0, 1, 2, 3});
+        return dir;
+    }
+
+    @Test
+    void testWriteAndOpenBundle() throws IOException {
+        Path dir = templateDir();
+        Path bundleFile = tempDir.resolve("tpl.qboot");
+
+        int assets = TemplateBundle.write(dir, dir.resolve("qtemplate.xml"), bundleFile);
+        assertEquals(2, assets);
+
+        TemplateBundle bundle = TemplateBundle.open(bundleFile);
+        assertEquals("<qtemplate><workspaces/></qtemplate>", bundle.descriptor());
+        assertTrue(bundle.hasAsset("ci/pipeline.yml"));
+        assertTrue(bundle.hasAsset("logo.png"));
+        assertFalse(bundle.hasAsset("qtemplate.xml"));
+    }
+
+    @Test
+    void testCopyAssetWritesExactBytes() throws IOException {
+        Path dir = templateDir();
+        Path bundleFile = tempDir.resolve("tpl.qboot");
+        TemplateBundle.write(dir, dir.resolve("qtemplate.xml"), bundleFile);
+
+        Path target = tempDir.resolve("copied.png");
+        TemplateBundle.open(bundleFile).copyAsset("logo.png", target);
+
+        assertArrayEquals(Files.readAllBytes(dir.resolve("logo.png")), Files.readAllBytes(target));
+    }
+
+    @Test
+    void testBundleIsReadableZipWithStoredEntries() throws IOException {
+        Path dir = templateDir();
+        Path bundleFile = tempDir.resolve("tpl.qboot");
+        TemplateBundle.write(dir, dir.resolve("qtemplate.xml"), bundleFile);
+
+        try (ZipFile zip = new ZipFile(bundleFile.toFile())) {
+            assertEquals(TemplateBundle.INDEX_ENTRY, zip.entries().nextElement().getName());
+            zip.stream().forEach(entry -> assertEquals(ZipEntry.STORED, entry.getMethod()));
+            ZipEntry asset = zip.getEntry(TemplateBundle.ASSET_PREFIX + "ci/pipeline.yml");
+            assertEquals("stages: [build]\n",
+                    new String(zip.getInputStream(asset).readAllBytes(), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Test
+    void testInMemoryBundle() throws IOException {
+        Path dir = templateDir();
+        Path bundleFile = tempDir.resolve("tpl.qboot");
+        TemplateBundle.write(dir, dir.resolve("qtemplate.xml"), bundleFile);
+
+        TemplateBundle bundle = TemplateBundle.of(Files.readAllBytes(bundleFile));
+        assertEquals("stages: [build]\n", StandardCharsets.UTF_8.decode(bundle.asset("ci/pipeline.yml")).toString());
+    }
+
+    @Test
+    void testMissingAssetFails() throws IOException {
+        Path dir = templateDir();
+        Path bundleFile = tempDir.resolve("tpl.qboot");
+        TemplateBundle.write(dir, dir.resolve("qtemplate.xml"), bundleFile);
+
+        TemplateBundle bundle = TemplateBundle.open(bundleFile);
+        assertThrows(IOException.class, () -> bundle.asset("missing.txt"));
+    }
+
+    @Test
+    void testRejectsNonBundle() throws IOException {
+        Path notABundle = tempDir.resolve("plain.qboot");
+        Files.writeString(notABundle, "<qtemplate/>");
+
+        assertThrows(IOException.class, () -> TemplateBundle.open(notABundle));
+    }
+
+    @Test
+    void testIsBundle() {
+        assertTrue(TemplateBundle.isBundle("./templates/service.qboot"));
+        assertTrue(TemplateBundle.isBundle("https://example.com/service.QBOOT"));
+        assertTrue(TemplateBundle.isBundle("https://example.com/service.qboot?token=abc"));
+        assertTrue(TemplateBundle.isBundle("https://example.com/service.qboot#v2"));
+        assertFalse(TemplateBundle.isBundle("https://example.com/service.xml"));
+        assertFalse(TemplateBundle.isBundle("https://example.com/download?file=service.qboot"));
+        assertFalse(TemplateBundle.isBundle(null));
+    }
+}
@@ -0,0 +1,241 @@
+package de.falkzilm.template;
+
+import com.fasterxml.jackson.dataformat.xml.JacksonXmlModule;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.sun.net.httpserver.HttpServer;
+import de.falkzilm.net.HttpService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TemplateResolverTest {
+
+    private static final long DELAY_MS = 400;
+
+    private HttpServer server;
+    private Path tempDir;
+    private XmlMapper xmlMapper;
+    private RemoteFetcher fetcher;
+    private final List<String> conditionalRequests = new CopyOnWriteArrayList<>();
+
+    private final Map<String, String> documents = Map.of(
+            "/shared/ci-workspace.xml", """
+                    <workspaces>
+                        <workspace path="ci">
+                            <general><framework>nodejs</framework><projectName>ci</projectName></general>
+                        </workspace>
+                    </workspaces>
+                    """,
+            "/shared/lint.xml", """
+                    <structure>
+                        <changeset type="add">
+                            <path name=".editorconfig" src="editorconfig.txt" />
+                        </changeset>
+                    </structure>
+                    """,
+            "/shared/editorconfig.txt", "root = true",
+            "/shared/readme.md", "# Hello");
+
+    @BeforeEach
+    void setUp() throws IOException {
+        tempDir = Files.createTempDirectory("qboot-resolver-test");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/", exchange -> {
+            String body = documents.get(exchange.getRequestURI().getPath());
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (ifNoneMatch != null) {
+                conditionalRequests.add(exchange.getRequestURI().getPath());
+            }
+            try {
+                Thread.sleep(DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (body == null) {
+                exchange.sendResponseHeaders(404, -1);
+            } else if ("\"v1\"".equals(ifNoneMatch)) {
+                exchange.sendResponseHeaders(304, -1);
+            } else {
+                byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("ETag", "\"v1\"");
+                exchange.sendResponseHeaders(200, bytes.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+            exchange.close();
+        });
+        server.start();
+
+        JacksonXmlModule module = new JacksonXmlModule();
+        module.setDefaultUseWrapper(false);
+        xmlMapper = new XmlMapper(module);
+        fetcher = new RemoteFetcher(new HttpService(), new TemplateCache(tempDir.resolve("cache")), 6);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.stop(0);
+        try (var paths = Files.walk(tempDir)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private String base() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private QTemplate template() throws IOException {
+        return xmlMapper.readValue("""
+                <qtemplate>
+                    <workspaces>
+                        <workspace>
+                            <general><framework>quarkus</framework><projectName>backend</projectName></general>
+                            <structure value="custom">
+                                <changeset type="add">
+                                    <path name="README.md" src="%1$s/shared/readme.md" />
+                                </changeset>
+                                <include href="%1$s/shared/lint.xml" />
+                            </structure>
+                        </workspace>
+                        <include href="%1$s/shared/ci-workspace.xml" />
+                    </workspaces>
+                </qtemplate>
+                """.formatted(base()), QTemplate.class);
+    }
+
+    @Test
+    void testIncludesAndSourcesAreResolved() throws Exception {
+        QTemplate template = template();
+
+        new TemplateResolver(xmlMapper, fetcher).resolve(template, URI.create(base() + "/main.xml"));
+
+        List<Workspace> workspaces = template.getWorkspaces().getItems();
+        assertEquals(2, workspaces.size());
+        assertEquals("ci", workspaces.get(1).getPath());
+
+        Structure structure = workspaces.get(0).getStructure();
+        assertEquals(2, structure.changeset.size());
+        assertEquals("# Hello", structure.changeset.get(0).paths.get(0).content);
+        // nested source is resolved relative to the fragment that declares it
+        assertEquals("root = true", structure.changeset.get(1).paths.get(0).content);
+    }
+
+    @Test
+    void testFetchesOfOneLevelRunConcurrently() throws Exception {
+        QTemplate template = template();
+
+        long start = System.nanoTime();
+        new TemplateResolver(xmlMapper, fetcher).resolve(template, URI.create(base() + "/main.xml"));
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        // three fetches on the first level plus one nested fetch; sequential would take four delays
+        assertTrue(elapsedMs < DELAY_MS * 3, "Resolution took " + elapsedMs + "ms");
+    }
+
+    @Test
+    void testLocalIncludesResolveAgainstTemplateFile() throws Exception {
+        Files.writeString(tempDir.resolve("fragment.xml"), documents.get("/shared/ci-workspace.xml"));
+        QTemplate template = xmlMapper.readValue("""
+                <qtemplate>
+                    <workspaces>
+                        <include href="fragment.xml" />
+                    </workspaces>
+                </qtemplate>
+                """, QTemplate.class);
+
+        new TemplateResolver(xmlMapper, fetcher).resolve(template, tempDir.resolve("main.xml").toUri());
+
+        assertEquals(1, template.getWorkspaces().getItems().size());
+    }
+
+    @Test
+    void testConditionalGetServesCachedContent() throws Exception {
+        URI uri = URI.create(base() + "/shared/readme.md");
+
+        assertEquals("# Hello", fetcher.fetch(uri, "*/*"));
+        assertEquals("# Hello", fetcher.fetch(uri, "*/*"));
+
+        assertEquals(List.of("/shared/readme.md"), conditionalRequests);
+    }
+
+    @Test
+    void testMissingIncludeFails() throws Exception {
+        QTemplate template = xmlMapper.readValue("""
+                <qtemplate>
+                    <workspaces>
+                        <include href="%s/shared/missing.xml" />
+                    </workspaces>
+                </qtemplate>
+                """.formatted(base()), QTemplate.class);
+
+        assertThrows(IOException.class,
+                () -> new TemplateResolver(xmlMapper, fetcher).resolve(template, URI.create(base() + "/main.xml")));
+    }
+
+    @Test
+    void testRemoteTemplateCannotIncludeLocalFiles() throws Exception {
+        Path secret = Files.writeString(tempDir.resolve("secret.txt"), "token");
+        QTemplate template = xmlMapper.readValue("""
+                <qtemplate>
+                    <workspaces>
+                        <workspace>
+                            <general><framework>quarkus</framework><projectName>backend</projectName></general>
+                            <structure value="custom">
+                                <changeset type="add">
+                                    <path name="leak.txt" src="%s" />
+                                </changeset>
+                            </structure>
+                        </workspace>
+                    </workspaces>
+                </qtemplate>
+                """.formatted(secret.toUri()), QTemplate.class);
+
+        IOException e = assertThrows(IOException.class,
+                () -> new TemplateResolver(xmlMapper, fetcher).resolve(template, URI.create(base() + "/main.xml")));
+        assertTrue(e.getMessage().contains("not allowed"), e.getMessage());
+    }
+
+    @Test
+    void testBundleIncludesResolveToBundleEntries() throws Exception {
+        Path source = Files.createDirectories(tempDir.resolve("bundle-src"));
+        Files.createDirectories(source.resolve("shared"));
+        Files.writeString(source.resolve("shared/ci-workspace.xml"), documents.get("/shared/ci-workspace.xml"));
+        Path descriptor = Files.writeString(source.resolve("qtemplate.xml"), """
+                <qtemplate>
+                    <workspaces>
+                        <include href="shared/ci-workspace.xml" />
+                    </workspaces>
+                </qtemplate>
+                """);
+        Path bundleFile = tempDir.resolve("service.qboot");
+        TemplateBundle.write(source, descriptor, bundleFile);
+        // a file next to the bundle must not be picked up instead of the entry
+        Files.createDirectories(tempDir.resolve("shared"));
+        Files.writeString(tempDir.resolve("shared/ci-workspace.xml"), "<workspaces/>");
+
+        TemplateBundle bundle = TemplateBundle.open(bundleFile);
+        QTemplate template = xmlMapper.readValue(bundle.descriptor(), QTemplate.class);
+        template.setBundle(bundle);
+        new TemplateResolver(xmlMapper, fetcher).resolve(template, TemplateResolver.BUNDLE_BASE);
+
+        assertEquals("ci", template.getWorkspaces().getItems().get(0).getPath());
+        assertThrows(IOException.class, () -> TemplateResolver.reference(TemplateResolver.BUNDLE_BASE, tempDir.resolve("x.xml").toUri().toString()));
+    }
+}